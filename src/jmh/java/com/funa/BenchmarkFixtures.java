@@ -0,0 +1,141 @@
+package com.funa;
+
+import com.funa.common.entity.BaseEntity;
+import com.funa.feature.Feature;
+import com.funa.folder.Folder;
+import com.funa.sequencediagram.SequenceDiagram;
+import com.funa.sqlquery.SqlQuery;
+import com.funa.templateprompt.TemplatePrompt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Detached entity graphs shaped like the data the API serves, shared by the benchmarks.
+ * Every entity has its audit fields set, and the TEXT columns are a few kilobytes long.
+ */
+public final class BenchmarkFixtures {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    private BenchmarkFixtures() {
+        // Utility class, do not instantiate
+    }
+
+    /**
+     * Create root folders, each with child folders and features directly inside it.
+     *
+     * @param count The number of root folders
+     * @param childFolders The number of child folders of each root folder
+     * @param features The number of features of each root folder
+     * @return The root folders
+     */
+    public static List<Folder> folders(int count, int childFolders, int features) {
+        TemplatePrompt templatePrompt = templatePrompt();
+        List<Folder> folders = new ArrayList<>(count);
+        long nextId = 1;
+        for (int i = 0; i < count; i++) {
+            Folder folder = folder(nextId++, null);
+            for (int j = 0; j < childFolders; j++) {
+                folder.getFolders().add(folder(nextId++, folder));
+            }
+            for (int j = 0; j < features; j++) {
+                folder.getFeatures().add(feature(nextId++, folder, templatePrompt));
+            }
+            folders.add(folder);
+        }
+        return folders;
+    }
+
+    /**
+     * Create features that all live in one folder and share one template prompt,
+     * each with its own sequence diagram and SQL query.
+     *
+     * @param count The number of features
+     * @return The features
+     */
+    public static List<Feature> features(int count) {
+        Folder folder = folder(1L, null);
+        TemplatePrompt templatePrompt = templatePrompt();
+        List<Feature> features = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            features.add(feature(i + 2L, folder, templatePrompt));
+        }
+        return features;
+    }
+
+    private static Folder folder(Long id, Folder parent) {
+        Folder folder = new Folder();
+        folder.setId(id);
+        folder.setName("Folder " + id);
+        folder.setDescription("Description of folder " + id);
+        folder.setParent(parent);
+        folder.setPath((parent != null ? parent.getPath() : "/") + id + "/");
+        return audited(folder);
+    }
+
+    private static Feature feature(Long id, Folder folder, TemplatePrompt templatePrompt) {
+        SequenceDiagram sequenceDiagram = new SequenceDiagram();
+        sequenceDiagram.setId(id);
+        sequenceDiagram.setName("Sequence diagram " + id);
+        sequenceDiagram.setSequenceDiagramContent(sequenceDiagramContent(id));
+
+        SqlQuery sqlQuery = new SqlQuery();
+        sqlQuery.setId(id);
+        sqlQuery.setName("SQL query " + id);
+        sqlQuery.setQueryContent(sqlQueryContent(id));
+
+        Feature feature = new Feature();
+        feature.setId(id);
+        feature.setName("Feature " + id);
+        feature.setDescription("Description of feature " + id);
+        feature.setFolder(folder);
+        feature.setTemplatePrompt(templatePrompt);
+        feature.setSequenceDiagram(audited(sequenceDiagram));
+        feature.setSqlQuery(audited(sqlQuery));
+        return audited(feature);
+    }
+
+    private static TemplatePrompt templatePrompt() {
+        StringBuilder content = new StringBuilder("You are a senior developer. Implement the feature below.\n\n");
+        for (int i = 0; i < 40; i++) {
+            content.append("- Rule ").append(i).append(": follow the conventions of the existing code base.\n");
+        }
+        content.append("\n{{sequence_diagram}}\n\n{{sql_query}}\n");
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setId(1L);
+        templatePrompt.setName("Implementation prompt");
+        templatePrompt.setPromptContent(content.toString());
+        return audited(templatePrompt);
+    }
+
+    private static String sequenceDiagramContent(Long id) {
+        StringBuilder content = new StringBuilder("sequenceDiagram\n");
+        for (int i = 0; i < 30; i++) {
+            content.append("    Client->>Service").append(i % 5).append(": request ").append(id).append('-').append(i).append('\n');
+            content.append("    Service").append(i % 5).append("-->>Client: response \"ok\"\n");
+        }
+        return content.toString();
+    }
+
+    private static String sqlQueryContent(Long id) {
+        StringBuilder content = new StringBuilder("SELECT f.id, f.name, d.name AS folder_name\nFROM tb_feature f\n");
+        for (int i = 0; i < 20; i++) {
+            content.append("LEFT JOIN tb_table_").append(i).append(" t").append(i)
+                    .append(" ON t").append(i).append(".feature_id = f.id\n");
+        }
+        content.append("WHERE f.id = ").append(id).append(";\n");
+        return content.toString();
+    }
+
+    private static <T extends BaseEntity> T audited(T entity) {
+        ReflectionTestUtils.setField(entity, "createdAt", TIMESTAMP);
+        ReflectionTestUtils.setField(entity, "createdId", "benchmark");
+        ReflectionTestUtils.setField(entity, "updatedAt", TIMESTAMP);
+        ReflectionTestUtils.setField(entity, "updatedId", "benchmark");
+        return entity;
+    }
+}
@@ -0,0 +1,157 @@
+package com.funa.common.logging;
+
+import com.funa.common.config.SecurityConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of the servlet filters that run in front of every controller.
+ * Each benchmark sends one JSON POST through a single filter to a stand-in servlet;
+ * the baseline runs the same request without a filter, to be subtracted from the others.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestFilterBenchmark {
+
+    private static final byte[] BODY = "{\"name\":\"Feature\",\"description\":\"Benchmark request\",\"folderId\":1}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private LoggingFilter loggingFilter;
+    private RequestLogWriter requestLogWriter;
+    private RequestPayloadLoggingFilter sampledRequestLoggingFilter;
+    private RequestPayloadLoggingFilter unsampledRequestLoggingFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        loggingFilter = new LoggingFilter(new SqlBudgetProperties());
+        RequestLoggingProperties sampled = new RequestLoggingProperties();
+        sampled.setSampleRate(1);
+        RequestLoggingProperties unsampled = new RequestLoggingProperties();
+        unsampled.setSampleRate(0);
+        requestLogWriter = new RequestLogWriter(sampled, new SimpleMeterRegistry());
+        requestLogWriter.start();
+        sampledRequestLoggingFilter = new RequestPayloadLoggingFilter(sampled, requestLogWriter);
+        unsampledRequestLoggingFilter = new RequestPayloadLoggingFilter(unsampled, requestLogWriter);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestLogWriter.stop();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse baseline() throws ServletException, IOException {
+        return filter(null);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse loggingFilter() throws ServletException, IOException {
+        return filter(loggingFilter);
+    }
+
+    /**
+     * A request that is logged: the request thread only captures the payloads and queues the event.
+     */
+    @Benchmark
+    public MockHttpServletResponse sampledRequestLoggingFilter() throws ServletException, IOException {
+        return filter(sampledRequestLoggingFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse unsampledRequestLoggingFilter() throws ServletException, IOException {
+        return filter(unsampledRequestLoggingFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse securityFilterChain(SecurityState security) throws ServletException, IOException {
+        return filter(security.filterChain);
+    }
+
+    private static MockHttpServletResponse filter(Filter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/features");
+        request.setContentType("application/json");
+        request.addHeader("Accept", "application/json");
+        request.setContent(BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = filter != null
+                ? new MockFilterChain(new NoContentServlet(), filter)
+                : new MockFilterChain(new NoContentServlet());
+        chain.doFilter(request, response);
+        return response;
+    }
+
+    /**
+     * Web application context holding only the security and MVC configuration,
+     * so the security filter chain is built exactly as in the application.
+     */
+    @State(Scope.Benchmark)
+    public static class SecurityState {
+
+        private AnnotationConfigWebApplicationContext context;
+        private Filter filterChain;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new AnnotationConfigWebApplicationContext();
+            context.setServletContext(new MockServletContext());
+            context.register(WebConfig.class, SecurityConfig.class);
+            context.refresh();
+            filterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    /**
+     * Spring MVC infrastructure the request matchers of the security configuration depend on.
+     */
+    @Configuration
+    @EnableWebMvc
+    static class WebConfig {
+    }
+
+    /**
+     * Stands in for the dispatcher servlet, reading the body the way a controller would.
+     */
+    private static class NoContentServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            request.getInputStream().readAllBytes();
+            response.setStatus(204);
+        }
+    }
+}
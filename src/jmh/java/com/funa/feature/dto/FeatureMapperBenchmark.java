@@ -0,0 +1,74 @@
+package com.funa.feature.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.funa.BenchmarkFixtures;
+import com.funa.feature.Feature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping features to response DTOs and of serializing the DTOs to JSON,
+ * the two steps behind every feature listing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeatureMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int features;
+
+    private final FeatureMapper featureMapper = new FeatureMapper();
+    private List<Feature> entities;
+    private List<FeatureResponseDto> dtos;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        entities = BenchmarkFixtures.features(features);
+        dtos = featureMapper.toDtoList(entities);
+        // Configured like the ObjectMapper Spring Boot gives the message converters
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, FeatureResponseDto.class));
+    }
+
+    @Benchmark
+    public FeatureResponseDto toDto() {
+        return featureMapper.toDto(entities.get(0));
+    }
+
+    @Benchmark
+    public List<FeatureResponseDto> toDtoList() {
+        return featureMapper.toDtoList(entities);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws IOException {
+        return writer.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public void serializeToStream() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), dtos);
+    }
+}
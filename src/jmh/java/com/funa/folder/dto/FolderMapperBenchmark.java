@@ -0,0 +1,51 @@
+package com.funa.folder.dto;
+
+import com.funa.BenchmarkFixtures;
+import com.funa.folder.Folder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping folders with their child folders and features to response DTOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FolderMapperBenchmark {
+
+    @Param({"10", "100"})
+    private int childrenPerFolder;
+
+    private final FolderMapper folderMapper = new FolderMapper();
+    private List<Folder> folders;
+
+    @Setup
+    public void setUp() {
+        folders = BenchmarkFixtures.folders(50, childrenPerFolder, childrenPerFolder);
+    }
+
+    @Benchmark
+    public FolderResponseDto toDto() {
+        return folderMapper.toDto(folders.get(0));
+    }
+
+    @Benchmark
+    public List<FolderResponseDto> toDtoList() {
+        return folderMapper.toDtoList(folders);
+    }
+}
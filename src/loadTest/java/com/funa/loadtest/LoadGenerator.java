@@ -0,0 +1,151 @@
+package com.funa.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load generator: requests are started at a fixed arrival rate whether or not
+ * the previous ones have completed, each on its own virtual thread, like independent users would.
+ * Latency is measured from the scheduled start of a request, which accounts for coordinated omission.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final WorkloadMix mix;
+    private final LoadTestTargets targets;
+    private final HttpClient httpClient;
+
+    public LoadGenerator(String baseUrl, WorkloadMix mix, LoadTestTargets targets) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.targets = targets;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Send requests at a fixed rate for a while and record their latencies.
+     *
+     * @param rate The arrival rate in requests per second
+     * @param duration How long to send requests for
+     * @return The recorded latencies by endpoint
+     */
+    public Recording run(int rate, Duration duration) throws InterruptedException {
+        Recording recording = new Recording(mix);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = duration.toNanos() / intervalNanos;
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long scheduled = start + i * intervalNanos;
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                WorkloadMix.Endpoint endpoint = mix.next();
+                String uri = endpoint.uri().apply(targets);
+                executor.execute(() -> send(endpoint, uri, scheduled, recording));
+            }
+            // Closing the executor waits for the requests still in flight
+        }
+        recording.elapsedNanos = System.nanoTime() - start;
+        return recording;
+    }
+
+    private void send(WorkloadMix.Endpoint endpoint, String uri, long scheduled, Recording recording) {
+        boolean failed;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + uri))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() >= 400;
+            if (failed) {
+                logger.debug("{} returned {}", uri, response.statusCode());
+            }
+        } catch (Exception e) {
+            logger.debug("{} failed: {}", uri, e.toString());
+            failed = true;
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        recording.record(endpoint, System.nanoTime() - scheduled, failed);
+    }
+
+    /**
+     * Latencies and errors recorded during a run, by endpoint.
+     */
+    public static class Recording {
+
+        private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+        private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+        private final Histogram all = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder allErrors = new LongAdder();
+        private long elapsedNanos;
+
+        private Recording(WorkloadMix mix) {
+            for (WorkloadMix.Endpoint endpoint : mix.getEndpoints()) {
+                histograms.put(endpoint.name(), new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+                errors.put(endpoint.name(), new LongAdder());
+            }
+        }
+
+        private void record(WorkloadMix.Endpoint endpoint, long latencyNanos, boolean failed) {
+            long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+            histograms.get(endpoint.name()).recordValue(micros);
+            all.recordValue(micros);
+            if (failed) {
+                errors.get(endpoint.name()).increment();
+                allErrors.increment();
+            }
+        }
+
+        /**
+         * Summarize the recording.
+         *
+         * @param mix The workload mix of the run
+         * @param threads The request thread mode of the application
+         * @param rate The target arrival rate of the run
+         * @param features The number of seeded features
+         * @return The load test result
+         */
+        public LoadTestResult toResult(WorkloadMix mix, String threads, int rate, long features) {
+            Map<String, LoadTestResult.EndpointResult> endpoints = new LinkedHashMap<>();
+            histograms.forEach((name, histogram) -> {
+                if (histogram.getTotalCount() > 0) {
+                    endpoints.put(name, LoadTestResult.EndpointResult.of(histogram, errors.get(name).sum()));
+                }
+            });
+            double seconds = elapsedNanos / 1e9;
+            return new LoadTestResult(mix.name().toLowerCase(), threads, rate, Math.round(seconds), features,
+                    all.getTotalCount() / seconds, LoadTestResult.EndpointResult.of(all, allErrors.sum()), endpoints);
+        }
+    }
+}
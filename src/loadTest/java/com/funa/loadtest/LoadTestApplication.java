@@ -0,0 +1,102 @@
+package com.funa.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.funa.AcceleratorBackApplication;
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.dataset.Dataset;
+import com.funa.dataset.DatasetGenerator;
+import com.funa.dataset.DatasetShape;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Boots the application on a local port, seeds it with a synthetic dataset and drives it with a workload mix
+ * at a fixed arrival rate. Run it with {@code ./gradlew loadTest}; settings are system properties:
+ * <ul>
+ *     <li>{@code loadtest.mix}: mixed, browse or content (default mixed)</li>
+ *     <li>{@code loadtest.rate}: requests per second (default 50)</li>
+ *     <li>{@code loadtest.warmup} and {@code loadtest.duration}: phase lengths in seconds (default 15 and 60)</li>
+ *     <li>{@code loadtest.result}: result file (default build/reports/loadtest/result.json)</li>
+ *     <li>{@code spring.threads.virtual.enabled}: serve requests on virtual threads (default false)</li>
+ *     <li>{@code loadtest.roots}, {@code loadtest.depth}, ...: dataset shape, see {@link DatasetShape}</li>
+ * </ul>
+ * The warm-up phase runs the same mix, but its latencies are discarded.
+ */
+public class LoadTestApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    public static void main(String[] args) throws Exception {
+        WorkloadMix mix = WorkloadMix.valueOf(System.getProperty("loadtest.mix", "mixed").toUpperCase(Locale.ROOT));
+        int rate = Integer.getInteger("loadtest.rate", 50);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 15));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 60));
+        Path resultFile = Path.of(System.getProperty("loadtest.result", "build/reports/loadtest/result.json"));
+        DatasetShape shape = DatasetShape.fromSystemProperties("loadtest", new DatasetShape(20, 3, 5, 10, 2048, 10));
+
+        // Passed as command line arguments, which take precedence over application.properties
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=" + System.getProperty("loadtest.port", "0"),
+                // SQL echoed to stdout would dominate the measurements
+                "--spring.jpa.show-sql=false"));
+        arguments.addAll(List.of(args));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AcceleratorBackApplication.class)
+                .run(arguments.toArray(String[]::new))) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            Dataset dataset = new DatasetGenerator(jdbcTemplate, context.getBean(SequenceIdAllocator.class)).generate(shape);
+            LoadTestTargets targets = new LoadTestTargets(
+                    dataset.rootFolderIds(),
+                    jdbcTemplate.queryForList("SELECT id FROM tb_folder", Long.class),
+                    jdbcTemplate.queryForList("SELECT id FROM tb_feature", Long.class));
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String threads = context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+                    ? "virtual"
+                    : "platform";
+            LoadGenerator generator = new LoadGenerator("http://localhost:" + port, mix, targets);
+
+            logger.info("Warming up for {} s at {} requests/s ({} mix, {} threads)", warmup.toSeconds(), rate, mix, threads);
+            generator.run(rate, warmup);
+            logger.info("Measuring for {} s at {} requests/s ({} mix, {} threads)", duration.toSeconds(), rate, mix, threads);
+            LoadTestResult result = generator.run(rate, duration).toResult(mix, threads, rate, dataset.features());
+
+            write(result, resultFile);
+            logger.info("Load test results, written to {}:{}", resultFile, format(result));
+        }
+    }
+
+    private static void write(LoadTestResult result, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+    }
+
+    static String format(LoadTestResult result) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%nThroughput %.1f requests/s (target %d, %s threads)%n%-52s %8s %7s %9s %9s %9s %9s%n",
+                result.throughput(), result.rate(), result.threads(), "Endpoint", "Count", "Errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        result.endpoints().forEach((name, endpoint) -> appendRow(table, name, endpoint));
+        appendRow(table, "all", result.all());
+        return table.toString();
+    }
+
+    private static void appendRow(StringBuilder table, String name, LoadTestResult.EndpointResult endpoint) {
+        table.append(String.format(Locale.ROOT, "%-52s %8d %7d %9.2f %9.2f %9.2f %9.2f%n", name, endpoint.count(),
+                endpoint.errors(), endpoint.p50(), endpoint.p95(), endpoint.p99(), endpoint.max()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.funa.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a load test result to a saved baseline and exits with status 1 on a regression:
+ * <ul>
+ *     <li>a p50 or p99 latency more than {@code loadtest.latency-tolerance} (default 0.25) above the baseline,
+ *     ignoring differences below {@code loadtest.latency-floor-ms} (default 2 ms)</li>
+ *     <li>a throughput more than {@code loadtest.throughput-tolerance} (default 0.05) below the baseline</li>
+ *     <li>an error rate more than one percentage point above the baseline</li>
+ * </ul>
+ * Endpoints with fewer than {@code loadtest.min-samples} (default 100) requests in either run are skipped,
+ * since their percentiles are dominated by single requests.
+ * With {@code loadtest.report-only=true} the regressions are only printed, e.g. to compare two configurations.
+ * Usage: {@code LoadTestComparison <baseline.json> <result.json>}.
+ */
+public class LoadTestComparison {
+
+    private static final double ERROR_RATE_TOLERANCE = 0.01;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: LoadTestComparison <baseline.json> <result.json>");
+        }
+        Path baselineFile = Path.of(args[0]);
+        if (!Files.exists(baselineFile)) {
+            System.err.println("No baseline at " + baselineFile + ", save one with ./gradlew loadTestBaseline");
+            System.exit(1);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        LoadTestResult baseline = objectMapper.readValue(baselineFile.toFile(), LoadTestResult.class);
+        LoadTestResult result = objectMapper.readValue(Path.of(args[1]).toFile(), LoadTestResult.class);
+
+        List<String> regressions = new LoadTestComparison(
+                Double.parseDouble(System.getProperty("loadtest.latency-tolerance", "0.25")),
+                Double.parseDouble(System.getProperty("loadtest.latency-floor-ms", "2")),
+                Double.parseDouble(System.getProperty("loadtest.throughput-tolerance", "0.05")),
+                Long.getLong("loadtest.min-samples", 100))
+                .compare(baseline, result);
+
+        System.out.println("Baseline:" + LoadTestApplication.format(baseline));
+        System.out.println("Current:" + LoadTestApplication.format(result));
+        if (!regressions.isEmpty()) {
+            System.err.println("Load test regressions:");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            if (!Boolean.getBoolean("loadtest.report-only")) {
+                System.exit(1);
+            }
+            return;
+        }
+        System.out.println("No regressions against the baseline");
+    }
+
+    private final double latencyTolerance;
+    private final double latencyFloorMillis;
+    private final double throughputTolerance;
+    private final long minSamples;
+
+    LoadTestComparison(double latencyTolerance, double latencyFloorMillis, double throughputTolerance, long minSamples) {
+        this.latencyTolerance = latencyTolerance;
+        this.latencyFloorMillis = latencyFloorMillis;
+        this.throughputTolerance = throughputTolerance;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Compare a result to a baseline.
+     *
+     * @param baseline The baseline result
+     * @param result The result of the current run
+     * @return Descriptions of the regressions, empty if there are none
+     */
+    List<String> compare(LoadTestResult baseline, LoadTestResult result) {
+        List<String> regressions = new ArrayList<>();
+        if (!baseline.mix().equals(result.mix()) || baseline.rate() != result.rate()) {
+            regressions.add(String.format(Locale.ROOT, "Runs are not comparable: baseline %s at %d requests/s, current %s at %d requests/s",
+                    baseline.mix(), baseline.rate(), result.mix(), result.rate()));
+            return regressions;
+        }
+
+        if (result.throughput() < baseline.throughput() * (1 - throughputTolerance)) {
+            regressions.add(String.format(Locale.ROOT, "throughput: %.1f requests/s, baseline %.1f",
+                    result.throughput(), baseline.throughput()));
+        }
+        compare("all", baseline.all(), result.all(), regressions);
+        for (Map.Entry<String, LoadTestResult.EndpointResult> endpoint : result.endpoints().entrySet()) {
+            LoadTestResult.EndpointResult baselineEndpoint = baseline.endpoints().get(endpoint.getKey());
+            if (baselineEndpoint != null && baselineEndpoint.count() >= minSamples && endpoint.getValue().count() >= minSamples) {
+                compare(endpoint.getKey(), baselineEndpoint, endpoint.getValue(), regressions);
+            }
+        }
+        return regressions;
+    }
+
+    private void compare(String name, LoadTestResult.EndpointResult baseline, LoadTestResult.EndpointResult result,
+                         List<String> regressions) {
+        compareLatency(name, "p50", baseline.p50(), result.p50(), regressions);
+        compareLatency(name, "p99", baseline.p99(), result.p99(), regressions);
+        if (result.errorRate() > baseline.errorRate() + ERROR_RATE_TOLERANCE) {
+            regressions.add(String.format(Locale.ROOT, "%s error rate: %.2f%%, baseline %.2f%%",
+                    name, result.errorRate() * 100, baseline.errorRate() * 100));
+        }
+    }
+
+    private void compareLatency(String name, String percentile, double baseline, double result, List<String> regressions) {
+        if (result > baseline * (1 + latencyTolerance) && result - baseline > latencyFloorMillis) {
+            regressions.add(String.format(Locale.ROOT, "%s %s: %.2f ms, baseline %.2f ms", name, percentile, result, baseline));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.funa.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Outcome of a load test run, written as JSON and compared against a saved baseline.
+ * Latencies are in milliseconds, measured from the time a request was scheduled to be sent,
+ * so a slow server cannot hide its queueing delay by slowing down the load generator.
+ *
+ * @param mix The workload mix
+ * @param threads The request thread mode of the application, virtual or platform
+ * @param rate The target arrival rate in requests per second
+ * @param durationSeconds The length of the measured phase
+ * @param features The number of seeded features
+ * @param throughput The completed requests per second
+ * @param all Results over all endpoints
+ * @param endpoints Results by endpoint name
+ */
+public record LoadTestResult(
+        String mix,
+        String threads,
+        int rate,
+        long durationSeconds,
+        long features,
+        double throughput,
+        EndpointResult all,
+        Map<String, EndpointResult> endpoints) {
+
+    /**
+     * Latency percentiles and error count of an endpoint.
+     *
+     * @param count The number of completed requests
+     * @param errors The number of failed requests, HTTP errors and timeouts included
+     * @param p50 The median latency
+     * @param p95 The 95th percentile latency
+     * @param p99 The 99th percentile latency
+     * @param max The maximum latency
+     */
+    public record EndpointResult(long count, long errors, double p50, double p95, double p99, double max) {
+
+        /**
+         * Summarize a histogram of latencies recorded in microseconds.
+         *
+         * @param histogram The latency histogram
+         * @param errors The number of failed requests
+         * @return The endpoint result
+         */
+        public static EndpointResult of(Histogram histogram, long errors) {
+            return new EndpointResult(
+                    histogram.getTotalCount(),
+                    errors,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(95) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+        }
+
+        /**
+         * Get the share of failed requests.
+         *
+         * @return The error rate, between 0 and 1
+         */
+        public double errorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+    }
+}
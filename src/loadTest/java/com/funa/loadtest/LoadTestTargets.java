@@ -0,0 +1,30 @@
+package com.funa.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * IDs of the seeded rows the requests are sent for, picked uniformly at random.
+ *
+ * @param rootFolderIds IDs of the root folders
+ * @param folderIds IDs of all folders
+ * @param featureIds IDs of all features
+ */
+public record LoadTestTargets(List<Long> rootFolderIds, List<Long> folderIds, List<Long> featureIds) {
+
+    public Long rootFolderId() {
+        return pick(rootFolderIds);
+    }
+
+    public Long folderId() {
+        return pick(folderIds);
+    }
+
+    public Long featureId() {
+        return pick(featureIds);
+    }
+
+    private static Long pick(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
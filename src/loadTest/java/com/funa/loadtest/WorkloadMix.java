@@ -0,0 +1,85 @@
+package com.funa.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Weighted mixes of API requests, modelled on how the front end uses the API.
+ */
+public enum WorkloadMix {
+
+    /**
+     * Browsing the folder tree and listing features, with occasional content and prompt views.
+     */
+    MIXED(List.of(
+            new Endpoint("GET /api/folders/root", 10, targets -> "/api/folders/root"),
+            new Endpoint("GET /api/folders/tree", 5, targets -> "/api/folders/tree?rootId=" + targets.rootFolderId()),
+            new Endpoint("GET /api/folders/{id}", 15, targets -> "/api/folders/" + targets.folderId()),
+            new Endpoint("GET /api/folders/{id}/children", 15, targets -> "/api/folders/" + targets.folderId() + "/children"),
+            new Endpoint("GET /api/folders/{id}/breadcrumbs", 10, targets -> "/api/folders/" + targets.folderId() + "/breadcrumbs"),
+            new Endpoint("GET /api/features", 5, targets -> "/api/features"),
+            new Endpoint("GET /api/features/folder/{id}", 20, targets -> "/api/features/folder/" + targets.folderId()),
+            new Endpoint("GET /api/features/{id}", 10, targets -> "/api/features/" + targets.featureId()),
+            new Endpoint("GET /api/features/{id}/prompt", 5, targets -> "/api/features/" + targets.featureId() + "/prompt"),
+            new Endpoint("GET /api/features/search", 5, targets -> "/api/features/search?name=Feature%20" + targets.featureId()))),
+
+    /**
+     * Folder navigation only.
+     */
+    BROWSE(List.of(
+            new Endpoint("GET /api/folders/root", 10, targets -> "/api/folders/root"),
+            new Endpoint("GET /api/folders/tree", 10, targets -> "/api/folders/tree?rootId=" + targets.rootFolderId()),
+            new Endpoint("GET /api/folders/{id}", 25, targets -> "/api/folders/" + targets.folderId()),
+            new Endpoint("GET /api/folders/{id}/children", 25, targets -> "/api/folders/" + targets.folderId() + "/children"),
+            new Endpoint("GET /api/folders/{id}/breadcrumbs", 15, targets -> "/api/folders/" + targets.folderId() + "/breadcrumbs"),
+            new Endpoint("GET /api/features/folder/{id}", 15, targets -> "/api/features/folder/" + targets.folderId()))),
+
+    /**
+     * Reading TEXT content: features with their content, and rendered prompts.
+     */
+    CONTENT(List.of(
+            new Endpoint("GET /api/features/{id}", 30, targets -> "/api/features/" + targets.featureId()),
+            new Endpoint("GET /api/features?include=content", 10, targets -> "/api/features?include=content"),
+            new Endpoint("GET /api/features/folder/{id}?include=content", 20,
+                    targets -> "/api/features/folder/" + targets.folderId() + "?include=content"),
+            new Endpoint("GET /api/features/{id}/prompt", 40, targets -> "/api/features/" + targets.featureId() + "/prompt")));
+
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    WorkloadMix(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Pick the next endpoint to call, with a probability proportional to its weight.
+     *
+     * @return The endpoint
+     */
+    public Endpoint next() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            value -= endpoint.weight();
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up");
+    }
+
+    /**
+     * An API endpoint of a mix.
+     *
+     * @param name The name results are reported under
+     * @param weight The relative frequency of the endpoint in the mix
+     * @param uri Function building a request URI, path and query, for random targets
+     */
+    public record Endpoint(String name, int weight, Function<LoadTestTargets, String> uri) {
+    }
+}
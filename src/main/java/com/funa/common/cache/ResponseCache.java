@@ -0,0 +1,280 @@
+package com.funa.common.cache;
+
+import com.funa.common.datasource.ReadYourWrites;
+import com.funa.common.event.EntityChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache of response bodies, keyed by route and parameters.
+ * Every entry lists the entity types it was built from. When a change to one of them commits, the entry is
+ * marked stale instead of being dropped: the next request still gets the previous body, and triggers a single
+ * background rebuild whose result replaces it. A burst of writes therefore never makes readers wait for a
+ * rebuild, and never rebuilds the same response more than once at a time. A client inside its read-your-writes
+ * window may have made the change itself, so it gets a stale entry rebuilt on the spot instead. Entries also
+ * expire a while after they were written, as a bound on how long a missed invalidation could go unnoticed.
+ * <p>
+ * Requests are counted in "response.cache.requests" by route and result (hit, stale or miss), with the overall
+ * hit ratio in "response.cache.hit.ratio"; rebuild times are recorded in "response.cache.rebuilds" by route
+ * and trigger (miss or refresh).
+ */
+@Component
+public class ResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private final Cache<ResponseCacheKey, Entry> cache;
+    private final ExecutorService refreshExecutor;
+    private final TransactionTemplate readTransaction;
+    private final ObjectProvider<ReadYourWrites> readYourWrites;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteMeters> routeMeters = new ConcurrentHashMap<>();
+    // Number of committed changes per entity type, to detect a change committed while a body was being built
+    private final Map<Class<?>, AtomicLong> changeCounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResponseCache(
+            @Value("${response.cache.maximum-size:10000}") long maximumSize,
+            @Value("${response.cache.expire-after-write:10m}") Duration expireAfterWrite,
+            @Value("${response.cache.refresh-concurrency:2}") int refreshConcurrency,
+            PlatformTransactionManager transactionManager,
+            ObjectProvider<ReadYourWrites> readYourWrites,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.refreshExecutor = Executors.newFixedThreadPool(
+                refreshConcurrency, Thread.ofPlatform().name("response-cache-", 0).daemon().factory());
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readYourWrites = readYourWrites;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("response.cache.size", cache, Cache::estimatedSize)
+                .description("Approximate number of cached responses")
+                .register(meterRegistry);
+        Gauge.builder("response.cache.hit.ratio", this, ResponseCache::hitRatio)
+                .description("Share of requests answered without waiting for a rebuild")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Get a response body, building and caching it if it is not cached yet.
+     * A stale body is returned as is while it is rebuilt in the background, unless reads of the current thread
+     * are pinned to the primary: then it is rebuilt before returning, so the client sees its own writes.
+     * Inside a transaction the body is built without the cache, since it could contain rows that are never
+     * committed.
+     *
+     * @param key The cache key of the response
+     * @param dependencies The entity types the body is built from
+     * @param builder Builds the body; runs in a read-only transaction, possibly on another thread
+     * @param <T> The type of the body
+     * @return The response body
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ResponseCacheKey key, Set<Class<?>> dependencies, Supplier<T> builder) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return builder.get();
+        }
+        RouteMeters meters = meters(key.route());
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            meters.misses.increment();
+            entry = buildMissing(key, meters, dependencies, builder);
+        } else if (entry.stale && isPinned()) {
+            meters.misses.increment();
+            Entry rebuilt = new Entry(build(meters.missRebuilds, builder), entry.dependencies, false);
+            cache.asMap().replace(key, entry, rebuilt);
+            entry = rebuilt;
+        } else if (entry.stale) {
+            meters.staleHits.increment();
+            refresh(key, entry, meters, builder);
+        } else {
+            meters.hits.increment();
+        }
+        return (T) entry.body;
+    }
+
+    /**
+     * Mark the responses built from an entity type as stale once a change to it has been committed.
+     * Every matching entry is replaced, even one that is already stale, so that a rebuild still running
+     * from data older than this change cannot install its result. Bodies still being built on a miss are not
+     * visible here; they see the change count move once installed and are marked stale.
+     *
+     * @param event The entity change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        changeCount(event.entityType()).incrementAndGet();
+        cache.asMap().replaceAll((key, entry) -> entry.dependencies.contains(event.entityType()) ? entry.toStale() : entry);
+    }
+
+    /**
+     * Get the approximate number of cached responses.
+     *
+     * @return The number of cached responses
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Start the background rebuild of a stale entry, unless one is already running.
+     * If the rebuild fails, e.g. because the resource is gone, the entry is dropped so that the next request
+     * builds the response itself and gets the error.
+     */
+    private void refresh(ResponseCacheKey key, Entry stale, RouteMeters meters, Supplier<?> builder) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Entry rebuilt = new Entry(build(meters.refreshRebuilds, builder), stale.dependencies, false);
+                    cache.asMap().replace(key, stale, rebuilt);
+                } catch (RuntimeException e) {
+                    cache.asMap().remove(key, stale);
+                    logger.debug("Dropping cached response {} after its rebuild failed: {}", key, e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Build the body of an uncached response and install it, unless another request installed one first.
+     * The body is built outside the cache's own locking, so a slow query never blocks the invalidation of other
+     * keys; concurrent misses on the same key may therefore each build the body. If a change to a dependency
+     * committed while the body was built, the body may predate it and the installed entry is marked stale.
+     */
+    private Entry buildMissing(ResponseCacheKey key, RouteMeters meters, Set<Class<?>> dependencies, Supplier<?> builder) {
+        long changes = changeCount(dependencies);
+        Entry built = new Entry(build(meters.missRebuilds, builder), dependencies, false);
+        Entry current = cache.asMap().putIfAbsent(key, built);
+        if (current == null && changeCount(dependencies) != changes) {
+            cache.asMap().replace(key, built, built.toStale());
+        }
+        return built;
+    }
+
+    /**
+     * Build a response body in a read-only transaction. Reads stay on the primary database: an entry rebuilt
+     * from a replica that has not caught up with the change that invalidated it would keep the old data for
+     * every client.
+     */
+    private Object build(Timer timer, Supplier<?> builder) {
+        long start = System.nanoTime();
+        ReadYourWrites routing = readYourWrites.getIfAvailable();
+        Supplier<Object> read = () -> readTransaction.execute(status -> builder.get());
+        Object body = routing != null ? routing.onPrimary(read) : read.get();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return body;
+    }
+
+    private boolean isPinned() {
+        ReadYourWrites routing = readYourWrites.getIfAvailable();
+        return routing != null && routing.isPinned();
+    }
+
+    private AtomicLong changeCount(Class<?> entityType) {
+        return changeCounts.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    private long changeCount(Set<Class<?>> entityTypes) {
+        long changes = 0;
+        for (Class<?> entityType : entityTypes) {
+            changes += changeCount(entityType).get();
+        }
+        return changes;
+    }
+
+    private RouteMeters meters(String route) {
+        return routeMeters.computeIfAbsent(route, r -> new RouteMeters(
+                requestCounter(r, "hit"),
+                requestCounter(r, "stale"),
+                requestCounter(r, "miss"),
+                rebuildTimer(r, "miss"),
+                rebuildTimer(r, "refresh")));
+    }
+
+    private Counter requestCounter(String route, String result) {
+        return Counter.builder("response.cache.requests")
+                .description("Requests for cacheable responses, by result")
+                .tags("route", route, "result", result)
+                .register(meterRegistry);
+    }
+
+    private Timer rebuildTimer(String route, String trigger) {
+        return Timer.builder("response.cache.rebuilds")
+                .description("Time spent building cached responses")
+                .tags("route", route, "trigger", trigger)
+                .register(meterRegistry);
+    }
+
+    private double hitRatio() {
+        double hits = 0;
+        double total = 0;
+        for (RouteMeters meters : routeMeters.values()) {
+            hits += meters.hits.count() + meters.staleHits.count();
+            total += meters.hits.count() + meters.staleHits.count() + meters.misses.count();
+        }
+        return total > 0 ? hits / total : Double.NaN;
+    }
+
+    private record RouteMeters(Counter hits, Counter staleHits, Counter misses, Timer missRebuilds, Timer refreshRebuilds) {
+    }
+
+    /**
+     * A cached body. Entries are compared by identity, so that a rebuild only replaces the exact entry it was
+     * started for.
+     */
+    private static final class Entry {
+        private final Object body;
+        private final Set<Class<?>> dependencies;
+        private final boolean stale;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(Object body, Set<Class<?>> dependencies, boolean stale) {
+            this.body = body;
+            this.dependencies = dependencies;
+            this.stale = stale;
+        }
+
+        Entry toStale() {
+            return new Entry(body, dependencies, true);
+        }
+    }
+}
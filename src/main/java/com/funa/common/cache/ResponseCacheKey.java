@@ -0,0 +1,24 @@
+package com.funa.common.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cache key of a response: the route template of the endpoint plus the values of its parameters.
+ *
+ * @param route The route template, e.g. "/api/folders/{parentId}/children"
+ * @param parameters The path and query parameter values, in a fixed order per route; may contain nulls
+ */
+public record ResponseCacheKey(String route, List<Object> parameters) {
+
+    /**
+     * Build the cache key of a response.
+     *
+     * @param route The route template
+     * @param parameters The parameter values
+     * @return The cache key
+     */
+    public static ResponseCacheKey of(String route, Object... parameters) {
+        return new ResponseCacheKey(route, Arrays.asList(parameters));
+    }
+}
@@ -0,0 +1,23 @@
+package com.funa.common.config;
+
+import com.funa.common.logging.MdcTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Configuration of asynchronous execution.
+ * @Async methods and streamed responses run on the auto-configured application task executor, which uses
+ * virtual threads when spring.threads.virtual.enabled is set and a pool of platform threads otherwise.
+ * Either way, tasks inherit the MDC of the thread that submitted them.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    @Bean
+    public TaskDecorator mdcTaskDecorator() {
+        return new MdcTaskDecorator();
+    }
+}
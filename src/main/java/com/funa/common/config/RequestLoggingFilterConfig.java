@@ -1,28 +1,48 @@
 package com.funa.common.config;
 
+import com.funa.common.logging.RequestLogWriter;
+import com.funa.common.logging.RequestLoggingProperties;
+import com.funa.common.logging.RequestPayloadLoggingFilter;
+import com.funa.common.logging.SqlBudgetProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
 
-/** Configuration for request logging. Sets up a filter to log request details. */
+/**
+ * Configuration for request logging. Sets up a filter logging a sample of the requests with their
+ * payloads, written asynchronously.
+ */
 @Configuration
+@EnableConfigurationProperties({SqlBudgetProperties.class, RequestLoggingProperties.class})
 public class RequestLoggingFilterConfig {
 
   /**
-   * Creates a CommonsRequestLoggingFilter bean to log request details.
+   * Creates the writer thread of the request log events.
    *
-   * @return the configured CommonsRequestLoggingFilter
+   * @param properties the request logging settings
+   * @param meterRegistry the registry of the logged, dropped and queued event metrics
+   * @return the request log writer
    */
   @Bean
-  public CommonsRequestLoggingFilter requestLoggingFilter() {
-    CommonsRequestLoggingFilter loggingFilter = new CommonsRequestLoggingFilter();
-    loggingFilter.setIncludeClientInfo(true);
-    loggingFilter.setIncludeQueryString(true);
-    loggingFilter.setIncludePayload(true);
-    loggingFilter.setMaxPayloadLength(10000);
-    loggingFilter.setIncludeHeaders(true);
-    loggingFilter.setBeforeMessagePrefix("REQUEST DATA : ");
-    loggingFilter.setAfterMessagePrefix("RESPONSE DATA : ");
-    return loggingFilter;
+  @ConditionalOnProperty(name = "request.logging.enabled", havingValue = "true", matchIfMissing = true)
+  public RequestLogWriter requestLogWriter(
+      RequestLoggingProperties properties, MeterRegistry meterRegistry) {
+    return new RequestLogWriter(properties, meterRegistry);
+  }
+
+  /**
+   * Creates the filter capturing the sampled requests.
+   *
+   * @param properties the request logging settings
+   * @param requestLogWriter the writer the captured requests are handed to
+   * @return the configured RequestPayloadLoggingFilter
+   */
+  @Bean
+  @ConditionalOnProperty(name = "request.logging.enabled", havingValue = "true", matchIfMissing = true)
+  public RequestPayloadLoggingFilter requestLoggingFilter(
+      RequestLoggingProperties properties, RequestLogWriter requestLogWriter) {
+    return new RequestPayloadLoggingFilter(properties, requestLogWriter);
   }
 }
@@ -0,0 +1,55 @@
+package com.funa.common.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Configuration of the Hibernate second-level and query caches.
+ * Regions are Caffeine caches configured one by one in hibernate-cache.conf; Hibernate refuses to start
+ * if an entity or query uses a region that is not configured there.
+ * Hit, miss and eviction statistics of every region are published as cache metrics tagged with the region name.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${hibernate.cache.config:classpath:hibernate-cache.conf}") String configUri) {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(configUri), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    /**
+     * Register the metrics of every region once Hibernate has created them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindCacheMetrics(ApplicationReadyEvent event) {
+        CacheManager cacheManager = event.getApplicationContext().getBean("hibernateCacheManager", CacheManager.class);
+        MeterRegistry meterRegistry = event.getApplicationContext().getBean(MeterRegistry.class);
+        for (String region : cacheManager.getCacheNames()) {
+            com.github.benmanes.caffeine.cache.Cache<?, ?> cache = cacheManager.getCache(region)
+                    .unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, region);
+        }
+    }
+}
@@ -40,6 +40,10 @@ public class SecurityConfig {
                     .permitAll()
                     .requestMatchers("/api/template-prompts/**")
                     .permitAll()
+                    .requestMatchers("/api/workspace/**")
+                    .permitAll()
+                    .requestMatchers("/actuator/health", "/actuator/metrics", "/actuator/metrics/**")
+                    .permitAll() // Read-only actuator endpoints; /actuator/loggers can change log levels
                     .requestMatchers("/swagger-ui/**")
                     .permitAll() // Allow access to Swagger UI
                     .requestMatchers("/v3/api-docs/**")
@@ -0,0 +1,51 @@
+package com.funa.common.config;
+
+import com.funa.common.logging.SlowQueryListener;
+import com.funa.common.logging.SqlCommentTransformer;
+import com.funa.common.logging.SqlLoggingProperties;
+import com.funa.common.logging.SqlStatementListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource used by JPA and JDBC to count the SQL statements of every request, to log slow SQL
+ * statements and to add the request's route and trace ID to every statement as a comment. Replaces
+ * {@code spring.jpa.show-sql}, which printed every statement.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlLoggingProperties.class)
+public class SqlLoggingConfig {
+
+    /**
+     * Only the bean named "dataSource" is wrapped: with read replicas, the routing DataSource behind it
+     * must not be wrapped a second time.
+     */
+    @Bean
+    public static BeanPostProcessor sqlLoggingDataSourcePostProcessor(ObjectProvider<SqlLoggingProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !"dataSource".equals(beanName)) {
+                    return bean;
+                }
+                SqlLoggingProperties settings = properties.getObject();
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new SqlStatementListener());
+                if (settings.isEnabled()) {
+                    SlowQueryListener slowQueryListener = new SlowQueryListener(settings);
+                    builder.listener(slowQueryListener).proxyResultSet(slowQueryListener);
+                    if (settings.isComments()) {
+                        builder.queryTransformer(new SqlCommentTransformer());
+                    }
+                }
+                return builder.build();
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.funa.common.datasource;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads on the primary for a short window after a write has been committed, so that a client does not
+ * read stale data from a replica that has not caught up yet.
+ * The window applies to the rest of the current thread's work and is carried to the client's next requests
+ * in a cookie, which {@link ReadYourWritesFilter} reads back.
+ */
+public class ReadYourWrites {
+
+    /**
+     * Name of the cookie holding the time, in epoch milliseconds, until which reads stay on the primary.
+     */
+    public static final String COOKIE_NAME = "db-primary-until";
+
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> ON_PRIMARY = new ThreadLocal<>();
+
+    private final long windowMillis;
+
+    /**
+     * @param window How long reads stay on the primary after a write (zero disables read-your-writes)
+     */
+    public ReadYourWrites(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * Check whether reads on the current thread must go to the primary.
+     *
+     * @return true while a recent write's window is open, or inside {@link #onPrimary}
+     */
+    public boolean isPinned() {
+        if (ON_PRIMARY.get() != null) {
+            return true;
+        }
+        Long until = PINNED_UNTIL.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Keep reads on the current thread on the primary until the given time.
+     * Times further away than the window are capped, so a forged cookie cannot pin a client for good.
+     *
+     * @param until The time in epoch milliseconds
+     */
+    public void pinUntil(long until) {
+        PINNED_UNTIL.set(Math.min(until, System.currentTimeMillis() + windowMillis));
+    }
+
+    /**
+     * Run work with all of its reads on the primary, regardless of the window.
+     * Used for work whose result is shared between clients, which must not come from a replica that is behind.
+     *
+     * @param work The work to run
+     * @param <T> The type of the result
+     * @return The result of the work
+     */
+    public <T> T onPrimary(Supplier<T> work) {
+        boolean outermost = ON_PRIMARY.get() == null;
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outermost) {
+                ON_PRIMARY.remove();
+            }
+        }
+    }
+
+    /**
+     * Forget the window of the current thread.
+     */
+    public void clear() {
+        PINNED_UNTIL.remove();
+    }
+
+    /**
+     * Open a window once the current read-write transaction commits. Registered at most once per transaction.
+     */
+    public void registerWrite() {
+        if (windowMillis <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteSynchronization) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteSynchronization());
+    }
+
+    private class WriteSynchronization implements TransactionSynchronization {
+
+        @Override
+        public void afterCommit() {
+            long until = System.currentTimeMillis() + windowMillis;
+            PINNED_UNTIL.set(until);
+
+            if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+                HttpServletResponse response = attributes.getResponse();
+                if (response != null && !response.isCommitted()) {
+                    ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, Long.toString(until))
+                            .path("/")
+                            .maxAge(Duration.ofMillis(windowMillis))
+                            .httpOnly(true)
+                            .sameSite("Lax")
+                            .build();
+                    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+                }
+            }
+        }
+    }
+}
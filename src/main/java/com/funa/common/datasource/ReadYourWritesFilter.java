@@ -0,0 +1,48 @@
+package com.funa.common.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Restores the read-your-writes window of a client from its cookie for the duration of a request.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            Cookie[] cookies = request.getCookies();
+            if (cookies != null) {
+                for (Cookie cookie : cookies) {
+                    if (ReadYourWrites.COOKIE_NAME.equals(cookie.getName())) {
+                        pin(cookie.getValue());
+                    }
+                }
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWrites.clear();
+        }
+    }
+
+    private void pin(String value) {
+        try {
+            readYourWrites.pinUntil(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            // Ignore malformed cookies, reads simply go to the replicas
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.funa.common.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource that sends read-only transactions to replicas and everything else to the primary.
+ * <p>
+ * The routing decision is made when a connection is requested, so this DataSource must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction's read-only flag is
+ * only known once the transaction has started, and the proxy delays fetching the connection until the first
+ * statement. Replicas are used round robin; a replica that fails to hand out a connection is skipped for the
+ * retry interval and its reads fall back to the other replicas or the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final long retryIntervalMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary The DataSource of the primary database
+     * @param replicas The DataSources of the replicas
+     * @param readYourWrites Tracks when reads must stay on the primary after a write
+     * @param retryInterval How long a failed replica is skipped before it is tried again
+     */
+    public ReplicaRoutingDataSource(
+            DataSource primary, List<DataSource> replicas, ReadYourWrites readYourWrites, Duration retryInterval) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.readYourWrites = readYourWrites;
+        this.retryIntervalMillis = retryInterval.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!readYourWrites.isPinned()) {
+                Connection connection = getReplicaConnection(username, password);
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            readYourWrites.registerWrite();
+        }
+        return connect(primary, username, password);
+    }
+
+    /**
+     * Get a connection from the next available replica.
+     *
+     * @return The connection, or null if no replica is available
+     */
+    private Connection getReplicaConnection(String username, String password) {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isAvailable()) {
+                continue;
+            }
+            try {
+                return connect(replica.dataSource, username, password);
+            } catch (SQLException e) {
+                replica.downUntil = System.currentTimeMillis() + retryIntervalMillis;
+                logger.warn("Replica {} is unavailable, sending its reads elsewhere for {} ms: {}",
+                        replica.name, retryIntervalMillis, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username != null ? dataSource.getConnection(username, password) : dataSource.getConnection();
+    }
+
+    /**
+     * Close the primary and replica pools.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long downUntil;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean isAvailable() {
+            return downUntil <= System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.funa.common.entity;
+
+import com.funa.common.http.ResourceVersion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of an entity with TEXT content, loaded without the content itself.
+ *
+ * @param updatedAt The time of the last update
+ * @param contentHash The SHA-256 hash of the content
+ */
+public record ContentVersion(LocalDateTime updatedAt, String contentHash) {
+
+    /**
+     * Get the version of the representation of the entity.
+     *
+     * @return The resource version
+     */
+    public ResourceVersion toResourceVersion() {
+        return ResourceVersion.of(updatedAt, contentHash);
+    }
+}
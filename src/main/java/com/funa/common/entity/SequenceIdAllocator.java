@@ -0,0 +1,57 @@
+package com.funa.common.entity;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocates entity IDs from the same pooled sequences Hibernate uses, for rows inserted with plain JDBC.
+ * <p>
+ * Every sequence is incremented by {@link #ALLOCATION_SIZE}, and a value {@code v} returned by the sequence
+ * reserves the IDs {@code v - ALLOCATION_SIZE + 1} to {@code v}, which is how Hibernate's pooled optimizer
+ * reads it. IDs allocated here can therefore never collide with IDs assigned by Hibernate.
+ */
+@Component
+public class SequenceIdAllocator {
+
+    /**
+     * Number of IDs reserved by one sequence call; must match the increment of every entity sequence.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceSupport sequenceSupport;
+
+    @Autowired
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceSupport = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport();
+    }
+
+    /**
+     * Allocate new IDs from a sequence, calling the sequence once per {@link #ALLOCATION_SIZE} IDs.
+     * Unused IDs of the last block are discarded.
+     *
+     * @param sequenceName The name of the sequence, e.g. {@code tb_folder_seq}
+     * @param count The number of IDs to allocate
+     * @return The allocated IDs in ascending order
+     */
+    public List<Long> allocate(String sequenceName, int count) {
+        String nextValue = sequenceSupport.getSequenceNextValString(sequenceName);
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            long high = jdbcTemplate.queryForObject(nextValue, Long.class);
+            for (long id = Math.max(1L, high - ALLOCATION_SIZE + 1); id <= high && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
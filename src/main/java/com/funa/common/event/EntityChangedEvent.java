@@ -0,0 +1,11 @@
+package com.funa.common.event;
+
+/**
+ * Application event published by the services when an entity is created, updated or deleted.
+ * Listeners that cache derived data use it to invalidate precisely what depends on the entity.
+ *
+ * @param entityType The class of the changed entity
+ * @param entityId The ID of the changed entity, or null when many entities of the type changed at once
+ */
+public record EntityChangedEvent(Class<?> entityType, Long entityId) {
+}
@@ -0,0 +1,12 @@
+package com.funa.common.exception;
+
+/**
+ * Thrown when a request is well-formed but conflicts with the current state of the data, such as
+ * moving a folder below one of its own descendants. Mapped to 409 Conflict.
+ */
+public class ConflictException extends DomainException {
+
+  public ConflictException(String message) {
+    super(message);
+  }
+}
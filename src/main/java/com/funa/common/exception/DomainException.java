@@ -0,0 +1,21 @@
+package com.funa.common.exception;
+
+/**
+ * Base class of the expected failures of a request, such as a missing entity or an invalid input.
+ *
+ * <p>Domain exceptions describe the outcome of a request rather than a bug, so they do not capture a
+ * stack trace: filling it in walks the whole call stack, which is the dominant cost of a 404 when
+ * crawlers or stale clients hit deleted IDs. {@link GlobalExceptionHandler} maps them to {@code
+ * ProblemDetail} responses and never logs them with a stack trace.
+ */
+public abstract class DomainException extends RuntimeException {
+
+  /**
+   * Create a domain exception without a stack trace.
+   *
+   * @param message The detail message, or null if {@link #getMessage()} is overridden
+   */
+  protected DomainException(String message) {
+    super(message, null, false, false);
+  }
+}
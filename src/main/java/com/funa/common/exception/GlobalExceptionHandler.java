@@ -1,9 +1,12 @@
 package com.funa.common.exception;
 
 import com.funa.common.logging.LoggingUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -18,6 +21,57 @@ public class GlobalExceptionHandler {
 
   private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+  private final MeterRegistry meterRegistry;
+
+  public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Handles NotFoundException.
+   *
+   * @param ex The exception to handle
+   * @return A 404 ProblemDetail response
+   */
+  @ExceptionHandler(NotFoundException.class)
+  public ResponseEntity<ProblemDetail> handleNotFoundException(NotFoundException ex) {
+    return buildProblemResponse(ex, HttpStatus.NOT_FOUND);
+  }
+
+  /**
+   * Handles ConflictException.
+   *
+   * @param ex The exception to handle
+   * @return A 409 ProblemDetail response
+   */
+  @ExceptionHandler(ConflictException.class)
+  public ResponseEntity<ProblemDetail> handleConflictException(ConflictException ex) {
+    return buildProblemResponse(ex, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Handles ValidationException.
+   *
+   * @param ex The exception to handle
+   * @return A 400 ProblemDetail response
+   */
+  @ExceptionHandler(ValidationException.class)
+  public ResponseEntity<ProblemDetail> handleValidationException(ValidationException ex) {
+    return buildProblemResponse(ex, HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * Handles PreconditionFailedException.
+   *
+   * @param ex The exception to handle
+   * @return A 412 ProblemDetail response
+   */
+  @ExceptionHandler(PreconditionFailedException.class)
+  public ResponseEntity<ProblemDetail> handlePreconditionFailedException(
+      PreconditionFailedException ex) {
+    return buildProblemResponse(ex, HttpStatus.PRECONDITION_FAILED);
+  }
+
   /**
    * Handles RuntimeException and its subclasses.
    *
@@ -42,6 +96,30 @@ public class GlobalExceptionHandler {
     return buildErrorResponse(ex, HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
+  /**
+   * Builds an RFC 9457 problem response for a domain exception. Domain exceptions are expected
+   * outcomes, so they are counted and logged at DEBUG without a stack trace.
+   *
+   * @param ex The exception
+   * @param status The HTTP status
+   * @return A ResponseEntity with the problem details
+   */
+  private ResponseEntity<ProblemDetail> buildProblemResponse(DomainException ex, HttpStatus status) {
+    Counter.builder("errors.domain")
+        .description("Requests that ended with a domain exception")
+        .tag("exception", ex.getClass().getSimpleName())
+        .tag("status", String.valueOf(status.value()))
+        .register(meterRegistry)
+        .increment();
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: {}", ex.getClass().getSimpleName(), ex.getMessage());
+    }
+
+    ProblemDetail problem = ProblemDetail.forStatusAndDetail(status, ex.getMessage());
+    problem.setProperty("traceId", LoggingUtils.getTraceId());
+    return ResponseEntity.status(status).body(problem);
+  }
+
   /**
    * Builds a standardized error response.
    *
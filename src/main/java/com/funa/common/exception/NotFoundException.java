@@ -0,0 +1,37 @@
+package com.funa.common.exception;
+
+/**
+ * Thrown when an entity does not exist. Mapped to 404 Not Found.
+ *
+ * <p>The message is only built when it is read, so an unlogged 404 costs a single allocation.
+ */
+public class NotFoundException extends DomainException {
+
+  private final String entity;
+  private final Object id;
+
+  /**
+   * Create an exception for a missing entity.
+   *
+   * @param entity The name of the entity type, such as "Folder"
+   * @param id The ID that was looked up
+   */
+  public NotFoundException(String entity, Object id) {
+    super(null);
+    this.entity = entity;
+    this.id = id;
+  }
+
+  public String getEntity() {
+    return entity;
+  }
+
+  public Object getId() {
+    return id;
+  }
+
+  @Override
+  public String getMessage() {
+    return entity + " not found with ID: " + id;
+  }
+}
@@ -0,0 +1,18 @@
+package com.funa.common.exception;
+
+/**
+ * Thrown when a conditional update was made against a version that is no longer current, i.e. its If-Match
+ * header does not match the current entity tag. Mapped to 412 Precondition Failed.
+ */
+public class PreconditionFailedException extends DomainException {
+
+  /**
+   * Create an exception for a stale If-Match header.
+   *
+   * @param ifMatch The If-Match header of the request
+   * @param currentEtag The current entity tag
+   */
+  public PreconditionFailedException(String ifMatch, String currentEtag) {
+    super("If-Match " + ifMatch + " does not match the current version " + currentEtag);
+  }
+}
@@ -0,0 +1,12 @@
+package com.funa.common.exception;
+
+/**
+ * Thrown when a request is invalid on its own, regardless of the stored data. Mapped to 400 Bad
+ * Request.
+ */
+public class ValidationException extends DomainException {
+
+  public ValidationException(String message) {
+    super(message);
+  }
+}
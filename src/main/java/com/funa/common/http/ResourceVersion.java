@@ -0,0 +1,115 @@
+package com.funa.common.http;
+
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.util.ContentHash;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version of the representation of a resource, used for conditional requests.
+ * The version is computed from a light query over update timestamps and content hashes, so a request can be
+ * answered with 304 Not Modified or 412 Precondition Failed without loading any TEXT column.
+ *
+ * @param etag The strong entity tag, including its quotes
+ * @param lastModified The time of the most recent change, or null if unknown
+ */
+public record ResourceVersion(String etag, Instant lastModified) {
+
+    private static final int ETAG_HEX_LENGTH = 32;
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    /**
+     * Compute the version of a representation from every value it is built from.
+     * Any change to one of the values gives a different entity tag, and the latest timestamp among them is
+     * the last modification time.
+     *
+     * @param parts The update timestamps, content hashes and counts the representation depends on (can contain nulls)
+     * @return The version
+     */
+    public static ResourceVersion of(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        LocalDateTime latest = null;
+        for (Object part : parts) {
+            key.append(part).append('|');
+            if (part instanceof LocalDateTime timestamp && (latest == null || timestamp.isAfter(latest))) {
+                latest = timestamp;
+            }
+        }
+        String etag = '"' + ContentHash.sha256(key.toString()).substring(0, ETAG_HEX_LENGTH) + '"';
+        return new ResourceVersion(etag, latest != null ? latest.atZone(ZoneId.systemDefault()).toInstant() : null);
+    }
+
+    /**
+     * Get the version of content served under a URL that contains its hash. Such content never changes.
+     *
+     * @param contentHash The content hash
+     * @return The version, tagged with the content hash
+     */
+    public static ResourceVersion ofContent(String contentHash) {
+        return new ResourceVersion('"' + contentHash + '"', null);
+    }
+
+    /**
+     * Check the If-None-Match and If-Modified-Since headers of a GET request. The ETag and Last-Modified headers
+     * are added to the response, and its status is set to 304 when the client's copy is still current.
+     *
+     * @param request The current request
+     * @return true if the client's copy is current and the response is 304 Not Modified
+     */
+    public boolean checkNotModified(WebRequest request) {
+        return request.checkNotModified(etag, lastModified != null ? lastModified.toEpochMilli() : -1);
+    }
+
+    /**
+     * Check the If-Match header of an update request against this version, using the strong comparison.
+     *
+     * @param ifMatch The If-Match header value (can be null if the request is unconditional)
+     * @throws PreconditionFailedException if the header is present and matches neither this version nor "*"
+     */
+    public void checkIfMatch(String ifMatch) {
+        if (ifMatch == null) {
+            return;
+        }
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return;
+            }
+        }
+        throw new PreconditionFailedException(ifMatch, etag);
+    }
+
+    /**
+     * Get the response headers of a representation at this version. Clients may store it but must revalidate
+     * it before each use, which a conditional GET makes cheap.
+     *
+     * @return The ETag, Last-Modified and Cache-Control headers
+     */
+    public HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache());
+        return headers;
+    }
+
+    /**
+     * Get the response headers of content at a versioned URL, which can be cached forever.
+     *
+     * @return The ETag and Cache-Control headers
+     */
+    public HttpHeaders immutableHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(IMMUTABLE);
+        return headers;
+    }
+}
@@ -0,0 +1,11 @@
+package com.funa.common.http;
+
+/**
+ * An entity together with the version of its representation, read in the same transaction.
+ *
+ * @param entity The entity
+ * @param version The version of its representation
+ * @param <T> The entity type
+ */
+public record Versioned<T>(T entity, ResourceVersion version) {
+}
@@ -0,0 +1,73 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous appender that hands log events to its appenders on a background thread, through a bounded queue.
+ * <p>
+ * Once the queue has fewer free slots than the discarding threshold, events below the keep level (WARN by default)
+ * are discarded, while events at or above it still wait for a free slot, unless {@code neverBlock} is set,
+ * in which case any event arriving at a full queue is dropped. Both kinds of losses are counted and reported
+ * by {@link LogbackAppenderMetrics}.
+ */
+public class DropAwareAsyncAppender extends AsyncAppender {
+
+    private Level keepLevel = Level.WARN;
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * Set the lowest level that is never discarded while the queue is filling up.
+     *
+     * @param keepLevel The level name, e.g. {@code WARN}
+     */
+    public void setKeepLevel(String keepLevel) {
+        this.keepLevel = Level.toLevel(keepLevel, Level.WARN);
+    }
+
+    public String getKeepLevel() {
+        return keepLevel.toString();
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        // Only called once the queue is below the discarding threshold
+        if (event.getLevel().toInt() < keepLevel.toInt()) {
+            discarded.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isNeverBlock() && getRemainingCapacity() == 0 && event.getLevel().toInt() >= keepLevel.toInt()) {
+            overflowed.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * Get the number of events discarded because of their level while the queue was filling up.
+     *
+     * @return The number of events
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    /**
+     * Get the number of events at or above the keep level dropped because the queue was full.
+     * Only happens with {@code neverBlock}.
+     *
+     * @return The number of events
+     */
+    public long getOverflowedCount() {
+        return overflowed.sum();
+    }
+}
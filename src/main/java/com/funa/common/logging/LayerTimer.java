@@ -0,0 +1,43 @@
+package com.funa.common.logging;
+
+import com.funa.common.logging.LayerTimings.Layer;
+
+/**
+ * Times the layers a request passes through on the current thread, see {@link LayerTimingAspect}.
+ * Work handed to other threads, such as the parallel prompt rendering of the folder export, is not timed.
+ */
+public final class LayerTimer {
+
+    private static final ThreadLocal<LayerTimings> CURRENT = new ThreadLocal<>();
+
+    private LayerTimer() {
+        // Utility class, do not instantiate
+    }
+
+    /**
+     * Open a timing scope on the current thread, replacing any open scope.
+     *
+     * @return The timings of the new scope, updated until {@link #stop()} is called
+     */
+    public static LayerTimings start() {
+        LayerTimings timings = new LayerTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Close the timing scope of the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Get the timings of the scope open on the current thread.
+     *
+     * @return The timings, or null if no scope is open
+     */
+    static LayerTimings current() {
+        return CURRENT.get();
+    }
+}
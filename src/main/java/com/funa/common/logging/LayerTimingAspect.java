@@ -0,0 +1,86 @@
+package com.funa.common.logging;
+
+import com.funa.common.logging.LayerTimings.Layer;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Records the time requests spend in the controllers, services and repositories into the {@link LayerTimings}
+ * of the current request. Calls made outside of a request, e.g. by scheduled jobs, are not timed.
+ * The repository method running on the current thread is also tracked outside of requests, for the slow query log.
+ */
+@Aspect
+@Component
+public class LayerTimingAspect {
+
+    private static final ThreadLocal<JoinPoint> CURRENT_REPOSITORY_CALL = new ThreadLocal<>();
+
+    /**
+     * Get the outermost repository method running on the current thread.
+     *
+     * @return The repository interface or class and method, e.g. {@code FolderRepository.findById}, or null
+     */
+    public static String currentRepositoryMethod() {
+        JoinPoint joinPoint = CURRENT_REPOSITORY_CALL.get();
+        if (joinPoint == null) {
+            return null;
+        }
+        return repositoryType(joinPoint).getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+
+    /**
+     * Get the declared repository interface of a Spring Data repository, whose target is a generic implementation
+     * such as {@code SimpleJpaRepository}, or the class of any other repository.
+     */
+    private static Class<?> repositoryType(JoinPoint joinPoint) {
+        if (joinPoint.getThis() instanceof Repository<?, ?> repository) {
+            for (Class<?> type : ClassUtils.getAllInterfacesAsSet(repository)) {
+                if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")) {
+                    return type;
+                }
+            }
+        }
+        return ClassUtils.getUserClass(joinPoint.getTarget());
+    }
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController)")
+    public Object timeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Layer.CONTROLLER, joinPoint);
+    }
+
+    @Around("@within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(Layer.SERVICE, joinPoint);
+    }
+
+    @Around("this(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (CURRENT_REPOSITORY_CALL.get() != null) {
+            return time(Layer.REPOSITORY, joinPoint);
+        }
+        CURRENT_REPOSITORY_CALL.set(joinPoint);
+        try {
+            return time(Layer.REPOSITORY, joinPoint);
+        } finally {
+            CURRENT_REPOSITORY_CALL.remove();
+        }
+    }
+
+    private static Object time(Layer layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        LayerTimings timings = LayerTimer.current();
+        if (timings == null) {
+            return joinPoint.proceed();
+        }
+        long start = timings.enter(layer);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timings.exit(layer, start);
+        }
+    }
+}
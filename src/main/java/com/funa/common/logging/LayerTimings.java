@@ -0,0 +1,55 @@
+package com.funa.common.logging;
+
+/**
+ * Time spent in the controller, service and repository layers while a {@link LayerTimer} scope was open.
+ * Times are inclusive: the controller time contains the service time, which contains the repository time.
+ * A call into a layer from the same layer, e.g. a service calling another service, is not counted twice.
+ * Updated only by the thread that opened the scope.
+ */
+public class LayerTimings {
+
+    /**
+     * The layers that are timed.
+     */
+    public enum Layer {
+        CONTROLLER, SERVICE, REPOSITORY
+    }
+
+    private static final Layer[] LAYERS = Layer.values();
+
+    private final long[] nanos = new long[LAYERS.length];
+    private final int[] calls = new int[LAYERS.length];
+    private final int[] depth = new int[LAYERS.length];
+
+    long enter(Layer layer) {
+        return depth[layer.ordinal()]++ == 0 ? System.nanoTime() : 0;
+    }
+
+    void exit(Layer layer, long startNanos) {
+        int index = layer.ordinal();
+        if (--depth[index] == 0) {
+            nanos[index] += System.nanoTime() - startNanos;
+            calls[index]++;
+        }
+    }
+
+    /**
+     * Get the total time spent in a layer.
+     *
+     * @param layer The layer
+     * @return The time in milliseconds
+     */
+    public double getTimeMillis(Layer layer) {
+        return nanos[layer.ordinal()] / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of calls into a layer from outside of it.
+     *
+     * @param layer The layer
+     * @return The number of calls
+     */
+    public int getCalls(Layer layer) {
+        return calls[layer.ordinal()];
+    }
+}
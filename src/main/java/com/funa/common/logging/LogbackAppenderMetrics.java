@@ -0,0 +1,72 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publishes the queue depth and the dropped events of every {@link DropAwareAsyncAppender} attached to a logger:
+ * "logging.appender.queue.size", "logging.appender.queue.capacity" and "logging.appender.dropped",
+ * tagged with the appender name and, for dropped events, the reason (discarded or overflowed).
+ */
+@Component
+public class LogbackAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (DropAwareAsyncAppender appender : asyncAppenders().values()) {
+            String name = appender.getName();
+            Gauge.builder("logging.appender.queue.size", appender, LogbackAppenderMetrics::queued)
+                    .description("Log events waiting for the appender thread")
+                    .tag("appender", name)
+                    .register(registry);
+            Gauge.builder("logging.appender.queue.capacity", appender, DropAwareAsyncAppender::getQueueSize)
+                    .description("Log events the appender queue can hold")
+                    .tag("appender", name)
+                    .register(registry);
+            FunctionCounter.builder("logging.appender.dropped", appender, DropAwareAsyncAppender::getDiscardedCount)
+                    .description("Log events dropped by the appender")
+                    .tags("appender", name, "reason", "discarded")
+                    .register(registry);
+            FunctionCounter.builder("logging.appender.dropped", appender, DropAwareAsyncAppender::getOverflowedCount)
+                    .description("Log events dropped by the appender")
+                    .tags("appender", name, "reason", "overflowed")
+                    .register(registry);
+        }
+    }
+
+    private static int queued(DropAwareAsyncAppender appender) {
+        // The queue only exists once the appender has started
+        return appender.isStarted() ? appender.getNumberOfElementsInQueue() : 0;
+    }
+
+    /**
+     * Find the asynchronous appenders of the current Logback configuration, by name.
+     */
+    static Map<String, DropAwareAsyncAppender> asyncAppenders() {
+        Map<String, DropAwareAsyncAppender> appenders = new LinkedHashMap<>();
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (loggerFactory instanceof LoggerContext loggerContext) {
+            for (ch.qos.logback.classic.Logger logger : loggerContext.getLoggerList()) {
+                Iterator<Appender<ILoggingEvent>> iterator = logger.iteratorForAppenders();
+                while (iterator.hasNext()) {
+                    if (iterator.next() instanceof DropAwareAsyncAppender appender) {
+                        appenders.putIfAbsent(appender.getName(), appender);
+                    }
+                }
+            }
+        }
+        return appenders;
+    }
+}
@@ -1,46 +1,220 @@
 package com.funa.common.logging;
 
+import com.funa.common.logging.LayerTimings.Layer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.UUID;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Locale;
 
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Sets up the logging context of every request, times it and counts the SQL statements it runs.
+ * The W3C {@code traceparent} and {@code tracestate} headers are continued and returned, see
+ * {@link TraceContext}. The SQL count and total JDBC time are returned in the X-Sql-Count and
+ * X-Sql-Time (milliseconds) headers, and a warning is logged when a request runs more statements
+ * than its route's budget. Every request ends with a log entry breaking its duration down into the
+ * controller, service, repository and SQL time.
+ */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class LoggingFilter extends OncePerRequestFilter {
 
+  private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
+
   private static final String TRACE_ID = "traceId";
+  private static final String SPAN_ID = "spanId";
+  private static final String TRACE_ID_HEADER = "X-Trace-Id";
   private static final String USER_ID = "userId";
+  private static final String SQL_COUNT_HEADER = "X-Sql-Count";
+  private static final String SQL_TIME_HEADER = "X-Sql-Time";
+
+  private final SqlBudgetProperties sqlBudget;
+
+  public LoggingFilter(SqlBudgetProperties sqlBudget) {
+    this.sqlBudget = sqlBudget;
+  }
 
   @Override
   protected void doFilterInternal(
       HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
+    long start = System.nanoTime();
     try {
-      // Generate unique trace ID for each request
-      String traceId = UUID.randomUUID().toString();
-      MDC.put(TRACE_ID, traceId);
+      TraceContext trace =
+          TraceContext.fromHeaders(
+              request.getHeader(TraceContext.TRACEPARENT_HEADER), traceState(request));
+      MDC.put(TRACE_ID, trace.traceId());
+      MDC.put(SPAN_ID, trace.spanId());
 
-      // Add trace ID to response headers for client debugging
-      response.addHeader("X-Trace-Id", traceId);
+      // Return the trace to the caller, as W3C headers and as the plain trace ID for client debugging
+      response.setHeader(TraceContext.TRACEPARENT_HEADER, trace.traceparent());
+      if (trace.traceState() != null) {
+        response.setHeader(TraceContext.TRACESTATE_HEADER, trace.traceState());
+      }
+      response.setHeader(TRACE_ID_HEADER, trace.traceId());
 
       // If authenticated, add user ID to MDC
       // This is a placeholder - actual implementation depends on your authentication mechanism
       // SecurityContextHolder.getContext().getAuthentication() might be used in a real
       // implementation
 
-      filterChain.doFilter(request, response);
+      SqlStatementStats sqlStats = SqlStatementCounter.start();
+      LayerTimings layerTimings = LayerTimer.start();
+      SqlHeaderResponse sqlResponse = new SqlHeaderResponse(response, sqlStats);
+      try {
+        filterChain.doFilter(request, sqlResponse);
+      } finally {
+        LayerTimer.stop();
+        SqlStatementCounter.stop(sqlStats);
+        sqlResponse.addSqlHeaders();
+        String route = route(request);
+        checkSqlBudget(request, route, sqlStats);
+        logCompletion(request, response, route, start, layerTimings, sqlStats);
+      }
     } finally {
       // Always clear MDC after the request is processed
       MDC.clear();
     }
   }
+
+  /**
+   * Join repeated {@code tracestate} headers into one list, as the specification allows splitting
+   * it.
+   */
+  private static String traceState(HttpServletRequest request) {
+    String first = request.getHeader(TraceContext.TRACESTATE_HEADER);
+    if (first == null) {
+      return null;
+    }
+    return String.join(",", Collections.list(request.getHeaders(TraceContext.TRACESTATE_HEADER)));
+  }
+
+  private static String route(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return pattern != null ? pattern.toString() : request.getRequestURI();
+  }
+
+  private void checkSqlBudget(
+      HttpServletRequest request, String route, SqlStatementStats sqlStats) {
+    int budget = sqlBudget.budgetFor(route);
+    if (sqlStats.getCount() > budget) {
+      logger.warn(
+          "{} {} ran {} SQL statements in {} ms, over its budget of {}",
+          request.getMethod(),
+          route,
+          sqlStats.getCount(),
+          formatMillis(sqlStats.getTimeMillis()),
+          budget);
+    }
+  }
+
+  /**
+   * Log the end of a request with the time spent in every layer. The times are also structured
+   * fields of the JSON log entry, next to the trace and span IDs from the MDC.
+   */
+  private static void logCompletion(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      String route,
+      long startNanos,
+      LayerTimings layerTimings,
+      SqlStatementStats sqlStats) {
+    if (!logger.isInfoEnabled()) {
+      return;
+    }
+    logger.info(
+        "{} {} {} {}: {}, {}, {}, {}, {}",
+        request.getMethod(),
+        route,
+        kv("status", response.getStatus()),
+        kv("durationMs", roundMillis((System.nanoTime() - startNanos) / 1_000_000.0)),
+        kv("controllerMs", roundMillis(layerTimings.getTimeMillis(Layer.CONTROLLER))),
+        kv("serviceMs", roundMillis(layerTimings.getTimeMillis(Layer.SERVICE))),
+        kv("repositoryMs", roundMillis(layerTimings.getTimeMillis(Layer.REPOSITORY))),
+        kv("sqlMs", roundMillis(sqlStats.getTimeMillis())),
+        kv("sqlCount", sqlStats.getCount()));
+  }
+
+  private static double roundMillis(double millis) {
+    return Math.round(millis * 1000) / 1000.0;
+  }
+
+  private static String formatMillis(double millis) {
+    return String.format(Locale.ROOT, "%.3f", millis);
+  }
+
+  /**
+   * Adds the SQL headers just before the response body is written, while headers can still be set.
+   * By then the handler has run all of its statements.
+   */
+  private static class SqlHeaderResponse extends HttpServletResponseWrapper {
+
+    private final SqlStatementStats sqlStats;
+    private boolean headersAdded;
+
+    SqlHeaderResponse(HttpServletResponse response, SqlStatementStats sqlStats) {
+      super(response);
+      this.sqlStats = sqlStats;
+    }
+
+    void addSqlHeaders() {
+      if (!headersAdded && !isCommitted()) {
+        headersAdded = true;
+        setHeader(SQL_COUNT_HEADER, Integer.toString(sqlStats.getCount()));
+        setHeader(SQL_TIME_HEADER, formatMillis(sqlStats.getTimeMillis()));
+      }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addSqlHeaders();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addSqlHeaders();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addSqlHeaders();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addSqlHeaders();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addSqlHeaders();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      addSqlHeaders();
+      super.sendRedirect(location);
+    }
+  }
 }
@@ -0,0 +1,35 @@
+package com.funa.common.logging;
+
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Copies the MDC of the submitting thread (traceId, userId) to the thread running the task, so log lines
+ * written by @Async methods, streamed responses and export workers keep the request's context.
+ * The running thread's own MDC is restored afterwards, since pooled threads are reused across requests.
+ */
+public class MdcTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    Map<String, String> context = MDC.getCopyOfContextMap();
+    return () -> {
+      Map<String, String> previous = MDC.getCopyOfContextMap();
+      setContext(context);
+      try {
+        runnable.run();
+      } finally {
+        setContext(previous);
+      }
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context != null) {
+      MDC.setContextMap(context);
+    } else {
+      MDC.clear();
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.funa.common.logging;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A finished request waiting in the {@link RequestLogWriter} buffer. Holds the raw captured data;
+ * decoding and redaction happen on the writer thread.
+ *
+ * @param timestamp When the request started, in milliseconds since the epoch
+ * @param traceId The trace ID of the request
+ * @param spanId The span ID of the request
+ * @param method The HTTP method
+ * @param uri The request URI, without the query string
+ * @param queryString The query string, or null
+ * @param client The address of the client
+ * @param status The response status
+ * @param durationNanos The time from the start of the request to the end of the response
+ * @param headers The request headers, or null if not logged
+ * @param requestBody The start of the request body, or null if not logged
+ * @param responseBody The start of the response body, or null if not logged
+ */
+public record RequestLogEvent(
+        long timestamp, String traceId, String spanId, String method, String uri, String queryString, String client,
+        int status, long durationNanos, Map<String, List<String>> headers, Payload requestBody, Payload responseBody) {
+
+    /**
+     * The captured start of a body.
+     *
+     * @param bytes The captured bytes, at most the configured maximum
+     * @param totalBytes The length of the whole body, or -1 if unknown
+     * @param contentType The content type, or null
+     * @param charset The character encoding, or null for the default
+     */
+    public record Payload(byte[] bytes, long totalBytes, String contentType, String charset) {
+
+        /**
+         * Check whether only the start of the body was captured.
+         *
+         * @return True if the body was longer than the captured bytes
+         */
+        public boolean truncated() {
+            return totalBytes > bytes.length;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.funa.common.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Writes the request log events of {@link RequestPayloadLoggingFilter} on a background thread.
+ * <p>
+ * Requests only add their event to a bounded {@link RingBuffer}, which never blocks: when the writer falls behind
+ * and the buffer is full, events are dropped and counted instead of slowing requests down or piling up in memory.
+ * Decoding and redaction of the bodies also run on the writer thread. Metrics: "logging.requests.logged",
+ * "logging.requests.dropped" and "logging.requests.queued".
+ */
+public class RequestLogWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestLogWriter.class);
+
+    private static final String REDACTED = "***";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final Set<String> TEXT_SUBTYPES = Set.of("json", "xml", "x-www-form-urlencoded", "yaml", "x-yaml");
+
+    private final RingBuffer<RequestLogEvent> buffer;
+    private final Set<String> redactedHeaders;
+    private final Pattern redactedFields;
+    private final Counter logged;
+    private final Counter dropped;
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    public RequestLogWriter(RequestLoggingProperties properties, MeterRegistry meterRegistry) {
+        this.buffer = new RingBuffer<>(properties.getBufferCapacity());
+        this.redactedHeaders = properties.getRedactedHeaders().stream()
+                .map(header -> header.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.redactedFields = properties.getRedactedFields().isEmpty() ? null : Pattern.compile(
+                "(\"(?:" + properties.getRedactedFields().stream().map(Pattern::quote).collect(Collectors.joining("|"))
+                        + ")\"\\s*:\\s*)(\"(?:[^\"\\\\]|\\\\.)*\"?|[^,}\\]\\s]+)",
+                Pattern.CASE_INSENSITIVE);
+        this.logged = Counter.builder("logging.requests.logged")
+                .description("Request log events written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("logging.requests.dropped")
+                .description("Request log events dropped because the writer fell behind")
+                .register(meterRegistry);
+        Gauge.builder("logging.requests.queued", buffer, RingBuffer::size)
+                .description("Request log events waiting for the writer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check whether request log events would be written at all, before spending time on capturing them.
+     *
+     * @return True if the log level lets the events through
+     */
+    public boolean isEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    /**
+     * Queue an event for writing, without ever blocking.
+     *
+     * @param event The event
+     * @return False if the buffer was full and the event was dropped
+     */
+    public boolean submit(RequestLogEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("request-log-writer").daemon().start(this::drain);
+    }
+
+    /**
+     * Stop the writer thread once it has written the events already queued.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        Thread writer = thread;
+        thread = null;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    private void drain() {
+        while (true) {
+            RequestLogEvent event = buffer.poll();
+            if (event != null) {
+                write(event);
+            } else if (running) {
+                // Polling with a short pause keeps the request threads from ever having to wake the writer up
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void write(RequestLogEvent event) {
+        try {
+            MDC.put("traceId", event.traceId());
+            MDC.put("spanId", event.spanId());
+            String query = event.queryString() != null ? "?" + event.queryString() : "";
+            logger.info("{} {}{} {}", event.method(), event.uri(), query,
+                    kv("status", event.status()),
+                    kv("durationMs", Math.round(event.durationNanos() / 1_000.0) / 1_000.0),
+                    kv("requestTime", Instant.ofEpochMilli(event.timestamp()).toString()),
+                    kv("client", event.client()),
+                    kv("requestHeaders", redactHeaders(event.headers())),
+                    kv("requestBody", body(event.requestBody())),
+                    kv("responseBody", body(event.responseBody())));
+            logged.increment();
+        } catch (RuntimeException e) {
+            // A broken event must not stop the writer thread
+            logger.warn("Could not write request log event of {} {}", event.method(), event.uri(), e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private Map<String, Object> redactHeaders(Map<String, List<String>> headers) {
+        if (headers == null) {
+            return null;
+        }
+        Map<String, Object> redacted = new LinkedHashMap<>();
+        headers.forEach((name, values) -> redacted.put(name,
+                redactedHeaders.contains(name.toLowerCase(Locale.ROOT)) ? REDACTED
+                        : values.size() == 1 ? values.get(0) : values));
+        return redacted;
+    }
+
+    private String body(RequestLogEvent.Payload payload) {
+        if (payload == null || payload.bytes().length == 0) {
+            return null;
+        }
+        if (!isText(payload.contentType())) {
+            return "[" + (payload.totalBytes() >= 0 ? payload.totalBytes() : payload.bytes().length + "+")
+                    + " bytes of " + payload.contentType() + "]";
+        }
+        String text = new String(payload.bytes(), charset(payload.charset()));
+        if (redactedFields != null) {
+            text = redactedFields.matcher(text)
+                    .replaceAll(match -> Matcher.quoteReplacement(match.group(1) + "\"" + REDACTED + "\""));
+        }
+        return payload.truncated() ? text + "... [" + payload.totalBytes() + " bytes]" : text;
+    }
+
+    static boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            type = type.substring(0, parameters);
+        }
+        int slash = type.indexOf('/');
+        if (slash < 0) {
+            return false;
+        }
+        String subtype = type.substring(slash + 1).trim();
+        int suffix = subtype.lastIndexOf('+');
+        return type.startsWith("text/")
+                || TEXT_SUBTYPES.contains(subtype)
+                || suffix >= 0 && TEXT_SUBTYPES.contains(subtype.substring(suffix + 1));
+    }
+
+    private static Charset charset(String name) {
+        try {
+            return name != null ? Charset.forName(name) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.funa.common.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of the sampled request and response payload logging, see {@link RequestPayloadLoggingFilter}.
+ * Sample rates go from 0 (never logged) to 1 (every request logged), e.g.
+ * {@code request.logging.routes.[/api/sequence-diagrams/**]=0.01}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "request.logging")
+public class RequestLoggingProperties {
+
+    /**
+     * Whether requests are logged at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Sample rate of routes without their own entry.
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * Sample rates by request path pattern. The first matching pattern wins.
+     */
+    private Map<String, Double> routes = new LinkedHashMap<>();
+
+    /**
+     * Whether server errors are logged even when the request was not sampled, without their payloads.
+     */
+    private boolean logServerErrors = true;
+
+    /**
+     * Whether the request headers are logged.
+     */
+    private boolean includeHeaders = true;
+
+    /**
+     * Whether the request and response bodies are logged.
+     */
+    private boolean includePayload = true;
+
+    /**
+     * Maximum number of bytes of every body that are captured; the rest is neither copied nor logged.
+     */
+    private int maxPayloadBytes = 2048;
+
+    /**
+     * Headers whose values are replaced by {@code ***}, case-insensitive.
+     */
+    private List<String> redactedHeaders = new ArrayList<>(
+            List.of("Authorization", "Proxy-Authorization", "Cookie", "Set-Cookie", "X-Api-Key"));
+
+    /**
+     * JSON fields whose values are replaced by {@code ***} in the logged bodies, case-insensitive.
+     */
+    private List<String> redactedFields = new ArrayList<>(
+            List.of("password", "secret", "token", "accessToken", "refreshToken", "apiKey"));
+
+    /**
+     * Number of log events that can wait for the writer thread; events arriving when it is full are dropped.
+     * Rounded up to a power of two.
+     */
+    private int bufferCapacity = 1024;
+}
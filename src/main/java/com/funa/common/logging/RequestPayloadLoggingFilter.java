@@ -0,0 +1,311 @@
+package com.funa.common.logging;
+
+import com.funa.common.logging.RequestLogEvent.Payload;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.MDC;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a sample of the requests with their headers and the start of their request and response bodies.
+ *
+ * <p>Whether a request is logged is decided when it starts, from the sample rate of the first
+ * matching route in {@link RequestLoggingProperties}; requests that are not sampled are passed
+ * through untouched. Only the first {@code max-payload-bytes} of every body are copied, while the
+ * body streams through. The finished request is handed to the {@link RequestLogWriter} as one
+ * event, so formatting, redaction and the log output itself never run on the request thread.
+ */
+public class RequestPayloadLoggingFilter extends OncePerRequestFilter {
+
+  private final RequestLoggingProperties properties;
+  private final RequestLogWriter writer;
+  private final List<RouteSampleRate> routes;
+
+  public RequestPayloadLoggingFilter(
+      RequestLoggingProperties properties, RequestLogWriter writer) {
+    this.properties = properties;
+    this.writer = writer;
+    this.routes =
+        properties.getRoutes().entrySet().stream()
+            .map(
+                route ->
+                    new RouteSampleRate(
+                        PathPatternParser.defaultInstance.parse(route.getKey()), route.getValue()))
+            .toList();
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    boolean enabled = writer.isEnabled();
+    boolean sampled = enabled && isSampled(request);
+    if (!sampled && !(enabled && properties.isLogServerErrors())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    long timestamp = System.currentTimeMillis();
+    long start = System.nanoTime();
+    boolean capture = sampled && properties.isIncludePayload();
+    HttpServletRequest loggedRequest =
+        capture ? new ContentCachingRequestWrapper(request, properties.getMaxPayloadBytes()) : request;
+    PayloadCaptureResponse loggedResponse =
+        capture ? new PayloadCaptureResponse(response, properties.getMaxPayloadBytes()) : null;
+    try {
+      filterChain.doFilter(loggedRequest, loggedResponse != null ? loggedResponse : response);
+    } finally {
+      Completion completion =
+          new Completion(
+              loggedRequest,
+              response,
+              loggedResponse,
+              sampled,
+              timestamp,
+              start,
+              MDC.get("traceId"),
+              MDC.get("spanId"));
+      if (request.isAsyncStarted()) {
+        // Streamed responses are only complete once the async processing ends
+        request.getAsyncContext().addListener(completion);
+      } else {
+        completion.submit();
+      }
+    }
+  }
+
+  private boolean isSampled(HttpServletRequest request) {
+    double rate = properties.getSampleRate();
+    if (!routes.isEmpty()) {
+      PathContainer path = PathContainer.parsePath(request.getRequestURI());
+      for (RouteSampleRate route : routes) {
+        if (route.pattern().matches(path)) {
+          rate = route.rate();
+          break;
+        }
+      }
+    }
+    return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private static Map<String, List<String>> headers(HttpServletRequest request) {
+    Map<String, List<String>> headers = new LinkedHashMap<>();
+    for (String name : Collections.list(request.getHeaderNames())) {
+      headers.put(name, Collections.list(request.getHeaders(name)));
+    }
+    return headers;
+  }
+
+  private record RouteSampleRate(PathPattern pattern, double rate) {}
+
+  /** Builds and submits the log event once the response is complete. */
+  private class Completion implements AsyncListener {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final PayloadCaptureResponse capture;
+    private final boolean sampled;
+    private final long timestamp;
+    private final long start;
+    private final String traceId;
+    private final String spanId;
+
+    Completion(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        PayloadCaptureResponse capture,
+        boolean sampled,
+        long timestamp,
+        long start,
+        String traceId,
+        String spanId) {
+      this.request = request;
+      this.response = response;
+      this.capture = capture;
+      this.sampled = sampled;
+      this.timestamp = timestamp;
+      this.start = start;
+      this.traceId = traceId;
+      this.spanId = spanId;
+    }
+
+    void submit() {
+      int status = response.getStatus();
+      if (!sampled && status < HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+        return;
+      }
+      Payload requestBody = null;
+      Payload responseBody = null;
+      if (capture != null && request instanceof ContentCachingRequestWrapper cachingRequest) {
+        requestBody =
+            new Payload(
+                cachingRequest.getContentAsByteArray(),
+                request.getContentLengthLong(),
+                request.getContentType(),
+                request.getCharacterEncoding());
+        responseBody = capture.payload();
+      }
+      writer.submit(
+          new RequestLogEvent(
+              timestamp,
+              traceId,
+              spanId,
+              request.getMethod(),
+              request.getRequestURI(),
+              request.getQueryString(),
+              request.getRemoteAddr(),
+              status,
+              System.nanoTime() - start,
+              sampled && properties.isIncludeHeaders() ? headers(request) : null,
+              requestBody,
+              responseBody));
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      submit();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // Completion follows
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      // Completion follows
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+
+  /**
+   * Copies the first bytes of the response body while passing the whole body on to the client
+   * unbuffered, unlike {@link org.springframework.web.util.ContentCachingResponseWrapper}, which
+   * holds the entire body in memory.
+   */
+  private static class PayloadCaptureResponse extends HttpServletResponseWrapper {
+
+    private final byte[] captured;
+    private int capturedLength;
+    private long totalLength;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    PayloadCaptureResponse(HttpServletResponse response, int maxPayloadBytes) {
+      super(response);
+      this.captured = new byte[maxPayloadBytes];
+    }
+
+    Payload payload() {
+      if (writer != null) {
+        writer.flush();
+      }
+      return new Payload(
+          Arrays.copyOf(captured, capturedLength),
+          totalLength,
+          getContentType(),
+          getCharacterEncoding());
+    }
+
+    private void capture(byte[] bytes, int offset, int length) {
+      int copied = Math.min(length, captured.length - capturedLength);
+      if (copied > 0) {
+        System.arraycopy(bytes, offset, captured, capturedLength, copied);
+        capturedLength += copied;
+      }
+      totalLength += length;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new CaptureOutputStream(super.getOutputStream());
+      }
+      return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      }
+      super.flushBuffer();
+    }
+
+    private class CaptureOutputStream extends ServletOutputStream {
+
+      private final ServletOutputStream delegate;
+      private final byte[] single = new byte[1];
+
+      CaptureOutputStream(ServletOutputStream delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        delegate.write(b);
+        single[0] = (byte) b;
+        capture(single, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        delegate.write(b, off, len);
+        capture(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        delegate.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        delegate.close();
+      }
+
+      @Override
+      public boolean isReady() {
+        return delegate.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        delegate.setWriteListener(writeListener);
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.funa.common.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * {@link #offer(Object)} never blocks and never allocates: when the buffer is full it fails immediately,
+ * so the caller can drop the element instead of waiting.
+ * <p>
+ * Every slot carries a sequence number telling whether it is free for the producer claiming position n
+ * (sequence n) or holds the element of position n for the consumer (sequence n + 1).
+ * Producers claim positions by a compare-and-set on the tail; only the consumer moves the head.
+ *
+ * @param <E> The type of the elements
+ */
+public class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Create an empty ring buffer.
+     *
+     * @param capacity The minimum capacity, rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Ring buffer capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element, from any thread.
+     *
+     * @param element The element to add
+     * @return False if the buffer is full and the element was not added
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // Another producer claimed the position first, retry with the next one
+        }
+    }
+
+    /**
+     * Remove the oldest element. Must only be called by the single consumer thread.
+     *
+     * @return The element, or null if the buffer is empty
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // Frees the slot for the producer that wraps around to it
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Get the number of elements waiting, which may already be outdated when it returns.
+     *
+     * @return The number of elements
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    /**
+     * Get the number of elements the buffer can hold.
+     *
+     * @return The capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
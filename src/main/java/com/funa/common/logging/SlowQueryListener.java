@@ -0,0 +1,211 @@
+package com.funa.common.logging;
+
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.proxy.SimpleResultSetProxyLogic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Logs the SQL statements taking longer than the configured threshold, with their bind parameters,
+ * duration, row count, the calling repository method and the route of the request. The trace ID comes from the MDC.
+ * <p>
+ * The duration of a query includes reading its result set, as the rows are fetched from the database while
+ * they are read. A query is therefore only logged once its result set has been read to the end or closed,
+ * counting the rows on the way; updates are logged right away with their update count.
+ * Statements below the threshold cost a few field updates and are never formatted.
+ */
+public class SlowQueryListener implements QueryExecutionListener, ResultSetProxyLogicFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private static final String START_NANOS = "slowQuery.startNanos";
+    private static final int LOGGED_BATCH_PARAMETERS = 1;
+
+    /**
+     * The result set created by the last query of the current thread, until the listener has seen the query.
+     * Result sets are wrapped just before {@link #afterQuery} is called, on the same thread.
+     */
+    private static final ThreadLocal<RowCountingResultSetLogic> NEW_RESULT_SET = new ThreadLocal<>();
+
+    private final SqlLoggingProperties properties;
+    private final int maxParameterLength;
+
+    public SlowQueryListener(SqlLoggingProperties properties) {
+        this.properties = properties;
+        this.maxParameterLength = properties.getMaxParameterLength();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RowCountingResultSetLogic resultSet = NEW_RESULT_SET.get();
+        NEW_RESULT_SET.remove();
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start == null || !logger.isWarnEnabled()) {
+            return;
+        }
+        long executionNanos = System.nanoTime() - start;
+        if (resultSet != null && execInfo.getResult() instanceof ResultSet) {
+            // Decided once the rows have been read
+            resultSet.query = new PendingQuery(execInfo, queryInfoList, executionNanos);
+        } else if (executionNanos >= thresholdNanos()) {
+            log(new PendingQuery(execInfo, queryInfoList, executionNanos), executionNanos, updateCount(execInfo.getResult()));
+        }
+    }
+
+    @Override
+    public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+        RowCountingResultSetLogic logic = new RowCountingResultSetLogic(
+                new SimpleResultSetProxyLogic(resultSet, connectionInfo, proxyConfig));
+        NEW_RESULT_SET.set(logic);
+        return logic;
+    }
+
+    private void finish(PendingQuery query, long rows) {
+        long totalNanos = System.nanoTime() - query.start() + query.executionNanos();
+        if (totalNanos >= thresholdNanos()) {
+            log(query, totalNanos, rows);
+        }
+    }
+
+    /**
+     * Read the threshold for every statement, so that it can be changed while the application runs.
+     */
+    private long thresholdNanos() {
+        return properties.getSlowQueryThreshold().toNanos();
+    }
+
+    private void log(PendingQuery query, long totalNanos, long rows) {
+        String sql = query.queries().stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+        logger.warn("Slow SQL statement took {} ms, returned {} rows, from {}: {}",
+                millis(totalNanos), rows, query.repositoryMethod() != null ? query.repositoryMethod() : "-", sql,
+                kv("durationMs", millis(totalNanos)),
+                kv("executionMs", millis(query.executionNanos())),
+                kv("rows", rows),
+                kv("batchSize", query.batchSize()),
+                kv("parameters", parameters(query.queries())),
+                kv("repositoryMethod", query.repositoryMethod()),
+                kv("route", query.route()));
+    }
+
+    private String parameters(List<QueryInfo> queries) {
+        StringBuilder parameters = new StringBuilder();
+        for (QueryInfo query : queries) {
+            List<List<ParameterSetOperation>> parameterSets = query.getParametersList();
+            for (int i = 0; i < Math.min(parameterSets.size(), LOGGED_BATCH_PARAMETERS); i++) {
+                parameters.append('[');
+                List<ParameterSetOperation> operations = parameterSets.get(i);
+                for (int j = 0; j < operations.size(); j++) {
+                    Object[] args = operations.get(j).getArgs();
+                    parameters.append(j > 0 ? ", " : "").append(args[0]).append('=').append(format(
+                            ParameterSetOperation.isSetNullParameterOperation(operations.get(j)) ? null : args[1]));
+                }
+                parameters.append(']');
+            }
+            if (parameterSets.size() > LOGGED_BATCH_PARAMETERS) {
+                parameters.append(" and ").append(parameterSets.size() - LOGGED_BATCH_PARAMETERS).append(" more");
+            }
+        }
+        return parameters.toString();
+    }
+
+    private String format(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String text = value instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : String.valueOf(value);
+        if (text.length() > maxParameterLength) {
+            text = text.substring(0, maxParameterLength) + "...";
+        }
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        long count = 0;
+        if (result instanceof int[] counts) {
+            for (int c : counts) {
+                count += Math.max(c, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long c : counts) {
+                count += Math.max(c, 0);
+            }
+        }
+        return count;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * A query whose result set is still being read.
+     */
+    private record PendingQuery(List<QueryInfo> queries, int batchSize, long executionNanos, long start,
+                                String repositoryMethod, String route) {
+
+        PendingQuery(ExecutionInfo execInfo, List<QueryInfo> queries, long executionNanos) {
+            this(queries, execInfo.isBatch() ? execInfo.getBatchSize() : 0, executionNanos, System.nanoTime(),
+                    LayerTimingAspect.currentRepositoryMethod(), SqlCommentTransformer.currentRoute());
+        }
+    }
+
+    /**
+     * Counts the rows read from a result set and finishes its query at the last row or when it is closed.
+     */
+    private class RowCountingResultSetLogic implements ResultSetProxyLogic {
+
+        private final ResultSetProxyLogic delegate;
+        private PendingQuery query;
+        private long rows;
+
+        RowCountingResultSetLogic(ResultSetProxyLogic delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = delegate.invoke(proxy, method, args);
+            if (query != null) {
+                String name = method.getName();
+                if ("next".equals(name)) {
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    } else {
+                        finish();
+                    }
+                } else if ("close".equals(name)) {
+                    finish();
+                }
+            }
+            return result;
+        }
+
+        private void finish() {
+            PendingQuery finished = query;
+            query = null;
+            SlowQueryListener.this.finish(finished, rows);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.funa.common.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maximum number of SQL statements a request may run before a warning is logged.
+ * Routes are the request mapping patterns, e.g. {@code sql.budget.routes.[/api/folders/{id}]=5}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sql.budget")
+public class SqlBudgetProperties {
+
+    /**
+     * Budget of routes without their own entry.
+     */
+    private int defaultMax = 50;
+
+    /**
+     * Budgets by route pattern.
+     */
+    private Map<String, Integer> routes = new HashMap<>();
+
+    /**
+     * Get the budget of a route.
+     *
+     * @param route The request mapping pattern, or the request URI if no handler matched
+     * @return The maximum number of statements
+     */
+    public int budgetFor(String route) {
+        return routes.getOrDefault(route, defaultMax);
+    }
+}
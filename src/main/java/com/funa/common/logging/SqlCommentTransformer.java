@@ -0,0 +1,60 @@
+package com.funa.common.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import net.ttddyy.dsproxy.transform.QueryTransformer;
+import net.ttddyy.dsproxy.transform.TransformInfo;
+import org.slf4j.MDC;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Appends a comment with the route and the trace ID of the current request to every SQL statement, in the
+ * sqlcommenter format, e.g. {@code route='%2Fapi%2Ffolders%2F%7Bid%7D',traceId='4bf9...'}.
+ * The values are URL-encoded, so they can never end or nest the comment. The database logs and
+ * {@code pg_stat_statements} then show which request ran a statement; the statement fingerprint of
+ * {@code pg_stat_statements} ignores comments, so statements are still grouped as before.
+ * <p>
+ * Statements run outside of a request are left unchanged. As every request sends different SQL text,
+ * prepared statements are not reused across requests by drivers caching them by their text.
+ */
+public class SqlCommentTransformer implements QueryTransformer {
+
+    @Override
+    public String transformQuery(TransformInfo transformInfo) {
+        String query = transformInfo.getQuery();
+        String traceId = MDC.get("traceId");
+        String route = currentRoute();
+        if (traceId == null && route == null) {
+            return query;
+        }
+        StringBuilder comment = new StringBuilder(query.length() + 96).append(query).append(" /*");
+        if (route != null) {
+            comment.append("route='").append(URLEncoder.encode(route, StandardCharsets.UTF_8)).append('\'');
+        }
+        if (traceId != null) {
+            if (route != null) {
+                comment.append(',');
+            }
+            comment.append("traceId='").append(URLEncoder.encode(traceId, StandardCharsets.UTF_8)).append('\'');
+        }
+        return comment.append("*/").toString();
+    }
+
+    /**
+     * Get the request mapping pattern of the current request, once the handler is known.
+     */
+    static String currentRoute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return pattern != null ? pattern.toString() : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.funa.common.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the slow query log and of the comments added to SQL statements, see {@link SlowQueryListener}
+ * and {@link SqlCommentTransformer}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sql.logging")
+public class SqlLoggingProperties {
+
+    /**
+     * Whether slow statements are logged and statements get comments. The DataSource is wrapped either way,
+     * to count the statements of every request.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Statements taking at least this long, including the time to read their result set, are logged.
+     */
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+
+    /**
+     * Maximum logged length of a bind parameter value.
+     */
+    private int maxParameterLength = 100;
+
+    /**
+     * Whether statements run during a request get a comment with the request's route and trace ID.
+     */
+    private boolean comments = true;
+}
@@ -0,0 +1,63 @@
+package com.funa.common.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements executed on the current thread.
+ * Scopes can be nested, e.g. a test measuring a call that also passes through the request filter;
+ * every open scope sees every statement.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<List<SqlStatementStats>> OPEN_SCOPES = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+        // Utility class, do not instantiate
+    }
+
+    /**
+     * Open a counting scope on the current thread.
+     *
+     * @return The statistics of the new scope, updated until {@link #stop(SqlStatementStats)} is called
+     */
+    public static SqlStatementStats start() {
+        List<SqlStatementStats> scopes = OPEN_SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>(2);
+            OPEN_SCOPES.set(scopes);
+        }
+        SqlStatementStats stats = new SqlStatementStats();
+        scopes.add(stats);
+        return stats;
+    }
+
+    /**
+     * Close a counting scope opened by {@link #start()} on the current thread.
+     *
+     * @param stats The statistics of the scope to close
+     */
+    public static void stop(SqlStatementStats stats) {
+        List<SqlStatementStats> scopes = OPEN_SCOPES.get();
+        if (scopes != null) {
+            scopes.remove(stats);
+            if (scopes.isEmpty()) {
+                OPEN_SCOPES.remove();
+            }
+        }
+    }
+
+    /**
+     * Record one executed statement in every open scope of the current thread.
+     *
+     * @param elapsedNanos The execution time of the statement
+     */
+    static void record(long elapsedNanos) {
+        List<SqlStatementStats> scopes = OPEN_SCOPES.get();
+        if (scopes != null) {
+            for (SqlStatementStats stats : scopes) {
+                stats.record(elapsedNanos);
+            }
+        }
+    }
+}
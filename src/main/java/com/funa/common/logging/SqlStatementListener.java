@@ -0,0 +1,29 @@
+package com.funa.common.logging;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * DataSource proxy listener feeding every executed statement and JDBC batch into {@link SqlStatementCounter}.
+ * Counting at the JDBC level covers statements issued through Hibernate and through JdbcTemplate alike.
+ */
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = "statementCount.startNanos";
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start != null) {
+            SqlStatementCounter.record(System.nanoTime() - start);
+        }
+    }
+}
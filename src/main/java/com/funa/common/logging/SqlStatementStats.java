@@ -0,0 +1,42 @@
+package com.funa.common.logging;
+
+/**
+ * Number and total execution time of the SQL statements run while a {@link SqlStatementCounter} scope was open.
+ * Updated only by the thread that opened the scope.
+ */
+public class SqlStatementStats {
+
+    private int count;
+    private long nanos;
+
+    void record(long elapsedNanos) {
+        count++;
+        nanos += elapsedNanos;
+    }
+
+    /**
+     * Get the number of statements executed. A JDBC batch counts as one statement.
+     *
+     * @return The number of statements
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Get the total time spent executing statements.
+     *
+     * @return The time in milliseconds
+     */
+    public double getTimeMillis() {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Start counting from zero again, e.g. once a test's setup is done.
+     */
+    public void reset() {
+        count = 0;
+        nanos = 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.core.ConsoleAppender;
+import net.logstash.logback.encoder.StreamingEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Console appender that lets a {@link StreamingEncoder}, such as the {@code LogstashEncoder}, write every event
+ * straight to the console through its reused per-thread JSON generator and buffer. The plain
+ * {@link ConsoleAppender} asks the encoder for a new byte array holding every line before writing it.
+ *
+ * @param <E> The type of the log events
+ */
+public class StreamingConsoleAppender<E> extends ConsoleAppender<E> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeOut(E event) throws IOException {
+        if (!(encoder instanceof StreamingEncoder<?>)) {
+            super.writeOut(event);
+            return;
+        }
+        streamWriteLock.lock();
+        try {
+            OutputStream outputStream = getOutputStream();
+            ((StreamingEncoder<E>) encoder).encode(event, outputStream);
+            if (isImmediateFlush()) {
+                outputStream.flush();
+            }
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+}
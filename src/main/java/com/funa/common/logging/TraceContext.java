@@ -0,0 +1,126 @@
+package com.funa.common.logging;
+
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W3C trace context of a request (https://www.w3.org/TR/trace-context/).
+ *
+ * <p>An incoming {@code traceparent} header is continued: its trace ID is kept, its parent ID becomes
+ * the parent of the span of this request. Without a valid header a new trace is started. IDs come
+ * from {@link ThreadLocalRandom}, which never blocks or contends between threads, unlike the {@code
+ * SecureRandom} behind {@code UUID.randomUUID()}; trace IDs only need to be unique, not
+ * unpredictable.
+ *
+ * @param traceId The trace ID, 32 lowercase hex digits
+ * @param spanId The ID of the span of this request, 16 lowercase hex digits
+ * @param parentSpanId The span ID of the caller, or null when this request started the trace
+ * @param flags The trace flags, 2 lowercase hex digits
+ * @param traceState The vendor-specific {@code tracestate} of the caller, or null
+ */
+public record TraceContext(
+    String traceId, String spanId, String parentSpanId, String flags, String traceState) {
+
+  public static final String TRACEPARENT_HEADER = "traceparent";
+  public static final String TRACESTATE_HEADER = "tracestate";
+
+  private static final HexFormat HEX = HexFormat.of();
+  private static final String VERSION = "00";
+  private static final String SAMPLED = "01";
+  private static final int TRACEPARENT_LENGTH = 55;
+  private static final int MAX_TRACESTATE_LENGTH = 512;
+
+  /**
+   * Continue the trace of the given headers, or start a new trace when {@code traceparent} is
+   * missing or invalid. {@code tracestate} is only kept together with a valid {@code traceparent}.
+   *
+   * @param traceparent The incoming {@code traceparent} header, may be null
+   * @param tracestate The incoming {@code tracestate} header, may be null
+   * @return The trace context of the request, with a new span ID
+   */
+  public static TraceContext fromHeaders(String traceparent, String tracestate) {
+    if (!isValidTraceparent(traceparent)) {
+      return new TraceContext(newTraceId(), newSpanId(), null, SAMPLED, null);
+    }
+    String state =
+        tracestate != null && !tracestate.isBlank() && tracestate.length() <= MAX_TRACESTATE_LENGTH
+            ? tracestate.trim()
+            : null;
+    return new TraceContext(
+        traceparent.substring(3, 35),
+        newSpanId(),
+        traceparent.substring(36, 52),
+        traceparent.substring(53, 55),
+        state);
+  }
+
+  /**
+   * Get the {@code traceparent} header value identifying the span of this request, to return to
+   * the caller or to send on outgoing calls.
+   *
+   * @return The header value
+   */
+  public String traceparent() {
+    return VERSION + '-' + traceId + '-' + spanId + '-' + flags;
+  }
+
+  /**
+   * Check a {@code traceparent} header. Versions after 00 may append fields, which are ignored;
+   * version ff and all-zero IDs are invalid.
+   */
+  static boolean isValidTraceparent(String value) {
+    if (value == null || value.length() < TRACEPARENT_LENGTH) {
+      return false;
+    }
+    if (!isLowerHex(value, 0, 2) || value.startsWith("ff")) {
+      return false;
+    }
+    if (value.startsWith(VERSION)
+        ? value.length() != TRACEPARENT_LENGTH
+        : value.length() > TRACEPARENT_LENGTH && value.charAt(TRACEPARENT_LENGTH) != '-') {
+      return false;
+    }
+    return value.charAt(2) == '-'
+        && value.charAt(35) == '-'
+        && value.charAt(52) == '-'
+        && isLowerHex(value, 3, 35)
+        && isLowerHex(value, 36, 52)
+        && isLowerHex(value, 53, 55)
+        && !isZero(value, 3, 35)
+        && !isZero(value, 36, 52);
+  }
+
+  private static String newTraceId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long high = random.nextLong();
+    long low = random.nextLong();
+    if (high == 0 && low == 0) {
+      low = 1;
+    }
+    return HEX.toHexDigits(high) + HEX.toHexDigits(low);
+  }
+
+  private static String newSpanId() {
+    long id = ThreadLocalRandom.current().nextLong();
+    return HEX.toHexDigits(id != 0 ? id : 1);
+  }
+
+  private static boolean isLowerHex(String value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = value.charAt(i);
+      if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isZero(String value, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (value.charAt(i) != '0') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
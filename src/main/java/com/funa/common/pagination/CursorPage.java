@@ -0,0 +1,94 @@
+package com.funa.common.pagination;
+
+import lombok.Getter;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated listing, ordered by ID.
+ * The next page is requested with {@code after=<nextCursor>}, so every page costs an index range scan
+ * of {@code limit} rows regardless of how deep into the table it is.
+ *
+ * @param <T> The type of the page items
+ */
+@Getter
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final List<T> items;
+    private final int limit;
+    private final Long nextCursor;
+    private final boolean hasNext;
+
+    private CursorPage(List<T> items, int limit, Long nextCursor, boolean hasNext) {
+        this.items = items;
+        this.limit = limit;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Normalize a requested page size to the range [1, MAX_LIMIT].
+     *
+     * @param limit The requested page size (can be null for the default page size)
+     * @return The page size to use
+     */
+    public static int normalizeLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Get the ID to continue after, starting from the beginning if no cursor is given.
+     *
+     * @param after The cursor of the previous page (can be null for the first page)
+     * @return The ID to continue after
+     */
+    public static long startAfter(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Get the number of rows to fetch for a page: one more than the page size,
+     * so that the presence of a next page is known without a count query.
+     *
+     * @param limit The normalized page size
+     * @return The fetch limit
+     */
+    public static Limit fetchLimit(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Build a page from the rows fetched with {@link #fetchLimit(int)}.
+     *
+     * @param rows The fetched rows, ordered by ID
+     * @param limit The normalized page size
+     * @param idExtractor Function returning the ID of a row
+     * @param <T> The type of the rows
+     * @return The page
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        boolean hasNext = rows.size() > limit;
+        List<T> items = hasNext ? rows.subList(0, limit) : rows;
+        Long nextCursor = hasNext ? idExtractor.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, limit, nextCursor, hasNext);
+    }
+
+    /**
+     * Convert the items of this page, keeping the page metadata.
+     *
+     * @param mapper Function converting the items
+     * @param <R> The type of the converted items
+     * @return The converted page
+     */
+    public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new CursorPage<>(mapper.apply(items), limit, nextCursor, hasNext);
+    }
+}
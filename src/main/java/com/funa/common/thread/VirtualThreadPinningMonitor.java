@@ -0,0 +1,110 @@
+package com.funa.common.thread;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. inside a synchronized block
+ * of a JDBC driver or connection pool. A pinned virtual thread holds its carrier for the whole wait,
+ * so a few of them can stall every other virtual thread.
+ * <p>
+ * Pinning events are streamed from JFR. Every event is counted in the "jvm.threads.virtual.pinned" timer;
+ * the first occurrence of every distinct stack trace is logged as a warning, later ones at debug level.
+ * Only created when virtual threads are enabled, since pinning cannot happen without them.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "threads.virtual.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 15;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Set<String> reportedStackTraces = ConcurrentHashMap.newKeySet();
+    private volatile RecordingStream stream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(
+            @Value("${threads.virtual.pinning-threshold:20ms}") Duration threshold,
+            MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        stream = recordingStream;
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recordingStream = stream;
+        stream = null;
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+
+        String stackTrace = format(event.getStackTrace());
+        if (reportedStackTraces.add(stackTrace)) {
+            logger.warn("Virtual thread {} blocked for {} ms while pinned to its carrier thread at:{}",
+                    threadName(event), event.getDuration().toMillis(), stackTrace);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("Virtual thread {} blocked for {} ms while pinned to its carrier thread",
+                    threadName(event), event.getDuration().toMillis());
+        }
+    }
+
+    private static String threadName(RecordedEvent event) {
+        return event.getThread() != null ? event.getThread().getJavaName() : "unknown";
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " (no stack trace)";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        return frames.stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\n\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + "(line " + frame.getLineNumber() + ")")
+                .collect(Collectors.joining("", "", frames.size() > LOGGED_FRAMES ? "\n\t..." : ""));
+    }
+}
@@ -0,0 +1,35 @@
+package com.funa.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for hashing TEXT content, so that content can be compared and used as a cache key without loading it.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+        // Utility class, do not instantiate
+    }
+
+    /**
+     * Compute the SHA-256 hash of a text.
+     *
+     * @param content The text to hash (can be null)
+     * @return The lowercase hex encoded hash (64 characters), or null if the text is null
+     */
+    public static String sha256(String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.funa.feature;
 
 import com.funa.common.entity.BaseEntity;
+import com.funa.common.entity.SequenceIdAllocator;
 import com.funa.folder.Folder;
 import com.funa.sequencediagram.SequenceDiagram;
 import com.funa.sqlquery.SqlQuery;
@@ -21,7 +22,8 @@ import lombok.Setter;
 public class Feature extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_feature_seq")
+    @SequenceGenerator(name = "tb_feature_seq", sequenceName = "tb_feature_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
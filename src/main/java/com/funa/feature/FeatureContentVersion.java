@@ -0,0 +1,19 @@
+package com.funa.feature;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version information of a feature and of the template prompt, sequence diagram and SQL query it links to,
+ * loaded without any of their TEXT content. Identifies exactly which content a derived result was built from.
+ */
+public record FeatureContentVersion(
+        Long featureId,
+        LocalDateTime featureUpdatedAt,
+        Long templatePromptId,
+        LocalDateTime templatePromptUpdatedAt,
+        String templatePromptHash,
+        Long sequenceDiagramId,
+        String sequenceDiagramHash,
+        Long sqlQueryId,
+        String sqlQueryHash) {
+}
@@ -1,8 +1,20 @@
 package com.funa.feature;
 
+import com.funa.common.cache.ResponseCache;
+import com.funa.common.cache.ResponseCacheKey;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.ValidationException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.feature.dto.FeatureMapper;
 import com.funa.feature.dto.FeatureRequestDto;
 import com.funa.feature.dto.FeatureResponseDto;
+import com.funa.feature.dto.FeatureSummaryResponseDto;
+import com.funa.folder.Folder;
+import com.funa.sequencediagram.SequenceDiagram;
+import com.funa.sqlquery.SqlQuery;
+import com.funa.templateprompt.TemplatePrompt;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,12 +23,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * REST controller for managing features.
@@ -26,101 +40,167 @@ import java.util.NoSuchElementException;
 @Tag(name = "Feature", description = "Feature management API")
 public class FeatureController {
 
+    // Deleting a folder removes its features without a feature change of their own
+    private static final Set<Class<?>> SUMMARY_DEPENDENCIES = Set.of(Folder.class, Feature.class);
+    private static final Set<Class<?>> CONTENT_DEPENDENCIES =
+            Set.of(Folder.class, Feature.class, TemplatePrompt.class, SequenceDiagram.class, SqlQuery.class);
+
     private final FeatureService featureService;
     private final FeatureMapper featureMapper;
+    private final ResponseCache responseCache;
 
     @Autowired
-    public FeatureController(FeatureService featureService, FeatureMapper featureMapper) {
+    public FeatureController(FeatureService featureService, FeatureMapper featureMapper, ResponseCache responseCache) {
         this.featureService = featureService;
         this.featureMapper = featureMapper;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Get all features.
+     * Get all features, one page at a time.
+     * Features are returned as summaries unless their content is requested.
      *
-     * @return List of all features
+     * @param after The ID of the last feature of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of features to return (optional)
+     * @param include Set to "content" to return the full features with their linked content (optional)
+     * @return One page of features ordered by ID
      */
-    @Operation(summary = "Get all features", description = "Retrieves a list of all features")
+    @Operation(summary = "Get all features",
+            description = "Retrieves one page of feature summaries ordered by ID. Pass nextCursor as after to get the next page, "
+                    + "and include=content to get the full features")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved features",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = FeatureResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(responseCode = "400", description = "Unknown include value",
+                content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<FeatureResponseDto>> getAllFeatures() {
-        List<Feature> features = featureService.getAllFeatures();
-        List<FeatureResponseDto> featureDtos = featureMapper.toDtoList(features);
-        return ResponseEntity.ok(featureDtos);
+    public ResponseEntity<CursorPage<?>> getAllFeatures(
+            @Parameter(description = "ID of the last feature of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of features to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Set to content to include the template prompt, sequence diagram and SQL query content") @RequestParam(required = false) String include) {
+        boolean withContent = "content".equalsIgnoreCase(include);
+        if (include != null && !withContent) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (withContent) {
+            CursorPage<Feature> features = featureService.getAllFeatures(after, limit);
+            return ResponseEntity.ok(features.map(featureMapper::toDtoList));
+        }
+        CursorPage<FeatureSummary> summaries = featureService.getAllFeatureSummaries(after, limit);
+        return ResponseEntity.ok(summaries.map(featureMapper::toSummaryDtoList));
     }
 
     /**
      * Get a feature by ID.
      *
      * @param id The ID of the feature
-     * @return The feature
+     * @param webRequest The current request, checked for If-None-Match and If-Modified-Since
+     * @return The feature, or 304 Not Modified if the client's copy is current
      */
-    @Operation(summary = "Get a feature by ID", description = "Retrieves a feature by its ID")
+    @Operation(summary = "Get a feature by ID",
+            description = "Retrieves a feature by its ID. Send the returned ETag in If-None-Match to get 304 Not Modified "
+                    + "while neither the feature nor its linked content changed")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the feature",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = FeatureResponseDto.class))),
+        @ApiResponse(responseCode = "304", description = "Feature not modified",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "Feature not found",
                 content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<FeatureResponseDto> getFeatureById(
-            @Parameter(description = "ID of the feature to retrieve") @PathVariable Long id) {
-        try {
-            Feature feature = featureService.getFeatureById(id);
-            FeatureResponseDto featureDto = featureMapper.toDto(feature);
-            return ResponseEntity.ok(featureDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            @Parameter(description = "ID of the feature to retrieve") @PathVariable Long id,
+            WebRequest webRequest) {
+        ResourceVersion version = featureService.getFeatureVersion(id);
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        // The 200 response carries the version read with the body, which may come from another replica
+        Versioned<Feature> feature = featureService.getVersionedFeatureById(id);
+        FeatureResponseDto featureDto = featureMapper.toDto(feature.entity());
+        return ResponseEntity.ok().headers(feature.version().headers()).body(featureDto);
     }
 
     /**
-     * Find features by name.
+     * Find features by name, one page at a time.
+     * Features are returned as summaries unless their content is requested.
      *
      * @param name The name to search for
-     * @return List of matching features
+     * @param after The ID of the last feature of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of features to return (optional)
+     * @param include Set to "content" to return the full features with their linked content (optional)
+     * @return One page of matching features ordered by ID
      */
-    @Operation(summary = "Find features by name", description = "Retrieves a list of features matching the provided name")
+    @Operation(summary = "Find features by name",
+            description = "Retrieves one page of summaries of the features matching the provided name, ordered by ID. "
+                    + "Pass include=content to get the full features")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved features",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = FeatureResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class))),
+        @ApiResponse(responseCode = "400", description = "Unknown include value",
+                content = @Content)
     })
     @GetMapping("/search")
-    public ResponseEntity<List<FeatureResponseDto>> findFeaturesByName(@Parameter(description = "Name to search for") @RequestParam String name) {
-        List<Feature> features = featureService.findFeaturesByName(name);
-        List<FeatureResponseDto> featureDtos = featureMapper.toDtoList(features);
-        return ResponseEntity.ok(featureDtos);
+    public ResponseEntity<CursorPage<?>> findFeaturesByName(
+            @Parameter(description = "Name to search for") @RequestParam String name,
+            @Parameter(description = "ID of the last feature of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of features to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Set to content to include the template prompt, sequence diagram and SQL query content") @RequestParam(required = false) String include) {
+        boolean withContent = "content".equalsIgnoreCase(include);
+        if (include != null && !withContent) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (withContent) {
+            CursorPage<Feature> features = featureService.findFeaturesByName(name, after, limit);
+            return ResponseEntity.ok(features.map(featureMapper::toDtoList));
+        }
+        CursorPage<FeatureSummary> summaries = featureService.findFeatureSummariesByName(name, after, limit);
+        return ResponseEntity.ok(summaries.map(featureMapper::toSummaryDtoList));
     }
 
     /**
      * Find features by folder.
+     * Features are returned as summaries unless their content is requested.
+     * The response is cached until a change to the folder, its features or their content.
      *
      * @param folderId The folder ID to search in
+     * @param include Set to "content" to return the full features with their linked content (optional)
      * @return List of features in the folder
      */
-    @Operation(summary = "Find features by folder", description = "Retrieves a list of features in the specified folder")
+    @Operation(summary = "Find features by folder",
+            description = "Retrieves summaries of the features in the specified folder. Pass include=content to get the full features")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved features",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = FeatureResponseDto.class))),
+                schema = @Schema(implementation = FeatureSummaryResponseDto.class))),
+        @ApiResponse(responseCode = "400", description = "Unknown include value",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "Folder not found",
                 content = @Content)
     })
     @GetMapping("/folder/{folderId}")
-    public ResponseEntity<List<FeatureResponseDto>> findFeaturesByFolder(@Parameter(description = "ID of the folder to search in") @PathVariable Long folderId) {
-        try {
-            List<Feature> features = featureService.findFeaturesByFolder(folderId);
-            List<FeatureResponseDto> featureDtos = featureMapper.toDtoList(features);
-            return ResponseEntity.ok(featureDtos);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<List<?>> findFeaturesByFolder(
+            @Parameter(description = "ID of the folder to search in") @PathVariable Long folderId,
+            @Parameter(description = "Set to content to include the template prompt, sequence diagram and SQL query content") @RequestParam(required = false) String include) {
+        boolean withContent = "content".equalsIgnoreCase(include);
+        if (include != null && !withContent) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ResponseCacheKey key = ResponseCacheKey.of("/api/features/folder/{folderId}", folderId, withContent);
+        if (withContent) {
+            return ResponseEntity.ok(responseCache.get(key, CONTENT_DEPENDENCIES,
+                    () -> featureMapper.toDtoList(featureService.findFeaturesByFolder(folderId))));
         }
+        return ResponseEntity.ok(responseCache.get(key, SUMMARY_DEPENDENCIES,
+                () -> featureMapper.toSummaryDtoList(featureService.findFeatureSummariesByFolder(folderId))));
     }
 
     /**
@@ -174,8 +254,9 @@ public class FeatureController {
             FeatureResponseDto responseDto = featureMapper.toDto(createdFeature);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            // A missing referenced entity is an invalid request, not a missing resource
+            throw new ValidationException(e.getMessage());
         }
     }
 
@@ -183,59 +264,64 @@ public class FeatureController {
      * Update an existing feature.
      *
      * @param id The ID of the feature to update
+     * @param ifMatch The ETag of the version the client last read (optional)
      * @param featureDto The updated feature data
      * @return The updated feature
      */
-    @Operation(summary = "Update a feature", description = "Updates an existing feature with the provided data")
+    @Operation(summary = "Update a feature",
+            description = "Updates an existing feature with the provided data. With If-Match, the update is only applied "
+                    + "if the feature is still at that version")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Feature successfully updated",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = FeatureResponseDto.class))),
         @ApiResponse(responseCode = "404", description = "Feature not found",
+                content = @Content),
+        @ApiResponse(responseCode = "412", description = "Feature was modified since the If-Match version",
                 content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<FeatureResponseDto> updateFeature(
             @Parameter(description = "ID of the feature to update") @PathVariable Long id,
+            @Parameter(description = "ETag of the version to update (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated feature data", required = true) @RequestBody FeatureRequestDto featureDto) {
-        try {
-            // Convert DTO to entity
-            Feature feature = featureMapper.toEntity(featureDto);
+        // Convert DTO to entity
+        Feature feature = featureMapper.toEntity(featureDto);
 
-            Feature updatedFeature;
+        Versioned<Feature> updatedFeature;
 
-            // Check if we're updating or creating new SequenceDiagram and SqlQuery
-            if ((featureDto.getSequenceDiagramName() != null && !featureDto.getSequenceDiagramName().isEmpty()) ||
-                (featureDto.getSqlQueryName() != null && !featureDto.getSqlQueryName().isEmpty())) {
+        // Check if we're updating or creating new SequenceDiagram and SqlQuery
+        if ((featureDto.getSequenceDiagramName() != null && !featureDto.getSequenceDiagramName().isEmpty()) ||
+            (featureDto.getSqlQueryName() != null && !featureDto.getSqlQueryName().isEmpty())) {
 
-                // Update feature with new or updated SequenceDiagram and SqlQuery
-                updatedFeature = featureService.updateFeature(
-                        id, 
-                        feature, 
-                        featureDto.getFolderId(),
-                        featureDto.getTemplatePromptId(),
-                        featureDto.getSequenceDiagramName(),
-                        featureDto.getSequenceDiagramContent(),
-                        featureDto.getSqlQueryName(),
-                        featureDto.getSqlQueryContent());
-            } else {
-                // Update feature using existing entities
-                updatedFeature = featureService.updateFeature(
-                        id, 
-                        feature, 
-                        featureDto.getFolderId(),
-                        featureDto.getTemplatePromptId(),
-                        featureDto.getSequenceDiagramId(),
-                        featureDto.getSqlQueryId());
-            }
+            // Update feature with new or updated SequenceDiagram and SqlQuery
+            updatedFeature = featureService.updateFeature(
+                    id, 
+                    feature, 
+                    featureDto.getFolderId(),
+                    featureDto.getTemplatePromptId(),
+                    featureDto.getSequenceDiagramName(),
+                    featureDto.getSequenceDiagramContent(),
+                    featureDto.getSqlQueryName(),
+                    featureDto.getSqlQueryContent(),
+                    ifMatch);
+        } else {
+            // Update feature using existing entities
+            updatedFeature = featureService.updateFeature(
+                    id, 
+                    feature, 
+                    featureDto.getFolderId(),
+                    featureDto.getTemplatePromptId(),
+                    featureDto.getSequenceDiagramId(),
+                    featureDto.getSqlQueryId(),
+                    ifMatch);
+        }
 
-            // Convert entity back to DTO
-            FeatureResponseDto responseDto = featureMapper.toDto(updatedFeature);
+        // Convert entity back to DTO
+        FeatureResponseDto responseDto = featureMapper.toDto(updatedFeature.entity());
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok().headers(updatedFeature.version().headers()).body(responseDto);
     }
 
     /**
@@ -252,11 +338,7 @@ public class FeatureController {
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFeature(@Parameter(description = "ID of the feature to delete") @PathVariable Long id) {
-        try {
-            featureService.deleteFeature(id);
-            return ResponseEntity.noContent().build();
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        featureService.deleteFeature(id);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,11 @@
+package com.funa.feature;
+
+/**
+ * Projection of a feature ID together with the ID of the folder that contains it.
+ */
+public interface FeatureFolderRow {
+
+    Long getId();
+
+    Long getFolderId();
+}
@@ -1,11 +1,22 @@
 package com.funa.feature;
 
 import com.funa.folder.Folder;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Feature entity.
@@ -21,6 +32,48 @@ public interface FeatureRepository extends JpaRepository<Feature, Long> {
      */
     Optional<Feature> findByName(String name);
 
+    /**
+     * Find a feature by ID together with its folder, template prompt, sequence diagram and SQL query.
+     *
+     * @param id The ID of the feature
+     * @return The feature if found, with its linked entities fetched
+     */
+    @EntityGraph(attributePaths = {"folder", "templatePrompt", "sequenceDiagram", "sqlQuery"})
+    Optional<Feature> findWithLinksById(Long id);
+
+    /**
+     * Find the version of a feature and of its template prompt, and the content hashes of its template prompt,
+     * sequence diagram and SQL query.
+     *
+     * @param id The ID of the feature
+     * @return The content version if the feature is found
+     */
+    @Query("select new com.funa.feature.FeatureContentVersion(f.id, f.updatedAt, t.id, t.updatedAt, t.contentHash, s.id, s.contentHash, q.id, q.contentHash) "
+            + "from Feature f left join f.templatePrompt t left join f.sequenceDiagram s left join f.sqlQuery q where f.id = :id")
+    Optional<FeatureContentVersion> findContentVersionById(@Param("id") Long id);
+
+    /**
+     * Find the version of a feature and of the folder, template prompt, sequence diagram and SQL query it links to.
+     *
+     * @param id The ID of the feature
+     * @return The version if the feature is found
+     */
+    @Query("select new com.funa.feature.FeatureVersion(f.updatedAt, fo.updatedAt, t.updatedAt, t.contentHash, "
+            + "s.updatedAt, s.contentHash, q.updatedAt, q.contentHash) "
+            + "from Feature f left join f.folder fo left join f.templatePrompt t left join f.sequenceDiagram s "
+            + "left join f.sqlQuery q where f.id = :id")
+    Optional<FeatureVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Find a feature by ID and lock its row until the end of the transaction,
+     * so that a conditional update cannot interleave with another update.
+     *
+     * @param id The ID of the feature
+     * @return The feature if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Feature> findForUpdateById(Long id);
+
     /**
      * Find features with names containing the given text.
      *
@@ -29,12 +82,34 @@ public interface FeatureRepository extends JpaRepository<Feature, Long> {
      */
     List<Feature> findByNameContaining(String name);
 
+    /**
+     * Find the features with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of features to return
+     * @return List of features ordered by ID, with their linked entities fetched
+     */
+    @EntityGraph(attributePaths = {"folder", "templatePrompt", "sequenceDiagram", "sqlQuery"})
+    List<Feature> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the features with names containing the given text and IDs greater than the given ID, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of features to return
+     * @return List of matching features ordered by ID, with their linked entities fetched
+     */
+    @EntityGraph(attributePaths = {"folder", "templatePrompt", "sequenceDiagram", "sqlQuery"})
+    List<Feature> findByNameContainingAndIdGreaterThanOrderByIdAsc(String name, Long id, Limit limit);
+
     /**
      * Find features by folder.
      *
      * @param folder The folder to search in
-     * @return List of features in the folder
+     * @return List of features in the folder, with their linked entities fetched
      */
+    @EntityGraph(attributePaths = {"folder", "templatePrompt", "sequenceDiagram", "sqlQuery"})
     List<Feature> findByFolder(Folder folder);
 
     /**
@@ -44,4 +119,112 @@ public interface FeatureRepository extends JpaRepository<Feature, Long> {
      * @return List of features in the folder
      */
     List<Feature> findByFolderId(Long folderId);
-}
\ No newline at end of file
+
+    /**
+     * Find the summaries of the features with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of features to return
+     * @return List of feature summaries ordered by ID
+     */
+    @Query("select new com.funa.feature.FeatureSummary(f.id, f.name, f.description, d.id, d.name, t.id, t.name, s.id, s.name, q.id, q.name, "
+            + "f.createdAt, f.createdId, f.updatedAt, f.updatedId) "
+            + "from Feature f left join f.folder d left join f.templatePrompt t left join f.sequenceDiagram s left join f.sqlQuery q "
+            + "where f.id > :id order by f.id")
+    List<FeatureSummary> findSummariesByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    /**
+     * Find the summaries of the features with names containing the given text and IDs greater than the given ID,
+     * ordered by ID. Wildcards in the text are escaped, as in the derived "Containing" queries.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of features to return
+     * @return List of matching feature summaries ordered by ID
+     */
+    @Query("select new com.funa.feature.FeatureSummary(f.id, f.name, f.description, d.id, d.name, t.id, t.name, s.id, s.name, q.id, q.name, "
+            + "f.createdAt, f.createdId, f.updatedAt, f.updatedId) "
+            + "from Feature f left join f.folder d left join f.templatePrompt t left join f.sequenceDiagram s left join f.sqlQuery q "
+            + "where f.name like concat('%', :#{escape(#name)}, '%') escape :#{escapeCharacter()} and f.id > :id order by f.id")
+    List<FeatureSummary> findSummariesByNameContainingAndIdGreaterThan(
+            @Param("name") String name, @Param("id") Long id, Limit limit);
+
+    /**
+     * Find the summaries of the features in a folder, ordered by ID.
+     *
+     * @param folderId The folder ID to search in
+     * @return List of feature summaries in the folder
+     */
+    @Query("select new com.funa.feature.FeatureSummary(f.id, f.name, f.description, d.id, d.name, t.id, t.name, s.id, s.name, q.id, q.name, "
+            + "f.createdAt, f.createdId, f.updatedAt, f.updatedId) "
+            + "from Feature f left join f.folder d left join f.templatePrompt t left join f.sequenceDiagram s left join f.sqlQuery q "
+            + "where d.id = :folderId order by f.id")
+    List<FeatureSummary> findSummariesByFolderId(@Param("folderId") Long folderId);
+
+    /**
+     * Find the IDs of all features that belong to a folder, together with their folder IDs.
+     *
+     * @return List of feature/folder ID pairs ordered by feature ID
+     */
+    @Query("select f.id as id, f.folder.id as folderId from Feature f where f.folder is not null order by f.id")
+    List<FeatureFolderRow> findAllFolderRows();
+
+    /**
+     * Find the IDs of all features under a folder subtree, together with their folder IDs.
+     *
+     * @param path The materialized path of the subtree root folder
+     * @return List of feature/folder ID pairs ordered by feature ID
+     */
+    @Query("select f.id as id, f.folder.id as folderId from Feature f where f.folder.path like concat(:path, '%') order by f.id")
+    List<FeatureFolderRow> findSubtreeFolderRows(@Param("path") String path);
+
+    /**
+     * Find the IDs of the features under a folder subtree with IDs greater than the given ID,
+     * together with their folder IDs, so that large subtrees can be walked in chunks.
+     *
+     * @param path The materialized path of the subtree root folder
+     * @param id The ID to continue after
+     * @param limit The maximum number of features to return
+     * @return List of feature/folder ID pairs ordered by feature ID
+     */
+    @Query("select f.id as id, f.folder.id as folderId from Feature f where f.folder.path like concat(:path, '%') and f.id > :id order by f.id")
+    List<FeatureFolderRow> findSubtreeFolderRowsByIdGreaterThan(@Param("path") String path, @Param("id") Long id, Limit limit);
+
+    /**
+     * Find the distinct IDs of the sequence diagrams used by features under a folder subtree.
+     *
+     * @param path The materialized path of the subtree root folder
+     * @return List of sequence diagram IDs
+     */
+    @Query("select distinct f.sequenceDiagram.id from Feature f where f.folder.path like concat(:path, '%') and f.sequenceDiagram is not null")
+    List<Long> findSequenceDiagramIdsInSubtree(@Param("path") String path);
+
+    /**
+     * Find the distinct IDs of the SQL queries used by features under a folder subtree.
+     *
+     * @param path The materialized path of the subtree root folder
+     * @return List of SQL query IDs
+     */
+    @Query("select distinct f.sqlQuery.id from Feature f where f.folder.path like concat(:path, '%') and f.sqlQuery is not null")
+    List<Long> findSqlQueryIdsInSubtree(@Param("path") String path);
+
+    /**
+     * Delete all features under a folder subtree with a single statement.
+     *
+     * @param path The materialized path of the subtree root folder
+     * @return Number of features deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Feature f where f.folder.id in (select d.id from Folder d where d.path like concat(:path, '%'))")
+    int deleteInSubtree(@Param("path") String path);
+
+    /**
+     * Stream all features ordered by ID.
+     * Rows are fetched from the database in chunks while the stream is consumed, so the caller must run inside
+     * a transaction, close the stream and clear the persistence context as it goes.
+     *
+     * @return Stream of all features
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Feature> streamAllByOrderByIdAsc();
+}
@@ -1,5 +1,11 @@
 package com.funa.feature;
 
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.folder.Folder;
 import com.funa.folder.FolderRepository;
 import com.funa.sequencediagram.SequenceDiagram;
@@ -9,11 +15,11 @@ import com.funa.sqlquery.SqlQueryRepository;
 import com.funa.templateprompt.TemplatePrompt;
 import com.funa.templateprompt.TemplatePromptRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * Service for managing features.
@@ -27,6 +33,7 @@ public class FeatureService {
     private final TemplatePromptRepository templatePromptRepository;
     private final SequenceDiagramRepository sequenceDiagramRepository;
     private final SqlQueryRepository sqlQueryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public FeatureService(
@@ -34,12 +41,14 @@ public class FeatureService {
             FolderRepository folderRepository,
             TemplatePromptRepository templatePromptRepository,
             SequenceDiagramRepository sequenceDiagramRepository,
-            SqlQueryRepository sqlQueryRepository) {
+            SqlQueryRepository sqlQueryRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.featureRepository = featureRepository;
         this.folderRepository = folderRepository;
         this.templatePromptRepository = templatePromptRepository;
         this.sequenceDiagramRepository = sequenceDiagramRepository;
         this.sqlQueryRepository = sqlQueryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -52,17 +61,77 @@ public class FeatureService {
         return featureRepository.findAll();
     }
 
+    /**
+     * Get one page of all features, ordered by ID.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of features
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Feature> getAllFeatures(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<Feature> features = featureRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(features, pageSize, Feature::getId);
+    }
+
+    /**
+     * Get one page of all feature summaries, ordered by ID.
+     * Summaries are loaded with one joined query and without any TEXT content.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of feature summaries
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FeatureSummary> getAllFeatureSummaries(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<FeatureSummary> summaries = featureRepository.findSummariesByIdGreaterThan(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(summaries, pageSize, FeatureSummary::id);
+    }
+
     /**
      * Get a feature by ID.
      *
      * @param id The ID of the feature
      * @return The feature
-     * @throws NoSuchElementException if the feature is not found
+     * @throws NotFoundException if the feature is not found
      */
     @Transactional(readOnly = true)
     public Feature getFeatureById(Long id) {
         return featureRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Feature not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Feature", id));
+    }
+
+    /**
+     * Get the version of a feature without loading any TEXT content.
+     *
+     * @param id The ID of the feature
+     * @return The version of its representation
+     * @throws NotFoundException if the feature is not found
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getFeatureVersion(Long id) {
+        return featureRepository.findVersionById(id)
+                .map(FeatureVersion::toResourceVersion)
+                .orElseThrow(() -> new NotFoundException("Feature", id));
+    }
+
+    /**
+     * Get a feature with its folder, template prompt, sequence diagram and SQL query, together with the version
+     * of its representation. Both are read in the same transaction, so the version matches the returned content.
+     *
+     * @param id The ID of the feature
+     * @return The feature and its version
+     * @throws NotFoundException if the feature is not found
+     */
+    @Transactional(readOnly = true)
+    public Versioned<Feature> getVersionedFeatureById(Long id) {
+        Feature feature = featureRepository.findWithLinksById(id)
+                .orElseThrow(() -> new NotFoundException("Feature", id));
+        return new Versioned<>(feature, getFeatureVersion(id));
     }
 
     /**
@@ -76,20 +145,69 @@ public class FeatureService {
         return featureRepository.findByNameContaining(name);
     }
 
+    /**
+     * Find one page of features by name containing the given text, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching features
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Feature> findFeaturesByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<Feature> features = featureRepository.findByNameContainingAndIdGreaterThanOrderByIdAsc(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(features, pageSize, Feature::getId);
+    }
+
+    /**
+     * Find one page of feature summaries by name containing the given text, ordered by ID.
+     * Summaries are loaded with one joined query and without any TEXT content.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching feature summaries
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<FeatureSummary> findFeatureSummariesByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<FeatureSummary> summaries = featureRepository.findSummariesByNameContainingAndIdGreaterThan(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(summaries, pageSize, FeatureSummary::id);
+    }
+
     /**
      * Find features by folder.
      *
      * @param folderId The folder ID to search in
      * @return List of features in the folder
-     * @throws NoSuchElementException if the folder is not found
+     * @throws NotFoundException if the folder is not found
      */
     @Transactional(readOnly = true)
     public List<Feature> findFeaturesByFolder(Long folderId) {
         Folder folder = folderRepository.findById(folderId)
-                .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + folderId));
+                .orElseThrow(() -> new NotFoundException("Folder", folderId));
         return featureRepository.findByFolder(folder);
     }
 
+    /**
+     * Find the summaries of the features in a folder.
+     * Summaries are loaded with one joined query and without any TEXT content.
+     *
+     * @param folderId The folder ID to search in
+     * @return List of feature summaries in the folder
+     * @throws NotFoundException if the folder is not found
+     */
+    @Transactional(readOnly = true)
+    public List<FeatureSummary> findFeatureSummariesByFolder(Long folderId) {
+        if (!folderRepository.existsById(folderId)) {
+            throw new NotFoundException("Folder", folderId);
+        }
+        return featureRepository.findSummariesByFolderId(folderId);
+    }
+
     /**
      * Create a new feature.
      *
@@ -101,7 +219,7 @@ public class FeatureService {
      * @param sqlQueryName The name for a new SQL query to create (optional)
      * @param sqlQueryContent The content for a new SQL query to create (optional)
      * @return The created feature
-     * @throws NoSuchElementException if any of the referenced entities are not found
+     * @throws NotFoundException if any of the referenced entities are not found
      */
     @Transactional
     public Feature createFeature(
@@ -116,14 +234,14 @@ public class FeatureService {
         // Set folder
         if (folderId != null) {
             Folder folder = folderRepository.findById(folderId)
-                    .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + folderId));
+                    .orElseThrow(() -> new NotFoundException("Folder", folderId));
             feature.setFolder(folder);
         }
 
         // Set template prompt
         if (templatePromptId != null) {
             TemplatePrompt templatePrompt = templatePromptRepository.findById(templatePromptId)
-                    .orElseThrow(() -> new NoSuchElementException("Template prompt not found with ID: " + templatePromptId));
+                    .orElseThrow(() -> new NotFoundException("Template prompt", templatePromptId));
             feature.setTemplatePrompt(templatePrompt);
         }
 
@@ -147,7 +265,9 @@ public class FeatureService {
             feature.setSqlQuery(sqlQuery);
         }
 
-        return featureRepository.save(feature);
+        Feature createdFeature = featureRepository.save(feature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, createdFeature.getId()));
+        return createdFeature;
     }
 
     /**
@@ -159,7 +279,7 @@ public class FeatureService {
      * @param sequenceDiagramId The ID of the sequence diagram to associate with the feature (optional)
      * @param sqlQueryId The ID of the SQL query to associate with the feature (optional)
      * @return The created feature
-     * @throws NoSuchElementException if any of the referenced entities are not found
+     * @throws NotFoundException if any of the referenced entities are not found
      */
     @Transactional
     public Feature createFeature(
@@ -172,32 +292,34 @@ public class FeatureService {
         // Set folder
         if (folderId != null) {
             Folder folder = folderRepository.findById(folderId)
-                    .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + folderId));
+                    .orElseThrow(() -> new NotFoundException("Folder", folderId));
             feature.setFolder(folder);
         }
 
         // Set template prompt
         if (templatePromptId != null) {
             TemplatePrompt templatePrompt = templatePromptRepository.findById(templatePromptId)
-                    .orElseThrow(() -> new NoSuchElementException("Template prompt not found with ID: " + templatePromptId));
+                    .orElseThrow(() -> new NotFoundException("Template prompt", templatePromptId));
             feature.setTemplatePrompt(templatePrompt);
         }
 
         // Set sequence diagram
         if (sequenceDiagramId != null) {
             SequenceDiagram sequenceDiagram = sequenceDiagramRepository.findById(sequenceDiagramId)
-                    .orElseThrow(() -> new NoSuchElementException("Sequence diagram not found with ID: " + sequenceDiagramId));
+                    .orElseThrow(() -> new NotFoundException("Sequence diagram", sequenceDiagramId));
             feature.setSequenceDiagram(sequenceDiagram);
         }
 
         // Set SQL query
         if (sqlQueryId != null) {
             SqlQuery sqlQuery = sqlQueryRepository.findById(sqlQueryId)
-                    .orElseThrow(() -> new NoSuchElementException("SQL query not found with ID: " + sqlQueryId));
+                    .orElseThrow(() -> new NotFoundException("SQL query", sqlQueryId));
             feature.setSqlQuery(sqlQuery);
         }
 
-        return featureRepository.save(feature);
+        Feature createdFeature = featureRepository.save(feature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, createdFeature.getId()));
+        return createdFeature;
     }
 
     /**
@@ -212,7 +334,7 @@ public class FeatureService {
      * @param sqlQueryName The name for a new SQL query to create (optional)
      * @param sqlQueryContent The content for a new SQL query to create (optional)
      * @return The updated feature
-     * @throws NoSuchElementException if any of the referenced entities are not found
+     * @throws NotFoundException if any of the referenced entities are not found
      */
     @Transactional
     public Feature updateFeature(
@@ -232,14 +354,14 @@ public class FeatureService {
         // Update folder
         if (folderId != null) {
             Folder folder = folderRepository.findById(folderId)
-                    .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + folderId));
+                    .orElseThrow(() -> new NotFoundException("Folder", folderId));
             existingFeature.setFolder(folder);
         }
 
         // Update template prompt
         if (templatePromptId != null) {
             TemplatePrompt templatePrompt = templatePromptRepository.findById(templatePromptId)
-                    .orElseThrow(() -> new NoSuchElementException("Template prompt not found with ID: " + templatePromptId));
+                    .orElseThrow(() -> new NotFoundException("Template prompt", templatePromptId));
             existingFeature.setTemplatePrompt(templatePrompt);
         } else if (templatePromptId == null && feature.getTemplatePrompt() == null) {
             existingFeature.setTemplatePrompt(null);
@@ -254,6 +376,7 @@ public class FeatureService {
                 existingSequenceDiagram.setName(sequenceDiagramName);
                 existingSequenceDiagram.setSequenceDiagramContent(sequenceDiagramContent);
                 sequenceDiagramRepository.save(existingSequenceDiagram);
+                eventPublisher.publishEvent(new EntityChangedEvent(SequenceDiagram.class, existingSequenceDiagram.getId()));
             } else {
                 // Create a new sequence diagram
                 SequenceDiagram sequenceDiagram = new SequenceDiagram();
@@ -273,6 +396,7 @@ public class FeatureService {
                 existingSqlQuery.setName(sqlQueryName);
                 existingSqlQuery.setQueryContent(sqlQueryContent);
                 sqlQueryRepository.save(existingSqlQuery);
+                eventPublisher.publishEvent(new EntityChangedEvent(SqlQuery.class, existingSqlQuery.getId()));
             } else {
                 // Create a new SQL query
                 SqlQuery sqlQuery = new SqlQuery();
@@ -283,7 +407,9 @@ public class FeatureService {
             }
         }
 
-        return featureRepository.save(existingFeature);
+        Feature updatedFeature = featureRepository.save(existingFeature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, id));
+        return updatedFeature;
     }
 
     /**
@@ -296,7 +422,7 @@ public class FeatureService {
      * @param sequenceDiagramId The ID of the sequence diagram to associate with the feature (optional)
      * @param sqlQueryId The ID of the SQL query to associate with the feature (optional)
      * @return The updated feature
-     * @throws NoSuchElementException if any of the referenced entities are not found
+     * @throws NotFoundException if any of the referenced entities are not found
      */
     @Transactional
     public Feature updateFeature(
@@ -314,14 +440,14 @@ public class FeatureService {
         // Update folder
         if (folderId != null) {
             Folder folder = folderRepository.findById(folderId)
-                    .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + folderId));
+                    .orElseThrow(() -> new NotFoundException("Folder", folderId));
             existingFeature.setFolder(folder);
         }
 
         // Update template prompt
         if (templatePromptId != null) {
             TemplatePrompt templatePrompt = templatePromptRepository.findById(templatePromptId)
-                    .orElseThrow(() -> new NoSuchElementException("Template prompt not found with ID: " + templatePromptId));
+                    .orElseThrow(() -> new NotFoundException("Template prompt", templatePromptId));
             existingFeature.setTemplatePrompt(templatePrompt);
         } else if (templatePromptId == null && feature.getTemplatePrompt() == null) {
             existingFeature.setTemplatePrompt(null);
@@ -330,7 +456,7 @@ public class FeatureService {
         // Update sequence diagram
         if (sequenceDiagramId != null) {
             SequenceDiagram sequenceDiagram = sequenceDiagramRepository.findById(sequenceDiagramId)
-                    .orElseThrow(() -> new NoSuchElementException("Sequence diagram not found with ID: " + sequenceDiagramId));
+                    .orElseThrow(() -> new NotFoundException("Sequence diagram", sequenceDiagramId));
             existingFeature.setSequenceDiagram(sequenceDiagram);
         } else if (sequenceDiagramId == null && feature.getSequenceDiagram() == null) {
             existingFeature.setSequenceDiagram(null);
@@ -339,25 +465,103 @@ public class FeatureService {
         // Update SQL query
         if (sqlQueryId != null) {
             SqlQuery sqlQuery = sqlQueryRepository.findById(sqlQueryId)
-                    .orElseThrow(() -> new NoSuchElementException("SQL query not found with ID: " + sqlQueryId));
+                    .orElseThrow(() -> new NotFoundException("SQL query", sqlQueryId));
             existingFeature.setSqlQuery(sqlQuery);
         } else if (sqlQueryId == null && feature.getSqlQuery() == null) {
             existingFeature.setSqlQuery(null);
         }
 
-        return featureRepository.save(existingFeature);
+        Feature updatedFeature = featureRepository.save(existingFeature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, id));
+        return updatedFeature;
+    }
+
+    /**
+     * Update an existing feature, creating or updating its sequence diagram and SQL query,
+     * if it is still at the version the client last read.
+     *
+     * @param id The ID of the feature to update
+     * @param feature The updated feature data
+     * @param folderId The ID of the folder to move the feature to (optional)
+     * @param templatePromptId The ID of the template prompt to associate with the feature (optional)
+     * @param sequenceDiagramName The name for a new sequence diagram to create (optional)
+     * @param sequenceDiagramContent The content for a new sequence diagram to create (optional)
+     * @param sqlQueryName The name for a new SQL query to create (optional)
+     * @param sqlQueryContent The content for a new SQL query to create (optional)
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated feature and its new version
+     * @throws NotFoundException if any of the referenced entities are not found
+     * @throws PreconditionFailedException if the feature has changed since the client read it
+     */
+    @Transactional
+    public Versioned<Feature> updateFeature(
+            Long id,
+            Feature feature,
+            Long folderId,
+            Long templatePromptId,
+            String sequenceDiagramName,
+            String sequenceDiagramContent,
+            String sqlQueryName,
+            String sqlQueryContent,
+            String ifMatch) {
+        checkIfMatch(id, ifMatch);
+        Feature updatedFeature = updateFeature(id, feature, folderId, templatePromptId,
+                sequenceDiagramName, sequenceDiagramContent, sqlQueryName, sqlQueryContent);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedFeature, getFeatureVersion(id));
+    }
+
+    /**
+     * Update an existing feature with existing related entities, if it is still at the version the client last read.
+     *
+     * @param id The ID of the feature to update
+     * @param feature The updated feature data
+     * @param folderId The ID of the folder to move the feature to (optional)
+     * @param templatePromptId The ID of the template prompt to associate with the feature (optional)
+     * @param sequenceDiagramId The ID of the sequence diagram to associate with the feature (optional)
+     * @param sqlQueryId The ID of the SQL query to associate with the feature (optional)
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated feature and its new version
+     * @throws NotFoundException if any of the referenced entities are not found
+     * @throws PreconditionFailedException if the feature has changed since the client read it
+     */
+    @Transactional
+    public Versioned<Feature> updateFeature(
+            Long id,
+            Feature feature,
+            Long folderId,
+            Long templatePromptId,
+            Long sequenceDiagramId,
+            Long sqlQueryId,
+            String ifMatch) {
+        checkIfMatch(id, ifMatch);
+        Feature updatedFeature = updateFeature(id, feature, folderId, templatePromptId, sequenceDiagramId, sqlQueryId);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedFeature, getFeatureVersion(id));
+    }
+
+    /**
+     * Lock a feature and check that it is still at the version of an If-Match header.
+     */
+    private void checkIfMatch(Long id, String ifMatch) {
+        if (ifMatch != null) {
+            featureRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new NotFoundException("Feature", id));
+            getFeatureVersion(id).checkIfMatch(ifMatch);
+        }
     }
 
     /**
      * Delete a feature by ID.
      *
      * @param id The ID of the feature to delete
-     * @throws NoSuchElementException if the feature is not found
+     * @throws NotFoundException if the feature is not found
      */
     public void deleteFeature(Long id) {
         if (!featureRepository.existsById(id)) {
-            throw new NoSuchElementException("Feature not found with ID: " + id);
+            throw new NotFoundException("Feature", id);
         }
         featureRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, id));
     }
 }
@@ -0,0 +1,26 @@
+package com.funa.feature;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only summary of a feature for listings.
+ * Carries the IDs and names of the linked folder, template prompt, sequence diagram and SQL query,
+ * but none of their TEXT content, and is loaded with a single joined query.
+ */
+public record FeatureSummary(
+        Long id,
+        String name,
+        String description,
+        Long folderId,
+        String folderName,
+        Long templatePromptId,
+        String templatePromptName,
+        Long sequenceDiagramId,
+        String sequenceDiagramName,
+        Long sqlQueryId,
+        String sqlQueryName,
+        LocalDateTime createdAt,
+        String createdId,
+        LocalDateTime updatedAt,
+        String updatedId) {
+}
@@ -0,0 +1,30 @@
+package com.funa.feature;
+
+import com.funa.common.http.ResourceVersion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of everything the representation of a feature is built from: the feature, the name of its folder,
+ * and the template prompt, sequence diagram and SQL query it links to. Loaded without any TEXT content.
+ */
+public record FeatureVersion(
+        LocalDateTime featureUpdatedAt,
+        LocalDateTime folderUpdatedAt,
+        LocalDateTime templatePromptUpdatedAt,
+        String templatePromptHash,
+        LocalDateTime sequenceDiagramUpdatedAt,
+        String sequenceDiagramHash,
+        LocalDateTime sqlQueryUpdatedAt,
+        String sqlQueryHash) {
+
+    /**
+     * Get the version of the representation of the feature.
+     *
+     * @return The resource version
+     */
+    public ResourceVersion toResourceVersion() {
+        return ResourceVersion.of(featureUpdatedAt, folderUpdatedAt, templatePromptUpdatedAt, templatePromptHash,
+                sequenceDiagramUpdatedAt, sequenceDiagramHash, sqlQueryUpdatedAt, sqlQueryHash);
+    }
+}
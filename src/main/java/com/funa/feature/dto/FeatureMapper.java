@@ -1,6 +1,7 @@
 package com.funa.feature.dto;
 
 import com.funa.feature.Feature;
+import com.funa.feature.FeatureSummary;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -80,6 +81,51 @@ public class FeatureMapper {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Convert a FeatureSummary projection to a FeatureSummaryResponseDto.
+     *
+     * @param summary The FeatureSummary to convert
+     * @return The FeatureSummaryResponseDto
+     */
+    public FeatureSummaryResponseDto toSummaryDto(FeatureSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+
+        return new FeatureSummaryResponseDto(
+                summary.id(),
+                summary.name(),
+                summary.description(),
+                summary.folderId(),
+                summary.folderName(),
+                summary.templatePromptId(),
+                summary.templatePromptName(),
+                summary.sequenceDiagramId(),
+                summary.sequenceDiagramName(),
+                summary.sqlQueryId(),
+                summary.sqlQueryName(),
+                summary.createdAt(),
+                summary.createdId(),
+                summary.updatedAt(),
+                summary.updatedId());
+    }
+
+    /**
+     * Convert a list of FeatureSummary projections to a list of FeatureSummaryResponseDtos.
+     *
+     * @param summaries The list of FeatureSummary projections to convert
+     * @return The list of FeatureSummaryResponseDtos
+     */
+    public List<FeatureSummaryResponseDto> toSummaryDtoList(List<FeatureSummary> summaries) {
+        if (summaries == null) {
+            return null;
+        }
+
+        return summaries.stream()
+                .map(this::toSummaryDto)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Convert a FeatureRequestDto to a Feature entity.
      * Note: This does not set relationships, only basic properties.
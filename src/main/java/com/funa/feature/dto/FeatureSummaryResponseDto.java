@@ -0,0 +1,38 @@
+package com.funa.feature.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for Feature listing responses.
+ * Same as FeatureResponseDto without the template prompt, sequence diagram and SQL query content.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeatureSummaryResponseDto {
+    private Long id;
+    private String name;
+    private String description;
+
+    // Simplified representation of relationships
+    private Long folderId;
+    private String folderName;
+    private Long templatePromptId;
+    private String templatePromptName;
+    private Long sequenceDiagramId;
+    private String sequenceDiagramName;
+    private Long sqlQueryId;
+    private String sqlQueryName;
+
+    // Audit fields
+    private LocalDateTime createdAt;
+    private String createdId;
+    private LocalDateTime updatedAt;
+    private String updatedId;
+}
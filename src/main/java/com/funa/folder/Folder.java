@@ -1,6 +1,7 @@
 package com.funa.folder;
 
 import com.funa.common.entity.BaseEntity;
+import com.funa.common.entity.SequenceIdAllocator;
 import com.funa.feature.Feature;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -15,14 +16,15 @@ import java.util.List;
  * Folders can contain other folders and features.
  */
 @Entity
-@Table(name = "tb_folder")
+@Table(name = "tb_folder", indexes = @Index(name = "idx_folder_path", columnList = "path"))
 @Getter
 @Setter
 @NoArgsConstructor
 public class Folder extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_folder_seq")
+    @SequenceGenerator(name = "tb_folder_seq", sequenceName = "tb_folder_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -35,12 +37,47 @@ public class Folder extends BaseEntity {
     @JoinColumn(name = "parent_id")
     private Folder parent;
 
+    /**
+     * Materialized ancestry path made of the IDs from the root down to this folder, e.g. "/1/5/9/".
+     * Maintained by FolderService so that ancestor and descendant lookups are single indexed queries.
+     */
+    @Column(name = "path", length = 2000)
+    private String path;
+
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Folder> folders = new ArrayList<>();
 
     @OneToMany(mappedBy = "folder", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Feature> features = new ArrayList<>();
 
+    /**
+     * Get the IDs of the ancestors of this folder, from the root down to the direct parent.
+     *
+     * @return List of ancestor IDs, empty for root folders
+     */
+    public List<Long> getAncestorIds() {
+        List<Long> ancestorIds = new ArrayList<>();
+        if (path == null) {
+            return ancestorIds;
+        }
+        String[] segments = path.split("/");
+        // The first segment is empty (leading slash) and the last one is this folder
+        for (int i = 1; i < segments.length - 1; i++) {
+            ancestorIds.add(Long.valueOf(segments[i]));
+        }
+        return ancestorIds;
+    }
+
+    /**
+     * Check whether this folder is the given folder or lies somewhere below it.
+     *
+     * @param ancestor The potential ancestor folder
+     * @return true if this folder is in the subtree of the given folder
+     */
+    public boolean isInSubtreeOf(Folder ancestor) {
+        return path != null && ancestor.getPath() != null && path.startsWith(ancestor.getPath());
+    }
+
     /**
      * Add a child folder to this folder.
      *
@@ -1,12 +1,22 @@
 package com.funa.folder;
 
+import com.funa.common.cache.ResponseCache;
+import com.funa.common.cache.ResponseCacheKey;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.ValidationException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.feature.Feature;
 import com.funa.feature.dto.FeatureMapper;
 import com.funa.feature.dto.FeatureRequestDto;
 import com.funa.feature.dto.FeatureResponseDto;
+import com.funa.folder.dto.FolderCopyResponseDto;
+import com.funa.folder.dto.FolderDeleteResponseDto;
 import com.funa.folder.dto.FolderMapper;
 import com.funa.folder.dto.FolderRequestDto;
 import com.funa.folder.dto.FolderResponseDto;
+import com.funa.folder.dto.FolderTreeResponseDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,12 +25,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * REST controller for managing folders.
@@ -30,37 +42,51 @@ import java.util.NoSuchElementException;
 @Tag(name = "Folder", description = "Folder management API")
 public class FolderController {
 
+    // Folder DTOs list the names of their child folders and features
+    private static final Set<Class<?>> FOLDER_DEPENDENCIES = Set.of(Folder.class, Feature.class);
+
     private final FolderService folderService;
     private final FolderMapper folderMapper;
     private final FeatureMapper featureMapper;
+    private final ResponseCache responseCache;
 
     @Autowired
-    public FolderController(FolderService folderService, FolderMapper folderMapper, FeatureMapper featureMapper) {
+    public FolderController(
+            FolderService folderService,
+            FolderMapper folderMapper,
+            FeatureMapper featureMapper,
+            ResponseCache responseCache) {
         this.folderService = folderService;
         this.folderMapper = folderMapper;
         this.featureMapper = featureMapper;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Get all folders.
+     * Get all folders, one page at a time.
      *
-     * @return List of all folders
+     * @param after The ID of the last folder of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of folders to return (optional)
+     * @return One page of folders ordered by ID
      */
-    @Operation(summary = "Get all folders", description = "Retrieves a list of all folders")
+    @Operation(summary = "Get all folders", description = "Retrieves one page of folders ordered by ID. Pass nextCursor as after to get the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved folders",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = FolderResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class)))
     })
     @GetMapping
-    public ResponseEntity<List<FolderResponseDto>> getAllFolders() {
-        List<Folder> folders = folderService.getAllFolders();
-        List<FolderResponseDto> folderDtos = folderMapper.toDtoList(folders);
+    public ResponseEntity<CursorPage<FolderResponseDto>> getAllFolders(
+            @Parameter(description = "ID of the last folder of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of folders to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<Folder> folders = folderService.getAllFolders(after, limit);
+        CursorPage<FolderResponseDto> folderDtos = folders.map(folderMapper::toDtoList);
         return ResponseEntity.ok(folderDtos);
     }
 
     /**
      * Get all root folders (folders with no parent).
+     * The response is cached until a folder or feature changes.
      *
      * @return List of root folders
      */
@@ -72,58 +98,105 @@ public class FolderController {
     })
     @GetMapping("/root")
     public ResponseEntity<List<FolderResponseDto>> getRootFolders() {
-        List<Folder> rootFolders = folderService.getRootFolders();
-        List<FolderResponseDto> folderDtos = folderMapper.toDtoList(rootFolders);
+        List<FolderResponseDto> folderDtos = responseCache.get(
+                ResponseCacheKey.of("/api/folders/root"), FOLDER_DEPENDENCIES,
+                () -> folderMapper.toDtoList(folderService.getRootFolders()));
         return ResponseEntity.ok(folderDtos);
     }
 
+    /**
+     * Get the folder hierarchy in a single round trip.
+     *
+     * @param rootId The ID of the subtree root (optional, the whole workspace if omitted)
+     * @param format The response format, either "nested" or "flat"
+     * @return The folder tree
+     */
+    @Operation(summary = "Get the folder tree",
+            description = "Retrieves the whole folder hierarchy, or the subtree under rootId, with the IDs of the features in each folder. "
+                    + "The flat format returns one [id, parentId, name, featureIds] array per folder.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the folder tree",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = FolderTreeResponseDto.class))),
+        @ApiResponse(responseCode = "400", description = "Unknown format",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "Root folder not found",
+                content = @Content)
+    })
+    @GetMapping("/tree")
+    public ResponseEntity<FolderTreeResponseDto> getFolderTree(
+            @Parameter(description = "ID of the subtree root folder (optional)") @RequestParam(required = false) Long rootId,
+            @Parameter(description = "Response format: nested or flat") @RequestParam(defaultValue = "nested") String format) {
+        boolean flat = "flat".equalsIgnoreCase(format);
+        if (!flat && !"nested".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        FolderTree tree = folderService.getFolderTree(rootId);
+        FolderTreeResponseDto treeDto = flat ? folderMapper.toFlatTreeDto(tree) : folderMapper.toNestedTreeDto(tree);
+        return ResponseEntity.ok(treeDto);
+    }
+
     /**
      * Get a folder by ID.
      *
      * @param id The ID of the folder
-     * @return The folder
+     * @param webRequest The current request, checked for If-None-Match and If-Modified-Since
+     * @return The folder, or 304 Not Modified if the client's copy is current
      */
-    @Operation(summary = "Get a folder by ID", description = "Retrieves a folder by its ID")
+    @Operation(summary = "Get a folder by ID",
+            description = "Retrieves a folder by its ID. Send the returned ETag in If-None-Match to get 304 Not Modified "
+                    + "while neither the folder nor its child folders and features changed")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the folder",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = FolderResponseDto.class))),
+        @ApiResponse(responseCode = "304", description = "Folder not modified",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "Folder not found",
                 content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<FolderResponseDto> getFolderById(
-            @Parameter(description = "ID of the folder to retrieve") @PathVariable Long id) {
-        try {
-            Folder folder = folderService.getFolderById(id);
-            FolderResponseDto folderDto = folderMapper.toDto(folder);
-            return ResponseEntity.ok(folderDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            @Parameter(description = "ID of the folder to retrieve") @PathVariable Long id,
+            WebRequest webRequest) {
+        ResourceVersion version = folderService.getFolderVersion(id);
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        // The 200 response carries the version read with the body, which may come from another replica
+        Versioned<Folder> folder = folderService.getVersionedFolderById(id);
+        FolderResponseDto folderDto = folderMapper.toDto(folder.entity());
+        return ResponseEntity.ok().headers(folder.version().headers()).body(folderDto);
     }
 
     /**
-     * Find folders by name.
+     * Find folders by name, one page at a time.
      *
      * @param name The name to search for
-     * @return List of matching folders
+     * @param after The ID of the last folder of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of folders to return (optional)
+     * @return One page of matching folders ordered by ID
      */
-    @Operation(summary = "Find folders by name", description = "Retrieves a list of folders matching the provided name")
+    @Operation(summary = "Find folders by name", description = "Retrieves one page of folders matching the provided name, ordered by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved folders",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = FolderResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class)))
     })
     @GetMapping("/search")
-    public ResponseEntity<List<FolderResponseDto>> findFoldersByName(@Parameter(description = "Name to search for") @RequestParam String name) {
-        List<Folder> folders = folderService.findFoldersByName(name);
-        List<FolderResponseDto> folderDtos = folderMapper.toDtoList(folders);
+    public ResponseEntity<CursorPage<FolderResponseDto>> findFoldersByName(
+            @Parameter(description = "Name to search for") @RequestParam String name,
+            @Parameter(description = "ID of the last folder of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of folders to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<Folder> folders = folderService.findFoldersByName(name, after, limit);
+        CursorPage<FolderResponseDto> folderDtos = folders.map(folderMapper::toDtoList);
         return ResponseEntity.ok(folderDtos);
     }
 
     /**
      * Find child folders of a parent folder.
+     * The response is cached until a folder or feature changes.
      *
      * @param parentId The ID of the parent folder
      * @return List of child folders
@@ -138,13 +211,52 @@ public class FolderController {
     })
     @GetMapping("/{parentId}/children")
     public ResponseEntity<List<FolderResponseDto>> findChildFolders(@Parameter(description = "ID of the parent folder") @PathVariable Long parentId) {
-        try {
-            List<Folder> childFolders = folderService.findChildFolders(parentId);
-            List<FolderResponseDto> folderDtos = folderMapper.toDtoList(childFolders);
-            return ResponseEntity.ok(folderDtos);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        List<FolderResponseDto> folderDtos = responseCache.get(
+                ResponseCacheKey.of("/api/folders/{parentId}/children", parentId), FOLDER_DEPENDENCIES,
+                () -> folderMapper.toDtoList(folderService.findChildFolders(parentId)));
+        return ResponseEntity.ok(folderDtos);
+    }
+
+    /**
+     * Get the breadcrumb trail of a folder.
+     *
+     * @param id The ID of the folder
+     * @return List of folders from the root folder down to the given folder
+     */
+    @Operation(summary = "Get folder breadcrumbs", description = "Retrieves the ancestors of a folder, from the root folder down to the folder itself")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the breadcrumbs",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = FolderResponseDto.FolderSummaryDto.class))),
+        @ApiResponse(responseCode = "404", description = "Folder not found",
+                content = @Content)
+    })
+    @GetMapping("/{id}/breadcrumbs")
+    public ResponseEntity<List<FolderResponseDto.FolderSummaryDto>> getBreadcrumbs(
+            @Parameter(description = "ID of the folder") @PathVariable Long id) {
+        List<Folder> breadcrumbs = folderService.getBreadcrumbs(id);
+        return ResponseEntity.ok(folderMapper.toSummaryDtoList(breadcrumbs));
+    }
+
+    /**
+     * Get all descendants of a folder.
+     *
+     * @param id The ID of the folder
+     * @return List of descendant folders at any depth
+     */
+    @Operation(summary = "Get folder descendants", description = "Retrieves all folders below a folder, at any depth")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the descendants",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = FolderResponseDto.FolderSummaryDto.class))),
+        @ApiResponse(responseCode = "404", description = "Folder not found",
+                content = @Content)
+    })
+    @GetMapping("/{id}/descendants")
+    public ResponseEntity<List<FolderResponseDto.FolderSummaryDto>> getDescendants(
+            @Parameter(description = "ID of the folder") @PathVariable Long id) {
+        List<Folder> descendants = folderService.getDescendants(id);
+        return ResponseEntity.ok(folderMapper.toSummaryDtoList(descendants));
     }
 
     /**
@@ -176,8 +288,9 @@ public class FolderController {
             FolderResponseDto responseDto = folderMapper.toDto(createdFolder);
 
             return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.badRequest().build();
+        } catch (NotFoundException e) {
+            // A missing referenced entity is an invalid request, not a missing resource
+            throw new ValidationException(e.getMessage());
         }
     }
 
@@ -185,10 +298,13 @@ public class FolderController {
      * Update an existing folder.
      *
      * @param id The ID of the folder to update
+     * @param ifMatch The ETag of the version the client last read (optional)
      * @param folderDto The updated folder data
      * @return The updated folder
      */
-    @Operation(summary = "Update a folder", description = "Updates an existing folder with the provided data")
+    @Operation(summary = "Update a folder",
+            description = "Updates an existing folder with the provided data. With If-Match, the update is only applied "
+                    + "if the folder is still at that version")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Folder successfully updated",
                 content = @Content(mediaType = "application/json",
@@ -196,50 +312,74 @@ public class FolderController {
         @ApiResponse(responseCode = "404", description = "Folder not found",
                 content = @Content),
         @ApiResponse(responseCode = "400", description = "Invalid input data",
+                content = @Content),
+        @ApiResponse(responseCode = "409", description = "New parent folder is a descendant of the folder",
+                content = @Content),
+        @ApiResponse(responseCode = "412", description = "Folder was modified since the If-Match version",
                 content = @Content)
     })
     @PutMapping("/{id}")
     public ResponseEntity<FolderResponseDto> updateFolder(
             @Parameter(description = "ID of the folder to update") @PathVariable Long id,
+            @Parameter(description = "ETag of the version to update (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated folder data", required = true) @RequestBody FolderRequestDto folderDto) {
-        try {
-            // Convert DTO to entity
-            Folder folder = folderMapper.toEntity(folderDto);
+        // Convert DTO to entity
+        Folder folder = folderMapper.toEntity(folderDto);
 
-            // Update folder using service
-            Folder updatedFolder = folderService.updateFolder(id, folder, folderDto.getParentId());
+        // Update folder using service
+        Versioned<Folder> updatedFolder = folderService.updateFolder(id, folder, folderDto.getParentId(), ifMatch);
 
-            // Convert entity back to DTO
-            FolderResponseDto responseDto = folderMapper.toDto(updatedFolder);
+        // Convert entity back to DTO
+        FolderResponseDto responseDto = folderMapper.toDto(updatedFolder.entity());
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().build();
-        }
+        return ResponseEntity.ok().headers(updatedFolder.version().headers()).body(responseDto);
     }
 
     /**
-     * Delete a folder by ID.
+     * Delete a folder by ID, together with its whole subtree.
      *
      * @param id The ID of the folder to delete
-     * @return No content if successful, not found if the folder doesn't exist
+     * @return The number of rows removed if successful, not found if the folder doesn't exist
      */
-    @Operation(summary = "Delete a folder", description = "Deletes a folder by its ID")
+    @Operation(summary = "Delete a folder",
+            description = "Deletes a folder, its descendant folders and their features, plus the sequence diagrams and SQL queries no other feature uses")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "204", description = "Folder successfully deleted"),
+        @ApiResponse(responseCode = "200", description = "Folder successfully deleted",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = FolderDeleteResponseDto.class))),
         @ApiResponse(responseCode = "404", description = "Folder not found",
                 content = @Content)
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteFolder(@Parameter(description = "ID of the folder to delete") @PathVariable Long id) {
-        try {
-            folderService.deleteFolder(id);
-            return ResponseEntity.noContent().build();
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<FolderDeleteResponseDto> deleteFolder(@Parameter(description = "ID of the folder to delete") @PathVariable Long id) {
+        FolderDeleteResult result = folderService.deleteFolder(id);
+        return ResponseEntity.ok(folderMapper.toDeleteDto(id, result));
+    }
+
+    /**
+     * Copy a folder, together with its whole subtree, into another folder.
+     *
+     * @param id The ID of the folder to copy
+     * @param targetParentId The ID of the folder to copy into (optional, copied as a root folder if omitted)
+     * @return The ID of the new folder and the number of rows created
+     */
+    @Operation(summary = "Copy a folder",
+            description = "Copies a folder, its descendant folders and their features, including their sequence diagrams and SQL queries, "
+                    + "under the target parent folder")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Folder successfully copied",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = FolderCopyResponseDto.class))),
+        @ApiResponse(responseCode = "404", description = "Folder or target parent folder not found",
+                content = @Content)
+    })
+    @PostMapping("/{id}/copy")
+    public ResponseEntity<FolderCopyResponseDto> copyFolder(
+            @Parameter(description = "ID of the folder to copy") @PathVariable Long id,
+            @Parameter(description = "ID of the folder to copy into (optional)") @RequestParam(required = false) Long targetParentId) {
+        FolderCopyResult result = folderService.copyFolder(id, targetParentId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(folderMapper.toCopyDto(id, result));
     }
 
     /**
@@ -261,20 +401,16 @@ public class FolderController {
     public ResponseEntity<FeatureResponseDto> addFeatureToFolder(
             @Parameter(description = "ID of the folder to add the feature to") @PathVariable Long folderId,
             @Parameter(description = "Feature data to create", required = true) @RequestBody FeatureRequestDto featureDto) {
-        try {
-            // Convert DTO to entity
-            Feature feature = featureMapper.toEntity(featureDto);
+        // Convert DTO to entity
+        Feature feature = featureMapper.toEntity(featureDto);
 
-            // Add feature to folder using service
-            Feature addedFeature = folderService.addFeatureToFolder(folderId, feature);
+        // Add feature to folder using service
+        Feature addedFeature = folderService.addFeatureToFolder(folderId, feature);
 
-            // Convert entity back to DTO
-            FeatureResponseDto responseDto = featureMapper.toDto(addedFeature);
+        // Convert entity back to DTO
+        FeatureResponseDto responseDto = featureMapper.toDto(addedFeature);
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
     /**
@@ -296,16 +432,12 @@ public class FolderController {
     public ResponseEntity<FeatureResponseDto> moveFeatureToFolder(
             @Parameter(description = "ID of the folder to move the feature to") @PathVariable Long folderId,
             @Parameter(description = "ID of the feature to move") @PathVariable Long featureId) {
-        try {
-            // Move feature to folder using service
-            Feature movedFeature = folderService.moveFeatureToFolder(featureId, folderId);
+        // Move feature to folder using service
+        Feature movedFeature = folderService.moveFeatureToFolder(featureId, folderId);
 
-            // Convert entity to DTO
-            FeatureResponseDto responseDto = featureMapper.toDto(movedFeature);
+        // Convert entity to DTO
+        FeatureResponseDto responseDto = featureMapper.toDto(movedFeature);
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok(responseDto);
     }
 }
@@ -0,0 +1,182 @@
+package com.funa.folder;
+
+import com.funa.common.entity.SequenceIdAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository that deep-copies a folder subtree server-side.
+ * Every row is duplicated with an INSERT ... SELECT, so TEXT content never travels through the application,
+ * and the statements are sent in JDBC batches instead of one round trip per entity.
+ * New IDs are allocated from the entity sequences up front, so no generated keys have to be read back.
+ */
+@Repository
+public class FolderCopyRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_FOLDERS =
+            "SELECT id, parent_id, path FROM tb_folder WHERE path LIKE ? ORDER BY path";
+    private static final String SELECT_FEATURES =
+            "SELECT f.id, f.folder_id, f.sequence_diagram_id, f.sql_query_id FROM tb_feature f "
+                    + "JOIN tb_folder d ON d.id = f.folder_id WHERE d.path LIKE ? ORDER BY f.id";
+    private static final String INSERT_FOLDER =
+            "INSERT INTO tb_folder (id, name, description, parent_id, path, created_at, created_id, updated_at, updated_id) "
+                    + "SELECT ?, name, description, ?, ?, ?, ?, ?, ? FROM tb_folder WHERE id = ?";
+    private static final String INSERT_SEQUENCE_DIAGRAM =
+            "INSERT INTO tb_sequence_diagram (id, name, sequence_diagram_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "SELECT ?, name, sequence_diagram_content, content_hash, ?, ?, ?, ? FROM tb_sequence_diagram WHERE id = ?";
+    private static final String INSERT_SQL_QUERY =
+            "INSERT INTO tb_sql_query (id, name, query_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "SELECT ?, name, query_content, content_hash, ?, ?, ?, ? FROM tb_sql_query WHERE id = ?";
+    private static final String INSERT_FEATURE =
+            "INSERT INTO tb_feature (id, name, description, folder_id, template_prompt_id, sequence_diagram_id, sql_query_id, "
+                    + "created_at, created_id, updated_at, updated_id) "
+                    + "SELECT ?, name, description, ?, template_prompt_id, ?, ?, ?, ?, ?, ? FROM tb_feature WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator sequenceIdAllocator;
+    private final AuditorAware<String> auditorProvider;
+
+    @Autowired
+    public FolderCopyRepository(
+            JdbcTemplate jdbcTemplate, SequenceIdAllocator sequenceIdAllocator, AuditorAware<String> auditorProvider) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+        this.auditorProvider = auditorProvider;
+    }
+
+    /**
+     * Copy a folder subtree, its features and their sequence diagrams and SQL queries under a new parent.
+     * Template prompts are shared, not copied. Must run inside a transaction.
+     *
+     * @param source The root folder of the subtree to copy
+     * @param targetParent The folder to copy the subtree into (can be null to copy it as a root folder)
+     * @return The ID of the new root folder and the number of rows created
+     */
+    public FolderCopyResult copySubtree(Folder source, Folder targetParent) {
+        Audit audit = new Audit(LocalDateTime.now(), auditorProvider.getCurrentAuditor().orElse("system"));
+
+        // Read the whole source structure before anything is inserted, so that copying a folder
+        // into its own subtree does not pick up the rows being created
+        List<FolderRow> folders = jdbcTemplate.query(SELECT_FOLDERS,
+                (rs, rowNum) -> new FolderRow(rs.getLong(1), rs.getObject(2, Long.class), rs.getString(3)),
+                source.getPath() + "%");
+        List<FeatureRow> features = jdbcTemplate.query(SELECT_FEATURES,
+                (rs, rowNum) -> new FeatureRow(
+                        rs.getLong(1), rs.getLong(2), rs.getObject(3, Long.class), rs.getObject(4, Long.class)),
+                source.getPath() + "%");
+
+        Map<Long, Long> folderIds = copyFolders(folders, source.getId(), targetParent, audit);
+        Map<Long, Long> sequenceDiagramIds = copyReferenced(INSERT_SEQUENCE_DIAGRAM, "tb_sequence_diagram_seq",
+                features.stream().map(FeatureRow::sequenceDiagramId).toList(), audit);
+        Map<Long, Long> sqlQueryIds = copyReferenced(INSERT_SQL_QUERY, "tb_sql_query_seq",
+                features.stream().map(FeatureRow::sqlQueryId).toList(), audit);
+
+        List<Long> featureIds = sequenceIdAllocator.allocate("tb_feature_seq", features.size());
+        Map<Long, Long> newFeatureIds = mapIds(features.stream().map(FeatureRow::id).toList(), featureIds);
+        jdbcTemplate.batchUpdate(INSERT_FEATURE, features, BATCH_SIZE, (ps, feature) -> {
+            ps.setLong(1, newFeatureIds.get(feature.id()));
+            ps.setLong(2, folderIds.get(feature.folderId()));
+            setNullableLong(ps, 3, sequenceDiagramIds.get(feature.sequenceDiagramId()));
+            setNullableLong(ps, 4, sqlQueryIds.get(feature.sqlQueryId()));
+            int index = audit.bind(ps, 5);
+            ps.setLong(index, feature.id());
+        });
+
+        return new FolderCopyResult(
+                folderIds.get(source.getId()),
+                folderIds.size(),
+                features.size(),
+                sequenceDiagramIds.size(),
+                sqlQueryIds.size());
+    }
+
+    /**
+     * Copy the folders with their new IDs and materialized paths.
+     * Folders are ordered by path, so every parent is inserted before its children and its new path is already known.
+     */
+    private Map<Long, Long> copyFolders(List<FolderRow> folders, Long sourceId, Folder targetParent, Audit audit) {
+        Map<Long, Long> folderIds = mapIds(
+                folders.stream().map(FolderRow::id).toList(),
+                sequenceIdAllocator.allocate("tb_folder_seq", folders.size()));
+
+        Long targetParentId = targetParent != null ? targetParent.getId() : null;
+        String targetPath = targetParent != null ? targetParent.getPath() : "/";
+        Map<Long, String> newPaths = new HashMap<>(folders.size() * 2);
+        for (FolderRow folder : folders) {
+            String parentPath = folder.id().equals(sourceId) ? targetPath : newPaths.get(folder.parentId());
+            newPaths.put(folder.id(), parentPath + folderIds.get(folder.id()) + "/");
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_FOLDER, folders, BATCH_SIZE, (ps, folder) -> {
+            ps.setLong(1, folderIds.get(folder.id()));
+            setNullableLong(ps, 2, folder.id().equals(sourceId) ? targetParentId : folderIds.get(folder.parentId()));
+            ps.setString(3, newPaths.get(folder.id()));
+            int index = audit.bind(ps, 4);
+            ps.setLong(index, folder.id());
+        });
+        return folderIds;
+    }
+
+    /**
+     * Copy the distinct, non-null rows referenced by the features and map their old IDs to the new ones.
+     */
+    private Map<Long, Long> copyReferenced(String insertSql, String sequenceName, List<Long> referencedIds, Audit audit) {
+        List<Long> ids = referencedIds.stream().filter(id -> id != null).distinct().toList();
+        Map<Long, Long> mapping = mapIds(ids, sequenceIdAllocator.allocate(sequenceName, ids.size()));
+        jdbcTemplate.batchUpdate(insertSql, ids, BATCH_SIZE, (ps, id) -> {
+            ps.setLong(1, mapping.get(id));
+            int index = audit.bind(ps, 2);
+            ps.setLong(index, id);
+        });
+        return mapping;
+    }
+
+    private static Map<Long, Long> mapIds(List<Long> oldIds, List<Long> newIds) {
+        Map<Long, Long> mapping = new HashMap<>(oldIds.size() * 2);
+        for (int i = 0; i < oldIds.size(); i++) {
+            mapping.put(oldIds.get(i), newIds.get(i));
+        }
+        return mapping;
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private record FolderRow(Long id, Long parentId, String path) {
+    }
+
+    private record FeatureRow(Long id, Long folderId, Long sequenceDiagramId, Long sqlQueryId) {
+    }
+
+    /**
+     * Audit column values shared by every copied row, as JPA auditing would set them.
+     */
+    private record Audit(LocalDateTime timestamp, String auditor) {
+        int bind(PreparedStatement ps, int index) throws SQLException {
+            Timestamp now = Timestamp.valueOf(timestamp);
+            ps.setTimestamp(index, now);
+            ps.setString(index + 1, auditor);
+            ps.setTimestamp(index + 2, now);
+            ps.setString(index + 3, auditor);
+            return index + 4;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.funa.folder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * ID of the new root folder and number of rows created by a folder subtree copy.
+ */
+@Getter
+@AllArgsConstructor
+public class FolderCopyResult {
+    private final Long folderId;
+    private final int folders;
+    private final int features;
+    private final int sequenceDiagrams;
+    private final int sqlQueries;
+
+    /**
+     * Get the total number of rows created.
+     *
+     * @return The sum of all created rows
+     */
+    public int getTotal() {
+        return folders + features + sequenceDiagrams + sqlQueries;
+    }
+}
@@ -0,0 +1,25 @@
+package com.funa.folder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of rows removed by a folder subtree delete.
+ */
+@Getter
+@AllArgsConstructor
+public class FolderDeleteResult {
+    private final int folders;
+    private final int features;
+    private final int sequenceDiagrams;
+    private final int sqlQueries;
+
+    /**
+     * Get the total number of rows removed.
+     *
+     * @return The sum of all removed rows
+     */
+    public int getTotal() {
+        return folders + features + sequenceDiagrams + sqlQueries;
+    }
+}
@@ -0,0 +1,32 @@
+package com.funa.folder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the materialized folder paths on startup for folders created before the path column existed.
+ */
+@Component
+public class FolderPathInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FolderPathInitializer.class);
+
+    private final FolderService folderService;
+
+    @Autowired
+    public FolderPathInitializer(FolderService folderService) {
+        this.folderService = folderService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingPaths() {
+        int rebuilt = folderService.rebuildPathsIfMissing();
+        if (rebuilt > 0) {
+            logger.info("Rebuilt materialized paths for {} folders", rebuilt);
+        }
+    }
+}
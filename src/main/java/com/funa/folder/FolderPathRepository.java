@@ -0,0 +1,40 @@
+package com.funa.folder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * JDBC repository that writes materialized folder paths in JDBC batches,
+ * instead of one round trip per folder.
+ */
+@Repository
+public class FolderPathRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_PATH = "UPDATE tb_folder SET path = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FolderPathRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Set the materialized paths of several folders.
+     * Bypasses the persistence context, so folders already loaded in the current session keep their old paths.
+     *
+     * @param paths The new path of every folder to update, by folder ID
+     */
+    public void updatePaths(Map<Long, String> paths) {
+        jdbcTemplate.batchUpdate(UPDATE_PATH, new ArrayList<>(paths.entrySet()), BATCH_SIZE, (ps, path) -> {
+            ps.setString(1, path.getValue());
+            ps.setLong(2, path.getKey());
+        });
+    }
+}
@@ -1,10 +1,21 @@
 package com.funa.folder;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for Folder entity.
@@ -20,6 +31,28 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
      */
     Optional<Folder> findByName(String name);
 
+    /**
+     * Find the version of a folder, its parent, its child folders and its features.
+     *
+     * @param id The ID of the folder
+     * @return The version if the folder is found
+     */
+    @Query("select new com.funa.folder.FolderVersion(f.updatedAt, p.updatedAt, "
+            + "(select count(c) from Folder c where c.parent = f), (select max(c.updatedAt) from Folder c where c.parent = f), "
+            + "(select count(x) from Feature x where x.folder = f), (select max(x.updatedAt) from Feature x where x.folder = f)) "
+            + "from Folder f left join f.parent p where f.id = :id")
+    Optional<FolderVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Find a folder by ID and lock its row until the end of the transaction,
+     * so that a conditional update cannot interleave with another update.
+     *
+     * @param id The ID of the folder
+     * @return The folder if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Folder> findForUpdateById(Long id);
+
     /**
      * Find folders with names containing the given text.
      *
@@ -28,6 +61,25 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
      */
     List<Folder> findByNameContaining(String name);
 
+    /**
+     * Find the folders with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of folders to return
+     * @return List of folders ordered by ID
+     */
+    List<Folder> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the folders with names containing the given text and IDs greater than the given ID, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of folders to return
+     * @return List of matching folders ordered by ID
+     */
+    List<Folder> findByNameContainingAndIdGreaterThanOrderByIdAsc(String name, Long id, Limit limit);
+
     /**
      * Find folders by parent folder.
      *
@@ -50,4 +102,104 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
      * @return List of root folders
      */
     List<Folder> findByParentIsNull();
-}
\ No newline at end of file
+
+    /**
+     * Find the adjacency rows of all folders.
+     *
+     * @return List of folder rows ordered by ID
+     */
+    @Query("select f.id as id, f.parent.id as parentId, f.name as name from Folder f order by f.id")
+    List<FolderTreeRow> findAllTreeRows();
+
+    /**
+     * Find the adjacency rows of a folder and all of its descendants.
+     *
+     * @param path The materialized path of the subtree root
+     * @return List of folder rows ordered by ID
+     */
+    @Query("select f.id as id, f.parent.id as parentId, f.name as name from Folder f where f.path like concat(:path, '%') order by f.id")
+    List<FolderTreeRow> findSubtreeTreeRows(@Param("path") String path);
+
+    /**
+     * Find all descendants of a folder, excluding the folder itself.
+     *
+     * @param path The materialized path of the folder
+     * @return List of descendant folders ordered from the top of the subtree down
+     */
+    @Query("select f from Folder f where f.path like concat(:path, '%') and f.path <> :path order by f.path")
+    List<Folder> findDescendantsByPath(@Param("path") String path);
+
+    /**
+     * Find folders by ID, ordered by their path.
+     * Since the ancestors of a folder are prefixes of each other, this orders them from the root down.
+     *
+     * @param ids The folder IDs to load
+     * @return List of folders ordered by path
+     */
+    List<Folder> findByIdInOrderByPathAsc(Collection<Long> ids);
+
+    /**
+     * Find the ancestors of a folder, from the root down to the direct parent, in a single query.
+     *
+     * @param folder The folder whose ancestors to load
+     * @return List of ancestor folders, empty for root folders
+     */
+    default List<Folder> findAncestors(Folder folder) {
+        List<Long> ancestorIds = folder.getAncestorIds();
+        if (ancestorIds.isEmpty()) {
+            return List.of();
+        }
+        return findByIdInOrderByPathAsc(ancestorIds);
+    }
+
+    /**
+     * Check whether any folder is missing its materialized path.
+     *
+     * @return true if at least one folder has no path
+     */
+    boolean existsByPathIsNull();
+
+    /**
+     * Rewrite the path prefix of a folder and all of its descendants after a move.
+     * Pending changes are flushed first and the persistence context is cleared afterwards,
+     * so that no managed folder keeps a stale path.
+     *
+     * @param oldPath The old path of the moved folder
+     * @param newPath The new path of the moved folder
+     * @return Number of folders updated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Folder f set f.path = concat(:newPath, substring(f.path, length(:oldPath) + 1)) where f.path like concat(:oldPath, '%')")
+    int replacePathPrefix(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    /**
+     * Detach every folder of a subtree from its parent, so that the subtree can be deleted
+     * with one statement regardless of the order in which rows are removed.
+     *
+     * @param path The materialized path of the subtree root
+     * @return Number of folders updated
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Folder f set f.parent = null where f.path like concat(:path, '%')")
+    int detachSubtree(@Param("path") String path);
+
+    /**
+     * Delete a folder and all of its descendants with a single statement.
+     *
+     * @param path The materialized path of the subtree root
+     * @return Number of folders deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Folder f where f.path like concat(:path, '%')")
+    int deleteSubtree(@Param("path") String path);
+
+    /**
+     * Stream all folders ordered by materialized path, so that every parent comes before its children.
+     * Rows are fetched from the database in chunks while the stream is consumed, so the caller must run inside
+     * a transaction, close the stream and clear the persistence context as it goes.
+     *
+     * @return Stream of all folders
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Folder> streamAllByOrderByPathAsc();
+}
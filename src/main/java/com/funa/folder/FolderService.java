@@ -1,13 +1,29 @@
 package com.funa.folder;
 
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.ConflictException;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.exception.ValidationException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.feature.Feature;
 import com.funa.feature.FeatureRepository;
+import com.funa.sequencediagram.SequenceDiagramRepository;
+import com.funa.sqlquery.SqlQueryRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 
 /**
  * Service for managing folders.
@@ -16,13 +32,33 @@ import java.util.NoSuchElementException;
 @Transactional
 public class FolderService {
 
+    // Maximum number of IDs bound to a single IN clause
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final FolderRepository folderRepository;
     private final FeatureRepository featureRepository;
+    private final SequenceDiagramRepository sequenceDiagramRepository;
+    private final SqlQueryRepository sqlQueryRepository;
+    private final FolderCopyRepository folderCopyRepository;
+    private final FolderPathRepository folderPathRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public FolderService(FolderRepository folderRepository, FeatureRepository featureRepository) {
+    public FolderService(
+            FolderRepository folderRepository,
+            FeatureRepository featureRepository,
+            SequenceDiagramRepository sequenceDiagramRepository,
+            SqlQueryRepository sqlQueryRepository,
+            FolderCopyRepository folderCopyRepository,
+            FolderPathRepository folderPathRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.folderRepository = folderRepository;
         this.featureRepository = featureRepository;
+        this.sequenceDiagramRepository = sequenceDiagramRepository;
+        this.sqlQueryRepository = sqlQueryRepository;
+        this.folderCopyRepository = folderCopyRepository;
+        this.folderPathRepository = folderPathRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -35,6 +71,21 @@ public class FolderService {
         return folderRepository.findAll();
     }
 
+    /**
+     * Get one page of all folders, ordered by ID.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of folders
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Folder> getAllFolders(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<Folder> folders = folderRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(folders, pageSize, Folder::getId);
+    }
+
     /**
      * Get all root folders (folders with no parent).
      *
@@ -50,12 +101,43 @@ public class FolderService {
      *
      * @param id The ID of the folder
      * @return The folder
-     * @throws NoSuchElementException if the folder is not found
+     * @throws NotFoundException if the folder is not found
      */
     @Transactional(readOnly = true)
     public Folder getFolderById(Long id) {
         return folderRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Folder not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Folder", id));
+    }
+
+    /**
+     * Get the version of a folder without loading its child folders and features.
+     *
+     * @param id The ID of the folder
+     * @return The version of its representation
+     * @throws NotFoundException if the folder is not found
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getFolderVersion(Long id) {
+        return folderRepository.findVersionById(id)
+                .map(FolderVersion::toResourceVersion)
+                .orElseThrow(() -> new NotFoundException("Folder", id));
+    }
+
+    /**
+     * Get a folder with its parent, child folders and features, together with the version of its representation.
+     * Both are read in the same transaction, so the version matches the returned content.
+     *
+     * @param id The ID of the folder
+     * @return The folder and its version
+     * @throws NotFoundException if the folder is not found
+     */
+    @Transactional(readOnly = true)
+    public Versioned<Folder> getVersionedFolderById(Long id) {
+        Folder folder = getFolderById(id);
+        Hibernate.initialize(folder.getParent());
+        Hibernate.initialize(folder.getFolders());
+        Hibernate.initialize(folder.getFeatures());
+        return new Versioned<>(folder, getFolderVersion(id));
     }
 
     /**
@@ -69,12 +151,28 @@ public class FolderService {
         return folderRepository.findByNameContaining(name);
     }
 
+    /**
+     * Find one page of folders by name containing the given text, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching folders
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Folder> findFoldersByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<Folder> folders = folderRepository.findByNameContainingAndIdGreaterThanOrderByIdAsc(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(folders, pageSize, Folder::getId);
+    }
+
     /**
      * Find child folders of a parent folder.
      *
      * @param parentId The ID of the parent folder
      * @return List of child folders
-     * @throws NoSuchElementException if the parent folder is not found
+     * @throws NotFoundException if the parent folder is not found
      */
     @Transactional(readOnly = true)
     public List<Folder> findChildFolders(Long parentId) {
@@ -82,20 +180,74 @@ public class FolderService {
         return folderRepository.findByParent(parent);
     }
 
+    /**
+     * Get the folder hierarchy, either the whole workspace or the subtree under a folder.
+     * The hierarchy is loaded with one query for folders and one for feature IDs,
+     * regardless of how deep the tree is.
+     *
+     * @param rootId The ID of the subtree root (optional, null for the whole workspace)
+     * @return The folder tree
+     * @throws NotFoundException if the root folder is not found
+     */
+    @Transactional(readOnly = true)
+    public FolderTree getFolderTree(Long rootId) {
+        if (rootId == null) {
+            return new FolderTree(null, folderRepository.findAllTreeRows(), featureRepository.findAllFolderRows());
+        }
+
+        Folder root = getFolderById(rootId);
+        return new FolderTree(
+                rootId,
+                folderRepository.findSubtreeTreeRows(root.getPath()),
+                featureRepository.findSubtreeFolderRows(root.getPath()));
+    }
+
+    /**
+     * Get the breadcrumb trail of a folder, from the root folder down to the folder itself.
+     *
+     * @param id The ID of the folder
+     * @return List of folders from the root to the given folder
+     * @throws NotFoundException if the folder is not found
+     */
+    @Transactional(readOnly = true)
+    public List<Folder> getBreadcrumbs(Long id) {
+        Folder folder = getFolderById(id);
+        List<Folder> breadcrumbs = new ArrayList<>(folderRepository.findAncestors(folder));
+        breadcrumbs.add(folder);
+        return breadcrumbs;
+    }
+
+    /**
+     * Get all descendants of a folder, at any depth.
+     *
+     * @param id The ID of the folder
+     * @return List of descendant folders ordered from the top of the subtree down
+     * @throws NotFoundException if the folder is not found
+     */
+    @Transactional(readOnly = true)
+    public List<Folder> getDescendants(Long id) {
+        Folder folder = getFolderById(id);
+        return folderRepository.findDescendantsByPath(folder.getPath());
+    }
+
     /**
      * Create a new folder.
      *
      * @param folder The folder to create
      * @param parentId The ID of the parent folder (optional, can be null for root folders)
      * @return The created folder
-     * @throws NoSuchElementException if the parent folder is not found
+     * @throws NotFoundException if the parent folder is not found
      */
     public Folder createFolder(Folder folder, Long parentId) {
+        Folder parent = null;
         if (parentId != null) {
-            Folder parent = getFolderById(parentId);
+            parent = getFolderById(parentId);
             folder.setParent(parent);
         }
-        return folderRepository.save(folder);
+        Folder createdFolder = folderRepository.save(folder);
+        createdFolder.setPath(buildPath(parent, createdFolder.getId()));
+        eventPublisher.publishEvent(new EntityChangedEvent(Folder.class, createdFolder.getId()));
+        return createdFolder;
     }
 
     /**
@@ -105,8 +257,9 @@ public class FolderService {
      * @param folder The updated folder data
      * @param parentId The ID of the parent folder (optional, can be null for root folders)
      * @return The updated folder
-     * @throws NoSuchElementException if the folder or parent folder is not found
-     * @throws IllegalArgumentException if trying to set a folder as its own parent or descendant
+     * @throws NotFoundException if the folder or parent folder is not found
+     * @throws ValidationException if trying to set a folder as its own parent
+     * @throws ConflictException if trying to set a descendant folder as parent
      */
     public Folder updateFolder(Long id, Folder folder, Long parentId) {
         Folder existingFolder = getFolderById(id);
@@ -114,58 +267,183 @@ public class FolderService {
         existingFolder.setDescription(folder.getDescription());
         
         // Update parent folder
+        Folder parent = null;
         if (parentId != null) {
             if (parentId.equals(id)) {
-                throw new IllegalArgumentException("A folder cannot be its own parent");
+                throw new ValidationException("A folder cannot be its own parent");
             }
             
+            parent = getFolderById(parentId);
+
             // Check if the new parent is not a descendant of this folder
-            if (isDescendant(id, parentId)) {
-                throw new IllegalArgumentException("Cannot set a descendant folder as parent");
+            if (parent.isInSubtreeOf(existingFolder)) {
+                throw new ConflictException("Cannot set a descendant folder as parent");
             }
-            
-            Folder parent = getFolderById(parentId);
-            existingFolder.setParent(parent);
-        } else {
-            existingFolder.setParent(null);
         }
+        existingFolder.setParent(parent);
+        eventPublisher.publishEvent(new EntityChangedEvent(Folder.class, id));
+
+        // Re-root the paths of the whole subtree if the folder moved
+        String oldPath = existingFolder.getPath();
+        String newPath = buildPath(parent, id);
+        if (oldPath != null && !newPath.equals(oldPath)) {
+            // The bulk update flushes pending changes and clears the persistence context,
+            // so the moved folder is reloaded with its new path
+            folderRepository.replacePathPrefix(oldPath, newPath);
+            return getFolderById(id);
+        }
+        existingFolder.setPath(newPath);
         
         return folderRepository.save(existingFolder);
     }
 
     /**
-     * Check if a folder is a descendant of another folder.
+     * Update an existing folder if it is still at the version the client last read.
      *
-     * @param ancestorId The ID of the potential ancestor folder
-     * @param descendantId The ID of the potential descendant folder
-     * @return true if descendantId is a descendant of ancestorId, false otherwise
+     * @param id The ID of the folder to update
+     * @param folder The updated folder data
+     * @param parentId The ID of the parent folder (optional, can be null for root folders)
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated folder and its new version
+     * @throws NotFoundException if the folder or parent folder is not found
+     * @throws ValidationException if trying to set a folder as its own parent
+     * @throws ConflictException if trying to set a descendant folder as parent
+     * @throws PreconditionFailedException if the folder has changed since the client read it
      */
-    private boolean isDescendant(Long ancestorId, Long descendantId) {
-        Folder descendant = getFolderById(descendantId);
-        Folder parent = descendant.getParent();
-        
-        while (parent != null) {
-            if (parent.getId().equals(ancestorId)) {
-                return true;
-            }
-            parent = parent.getParent();
+    public Versioned<Folder> updateFolder(Long id, Folder folder, Long parentId, String ifMatch) {
+        if (ifMatch != null) {
+            folderRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new NotFoundException("Folder", id));
+            getFolderVersion(id).checkIfMatch(ifMatch);
         }
-        
-        return false;
+        Folder updatedFolder = updateFolder(id, folder, parentId);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedFolder, getFolderVersion(id));
+    }
+
+    /**
+     * Build the materialized path of a folder from its parent.
+     *
+     * @param parent The parent folder (can be null for root folders)
+     * @param id The ID of the folder
+     * @return The materialized path of the folder
+     */
+    private String buildPath(Folder parent, Long id) {
+        String parentPath = parent != null ? parent.getPath() : "/";
+        return parentPath + id + "/";
+    }
+
+    /**
+     * Fill in the materialized path of every folder if any folder is missing one,
+     * e.g. for rows created before the path column existed.
+     * The paths are written in JDBC batches, so folders already loaded in the current session keep their old paths.
+     *
+     * @return Number of folders whose path was rebuilt
+     */
+    public int rebuildPathsIfMissing() {
+        if (!folderRepository.existsByPathIsNull()) {
+            return 0;
+        }
+
+        List<FolderTreeRow> rows = folderRepository.findAllTreeRows();
+        Map<Long, Long> parentIds = new HashMap<>(rows.size() * 2);
+        for (FolderTreeRow row : rows) {
+            parentIds.put(row.getId(), row.getParentId());
+        }
+
+        Map<Long, String> paths = new HashMap<>(rows.size() * 2);
+        for (FolderTreeRow row : rows) {
+            resolvePath(row.getId(), parentIds, paths);
+        }
+        folderPathRepository.updatePaths(paths);
+        return rows.size();
+    }
+
+    /**
+     * Resolve the path of a folder from the parent map, memoizing every path computed on the way.
+     */
+    private String resolvePath(Long id, Map<Long, Long> parentIds, Map<Long, String> paths) {
+        Deque<Long> unresolved = new ArrayDeque<>();
+        Long current = id;
+        while (current != null && !paths.containsKey(current)) {
+            unresolved.push(current);
+            current = parentIds.get(current);
+        }
+
+        String path = current != null ? paths.get(current) : "/";
+        while (!unresolved.isEmpty()) {
+            Long next = unresolved.pop();
+            path = path + next + "/";
+            paths.put(next, path);
+        }
+        return path;
     }
 
     /**
      * Delete a folder by ID.
-     * This will also delete all child folders and features in this folder.
+     * This will also delete all child folders and features in this folder, as well as the
+     * sequence diagrams and SQL queries of those features that no other feature uses.
+     * The subtree is removed with a few bulk statements instead of loading it entity by entity.
      *
      * @param id The ID of the folder to delete
-     * @throws NoSuchElementException if the folder is not found
+     * @return The number of rows removed
+     * @throws NotFoundException if the folder is not found
+     */
+    public FolderDeleteResult deleteFolder(Long id) {
+        Folder folder = getFolderById(id);
+        String path = folder.getPath();
+
+        // Collect the content used by the subtree before the features referencing it are gone
+        List<Long> sequenceDiagramIds = featureRepository.findSequenceDiagramIdsInSubtree(path);
+        List<Long> sqlQueryIds = featureRepository.findSqlQueryIdsInSubtree(path);
+
+        int features = featureRepository.deleteInSubtree(path);
+        folderRepository.detachSubtree(path);
+        int folders = folderRepository.deleteSubtree(path);
+
+        int sequenceDiagrams = 0;
+        for (List<Long> chunk : chunks(sequenceDiagramIds)) {
+            sequenceDiagrams += sequenceDiagramRepository.deleteUnreferencedByIdIn(chunk);
+        }
+        int sqlQueries = 0;
+        for (List<Long> chunk : chunks(sqlQueryIds)) {
+            sqlQueries += sqlQueryRepository.deleteUnreferencedByIdIn(chunk);
+        }
+
+        eventPublisher.publishEvent(new EntityChangedEvent(Folder.class, id));
+        return new FolderDeleteResult(folders, features, sequenceDiagrams, sqlQueries);
+    }
+
+    /**
+     * Copy a folder with its whole subtree under another folder.
+     * The features in the subtree are copied along with their sequence diagrams and SQL queries,
+     * while template prompts stay shared. The rows are duplicated server-side in JDBC batches.
+     *
+     * @param id The ID of the folder to copy
+     * @param targetParentId The ID of the folder to copy into (optional, can be null to copy as a root folder)
+     * @return The ID of the new folder and the number of rows created
+     * @throws NotFoundException if the folder or target parent folder is not found
+     */
+    public FolderCopyResult copyFolder(Long id, Long targetParentId) {
+        Folder source = getFolderById(id);
+        Folder targetParent = targetParentId != null ? getFolderById(targetParentId) : null;
+
+        // The copy reads the source rows over plain JDBC, so pending changes must reach the database first
+        folderRepository.flush();
+        FolderCopyResult result = folderCopyRepository.copySubtree(source, targetParent);
+        eventPublisher.publishEvent(new EntityChangedEvent(Folder.class, result.getFolderId()));
+        return result;
+    }
+
+    /**
+     * Split a list of IDs into chunks small enough for an IN clause.
      */
-    public void deleteFolder(Long id) {
-        if (!folderRepository.existsById(id)) {
-            throw new NoSuchElementException("Folder not found with ID: " + id);
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())));
         }
-        folderRepository.deleteById(id);
+        return chunks;
     }
 
     /**
@@ -174,12 +452,14 @@ public class FolderService {
      * @param folderId The ID of the folder
      * @param feature The feature to add
      * @return The added feature
-     * @throws NoSuchElementException if the folder is not found
+     * @throws NotFoundException if the folder is not found
      */
     public Feature addFeatureToFolder(Long folderId, Feature feature) {
         Folder folder = getFolderById(folderId);
         feature.setFolder(folder);
-        return featureRepository.save(feature);
+        Feature addedFeature = featureRepository.save(feature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, addedFeature.getId()));
+        return addedFeature;
     }
 
     /**
@@ -188,15 +468,17 @@ public class FolderService {
      * @param featureId The ID of the feature to move
      * @param newFolderId The ID of the new folder
      * @return The moved feature
-     * @throws NoSuchElementException if the feature or folder is not found
+     * @throws NotFoundException if the feature or folder is not found
      */
     public Feature moveFeatureToFolder(Long featureId, Long newFolderId) {
         Feature feature = featureRepository.findById(featureId)
-                .orElseThrow(() -> new NoSuchElementException("Feature not found with ID: " + featureId));
+                .orElseThrow(() -> new NotFoundException("Feature", featureId));
         
         Folder newFolder = getFolderById(newFolderId);
         feature.setFolder(newFolder);
         
-        return featureRepository.save(feature);
+        Feature movedFeature = featureRepository.save(feature);
+        eventPublisher.publishEvent(new EntityChangedEvent(Feature.class, featureId));
+        return movedFeature;
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.funa.folder;
+
+import com.funa.feature.FeatureFolderRow;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory folder hierarchy built from flat adjacency rows.
+ * The whole tree is loaded with a constant number of queries, independent of its depth.
+ */
+@Getter
+public class FolderTree {
+
+    private final Long rootId;
+    private final List<FolderTreeRow> folders;
+    private final Map<Long, List<Long>> featureIdsByFolderId;
+    private final int featureCount;
+
+    public FolderTree(Long rootId, List<FolderTreeRow> folders, List<FeatureFolderRow> features) {
+        this.rootId = rootId;
+        this.folders = folders;
+        this.featureIdsByFolderId = new HashMap<>();
+        for (FeatureFolderRow feature : features) {
+            featureIdsByFolderId.computeIfAbsent(feature.getFolderId(), key -> new ArrayList<>())
+                    .add(feature.getId());
+        }
+        this.featureCount = features.size();
+    }
+
+    /**
+     * Get the IDs of the features directly contained in a folder.
+     *
+     * @param folderId The ID of the folder
+     * @return List of feature IDs, empty if the folder has no features
+     */
+    public List<Long> getFeatureIds(Long folderId) {
+        return featureIdsByFolderId.getOrDefault(folderId, List.of());
+    }
+}
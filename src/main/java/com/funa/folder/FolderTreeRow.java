@@ -0,0 +1,14 @@
+package com.funa.folder;
+
+/**
+ * Projection of a single folder row used to build folder trees in memory.
+ * Only the adjacency columns are selected, so no lazy associations are touched.
+ */
+public interface FolderTreeRow {
+
+    Long getId();
+
+    Long getParentId();
+
+    String getName();
+}
@@ -0,0 +1,29 @@
+package com.funa.folder;
+
+import com.funa.common.http.ResourceVersion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of everything the representation of a folder is built from: the folder, the name of its parent,
+ * and the lists of its child folders and features. A list changes whenever its size or the most recent update
+ * of its entries changes, since adding, renaming or moving an entry in updates that entry.
+ */
+public record FolderVersion(
+        LocalDateTime updatedAt,
+        LocalDateTime parentUpdatedAt,
+        Long childFolderCount,
+        LocalDateTime childFoldersUpdatedAt,
+        Long featureCount,
+        LocalDateTime featuresUpdatedAt) {
+
+    /**
+     * Get the version of the representation of the folder.
+     *
+     * @return The resource version
+     */
+    public ResourceVersion toResourceVersion() {
+        return ResourceVersion.of(updatedAt, parentUpdatedAt, childFolderCount, childFoldersUpdatedAt,
+                featureCount, featuresUpdatedAt);
+    }
+}
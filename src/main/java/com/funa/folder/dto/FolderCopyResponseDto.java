@@ -0,0 +1,23 @@
+package com.funa.folder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for folder copy responses, reporting the new folder and how many rows were created.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderCopyResponseDto {
+    private Long sourceFolderId;
+    private Long folderId;
+    private int copiedFolders;
+    private int copiedFeatures;
+    private int copiedSequenceDiagrams;
+    private int copiedSqlQueries;
+    private int copiedTotal;
+}
@@ -0,0 +1,22 @@
+package com.funa.folder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for folder delete responses, reporting how many rows were removed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderDeleteResponseDto {
+    private Long folderId;
+    private int deletedFolders;
+    private int deletedFeatures;
+    private int deletedSequenceDiagrams;
+    private int deletedSqlQueries;
+    private int deletedTotal;
+}
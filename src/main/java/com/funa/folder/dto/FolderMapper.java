@@ -1,10 +1,16 @@
 package com.funa.folder.dto;
 
 import com.funa.folder.Folder;
+import com.funa.folder.FolderCopyResult;
+import com.funa.folder.FolderDeleteResult;
+import com.funa.folder.FolderTree;
+import com.funa.folder.FolderTreeRow;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -90,6 +96,120 @@ public class FolderMapper {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Convert a list of Folder entities to a list of FolderSummaryDtos.
+     * Only the folders' own columns are read, so no lazy associations are loaded.
+     *
+     * @param folders The list of Folder entities to convert
+     * @return The list of FolderSummaryDtos
+     */
+    public List<FolderResponseDto.FolderSummaryDto> toSummaryDtoList(List<Folder> folders) {
+        if (folders == null) {
+            return null;
+        }
+
+        return folders.stream()
+                .map(folder -> new FolderResponseDto.FolderSummaryDto(folder.getId(), folder.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Convert a FolderTree to a nested FolderTreeResponseDto.
+     * Nodes whose parent is not part of the tree (the subtree root, or root folders) become top-level nodes.
+     *
+     * @param tree The folder tree to convert
+     * @return The FolderTreeResponseDto with nested nodes
+     */
+    public FolderTreeResponseDto toNestedTreeDto(FolderTree tree) {
+        Map<Long, FolderTreeNodeDto> nodesById = new HashMap<>(tree.getFolders().size() * 2);
+        for (FolderTreeRow row : tree.getFolders()) {
+            FolderTreeNodeDto node = new FolderTreeNodeDto();
+            node.setId(row.getId());
+            node.setParentId(row.getParentId());
+            node.setName(row.getName());
+            node.setFeatureIds(tree.getFeatureIds(row.getId()));
+            nodesById.put(row.getId(), node);
+        }
+
+        List<FolderTreeNodeDto> topLevelNodes = new ArrayList<>();
+        for (FolderTreeRow row : tree.getFolders()) {
+            FolderTreeNodeDto node = nodesById.get(row.getId());
+            FolderTreeNodeDto parent = row.getParentId() != null ? nodesById.get(row.getParentId()) : null;
+            if (parent != null && !row.getId().equals(tree.getRootId())) {
+                parent.getChildren().add(node);
+            } else {
+                topLevelNodes.add(node);
+            }
+        }
+
+        FolderTreeResponseDto dto = toTreeDto(tree);
+        dto.setNodes(topLevelNodes);
+        return dto;
+    }
+
+    /**
+     * Convert a FolderTree to a flat FolderTreeResponseDto.
+     * Each folder becomes a compact {@code [id, parentId, name, featureIds]} array.
+     *
+     * @param tree The folder tree to convert
+     * @return The FolderTreeResponseDto with flat rows
+     */
+    public FolderTreeResponseDto toFlatTreeDto(FolderTree tree) {
+        List<Object[]> rows = new ArrayList<>(tree.getFolders().size());
+        for (FolderTreeRow row : tree.getFolders()) {
+            rows.add(new Object[] {row.getId(), row.getParentId(), row.getName(), tree.getFeatureIds(row.getId())});
+        }
+
+        FolderTreeResponseDto dto = toTreeDto(tree);
+        dto.setRows(rows);
+        return dto;
+    }
+
+    private FolderTreeResponseDto toTreeDto(FolderTree tree) {
+        FolderTreeResponseDto dto = new FolderTreeResponseDto();
+        dto.setRootId(tree.getRootId());
+        dto.setFolderCount(tree.getFolders().size());
+        dto.setFeatureCount(tree.getFeatureCount());
+        return dto;
+    }
+
+    /**
+     * Convert a FolderDeleteResult to a FolderDeleteResponseDto.
+     *
+     * @param folderId The ID of the deleted folder
+     * @param result The FolderDeleteResult to convert
+     * @return The FolderDeleteResponseDto
+     */
+    public FolderDeleteResponseDto toDeleteDto(Long folderId, FolderDeleteResult result) {
+        FolderDeleteResponseDto dto = new FolderDeleteResponseDto();
+        dto.setFolderId(folderId);
+        dto.setDeletedFolders(result.getFolders());
+        dto.setDeletedFeatures(result.getFeatures());
+        dto.setDeletedSequenceDiagrams(result.getSequenceDiagrams());
+        dto.setDeletedSqlQueries(result.getSqlQueries());
+        dto.setDeletedTotal(result.getTotal());
+        return dto;
+    }
+
+    /**
+     * Convert a folder copy result to a FolderCopyResponseDto.
+     *
+     * @param sourceFolderId The ID of the copied folder
+     * @param result The copy result
+     * @return The FolderCopyResponseDto
+     */
+    public FolderCopyResponseDto toCopyDto(Long sourceFolderId, FolderCopyResult result) {
+        FolderCopyResponseDto dto = new FolderCopyResponseDto();
+        dto.setSourceFolderId(sourceFolderId);
+        dto.setFolderId(result.getFolderId());
+        dto.setCopiedFolders(result.getFolders());
+        dto.setCopiedFeatures(result.getFeatures());
+        dto.setCopiedSequenceDiagrams(result.getSequenceDiagrams());
+        dto.setCopiedSqlQueries(result.getSqlQueries());
+        dto.setCopiedTotal(result.getTotal());
+        return dto;
+    }
+
     /**
      * Convert a FolderRequestDto to a Folder entity.
      * Note: This does not set relationships, only basic properties.
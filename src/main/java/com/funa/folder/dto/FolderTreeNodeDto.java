@@ -0,0 +1,24 @@
+package com.funa.folder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for a node of the nested folder tree.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FolderTreeNodeDto {
+    private Long id;
+    private Long parentId;
+    private String name;
+    private List<Long> featureIds;
+    private List<FolderTreeNodeDto> children = new ArrayList<>();
+}
@@ -0,0 +1,30 @@
+package com.funa.folder.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for folder tree responses.
+ * Exactly one of {@code nodes} (nested format) or {@code rows} (flat format) is set.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FolderTreeResponseDto {
+    private Long rootId;
+    private int folderCount;
+    private int featureCount;
+
+    // Nested format: top-level nodes with their children
+    private List<FolderTreeNodeDto> nodes;
+
+    // Flat format: one [id, parentId, name, featureIds] array per folder
+    private List<Object[]> rows;
+}
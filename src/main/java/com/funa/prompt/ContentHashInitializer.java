@@ -0,0 +1,45 @@
+package com.funa.prompt;
+
+import com.funa.sequencediagram.SequenceDiagramService;
+import com.funa.sqlquery.SqlQueryService;
+import com.funa.templateprompt.TemplatePromptService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the content hashes on startup for template prompts, sequence diagrams and SQL queries
+ * created before the content hash column existed.
+ */
+@Component
+public class ContentHashInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentHashInitializer.class);
+
+    private final TemplatePromptService templatePromptService;
+    private final SequenceDiagramService sequenceDiagramService;
+    private final SqlQueryService sqlQueryService;
+
+    @Autowired
+    public ContentHashInitializer(
+            TemplatePromptService templatePromptService,
+            SequenceDiagramService sequenceDiagramService,
+            SqlQueryService sqlQueryService) {
+        this.templatePromptService = templatePromptService;
+        this.sequenceDiagramService = sequenceDiagramService;
+        this.sqlQueryService = sqlQueryService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildMissingContentHashes() {
+        int rebuilt = templatePromptService.rebuildContentHashesIfMissing()
+                + sequenceDiagramService.rebuildContentHashesIfMissing()
+                + sqlQueryService.rebuildContentHashesIfMissing();
+        if (rebuilt > 0) {
+            logger.info("Computed content hashes for {} template prompts, sequence diagrams and SQL queries", rebuilt);
+        }
+    }
+}
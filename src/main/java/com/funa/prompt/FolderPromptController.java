@@ -0,0 +1,75 @@
+package com.funa.prompt;
+
+import com.funa.folder.Folder;
+import com.funa.folder.FolderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+
+/**
+ * REST controller for exporting the prompts of a folder subtree.
+ */
+@RestController
+@RequestMapping("/api/folders")
+@Tag(name = "Prompt", description = "Prompt assembly API")
+public class FolderPromptController {
+
+    private final PromptExportService promptExportService;
+    private final FolderService folderService;
+
+    @Autowired
+    public FolderPromptController(PromptExportService promptExportService, FolderService folderService) {
+        this.promptExportService = promptExportService;
+        this.folderService = folderService;
+    }
+
+    /**
+     * Export the prompts of every feature under a folder.
+     *
+     * @param id The ID of the folder
+     * @param format The export format, either "zip" or "ndjson"
+     * @return The prompts, streamed as they are rendered
+     */
+    @Operation(summary = "Export folder prompts",
+            description = "Renders the prompt of every feature under a folder, at any depth, and streams them as a ZIP archive "
+                    + "with one file per feature, or as NDJSON with one line per feature. Features without a template prompt are skipped.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Prompts are being streamed",
+                content = {@Content(mediaType = "application/zip"), @Content(mediaType = "application/x-ndjson")}),
+        @ApiResponse(responseCode = "400", description = "Unknown format",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "Folder not found",
+                content = @Content)
+    })
+    @GetMapping("/{id}/prompts")
+    public ResponseEntity<StreamingResponseBody> exportFolderPrompts(
+            @Parameter(description = "ID of the folder") @PathVariable Long id,
+            @Parameter(description = "Export format: zip or ndjson") @RequestParam(defaultValue = "zip") String format) {
+        PromptExportFormat exportFormat = PromptExportFormat.fromName(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Folder folder = folderService.getFolderById(id);
+        StreamingResponseBody body = out -> promptExportService.exportFolderPrompts(folder, exportFormat, out);
+        String filename = "folder-" + id + "-prompts." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,46 @@
+package com.funa.prompt;
+
+import com.funa.feature.FeatureContentVersion;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cache key of a rendered prompt: the feature version plus the IDs and content hashes of the three inputs.
+ * The template prompt's version is part of the key too, since the rendered prompt also carries its name.
+ * Any change to an input yields a different key, so a cached prompt can never be served for changed content.
+ */
+public record PromptCacheKey(
+        Long featureId,
+        LocalDateTime featureUpdatedAt,
+        Long templatePromptId,
+        LocalDateTime templatePromptUpdatedAt,
+        String templatePromptHash,
+        Long sequenceDiagramId,
+        String sequenceDiagramHash,
+        Long sqlQueryId,
+        String sqlQueryHash) {
+
+    /**
+     * Build the cache key of a feature's prompt.
+     *
+     * @param version The content version of the feature
+     * @return The cache key, or null if a linked entity has no content hash yet
+     */
+    public static PromptCacheKey of(FeatureContentVersion version) {
+        if (version.templatePromptHash() == null
+                || (version.sequenceDiagramId() != null && version.sequenceDiagramHash() == null)
+                || (version.sqlQueryId() != null && version.sqlQueryHash() == null)) {
+            return null;
+        }
+        return new PromptCacheKey(
+                version.featureId(),
+                version.featureUpdatedAt(),
+                version.templatePromptId(),
+                version.templatePromptUpdatedAt(),
+                version.templatePromptHash(),
+                version.sequenceDiagramId(),
+                version.sequenceDiagramHash(),
+                version.sqlQueryId(),
+                version.sqlQueryHash());
+    }
+}
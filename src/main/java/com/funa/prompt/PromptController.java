@@ -0,0 +1,61 @@
+package com.funa.prompt;
+
+import com.funa.prompt.dto.PromptMapper;
+import com.funa.prompt.dto.PromptResponseDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+/**
+ * REST controller for rendering feature prompts.
+ */
+@RestController
+@RequestMapping("/api/features")
+@Tag(name = "Prompt", description = "Prompt assembly API")
+public class PromptController {
+
+    private final PromptService promptService;
+    private final PromptMapper promptMapper;
+
+    @Autowired
+    public PromptController(PromptService promptService, PromptMapper promptMapper) {
+        this.promptService = promptService;
+        this.promptMapper = promptMapper;
+    }
+
+    /**
+     * Render the prompt of a feature.
+     *
+     * @param id The ID of the feature
+     * @return The feature's template prompt with its placeholders filled in
+     */
+    @Operation(summary = "Render a feature prompt",
+            description = "Fills the {{featureName}}, {{featureDescription}}, {{sequenceDiagram}} and {{sqlQuery}} placeholders "
+                    + "of the feature's template prompt")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully rendered the prompt",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = PromptResponseDto.class))),
+        @ApiResponse(responseCode = "400", description = "Feature has no template prompt",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "Feature not found",
+                content = @Content)
+    })
+    @GetMapping("/{id}/prompt")
+    public ResponseEntity<PromptResponseDto> getFeaturePrompt(
+            @Parameter(description = "ID of the feature") @PathVariable Long id) {
+        RenderedPrompt renderedPrompt = promptService.renderFeaturePrompt(id);
+        return ResponseEntity.ok(promptMapper.toDto(renderedPrompt));
+    }
+}
@@ -0,0 +1,42 @@
+package com.funa.prompt;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats of a bulk prompt export.
+ */
+public enum PromptExportFormat {
+    ZIP(MediaType.parseMediaType("application/zip"), "zip"),
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    PromptExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Find a format by name, ignoring case.
+     *
+     * @param name The format name
+     * @return The format, or null if the name is unknown
+     */
+    public static PromptExportFormat fromName(String name) {
+        for (PromptExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
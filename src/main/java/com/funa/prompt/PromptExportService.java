@@ -0,0 +1,302 @@
+package com.funa.prompt;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.ValidationException;
+import com.funa.common.logging.MdcTaskDecorator;
+import com.funa.feature.FeatureFolderRow;
+import com.funa.feature.FeatureRepository;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderRepository;
+import com.funa.folder.FolderTreeRow;
+import com.funa.prompt.dto.PromptMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Service for exporting the prompts of every feature under a folder subtree.
+ * Features are walked in ID chunks, each chunk is rendered in parallel and written out in order
+ * before the next chunk is loaded, so memory use does not depend on the size of the subtree.
+ * Prompts are rendered on virtual threads, or on a pool of platform threads when virtual threads are disabled,
+ * and the rendering threads inherit the MDC of the export.
+ */
+@Service
+public class PromptExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromptExportService.class);
+
+    // Number of features loaded, rendered and written at a time
+    private static final int CHUNK_SIZE = 100;
+
+    private final FolderRepository folderRepository;
+    private final FeatureRepository featureRepository;
+    private final PromptService promptService;
+    private final PromptMapper promptMapper;
+    private final ObjectWriter lineWriter;
+
+    // Bounds the number of prompts rendered at once across all exports, and so the database connections they use
+    private final Semaphore renderPermits;
+    private final ExecutorService renderExecutor;
+    private final TaskDecorator taskDecorator = new MdcTaskDecorator();
+
+    @Autowired
+    public PromptExportService(
+            FolderRepository folderRepository,
+            FeatureRepository featureRepository,
+            PromptService promptService,
+            PromptMapper promptMapper,
+            ObjectMapper objectMapper,
+            @Value("${prompt.export.concurrency:8}") int concurrency,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.folderRepository = folderRepository;
+        this.featureRepository = featureRepository;
+        this.promptService = promptService;
+        this.promptMapper = promptMapper;
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.renderPermits = new Semaphore(concurrency);
+        this.renderExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("prompt-export-", 0).factory())
+                : Executors.newFixedThreadPool(concurrency, Thread.ofPlatform().name("prompt-export-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+
+    /**
+     * Render the prompts of every feature under a folder subtree and write them to a stream.
+     * Features without a template prompt are skipped, as are features whose folder has left the subtree
+     * while the export ran.
+     *
+     * @param folder The root folder of the subtree
+     * @param format The output format
+     * @param out The stream to write to
+     * @return The number of prompts written
+     * @throws IOException if writing to the stream fails
+     */
+    public int exportFolderPrompts(Folder folder, PromptExportFormat format, OutputStream out) throws IOException {
+        Map<Long, String> folderPaths = buildFolderPaths(folder);
+        PromptWriter writer = format == PromptExportFormat.ZIP ? new ZipPromptWriter(out) : new NdjsonPromptWriter(out);
+
+        int written = 0;
+        long after = 0L;
+        List<FeatureFolderRow> rows;
+        do {
+            rows = featureRepository.findSubtreeFolderRowsByIdGreaterThan(folder.getPath(), after, Limit.of(CHUNK_SIZE));
+            if (!containsAllFolders(folderPaths, rows)) {
+                // A folder was created in or moved into the subtree after its paths were read
+                folderPaths = buildFolderPaths(folder);
+            }
+            List<FeatureFolderRow> exported = new ArrayList<>(rows.size());
+            for (FeatureFolderRow row : rows) {
+                if (folderPaths.containsKey(row.getFolderId())) {
+                    exported.add(row);
+                } else {
+                    logger.debug("Skipping feature {}: folder {} left the exported subtree", row.getId(), row.getFolderId());
+                }
+            }
+
+            List<Future<RenderedPrompt>> prompts = new ArrayList<>(exported.size());
+            for (FeatureFolderRow row : exported) {
+                FutureTask<RenderedPrompt> prompt = new FutureTask<>(() -> render(row.getId()));
+                renderExecutor.execute(taskDecorator.decorate(prompt));
+                prompts.add(prompt);
+            }
+            try {
+                for (int i = 0; i < exported.size(); i++) {
+                    RenderedPrompt prompt = await(prompts.get(i));
+                    if (prompt != null) {
+                        Long folderId = exported.get(i).getFolderId();
+                        writer.write(prompt, folderId, folderPaths.get(folderId));
+                        written++;
+                    }
+                }
+                writer.flush();
+            } catch (IOException | RuntimeException e) {
+                // Do not keep rendering prompts nobody will read
+                prompts.forEach(prompt -> prompt.cancel(true));
+                throw e;
+            }
+
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).getId();
+            }
+        } while (rows.size() == CHUNK_SIZE);
+        writer.finish();
+        return written;
+    }
+
+    /**
+     * Render the prompt of a feature once a render permit is available.
+     *
+     * @return The rendered prompt, or null if the feature has no template prompt or no longer exists
+     */
+    private RenderedPrompt render(Long featureId) throws InterruptedException {
+        renderPermits.acquire();
+        try {
+            return promptService.renderFeaturePrompt(featureId);
+        } catch (NotFoundException | ValidationException e) {
+            return null;
+        } finally {
+            renderPermits.release();
+        }
+    }
+
+    private static RenderedPrompt await(Future<RenderedPrompt> prompt) throws IOException {
+        try {
+            return prompt.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Prompt export interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Prompt rendering failed", e.getCause());
+        }
+    }
+
+    private static boolean containsAllFolders(Map<Long, String> folderPaths, List<FeatureFolderRow> rows) {
+        for (FeatureFolderRow row : rows) {
+            if (!folderPaths.containsKey(row.getFolderId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the display path of every folder in the subtree, from the root folder's name down to the folder's name.
+     */
+    private Map<Long, String> buildFolderPaths(Folder root) {
+        Map<Long, FolderTreeRow> rows = new HashMap<>();
+        for (FolderTreeRow row : folderRepository.findSubtreeTreeRows(root.getPath())) {
+            rows.put(row.getId(), row);
+        }
+
+        Map<Long, String> paths = new HashMap<>(rows.size() * 2);
+        paths.put(root.getId(), sanitize(root.getName()));
+        for (Long id : rows.keySet()) {
+            Deque<FolderTreeRow> unresolved = new ArrayDeque<>();
+            Long current = id;
+            while (!paths.containsKey(current)) {
+                FolderTreeRow row = rows.get(current);
+                unresolved.push(row);
+                current = row.getParentId();
+            }
+
+            String path = paths.get(current);
+            while (!unresolved.isEmpty()) {
+                FolderTreeRow next = unresolved.pop();
+                path = path + "/" + sanitize(next.getName());
+                paths.put(next.getId(), path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Make a name safe to use as a ZIP entry path segment.
+     */
+    private static String sanitize(String name) {
+        String sanitized = name == null ? "" : name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return sanitized.isEmpty() || sanitized.equals(".") || sanitized.equals("..") ? "_" : sanitized;
+    }
+
+    private interface PromptWriter {
+        void write(RenderedPrompt prompt, Long folderId, String folderPath) throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Writes one {@code <folder path>/<feature id>-<feature name>.md} entry per prompt.
+     */
+    private static class ZipPromptWriter implements PromptWriter {
+
+        private final ZipOutputStream zip;
+
+        ZipPromptWriter(OutputStream out) {
+            this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(RenderedPrompt prompt, Long folderId, String folderPath) throws IOException {
+            zip.putNextEntry(new ZipEntry(
+                    folderPath + "/" + prompt.getFeatureId() + "-" + sanitize(prompt.getFeatureName()) + ".md"));
+            zip.write(prompt.getContent().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            zip.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+            zip.flush();
+        }
+    }
+
+    /**
+     * Writes one JSON object per line and prompt.
+     */
+    private class NdjsonPromptWriter implements PromptWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonPromptWriter(OutputStream out) throws IOException {
+            this.generator = lineWriter.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(RenderedPrompt prompt, Long folderId, String folderPath) throws IOException {
+            lineWriter.writeValue(generator, promptMapper.toExportLineDto(prompt, folderId, folderPath));
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
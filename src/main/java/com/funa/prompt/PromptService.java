@@ -0,0 +1,92 @@
+package com.funa.prompt;
+
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.ValidationException;
+import com.funa.feature.Feature;
+import com.funa.feature.FeatureContentVersion;
+import com.funa.feature.FeatureRepository;
+import com.funa.templateprompt.TemplatePrompt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+
+/**
+ * Service for assembling the final prompt of a feature from its template prompt, sequence diagram and SQL query.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PromptService {
+
+    private final FeatureRepository featureRepository;
+    private final PromptTemplateCache promptTemplateCache;
+    private final RenderedPromptCache renderedPromptCache;
+
+    @Autowired
+    public PromptService(
+            FeatureRepository featureRepository,
+            PromptTemplateCache promptTemplateCache,
+            RenderedPromptCache renderedPromptCache) {
+        this.featureRepository = featureRepository;
+        this.promptTemplateCache = promptTemplateCache;
+        this.renderedPromptCache = renderedPromptCache;
+    }
+
+    /**
+     * Render the prompt of a feature.
+     * Only the content hashes of the inputs are read on a cache hit; the TEXT content is loaded on a miss.
+     *
+     * @param featureId The ID of the feature
+     * @return The rendered prompt
+     * @throws NotFoundException if the feature is not found
+     * @throws ValidationException if the feature has no template prompt
+     */
+    public RenderedPrompt renderFeaturePrompt(Long featureId) {
+        FeatureContentVersion version = featureRepository.findContentVersionById(featureId)
+                .orElseThrow(() -> new NotFoundException("Feature", featureId));
+        if (version.templatePromptId() == null) {
+            throw new ValidationException("Feature has no template prompt: " + featureId);
+        }
+
+        PromptCacheKey key = PromptCacheKey.of(version);
+        if (key == null) {
+            // Content hashes not computed yet, render without caching
+            return render(loadFeature(featureId));
+        }
+        return renderedPromptCache.get(key, cacheKey -> render(loadFeature(featureId)));
+    }
+
+    private Feature loadFeature(Long featureId) {
+        return featureRepository.findWithLinksById(featureId)
+                .orElseThrow(() -> new NotFoundException("Feature", featureId));
+    }
+
+    /**
+     * Render the prompt of a feature whose template prompt, sequence diagram and SQL query are loaded.
+     *
+     * @param feature The feature
+     * @return The rendered prompt
+     * @throws ValidationException if the feature has no template prompt
+     */
+    public RenderedPrompt render(Feature feature) {
+        TemplatePrompt templatePrompt = feature.getTemplatePrompt();
+        if (templatePrompt == null) {
+            throw new ValidationException("Feature has no template prompt: " + feature.getId());
+        }
+
+        EnumMap<PromptVariable, String> values = new EnumMap<>(PromptVariable.class);
+        values.put(PromptVariable.FEATURE_NAME, feature.getName());
+        values.put(PromptVariable.FEATURE_DESCRIPTION, feature.getDescription());
+        if (feature.getSequenceDiagram() != null) {
+            values.put(PromptVariable.SEQUENCE_DIAGRAM, feature.getSequenceDiagram().getSequenceDiagramContent());
+        }
+        if (feature.getSqlQuery() != null) {
+            values.put(PromptVariable.SQL_QUERY, feature.getSqlQuery().getQueryContent());
+        }
+
+        String content = promptTemplateCache.get(templatePrompt).render(values);
+        return new RenderedPrompt(
+                feature.getId(), feature.getName(), templatePrompt.getId(), templatePrompt.getName(), content);
+    }
+}
@@ -0,0 +1,151 @@
+package com.funa.prompt;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A template prompt compiled into a list of literal and placeholder segments.
+ * The template text is parsed once; rendering only appends the segments into a buffer sized up front.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final Long templateId;
+    private final LocalDateTime updatedAt;
+
+    // Segment i is the literal literals[i] if variables[i] is null, otherwise the value of variables[i]
+    private final String[] literals;
+    private final PromptVariable[] variables;
+    private final int literalLength;
+
+    private PromptTemplate(Long templateId, LocalDateTime updatedAt, String[] literals, PromptVariable[] variables) {
+        this.templateId = templateId;
+        this.updatedAt = updatedAt;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            if (literal != null) {
+                length += literal.length();
+            }
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a template text. Unknown placeholders are kept as literal text.
+     *
+     * @param templateId The ID of the template prompt
+     * @param updatedAt The last modification time of the template prompt
+     * @param content The template text
+     * @return The compiled template
+     */
+    public static PromptTemplate compile(Long templateId, LocalDateTime updatedAt, String content) {
+        List<String> literals = new ArrayList<>();
+        List<PromptVariable> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int position = 0;
+        while (position < content.length()) {
+            int open = content.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : content.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                literal.append(content, position, content.length());
+                break;
+            }
+
+            PromptVariable variable = PromptVariable.fromPlaceholder(content.substring(open + OPEN.length(), close).trim());
+            if (variable == null) {
+                // Keep the braces as text and look for a placeholder right after them, so that a stray "{{"
+                // does not swallow the next real placeholder
+                literal.append(content, position, open + OPEN.length());
+                position = open + OPEN.length();
+                continue;
+            }
+            literal.append(content, position, open);
+            if (!literal.isEmpty()) {
+                literals.add(literal.toString());
+                variables.add(null);
+                literal.setLength(0);
+            }
+            literals.add(null);
+            variables.add(variable);
+            position = close + CLOSE.length();
+        }
+        if (!literal.isEmpty()) {
+            literals.add(literal.toString());
+            variables.add(null);
+        }
+
+        return new PromptTemplate(
+                templateId, updatedAt, literals.toArray(new String[0]), variables.toArray(new PromptVariable[0]));
+    }
+
+    /**
+     * Render the template with the given placeholder values. Missing values render as empty text.
+     *
+     * @param values The placeholder values
+     * @return The rendered prompt
+     */
+    public String render(EnumMap<PromptVariable, String> values) {
+        int length = literalLength;
+        for (PromptVariable variable : variables) {
+            if (variable != null) {
+                String value = values.get(variable);
+                if (value != null) {
+                    length += value.length();
+                }
+            }
+        }
+
+        StringBuilder prompt = new StringBuilder(length);
+        for (int i = 0; i < literals.length; i++) {
+            if (variables[i] == null) {
+                prompt.append(literals[i]);
+            } else {
+                String value = values.get(variables[i]);
+                if (value != null) {
+                    prompt.append(value);
+                }
+            }
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * Check whether this compiled template still matches a version of the template prompt.
+     *
+     * @param templateId The ID of the template prompt
+     * @param updatedAt The last modification time of the template prompt
+     * @return true if the template was compiled from that version
+     */
+    public boolean isVersion(Long templateId, LocalDateTime updatedAt) {
+        return this.templateId.equals(templateId) && Objects.equals(this.updatedAt, updatedAt);
+    }
+
+    /**
+     * Check whether this compiled template comes from a later version of the template prompt than another one.
+     * Templates without a modification time are never considered newer.
+     *
+     * @param other The other compiled template
+     * @return true if this template was compiled from a later version
+     */
+    public boolean isNewerThan(PromptTemplate other) {
+        return updatedAt != null && other.updatedAt != null && updatedAt.isAfter(other.updatedAt);
+    }
+
+    /**
+     * Get the number of segments the template was compiled into.
+     *
+     * @return The number of segments
+     */
+    public int getSegmentCount() {
+        return literals.length;
+    }
+}
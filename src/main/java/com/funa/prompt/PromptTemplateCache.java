@@ -0,0 +1,67 @@
+package com.funa.prompt;
+
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.templateprompt.TemplatePrompt;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Size-bounded cache of compiled template prompts, keyed by template ID and checked against the template's last
+ * modification time. A template is parsed again only after it has been updated, and dropped once its change
+ * or deletion commits. A request that read an older version never replaces a newer compiled one.
+ * Hit, miss and eviction statistics are published as the "promptTemplates" cache metrics.
+ */
+@Component
+public class PromptTemplateCache {
+
+    private static final String CACHE_NAME = "promptTemplates";
+
+    private final Cache<Long, PromptTemplate> templates;
+
+    @Autowired
+    public PromptTemplateCache(
+            @Value("${prompt.template-cache.maximum-size:10000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.templates = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, templates, CACHE_NAME);
+    }
+
+    /**
+     * Get the compiled form of a template prompt, compiling it if it is not cached or has changed.
+     *
+     * @param templatePrompt The template prompt
+     * @return The compiled template
+     */
+    public PromptTemplate get(TemplatePrompt templatePrompt) {
+        PromptTemplate template = templates.getIfPresent(templatePrompt.getId());
+        if (template != null && template.isVersion(templatePrompt.getId(), templatePrompt.getUpdatedAt())) {
+            return template;
+        }
+        PromptTemplate compiled = PromptTemplate.compile(
+                templatePrompt.getId(), templatePrompt.getUpdatedAt(), templatePrompt.getPromptContent());
+        templates.asMap().merge(templatePrompt.getId(), compiled,
+                (current, candidate) -> current.isNewerThan(candidate) ? current : candidate);
+        return compiled;
+    }
+
+    /**
+     * Drop the compiled form of a template prompt once its change has been committed.
+     *
+     * @param event The entity change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.entityType() == TemplatePrompt.class && event.entityId() != null) {
+            templates.invalidate(event.entityId());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.funa.prompt;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Placeholders that can be used in a template prompt, written as {@code {{name}}}.
+ */
+public enum PromptVariable {
+    FEATURE_NAME("featureName"),
+    FEATURE_DESCRIPTION("featureDescription"),
+    SEQUENCE_DIAGRAM("sequenceDiagram"),
+    SQL_QUERY("sqlQuery");
+
+    private static final Map<String, PromptVariable> BY_PLACEHOLDER = new HashMap<>();
+
+    static {
+        for (PromptVariable variable : values()) {
+            BY_PLACEHOLDER.put(variable.placeholder, variable);
+        }
+    }
+
+    private final String placeholder;
+
+    PromptVariable(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * Get the name used between the braces of the placeholder.
+     *
+     * @return The placeholder name
+     */
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * Find the variable for a placeholder name.
+     *
+     * @param placeholder The name between the braces
+     * @return The variable, or null if the name is not a known placeholder
+     */
+    public static PromptVariable fromPlaceholder(String placeholder) {
+        return BY_PLACEHOLDER.get(placeholder);
+    }
+}
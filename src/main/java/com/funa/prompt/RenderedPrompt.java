@@ -0,0 +1,17 @@
+package com.funa.prompt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A feature's template prompt rendered with the feature's sequence diagram and SQL query.
+ */
+@Getter
+@AllArgsConstructor
+public class RenderedPrompt {
+    private final Long featureId;
+    private final String featureName;
+    private final Long templatePromptId;
+    private final String templatePromptName;
+    private final String content;
+}
@@ -0,0 +1,68 @@
+package com.funa.prompt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache of rendered prompts, keyed by the content hashes of their inputs.
+ * Eviction uses Caffeine's W-TinyLFU policy, weighted by prompt length so the bound holds in characters.
+ * Keys hold the feature and template prompt versions and every content hash, so a change to an input never hits
+ * an outdated entry; outdated entries are left for the size bound to evict rather than searched for on every write.
+ * Hit, miss and eviction statistics are published as the "renderedPrompts" cache metrics.
+ */
+@Component
+public class RenderedPromptCache {
+
+    private static final String CACHE_NAME = "renderedPrompts";
+
+    private final Cache<PromptCacheKey, RenderedPrompt> cache;
+
+    @Autowired
+    public RenderedPromptCache(
+            @Value("${prompt.cache.maximum-characters:20000000}") long maximumCharacters,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumCharacters)
+                .weigher((PromptCacheKey key, RenderedPrompt prompt) -> prompt.getContent().length())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get a rendered prompt, rendering and caching it if it is not cached yet.
+     *
+     * @param key The cache key of the prompt
+     * @param renderer Function rendering the prompt on a cache miss
+     * @return The rendered prompt
+     */
+    public RenderedPrompt get(PromptCacheKey key, Function<PromptCacheKey, RenderedPrompt> renderer) {
+        return cache.get(key, renderer);
+    }
+
+    /**
+     * Get the hit, miss and eviction statistics of the cache.
+     *
+     * @return The cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Get the approximate number of cached prompts.
+     *
+     * @return The number of cached prompts
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,23 @@
+package com.funa.prompt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for one line of an NDJSON prompt export.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptExportLineDto {
+    private Long featureId;
+    private String featureName;
+    private Long folderId;
+    private String folderPath;
+    private Long templatePromptId;
+    private String templatePromptName;
+    private String prompt;
+}
@@ -0,0 +1,55 @@
+package com.funa.prompt.dto;
+
+import com.funa.prompt.RenderedPrompt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper for converting rendered prompts to DTOs.
+ */
+@Component
+public class PromptMapper {
+
+    /**
+     * Convert a RenderedPrompt to a PromptResponseDto.
+     *
+     * @param renderedPrompt The RenderedPrompt to convert
+     * @return The PromptResponseDto
+     */
+    public PromptResponseDto toDto(RenderedPrompt renderedPrompt) {
+        if (renderedPrompt == null) {
+            return null;
+        }
+
+        PromptResponseDto dto = new PromptResponseDto();
+        dto.setFeatureId(renderedPrompt.getFeatureId());
+        dto.setFeatureName(renderedPrompt.getFeatureName());
+        dto.setTemplatePromptId(renderedPrompt.getTemplatePromptId());
+        dto.setTemplatePromptName(renderedPrompt.getTemplatePromptName());
+        dto.setPrompt(renderedPrompt.getContent());
+        return dto;
+    }
+
+    /**
+     * Convert a RenderedPrompt to a line of an NDJSON prompt export.
+     *
+     * @param renderedPrompt The RenderedPrompt to convert
+     * @param folderId The ID of the folder containing the feature
+     * @param folderPath The folder names from the exported folder down to the feature's folder
+     * @return The PromptExportLineDto
+     */
+    public PromptExportLineDto toExportLineDto(RenderedPrompt renderedPrompt, Long folderId, String folderPath) {
+        if (renderedPrompt == null) {
+            return null;
+        }
+
+        PromptExportLineDto dto = new PromptExportLineDto();
+        dto.setFeatureId(renderedPrompt.getFeatureId());
+        dto.setFeatureName(renderedPrompt.getFeatureName());
+        dto.setFolderId(folderId);
+        dto.setFolderPath(folderPath);
+        dto.setTemplatePromptId(renderedPrompt.getTemplatePromptId());
+        dto.setTemplatePromptName(renderedPrompt.getTemplatePromptName());
+        dto.setPrompt(renderedPrompt.getContent());
+        return dto;
+    }
+}
@@ -0,0 +1,21 @@
+package com.funa.prompt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for rendered prompt responses.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptResponseDto {
+    private Long featureId;
+    private String featureName;
+    private Long templatePromptId;
+    private String templatePromptName;
+    private String prompt;
+}
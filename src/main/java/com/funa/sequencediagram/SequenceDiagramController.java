@@ -1,5 +1,8 @@
 package com.funa.sequencediagram;
 
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.sequencediagram.dto.SequenceDiagramMapper;
 import com.funa.sequencediagram.dto.SequenceDiagramRequestDto;
 import com.funa.sequencediagram.dto.SequenceDiagramResponseDto;
@@ -11,12 +14,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * REST controller for managing sequence diagrams.
@@ -36,20 +40,24 @@ public class SequenceDiagramController {
     }
 
     /**
-     * Get all sequence diagrams.
+     * Get all sequence diagrams, one page at a time.
      *
-     * @return List of all sequence diagrams
+     * @param after The ID of the last sequence diagram of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of sequence diagrams to return (optional)
+     * @return One page of sequence diagrams ordered by ID
      */
-    @Operation(summary = "Get all sequence diagrams", description = "Retrieves a list of all sequence diagrams")
+    @Operation(summary = "Get all sequence diagrams", description = "Retrieves one page of sequence diagrams ordered by ID. Pass nextCursor as after to get the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved sequence diagrams",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = SequenceDiagramResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class)))
     })
     @GetMapping
-    public ResponseEntity<List<SequenceDiagramResponseDto>> getAllSequenceDiagrams() {
-        List<SequenceDiagram> sequenceDiagrams = sequenceDiagramService.getAllSequenceDiagrams();
-        List<SequenceDiagramResponseDto> sequenceDiagramDtos = sequenceDiagramMapper.toDtoList(sequenceDiagrams);
+    public ResponseEntity<CursorPage<SequenceDiagramResponseDto>> getAllSequenceDiagrams(
+            @Parameter(description = "ID of the last sequence diagram of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of sequence diagrams to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<SequenceDiagram> sequenceDiagrams = sequenceDiagramService.getAllSequenceDiagrams(after, limit);
+        CursorPage<SequenceDiagramResponseDto> sequenceDiagramDtos = sequenceDiagrams.map(sequenceDiagramMapper::toDtoList);
         return ResponseEntity.ok(sequenceDiagramDtos);
     }
 
@@ -57,38 +65,89 @@ public class SequenceDiagramController {
      * Get a sequence diagram by ID.
      *
      * @param id The ID of the sequence diagram
-     * @return The sequence diagram
+     * @param webRequest The current request, checked for If-None-Match and If-Modified-Since
+     * @return The sequence diagram, or 304 Not Modified if the client's copy is current
      */
-    @Operation(summary = "Get a sequence diagram by ID", description = "Retrieves a sequence diagram by its ID")
+    @Operation(summary = "Get a sequence diagram by ID",
+            description = "Retrieves a sequence diagram by its ID. Send the returned ETag in If-None-Match to get 304 Not Modified "
+                    + "while the sequence diagram is unchanged")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the sequence diagram",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = SequenceDiagramResponseDto.class))),
+        @ApiResponse(responseCode = "304", description = "Sequence diagram not modified",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "Sequence diagram not found",
                 content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<SequenceDiagramResponseDto> getSequenceDiagramById(
-            @Parameter(description = "ID of the sequence diagram to retrieve") @PathVariable Long id) {
-        try {
-            SequenceDiagram sequenceDiagram = sequenceDiagramService.getSequenceDiagramById(id);
-            SequenceDiagramResponseDto sequenceDiagramDto = sequenceDiagramMapper.toDto(sequenceDiagram);
-            return ResponseEntity.ok(sequenceDiagramDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            @Parameter(description = "ID of the sequence diagram to retrieve") @PathVariable Long id,
+            WebRequest webRequest) {
+        ResourceVersion version = sequenceDiagramService.getSequenceDiagramVersion(id);
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        // The 200 response carries the version read with the body, which may come from another replica
+        Versioned<SequenceDiagram> sequenceDiagram = sequenceDiagramService.getVersionedSequenceDiagramById(id);
+        SequenceDiagramResponseDto sequenceDiagramDto = sequenceDiagramMapper.toDto(sequenceDiagram.entity());
+        return ResponseEntity.ok().headers(sequenceDiagram.version().headers()).body(sequenceDiagramDto);
     }
 
     /**
-     * Find sequence diagrams by name.
+     * Get the content of a sequence diagram at a given version.
+     * The URL contains the content hash, so the response never changes and can be cached forever.
+     *
+     * @param id The ID of the sequence diagram
+     * @param contentHash The content hash, as found in contentUrl
+     * @param webRequest The current request, checked for If-None-Match
+     * @return The content as plain text, or 304 Not Modified if the client has it
+     */
+    @Operation(summary = "Get the content of a sequence diagram at a version",
+            description = "Retrieves the content of a sequence diagram under its immutable, versioned URL (contentUrl)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the content",
+                content = @Content(mediaType = "text/plain")),
+        @ApiResponse(responseCode = "304", description = "Content not modified",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "Sequence diagram not found or its content has changed",
+                content = @Content)
+    })
+    @GetMapping(value = "/{id}/content/{contentHash}", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<String> getSequenceDiagramContent(
+            @Parameter(description = "ID of the sequence diagram") @PathVariable Long id,
+            @Parameter(description = "Content hash") @PathVariable String contentHash,
+            WebRequest webRequest) {
+        ResourceVersion version = ResourceVersion.ofContent(contentHash);
+        // The content behind a versioned URL never changes, so a cached copy is current without any query
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(version.immutableHeaders()).build();
+        }
+        String content = sequenceDiagramService.getSequenceDiagramContent(id, contentHash);
+        return ResponseEntity.ok().headers(version.immutableHeaders()).body(content);
+    }
+
+    /**
+     * Find sequence diagrams by name, one page at a time.
      *
      * @param name The name to search for
-     * @return List of matching sequence diagrams
+     * @param after The ID of the last sequence diagram of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of sequence diagrams to return (optional)
+     * @return One page of matching sequence diagrams ordered by ID
      */
+    @Operation(summary = "Find sequence diagrams by name", description = "Retrieves one page of sequence diagrams matching the provided name, ordered by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved sequence diagrams",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)))
+    })
     @GetMapping("/search")
-    public ResponseEntity<List<SequenceDiagramResponseDto>> findSequenceDiagramsByName(@RequestParam String name) {
-        List<SequenceDiagram> sequenceDiagrams = sequenceDiagramService.findSequenceDiagramsByName(name);
-        List<SequenceDiagramResponseDto> sequenceDiagramDtos = sequenceDiagramMapper.toDtoList(sequenceDiagrams);
+    public ResponseEntity<CursorPage<SequenceDiagramResponseDto>> findSequenceDiagramsByName(
+            @Parameter(description = "Name to search for") @RequestParam String name,
+            @Parameter(description = "ID of the last sequence diagram of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of sequence diagrams to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<SequenceDiagram> sequenceDiagrams = sequenceDiagramService.findSequenceDiagramsByName(name, after, limit);
+        CursorPage<SequenceDiagramResponseDto> sequenceDiagramDtos = sequenceDiagrams.map(sequenceDiagramMapper::toDtoList);
         return ResponseEntity.ok(sequenceDiagramDtos);
     }
 
@@ -126,27 +185,38 @@ public class SequenceDiagramController {
      * Update an existing sequence diagram.
      *
      * @param id The ID of the sequence diagram to update
+     * @param ifMatch The ETag of the version the client last read (optional)
      * @param sequenceDiagramDto The updated sequence diagram data
      * @return The updated sequence diagram
      */
+    @Operation(summary = "Update a sequence diagram",
+            description = "Updates an existing sequence diagram. With If-Match, the update is only applied if the sequence diagram "
+                    + "is still at that version")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Sequence diagram successfully updated",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = SequenceDiagramResponseDto.class))),
+        @ApiResponse(responseCode = "404", description = "Sequence diagram not found",
+                content = @Content),
+        @ApiResponse(responseCode = "412", description = "Sequence diagram was modified since the If-Match version",
+                content = @Content)
+    })
     @PutMapping("/{id}")
     public ResponseEntity<SequenceDiagramResponseDto> updateSequenceDiagram(
             @PathVariable Long id,
+            @Parameter(description = "ETag of the version to update (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody SequenceDiagramRequestDto sequenceDiagramDto) {
-        try {
-            // Convert DTO to entity
-            SequenceDiagram sequenceDiagram = sequenceDiagramMapper.toEntity(sequenceDiagramDto);
+        // Convert DTO to entity
+        SequenceDiagram sequenceDiagram = sequenceDiagramMapper.toEntity(sequenceDiagramDto);
 
-            // Update sequence diagram using service
-            SequenceDiagram updatedSequenceDiagram = sequenceDiagramService.updateSequenceDiagram(id, sequenceDiagram);
+        // Update sequence diagram using service
+        Versioned<SequenceDiagram> updatedSequenceDiagram = sequenceDiagramService.updateSequenceDiagram(id, sequenceDiagram, ifMatch);
 
-            // Convert entity back to DTO
-            SequenceDiagramResponseDto responseDto = sequenceDiagramMapper.toDto(updatedSequenceDiagram);
+        // Convert entity back to DTO
+        SequenceDiagramResponseDto responseDto = sequenceDiagramMapper.toDto(updatedSequenceDiagram.entity());
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok().headers(updatedSequenceDiagram.version().headers()).body(responseDto);
     }
 
     /**
@@ -157,11 +227,7 @@ public class SequenceDiagramController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteSequenceDiagram(@PathVariable Long id) {
-        try {
-            sequenceDiagramService.deleteSequenceDiagram(id);
-            return ResponseEntity.noContent().build();
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        sequenceDiagramService.deleteSequenceDiagram(id);
+        return ResponseEntity.noContent().build();
     }
 }
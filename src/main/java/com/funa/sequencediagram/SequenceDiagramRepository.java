@@ -1,10 +1,22 @@
 package com.funa.sequencediagram;
 
+import com.funa.common.entity.ContentVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for SequenceDiagram entity.
@@ -20,6 +32,35 @@ public interface SequenceDiagramRepository extends JpaRepository<SequenceDiagram
      */
     Optional<SequenceDiagram> findByName(String name);
 
+    /**
+     * Find the version of a sequence diagram without loading its content.
+     *
+     * @param id The ID of the sequence diagram
+     * @return The version if the sequence diagram is found
+     */
+    @Query("select new com.funa.common.entity.ContentVersion(s.updatedAt, s.contentHash) from SequenceDiagram s where s.id = :id")
+    Optional<ContentVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Find the content of a sequence diagram if it still has the given content hash.
+     *
+     * @param id The ID of the sequence diagram
+     * @param contentHash The expected content hash
+     * @return The content if the sequence diagram is found and its content has the given hash
+     */
+    @Query("select s.sequenceDiagramContent from SequenceDiagram s where s.id = :id and s.contentHash = :contentHash")
+    Optional<String> findContentByIdAndContentHash(@Param("id") Long id, @Param("contentHash") String contentHash);
+
+    /**
+     * Find a sequence diagram by ID and lock its row until the end of the transaction,
+     * so that a conditional update cannot interleave with another update.
+     *
+     * @param id The ID of the sequence diagram
+     * @return The sequence diagram if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<SequenceDiagram> findForUpdateById(Long id);
+
     /**
      * Find sequence diagrams with names containing the given text.
      *
@@ -27,4 +68,52 @@ public interface SequenceDiagramRepository extends JpaRepository<SequenceDiagram
      * @return List of matching sequence diagrams
      */
     List<SequenceDiagram> findByNameContaining(String name);
-}
\ No newline at end of file
+
+    /**
+     * Find the sequence diagrams whose content hash has not been computed yet, with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of sequence diagrams to return
+     * @return List of sequence diagrams without a content hash, ordered by ID
+     */
+    List<SequenceDiagram> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the sequence diagrams with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of sequence diagrams to return
+     * @return List of sequence diagrams ordered by ID
+     */
+    List<SequenceDiagram> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the sequence diagrams with names containing the given text and IDs greater than the given ID, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of sequence diagrams to return
+     * @return List of matching sequence diagrams ordered by ID
+     */
+    List<SequenceDiagram> findByNameContainingAndIdGreaterThanOrderByIdAsc(String name, Long id, Limit limit);
+
+    /**
+     * Delete the sequence diagrams with the given IDs that are no longer referenced by any feature.
+     *
+     * @param ids The IDs of the candidate sequence diagrams
+     * @return Number of sequence diagrams deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from SequenceDiagram s where s.id in :ids and not exists (select 1 from Feature f where f.sequenceDiagram = s)")
+    int deleteUnreferencedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream all sequence diagrams ordered by ID.
+     * Rows are fetched from the database in chunks while the stream is consumed, so the caller must run inside
+     * a transaction, close the stream and clear the persistence context as it goes.
+     *
+     * @return Stream of all sequence diagrams
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<SequenceDiagram> streamAllByOrderByIdAsc();
+}
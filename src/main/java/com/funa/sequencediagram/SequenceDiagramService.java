@@ -1,11 +1,20 @@
 package com.funa.sequencediagram;
 
+import com.funa.common.entity.ContentVersion;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.Optional;
 
 /**
@@ -15,11 +24,21 @@ import java.util.Optional;
 @Transactional
 public class SequenceDiagramService {
 
+    // Sequence diagrams hashed before the persistence context is flushed and cleared
+    private static final int HASH_BATCH_SIZE = 500;
+
     private final SequenceDiagramRepository sequenceDiagramRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public SequenceDiagramService(SequenceDiagramRepository sequenceDiagramRepository) {
+    public SequenceDiagramService(
+            SequenceDiagramRepository sequenceDiagramRepository,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher) {
         this.sequenceDiagramRepository = sequenceDiagramRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -32,17 +51,75 @@ public class SequenceDiagramService {
         return sequenceDiagramRepository.findAll();
     }
 
+    /**
+     * Get one page of all sequence diagrams, ordered by ID.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of sequence diagrams
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SequenceDiagram> getAllSequenceDiagrams(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<SequenceDiagram> sequenceDiagrams = sequenceDiagramRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(sequenceDiagrams, pageSize, SequenceDiagram::getId);
+    }
+
     /**
      * Get a sequence diagram by ID.
      *
      * @param id The ID of the sequence diagram
      * @return The sequence diagram
-     * @throws NoSuchElementException if the sequence diagram is not found
+     * @throws NotFoundException if the sequence diagram is not found
      */
     @Transactional(readOnly = true)
     public SequenceDiagram getSequenceDiagramById(Long id) {
         return sequenceDiagramRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Sequence diagram not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Sequence diagram", id));
+    }
+
+    /**
+     * Get the version of a sequence diagram without loading its content.
+     *
+     * @param id The ID of the sequence diagram
+     * @return The version of its representation
+     * @throws NotFoundException if the sequence diagram is not found
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getSequenceDiagramVersion(Long id) {
+        return sequenceDiagramRepository.findVersionById(id)
+                .map(ContentVersion::toResourceVersion)
+                .orElseThrow(() -> new NotFoundException("Sequence diagram", id));
+    }
+
+    /**
+     * Get a sequence diagram together with the version of its representation.
+     * The version is taken from the loaded sequence diagram, so it always matches the returned content.
+     *
+     * @param id The ID of the sequence diagram
+     * @return The sequence diagram and its version
+     * @throws NotFoundException if the sequence diagram is not found
+     */
+    @Transactional(readOnly = true)
+    public Versioned<SequenceDiagram> getVersionedSequenceDiagramById(Long id) {
+        SequenceDiagram sequenceDiagram = getSequenceDiagramById(id);
+        ContentVersion version = new ContentVersion(sequenceDiagram.getUpdatedAt(), sequenceDiagram.getContentHash());
+        return new Versioned<>(sequenceDiagram, version.toResourceVersion());
+    }
+
+    /**
+     * Get the content of a sequence diagram as it is at the given content hash.
+     *
+     * @param id The ID of the sequence diagram
+     * @param contentHash The content hash
+     * @return The content
+     * @throws NotFoundException if the sequence diagram is not found or its content no longer has the given hash
+     */
+    @Transactional(readOnly = true)
+    public String getSequenceDiagramContent(Long id, String contentHash) {
+        return sequenceDiagramRepository.findContentByIdAndContentHash(id, contentHash)
+                .orElseThrow(() -> new NotFoundException("Sequence diagram content", contentHash));
     }
 
     /**
@@ -56,6 +133,22 @@ public class SequenceDiagramService {
         return sequenceDiagramRepository.findByNameContaining(name);
     }
 
+    /**
+     * Find one page of sequence diagrams by name containing the given text, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching sequence diagrams
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SequenceDiagram> findSequenceDiagramsByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<SequenceDiagram> sequenceDiagrams = sequenceDiagramRepository.findByNameContainingAndIdGreaterThanOrderByIdAsc(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(sequenceDiagrams, pageSize, SequenceDiagram::getId);
+    }
+
     /**
      * Create a new sequence diagram.
      *
@@ -72,25 +165,75 @@ public class SequenceDiagramService {
      * @param id The ID of the sequence diagram to update
      * @param sequenceDiagram The updated sequence diagram data
      * @return The updated sequence diagram
-     * @throws NoSuchElementException if the sequence diagram is not found
+     * @throws NotFoundException if the sequence diagram is not found
      */
     public SequenceDiagram updateSequenceDiagram(Long id, SequenceDiagram sequenceDiagram) {
         SequenceDiagram existingSequenceDiagram = getSequenceDiagramById(id);
         existingSequenceDiagram.setName(sequenceDiagram.getName());
         existingSequenceDiagram.setSequenceDiagramContent(sequenceDiagram.getSequenceDiagramContent());
-        return sequenceDiagramRepository.save(existingSequenceDiagram);
+        SequenceDiagram updatedSequenceDiagram = sequenceDiagramRepository.save(existingSequenceDiagram);
+        eventPublisher.publishEvent(new EntityChangedEvent(SequenceDiagram.class, id));
+        return updatedSequenceDiagram;
+    }
+
+    /**
+     * Update an existing sequence diagram if it is still at the version the client last read.
+     *
+     * @param id The ID of the sequence diagram to update
+     * @param sequenceDiagram The updated sequence diagram data
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated sequence diagram and its new version
+     * @throws NotFoundException if the sequence diagram is not found
+     * @throws PreconditionFailedException if the sequence diagram has changed since the client read it
+     */
+    public Versioned<SequenceDiagram> updateSequenceDiagram(Long id, SequenceDiagram sequenceDiagram, String ifMatch) {
+        if (ifMatch != null) {
+            sequenceDiagramRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new NotFoundException("Sequence diagram", id));
+            getSequenceDiagramVersion(id).checkIfMatch(ifMatch);
+        }
+        SequenceDiagram updatedSequenceDiagram = updateSequenceDiagram(id, sequenceDiagram);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedSequenceDiagram, getSequenceDiagramVersion(id));
     }
 
     /**
      * Delete a sequence diagram by ID.
      *
      * @param id The ID of the sequence diagram to delete
-     * @throws NoSuchElementException if the sequence diagram is not found
+     * @throws NotFoundException if the sequence diagram is not found
      */
     public void deleteSequenceDiagram(Long id) {
         if (!sequenceDiagramRepository.existsById(id)) {
-            throw new NoSuchElementException("Sequence diagram not found with ID: " + id);
+            throw new NotFoundException("Sequence diagram", id);
         }
         sequenceDiagramRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(SequenceDiagram.class, id));
+    }
+
+    /**
+     * Compute the content hash of every sequence diagram that does not have one yet,
+     * e.g. for rows created before the content hash column existed.
+     * The rows are read in batches by ID, and the persistence context is flushed and cleared after every batch,
+     * so entities loaded by the caller's transaction are detached.
+     *
+     * @return Number of sequence diagrams whose content hash was computed
+     */
+    public int rebuildContentHashesIfMissing() {
+        int rebuilt = 0;
+        long after = 0L;
+        List<SequenceDiagram> missing;
+        do {
+            missing = sequenceDiagramRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(after, Limit.of(HASH_BATCH_SIZE));
+            if (missing.isEmpty()) {
+                break;
+            }
+            missing.forEach(SequenceDiagram::updateContentHash);
+            after = missing.get(missing.size() - 1).getId();
+            rebuilt += missing.size();
+            entityManager.flush();
+            entityManager.clear();
+        } while (missing.size() == HASH_BATCH_SIZE);
+        return rebuilt;
     }
-}
\ No newline at end of file
+}
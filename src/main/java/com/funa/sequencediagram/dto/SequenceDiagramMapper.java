@@ -27,6 +27,9 @@ public class SequenceDiagramMapper {
         dto.setId(sequenceDiagram.getId());
         dto.setName(sequenceDiagram.getName());
         dto.setSequenceDiagramContent(sequenceDiagram.getSequenceDiagramContent());
+        if (sequenceDiagram.getContentHash() != null) {
+            dto.setContentUrl("/api/sequence-diagrams/" + sequenceDiagram.getId() + "/content/" + sequenceDiagram.getContentHash());
+        }
         
         // Set audit fields
         dto.setCreatedAt(sequenceDiagram.getCreatedAt());
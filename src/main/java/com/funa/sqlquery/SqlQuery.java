@@ -1,6 +1,8 @@
 package com.funa.sqlquery;
 
 import com.funa.common.entity.BaseEntity;
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.util.ContentHash;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,7 +19,8 @@ import lombok.Setter;
 public class SqlQuery extends BaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_sql_query_seq")
+    @SequenceGenerator(name = "tb_sql_query_seq", sequenceName = "tb_sql_query_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -25,4 +28,16 @@ public class SqlQuery extends BaseEntity {
 
     @Column(name = "query_content", columnDefinition = "TEXT", nullable = false)
     private String queryContent;
-}
\ No newline at end of file
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * Recompute the SHA-256 hash of the content. Called automatically before every insert and update.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateContentHash() {
+        this.contentHash = ContentHash.sha256(queryContent);
+    }
+}
@@ -1,5 +1,8 @@
 package com.funa.sqlquery;
 
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.sqlquery.dto.SqlQueryMapper;
 import com.funa.sqlquery.dto.SqlQueryRequestDto;
 import com.funa.sqlquery.dto.SqlQueryResponseDto;
@@ -11,12 +14,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * REST controller for managing SQL queries.
@@ -36,20 +40,24 @@ public class SqlQueryController {
     }
 
     /**
-     * Get all SQL queries.
+     * Get all SQL queries, one page at a time.
      *
-     * @return List of all SQL queries
+     * @param after The ID of the last SQL query of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of SQL queries to return (optional)
+     * @return One page of SQL queries ordered by ID
      */
-    @Operation(summary = "Get all SQL queries", description = "Retrieves a list of all SQL queries")
+    @Operation(summary = "Get all SQL queries", description = "Retrieves one page of SQL queries ordered by ID. Pass nextCursor as after to get the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved SQL queries",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = SqlQueryResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class)))
     })
     @GetMapping
-    public ResponseEntity<List<SqlQueryResponseDto>> getAllSqlQueries() {
-        List<SqlQuery> sqlQueries = sqlQueryService.getAllSqlQueries();
-        List<SqlQueryResponseDto> sqlQueryDtos = sqlQueryMapper.toDtoList(sqlQueries);
+    public ResponseEntity<CursorPage<SqlQueryResponseDto>> getAllSqlQueries(
+            @Parameter(description = "ID of the last SQL query of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of SQL queries to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<SqlQuery> sqlQueries = sqlQueryService.getAllSqlQueries(after, limit);
+        CursorPage<SqlQueryResponseDto> sqlQueryDtos = sqlQueries.map(sqlQueryMapper::toDtoList);
         return ResponseEntity.ok(sqlQueryDtos);
     }
 
@@ -57,38 +65,89 @@ public class SqlQueryController {
      * Get a SQL query by ID.
      *
      * @param id The ID of the SQL query
-     * @return The SQL query
+     * @param webRequest The current request, checked for If-None-Match and If-Modified-Since
+     * @return The SQL query, or 304 Not Modified if the client's copy is current
      */
-    @Operation(summary = "Get a SQL query by ID", description = "Retrieves a SQL query by its ID")
+    @Operation(summary = "Get a SQL query by ID",
+            description = "Retrieves a SQL query by its ID. Send the returned ETag in If-None-Match to get 304 Not Modified "
+                    + "while the SQL query is unchanged")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the SQL query",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = SqlQueryResponseDto.class))),
+        @ApiResponse(responseCode = "304", description = "SQL query not modified",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "SQL query not found",
                 content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<SqlQueryResponseDto> getSqlQueryById(
-            @Parameter(description = "ID of the SQL query to retrieve") @PathVariable Long id) {
-        try {
-            SqlQuery sqlQuery = sqlQueryService.getSqlQueryById(id);
-            SqlQueryResponseDto sqlQueryDto = sqlQueryMapper.toDto(sqlQuery);
-            return ResponseEntity.ok(sqlQueryDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            @Parameter(description = "ID of the SQL query to retrieve") @PathVariable Long id,
+            WebRequest webRequest) {
+        ResourceVersion version = sqlQueryService.getSqlQueryVersion(id);
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        // The 200 response carries the version read with the body, which may come from another replica
+        Versioned<SqlQuery> sqlQuery = sqlQueryService.getVersionedSqlQueryById(id);
+        SqlQueryResponseDto sqlQueryDto = sqlQueryMapper.toDto(sqlQuery.entity());
+        return ResponseEntity.ok().headers(sqlQuery.version().headers()).body(sqlQueryDto);
     }
 
     /**
-     * Find SQL queries by name.
+     * Get the content of a SQL query at a given version.
+     * The URL contains the content hash, so the response never changes and can be cached forever.
+     *
+     * @param id The ID of the SQL query
+     * @param contentHash The content hash, as found in contentUrl
+     * @param webRequest The current request, checked for If-None-Match
+     * @return The content as plain text, or 304 Not Modified if the client has it
+     */
+    @Operation(summary = "Get the content of a SQL query at a version",
+            description = "Retrieves the content of a SQL query under its immutable, versioned URL (contentUrl)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the content",
+                content = @Content(mediaType = "text/plain")),
+        @ApiResponse(responseCode = "304", description = "Content not modified",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "SQL query not found or its content has changed",
+                content = @Content)
+    })
+    @GetMapping(value = "/{id}/content/{contentHash}", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<String> getSqlQueryContent(
+            @Parameter(description = "ID of the SQL query") @PathVariable Long id,
+            @Parameter(description = "Content hash") @PathVariable String contentHash,
+            WebRequest webRequest) {
+        ResourceVersion version = ResourceVersion.ofContent(contentHash);
+        // The content behind a versioned URL never changes, so a cached copy is current without any query
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(version.immutableHeaders()).build();
+        }
+        String content = sqlQueryService.getSqlQueryContent(id, contentHash);
+        return ResponseEntity.ok().headers(version.immutableHeaders()).body(content);
+    }
+
+    /**
+     * Find SQL queries by name, one page at a time.
      *
      * @param name The name to search for
-     * @return List of matching SQL queries
+     * @param after The ID of the last SQL query of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of SQL queries to return (optional)
+     * @return One page of matching SQL queries ordered by ID
      */
+    @Operation(summary = "Find SQL queries by name", description = "Retrieves one page of SQL queries matching the provided name, ordered by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved SQL queries",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)))
+    })
     @GetMapping("/search")
-    public ResponseEntity<List<SqlQueryResponseDto>> findSqlQueriesByName(@RequestParam String name) {
-        List<SqlQuery> sqlQueries = sqlQueryService.findSqlQueriesByName(name);
-        List<SqlQueryResponseDto> sqlQueryDtos = sqlQueryMapper.toDtoList(sqlQueries);
+    public ResponseEntity<CursorPage<SqlQueryResponseDto>> findSqlQueriesByName(
+            @Parameter(description = "Name to search for") @RequestParam String name,
+            @Parameter(description = "ID of the last SQL query of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of SQL queries to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<SqlQuery> sqlQueries = sqlQueryService.findSqlQueriesByName(name, after, limit);
+        CursorPage<SqlQueryResponseDto> sqlQueryDtos = sqlQueries.map(sqlQueryMapper::toDtoList);
         return ResponseEntity.ok(sqlQueryDtos);
     }
 
@@ -126,27 +185,38 @@ public class SqlQueryController {
      * Update an existing SQL query.
      *
      * @param id The ID of the SQL query to update
+     * @param ifMatch The ETag of the version the client last read (optional)
      * @param sqlQueryDto The updated SQL query data
      * @return The updated SQL query
      */
+    @Operation(summary = "Update a SQL query",
+            description = "Updates an existing SQL query. With If-Match, the update is only applied if the SQL query "
+                    + "is still at that version")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "SQL query successfully updated",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = SqlQueryResponseDto.class))),
+        @ApiResponse(responseCode = "404", description = "SQL query not found",
+                content = @Content),
+        @ApiResponse(responseCode = "412", description = "SQL query was modified since the If-Match version",
+                content = @Content)
+    })
     @PutMapping("/{id}")
     public ResponseEntity<SqlQueryResponseDto> updateSqlQuery(
             @PathVariable Long id,
+            @Parameter(description = "ETag of the version to update (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody SqlQueryRequestDto sqlQueryDto) {
-        try {
-            // Convert DTO to entity
-            SqlQuery sqlQuery = sqlQueryMapper.toEntity(sqlQueryDto);
+        // Convert DTO to entity
+        SqlQuery sqlQuery = sqlQueryMapper.toEntity(sqlQueryDto);
 
-            // Update SQL query using service
-            SqlQuery updatedSqlQuery = sqlQueryService.updateSqlQuery(id, sqlQuery);
+        // Update SQL query using service
+        Versioned<SqlQuery> updatedSqlQuery = sqlQueryService.updateSqlQuery(id, sqlQuery, ifMatch);
 
-            // Convert entity back to DTO
-            SqlQueryResponseDto responseDto = sqlQueryMapper.toDto(updatedSqlQuery);
+        // Convert entity back to DTO
+        SqlQueryResponseDto responseDto = sqlQueryMapper.toDto(updatedSqlQuery.entity());
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok().headers(updatedSqlQuery.version().headers()).body(responseDto);
     }
 
     /**
@@ -157,11 +227,7 @@ public class SqlQueryController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteSqlQuery(@PathVariable Long id) {
-        try {
-            sqlQueryService.deleteSqlQuery(id);
-            return ResponseEntity.noContent().build();
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        sqlQueryService.deleteSqlQuery(id);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,10 +1,22 @@
 package com.funa.sqlquery;
 
+import com.funa.common.entity.ContentVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for SqlQuery entity.
@@ -20,6 +32,35 @@ public interface SqlQueryRepository extends JpaRepository<SqlQuery, Long> {
      */
     Optional<SqlQuery> findByName(String name);
 
+    /**
+     * Find the version of a SQL query without loading its content.
+     *
+     * @param id The ID of the SQL query
+     * @return The version if the SQL query is found
+     */
+    @Query("select new com.funa.common.entity.ContentVersion(q.updatedAt, q.contentHash) from SqlQuery q where q.id = :id")
+    Optional<ContentVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Find the content of a SQL query if it still has the given content hash.
+     *
+     * @param id The ID of the SQL query
+     * @param contentHash The expected content hash
+     * @return The content if the SQL query is found and its content has the given hash
+     */
+    @Query("select q.queryContent from SqlQuery q where q.id = :id and q.contentHash = :contentHash")
+    Optional<String> findContentByIdAndContentHash(@Param("id") Long id, @Param("contentHash") String contentHash);
+
+    /**
+     * Find a SQL query by ID and lock its row until the end of the transaction,
+     * so that a conditional update cannot interleave with another update.
+     *
+     * @param id The ID of the SQL query
+     * @return The SQL query if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<SqlQuery> findForUpdateById(Long id);
+
     /**
      * Find SQL queries with names containing the given text.
      *
@@ -27,4 +68,52 @@ public interface SqlQueryRepository extends JpaRepository<SqlQuery, Long> {
      * @return List of matching SQL queries
      */
     List<SqlQuery> findByNameContaining(String name);
-}
\ No newline at end of file
+
+    /**
+     * Find the SQL queries whose content hash has not been computed yet, with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of SQL queries to return
+     * @return List of SQL queries without a content hash, ordered by ID
+     */
+    List<SqlQuery> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the SQL queries with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of SQL queries to return
+     * @return List of SQL queries ordered by ID
+     */
+    List<SqlQuery> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the SQL queries with names containing the given text and IDs greater than the given ID, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of SQL queries to return
+     * @return List of matching SQL queries ordered by ID
+     */
+    List<SqlQuery> findByNameContainingAndIdGreaterThanOrderByIdAsc(String name, Long id, Limit limit);
+
+    /**
+     * Delete the SQL queries with the given IDs that are no longer referenced by any feature.
+     *
+     * @param ids The IDs of the candidate SQL queries
+     * @return Number of SQL queries deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from SqlQuery q where q.id in :ids and not exists (select 1 from Feature f where f.sqlQuery = q)")
+    int deleteUnreferencedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream all SQL queries ordered by ID.
+     * Rows are fetched from the database in chunks while the stream is consumed, so the caller must run inside
+     * a transaction, close the stream and clear the persistence context as it goes.
+     *
+     * @return Stream of all SQL queries
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<SqlQuery> streamAllByOrderByIdAsc();
+}
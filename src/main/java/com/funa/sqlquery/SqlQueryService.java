@@ -1,11 +1,20 @@
 package com.funa.sqlquery;
 
+import com.funa.common.entity.ContentVersion;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * Service for managing SQL queries.
@@ -14,11 +23,21 @@ import java.util.NoSuchElementException;
 @Transactional
 public class SqlQueryService {
 
+    // SQL queries hashed before the persistence context is flushed and cleared
+    private static final int HASH_BATCH_SIZE = 500;
+
     private final SqlQueryRepository sqlQueryRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public SqlQueryService(SqlQueryRepository sqlQueryRepository) {
+    public SqlQueryService(
+            SqlQueryRepository sqlQueryRepository,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher) {
         this.sqlQueryRepository = sqlQueryRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -31,17 +50,75 @@ public class SqlQueryService {
         return sqlQueryRepository.findAll();
     }
 
+    /**
+     * Get one page of all SQL queries, ordered by ID.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of SQL queries
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SqlQuery> getAllSqlQueries(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<SqlQuery> sqlQueries = sqlQueryRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(sqlQueries, pageSize, SqlQuery::getId);
+    }
+
     /**
      * Get a SQL query by ID.
      *
      * @param id The ID of the SQL query
      * @return The SQL query
-     * @throws NoSuchElementException if the SQL query is not found
+     * @throws NotFoundException if the SQL query is not found
      */
     @Transactional(readOnly = true)
     public SqlQuery getSqlQueryById(Long id) {
         return sqlQueryRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("SQL query not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("SQL query", id));
+    }
+
+    /**
+     * Get the version of a SQL query without loading its content.
+     *
+     * @param id The ID of the SQL query
+     * @return The version of its representation
+     * @throws NotFoundException if the SQL query is not found
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getSqlQueryVersion(Long id) {
+        return sqlQueryRepository.findVersionById(id)
+                .map(ContentVersion::toResourceVersion)
+                .orElseThrow(() -> new NotFoundException("SQL query", id));
+    }
+
+    /**
+     * Get a SQL query together with the version of its representation.
+     * The version is taken from the loaded SQL query, so it always matches the returned content.
+     *
+     * @param id The ID of the SQL query
+     * @return The SQL query and its version
+     * @throws NotFoundException if the SQL query is not found
+     */
+    @Transactional(readOnly = true)
+    public Versioned<SqlQuery> getVersionedSqlQueryById(Long id) {
+        SqlQuery sqlQuery = getSqlQueryById(id);
+        ContentVersion version = new ContentVersion(sqlQuery.getUpdatedAt(), sqlQuery.getContentHash());
+        return new Versioned<>(sqlQuery, version.toResourceVersion());
+    }
+
+    /**
+     * Get the content of a SQL query as it is at the given content hash.
+     *
+     * @param id The ID of the SQL query
+     * @param contentHash The content hash
+     * @return The content
+     * @throws NotFoundException if the SQL query is not found or its content no longer has the given hash
+     */
+    @Transactional(readOnly = true)
+    public String getSqlQueryContent(Long id, String contentHash) {
+        return sqlQueryRepository.findContentByIdAndContentHash(id, contentHash)
+                .orElseThrow(() -> new NotFoundException("SQL query content", contentHash));
     }
 
     /**
@@ -55,6 +132,22 @@ public class SqlQueryService {
         return sqlQueryRepository.findByNameContaining(name);
     }
 
+    /**
+     * Find one page of SQL queries by name containing the given text, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching SQL queries
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SqlQuery> findSqlQueriesByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<SqlQuery> sqlQueries = sqlQueryRepository.findByNameContainingAndIdGreaterThanOrderByIdAsc(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(sqlQueries, pageSize, SqlQuery::getId);
+    }
+
     /**
      * Create a new SQL query.
      *
@@ -71,25 +164,75 @@ public class SqlQueryService {
      * @param id The ID of the SQL query to update
      * @param sqlQuery The updated SQL query data
      * @return The updated SQL query
-     * @throws NoSuchElementException if the SQL query is not found
+     * @throws NotFoundException if the SQL query is not found
      */
     public SqlQuery updateSqlQuery(Long id, SqlQuery sqlQuery) {
         SqlQuery existingSqlQuery = getSqlQueryById(id);
         existingSqlQuery.setName(sqlQuery.getName());
         existingSqlQuery.setQueryContent(sqlQuery.getQueryContent());
-        return sqlQueryRepository.save(existingSqlQuery);
+        SqlQuery updatedSqlQuery = sqlQueryRepository.save(existingSqlQuery);
+        eventPublisher.publishEvent(new EntityChangedEvent(SqlQuery.class, id));
+        return updatedSqlQuery;
+    }
+
+    /**
+     * Update an existing SQL query if it is still at the version the client last read.
+     *
+     * @param id The ID of the SQL query to update
+     * @param sqlQuery The updated SQL query data
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated SQL query and its new version
+     * @throws NotFoundException if the SQL query is not found
+     * @throws PreconditionFailedException if the SQL query has changed since the client read it
+     */
+    public Versioned<SqlQuery> updateSqlQuery(Long id, SqlQuery sqlQuery, String ifMatch) {
+        if (ifMatch != null) {
+            sqlQueryRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new NotFoundException("SQL query", id));
+            getSqlQueryVersion(id).checkIfMatch(ifMatch);
+        }
+        SqlQuery updatedSqlQuery = updateSqlQuery(id, sqlQuery);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedSqlQuery, getSqlQueryVersion(id));
     }
 
     /**
      * Delete a SQL query by ID.
      *
      * @param id The ID of the SQL query to delete
-     * @throws NoSuchElementException if the SQL query is not found
+     * @throws NotFoundException if the SQL query is not found
      */
     public void deleteSqlQuery(Long id) {
         if (!sqlQueryRepository.existsById(id)) {
-            throw new NoSuchElementException("SQL query not found with ID: " + id);
+            throw new NotFoundException("SQL query", id);
         }
         sqlQueryRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(SqlQuery.class, id));
+    }
+
+    /**
+     * Compute the content hash of every SQL query that does not have one yet,
+     * e.g. for rows created before the content hash column existed.
+     * The rows are read in batches by ID, and the persistence context is flushed and cleared after every batch,
+     * so entities loaded by the caller's transaction are detached.
+     *
+     * @return Number of SQL queries whose content hash was computed
+     */
+    public int rebuildContentHashesIfMissing() {
+        int rebuilt = 0;
+        long after = 0L;
+        List<SqlQuery> missing;
+        do {
+            missing = sqlQueryRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(after, Limit.of(HASH_BATCH_SIZE));
+            if (missing.isEmpty()) {
+                break;
+            }
+            missing.forEach(SqlQuery::updateContentHash);
+            after = missing.get(missing.size() - 1).getId();
+            rebuilt += missing.size();
+            entityManager.flush();
+            entityManager.clear();
+        } while (missing.size() == HASH_BATCH_SIZE);
+        return rebuilt;
     }
-}
\ No newline at end of file
+}
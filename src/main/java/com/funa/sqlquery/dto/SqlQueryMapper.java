@@ -27,6 +27,9 @@ public class SqlQueryMapper {
         dto.setId(sqlQuery.getId());
         dto.setName(sqlQuery.getName());
         dto.setQueryContent(sqlQuery.getQueryContent());
+        if (sqlQuery.getContentHash() != null) {
+            dto.setContentUrl("/api/sql-queries/" + sqlQuery.getId() + "/content/" + sqlQuery.getContentHash());
+        }
         
         // Set audit fields
         dto.setCreatedAt(sqlQuery.getCreatedAt());
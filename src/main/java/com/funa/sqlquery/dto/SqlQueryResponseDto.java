@@ -18,6 +18,9 @@ public class SqlQueryResponseDto {
     private Long id;
     private String name;
     private String queryContent;
+
+    // Immutable URL of the current content, which can be cached forever
+    private String contentUrl;
     
     // Audit fields
     private LocalDateTime createdAt;
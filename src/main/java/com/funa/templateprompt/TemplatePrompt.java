@@ -1,23 +1,41 @@
 package com.funa.templateprompt;
 
 import com.funa.common.entity.BaseEntity;
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.util.ContentHash;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * TemplatePrompt entity for managing prompt templates.
+ * Template prompts are few and read-mostly, so they are kept in the second-level cache.
  */
 @Entity
 @Table(name = "tb_template_prompt")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = TemplatePrompt.CACHE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 public class TemplatePrompt extends BaseEntity {
 
+    /**
+     * Second-level cache region of template prompt entities.
+     */
+    public static final String CACHE_REGION = "templatePrompt";
+
+    /**
+     * Query cache region of the template prompt lookups by name.
+     */
+    public static final String QUERY_CACHE_REGION = "templatePromptQueries";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_template_prompt_seq")
+    @SequenceGenerator(name = "tb_template_prompt_seq", sequenceName = "tb_template_prompt_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -25,4 +43,16 @@ public class TemplatePrompt extends BaseEntity {
 
     @Column(name = "prompt_content", columnDefinition = "TEXT", nullable = false)
     private String promptContent;
-}
\ No newline at end of file
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * Recompute the SHA-256 hash of the content. Called automatically before every insert and update.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateContentHash() {
+        this.contentHash = ContentHash.sha256(promptContent);
+    }
+}
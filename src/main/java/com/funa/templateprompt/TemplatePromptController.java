@@ -1,5 +1,8 @@
 package com.funa.templateprompt;
 
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
 import com.funa.templateprompt.dto.TemplatePromptMapper;
 import com.funa.templateprompt.dto.TemplatePromptRequestDto;
 import com.funa.templateprompt.dto.TemplatePromptResponseDto;
@@ -11,12 +14,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * REST controller for managing template prompts.
@@ -36,20 +40,24 @@ public class TemplatePromptController {
     }
 
     /**
-     * Get all template prompts.
+     * Get all template prompts, one page at a time.
      *
-     * @return List of all template prompts
+     * @param after The ID of the last template prompt of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of template prompts to return (optional)
+     * @return One page of template prompts ordered by ID
      */
-    @Operation(summary = "Get all template prompts", description = "Retrieves a list of all template prompts")
+    @Operation(summary = "Get all template prompts", description = "Retrieves one page of template prompts ordered by ID. Pass nextCursor as after to get the next page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved template prompts",
                 content = @Content(mediaType = "application/json",
-                schema = @Schema(implementation = TemplatePromptResponseDto.class)))
+                schema = @Schema(implementation = CursorPage.class)))
     })
     @GetMapping
-    public ResponseEntity<List<TemplatePromptResponseDto>> getAllTemplatePrompts() {
-        List<TemplatePrompt> templatePrompts = templatePromptService.getAllTemplatePrompts();
-        List<TemplatePromptResponseDto> templatePromptDtos = templatePromptMapper.toDtoList(templatePrompts);
+    public ResponseEntity<CursorPage<TemplatePromptResponseDto>> getAllTemplatePrompts(
+            @Parameter(description = "ID of the last template prompt of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of template prompts to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<TemplatePrompt> templatePrompts = templatePromptService.getAllTemplatePrompts(after, limit);
+        CursorPage<TemplatePromptResponseDto> templatePromptDtos = templatePrompts.map(templatePromptMapper::toDtoList);
         return ResponseEntity.ok(templatePromptDtos);
     }
 
@@ -57,38 +65,89 @@ public class TemplatePromptController {
      * Get a template prompt by ID.
      *
      * @param id The ID of the template prompt
-     * @return The template prompt
+     * @param webRequest The current request, checked for If-None-Match and If-Modified-Since
+     * @return The template prompt, or 304 Not Modified if the client's copy is current
      */
-    @Operation(summary = "Get a template prompt by ID", description = "Retrieves a template prompt by its ID")
+    @Operation(summary = "Get a template prompt by ID",
+            description = "Retrieves a template prompt by its ID. Send the returned ETag in If-None-Match to get 304 Not Modified "
+                    + "while the template prompt is unchanged")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved the template prompt",
                 content = @Content(mediaType = "application/json",
                 schema = @Schema(implementation = TemplatePromptResponseDto.class))),
+        @ApiResponse(responseCode = "304", description = "Template prompt not modified",
+                content = @Content),
         @ApiResponse(responseCode = "404", description = "Template prompt not found",
                 content = @Content)
     })
     @GetMapping("/{id}")
     public ResponseEntity<TemplatePromptResponseDto> getTemplatePromptById(
-            @Parameter(description = "ID of the template prompt to retrieve") @PathVariable Long id) {
-        try {
-            TemplatePrompt templatePrompt = templatePromptService.getTemplatePromptById(id);
-            TemplatePromptResponseDto templatePromptDto = templatePromptMapper.toDto(templatePrompt);
-            return ResponseEntity.ok(templatePromptDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            @Parameter(description = "ID of the template prompt to retrieve") @PathVariable Long id,
+            WebRequest webRequest) {
+        ResourceVersion version = templatePromptService.getTemplatePromptVersion(id);
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
+        // The 200 response carries the version read with the body, which may come from another replica
+        Versioned<TemplatePrompt> templatePrompt = templatePromptService.getVersionedTemplatePromptById(id);
+        TemplatePromptResponseDto templatePromptDto = templatePromptMapper.toDto(templatePrompt.entity());
+        return ResponseEntity.ok().headers(templatePrompt.version().headers()).body(templatePromptDto);
     }
 
     /**
-     * Find template prompts by name.
+     * Get the content of a template prompt at a given version.
+     * The URL contains the content hash, so the response never changes and can be cached forever.
+     *
+     * @param id The ID of the template prompt
+     * @param contentHash The content hash, as found in contentUrl
+     * @param webRequest The current request, checked for If-None-Match
+     * @return The content as plain text, or 304 Not Modified if the client has it
+     */
+    @Operation(summary = "Get the content of a template prompt at a version",
+            description = "Retrieves the content of a template prompt under its immutable, versioned URL (contentUrl)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the content",
+                content = @Content(mediaType = "text/plain")),
+        @ApiResponse(responseCode = "304", description = "Content not modified",
+                content = @Content),
+        @ApiResponse(responseCode = "404", description = "Template prompt not found or its content has changed",
+                content = @Content)
+    })
+    @GetMapping(value = "/{id}/content/{contentHash}", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<String> getTemplatePromptContent(
+            @Parameter(description = "ID of the template prompt") @PathVariable Long id,
+            @Parameter(description = "Content hash") @PathVariable String contentHash,
+            WebRequest webRequest) {
+        ResourceVersion version = ResourceVersion.ofContent(contentHash);
+        // The content behind a versioned URL never changes, so a cached copy is current without any query
+        if (version.checkNotModified(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(version.immutableHeaders()).build();
+        }
+        String content = templatePromptService.getTemplatePromptContent(id, contentHash);
+        return ResponseEntity.ok().headers(version.immutableHeaders()).body(content);
+    }
+
+    /**
+     * Find template prompts by name, one page at a time.
      *
      * @param name The name to search for
-     * @return List of matching template prompts
+     * @param after The ID of the last template prompt of the previous page (optional, starts from the beginning if omitted)
+     * @param limit The maximum number of template prompts to return (optional)
+     * @return One page of matching template prompts ordered by ID
      */
+    @Operation(summary = "Find template prompts by name", description = "Retrieves one page of template prompts matching the provided name, ordered by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved template prompts",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)))
+    })
     @GetMapping("/search")
-    public ResponseEntity<List<TemplatePromptResponseDto>> findTemplatePromptsByName(@RequestParam String name) {
-        List<TemplatePrompt> templatePrompts = templatePromptService.findTemplatePromptsByName(name);
-        List<TemplatePromptResponseDto> templatePromptDtos = templatePromptMapper.toDtoList(templatePrompts);
+    public ResponseEntity<CursorPage<TemplatePromptResponseDto>> findTemplatePromptsByName(
+            @Parameter(description = "Name to search for") @RequestParam String name,
+            @Parameter(description = "ID of the last template prompt of the previous page (optional)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of template prompts to return (optional, 50 by default, at most 500)") @RequestParam(required = false) Integer limit) {
+        CursorPage<TemplatePrompt> templatePrompts = templatePromptService.findTemplatePromptsByName(name, after, limit);
+        CursorPage<TemplatePromptResponseDto> templatePromptDtos = templatePrompts.map(templatePromptMapper::toDtoList);
         return ResponseEntity.ok(templatePromptDtos);
     }
 
@@ -126,27 +185,38 @@ public class TemplatePromptController {
      * Update an existing template prompt.
      *
      * @param id The ID of the template prompt to update
+     * @param ifMatch The ETag of the version the client last read (optional)
      * @param templatePromptDto The updated template prompt data
      * @return The updated template prompt
      */
+    @Operation(summary = "Update a template prompt",
+            description = "Updates an existing template prompt. With If-Match, the update is only applied if the template prompt "
+                    + "is still at that version")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Template prompt successfully updated",
+                content = @Content(mediaType = "application/json",
+                schema = @Schema(implementation = TemplatePromptResponseDto.class))),
+        @ApiResponse(responseCode = "404", description = "Template prompt not found",
+                content = @Content),
+        @ApiResponse(responseCode = "412", description = "Template prompt was modified since the If-Match version",
+                content = @Content)
+    })
     @PutMapping("/{id}")
     public ResponseEntity<TemplatePromptResponseDto> updateTemplatePrompt(
             @PathVariable Long id,
+            @Parameter(description = "ETag of the version to update (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody TemplatePromptRequestDto templatePromptDto) {
-        try {
-            // Convert DTO to entity
-            TemplatePrompt templatePrompt = templatePromptMapper.toEntity(templatePromptDto);
+        // Convert DTO to entity
+        TemplatePrompt templatePrompt = templatePromptMapper.toEntity(templatePromptDto);
 
-            // Update template prompt using service
-            TemplatePrompt updatedTemplatePrompt = templatePromptService.updateTemplatePrompt(id, templatePrompt);
+        // Update template prompt using service
+        Versioned<TemplatePrompt> updatedTemplatePrompt = templatePromptService.updateTemplatePrompt(id, templatePrompt, ifMatch);
 
-            // Convert entity back to DTO
-            TemplatePromptResponseDto responseDto = templatePromptMapper.toDto(updatedTemplatePrompt);
+        // Convert entity back to DTO
+        TemplatePromptResponseDto responseDto = templatePromptMapper.toDto(updatedTemplatePrompt.entity());
 
-            return ResponseEntity.ok(responseDto);
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok().headers(updatedTemplatePrompt.version().headers()).body(responseDto);
     }
 
     /**
@@ -157,11 +227,7 @@ public class TemplatePromptController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTemplatePrompt(@PathVariable Long id) {
-        try {
-            templatePromptService.deleteTemplatePrompt(id);
-            return ResponseEntity.noContent().build();
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
-        }
+        templatePromptService.deleteTemplatePrompt(id);
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,10 +1,20 @@
 package com.funa.templateprompt;
 
+import com.funa.common.entity.ContentVersion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for TemplatePrompt entity.
@@ -13,18 +23,93 @@ import java.util.Optional;
 public interface TemplatePromptRepository extends JpaRepository<TemplatePrompt, Long> {
 
     /**
-     * Find a template prompt by name.
+     * Find a template prompt by name. Results are kept in the query cache.
      *
      * @param name The name to search for
      * @return The template prompt if found
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = TemplatePrompt.QUERY_CACHE_REGION)
+    })
     Optional<TemplatePrompt> findByName(String name);
 
     /**
-     * Find template prompts with names containing the given text.
+     * Find the version of a template prompt without loading its content.
+     *
+     * @param id The ID of the template prompt
+     * @return The version if the template prompt is found
+     */
+    @Query("select new com.funa.common.entity.ContentVersion(t.updatedAt, t.contentHash) from TemplatePrompt t where t.id = :id")
+    Optional<ContentVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Find the content of a template prompt if it still has the given content hash.
+     *
+     * @param id The ID of the template prompt
+     * @param contentHash The expected content hash
+     * @return The content if the template prompt is found and its content has the given hash
+     */
+    @Query("select t.promptContent from TemplatePrompt t where t.id = :id and t.contentHash = :contentHash")
+    Optional<String> findContentByIdAndContentHash(@Param("id") Long id, @Param("contentHash") String contentHash);
+
+    /**
+     * Find a template prompt by ID and lock its row until the end of the transaction,
+     * so that a conditional update cannot interleave with another update.
+     *
+     * @param id The ID of the template prompt
+     * @return The template prompt if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TemplatePrompt> findForUpdateById(Long id);
+
+    /**
+     * Find template prompts with names containing the given text. Results are kept in the query cache.
      *
      * @param name The name text to search for
      * @return List of matching template prompts
      */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = TemplatePrompt.QUERY_CACHE_REGION)
+    })
     List<TemplatePrompt> findByNameContaining(String name);
-}
\ No newline at end of file
+
+    /**
+     * Find the template prompts whose content hash has not been computed yet, with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of template prompts to return
+     * @return List of template prompts without a content hash, ordered by ID
+     */
+    List<TemplatePrompt> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the template prompts with IDs greater than the given ID, ordered by ID.
+     *
+     * @param id The ID to continue after
+     * @param limit The maximum number of template prompts to return
+     * @return List of template prompts ordered by ID
+     */
+    List<TemplatePrompt> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Find the template prompts with names containing the given text and IDs greater than the given ID, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param id The ID to continue after
+     * @param limit The maximum number of template prompts to return
+     * @return List of matching template prompts ordered by ID
+     */
+    List<TemplatePrompt> findByNameContainingAndIdGreaterThanOrderByIdAsc(String name, Long id, Limit limit);
+
+    /**
+     * Stream all template prompts ordered by ID.
+     * Rows are fetched from the database in chunks while the stream is consumed, so the caller must run inside
+     * a transaction, close the stream and clear the persistence context as it goes.
+     *
+     * @return Stream of all template prompts
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<TemplatePrompt> streamAllByOrderByIdAsc();
+}
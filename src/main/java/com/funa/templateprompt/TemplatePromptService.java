@@ -1,11 +1,20 @@
 package com.funa.templateprompt;
 
+import com.funa.common.entity.ContentVersion;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.PreconditionFailedException;
+import com.funa.common.http.ResourceVersion;
+import com.funa.common.http.Versioned;
+import com.funa.common.pagination.CursorPage;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 /**
  * Service for managing template prompts.
@@ -14,11 +23,21 @@ import java.util.NoSuchElementException;
 @Transactional
 public class TemplatePromptService {
 
+    // Template prompts hashed before the persistence context is flushed and cleared
+    private static final int HASH_BATCH_SIZE = 500;
+
     private final TemplatePromptRepository templatePromptRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public TemplatePromptService(TemplatePromptRepository templatePromptRepository) {
+    public TemplatePromptService(
+            TemplatePromptRepository templatePromptRepository,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher) {
         this.templatePromptRepository = templatePromptRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -31,17 +50,75 @@ public class TemplatePromptService {
         return templatePromptRepository.findAll();
     }
 
+    /**
+     * Get one page of all template prompts, ordered by ID.
+     *
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of template prompts
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TemplatePrompt> getAllTemplatePrompts(Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<TemplatePrompt> templatePrompts = templatePromptRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(templatePrompts, pageSize, TemplatePrompt::getId);
+    }
+
     /**
      * Get a template prompt by ID.
      *
      * @param id The ID of the template prompt
      * @return The template prompt
-     * @throws NoSuchElementException if the template prompt is not found
+     * @throws NotFoundException if the template prompt is not found
      */
     @Transactional(readOnly = true)
     public TemplatePrompt getTemplatePromptById(Long id) {
         return templatePromptRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException("Template prompt not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Template prompt", id));
+    }
+
+    /**
+     * Get the version of a template prompt without loading its content.
+     *
+     * @param id The ID of the template prompt
+     * @return The version of its representation
+     * @throws NotFoundException if the template prompt is not found
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getTemplatePromptVersion(Long id) {
+        return templatePromptRepository.findVersionById(id)
+                .map(ContentVersion::toResourceVersion)
+                .orElseThrow(() -> new NotFoundException("Template prompt", id));
+    }
+
+    /**
+     * Get a template prompt together with the version of its representation.
+     * The version is taken from the loaded template prompt, so it always matches the returned content.
+     *
+     * @param id The ID of the template prompt
+     * @return The template prompt and its version
+     * @throws NotFoundException if the template prompt is not found
+     */
+    @Transactional(readOnly = true)
+    public Versioned<TemplatePrompt> getVersionedTemplatePromptById(Long id) {
+        TemplatePrompt templatePrompt = getTemplatePromptById(id);
+        ContentVersion version = new ContentVersion(templatePrompt.getUpdatedAt(), templatePrompt.getContentHash());
+        return new Versioned<>(templatePrompt, version.toResourceVersion());
+    }
+
+    /**
+     * Get the content of a template prompt as it is at the given content hash.
+     *
+     * @param id The ID of the template prompt
+     * @param contentHash The content hash
+     * @return The content
+     * @throws NotFoundException if the template prompt is not found or its content no longer has the given hash
+     */
+    @Transactional(readOnly = true)
+    public String getTemplatePromptContent(Long id, String contentHash) {
+        return templatePromptRepository.findContentByIdAndContentHash(id, contentHash)
+                .orElseThrow(() -> new NotFoundException("Template prompt content", contentHash));
     }
 
     /**
@@ -55,6 +132,22 @@ public class TemplatePromptService {
         return templatePromptRepository.findByNameContaining(name);
     }
 
+    /**
+     * Find one page of template prompts by name containing the given text, ordered by ID.
+     *
+     * @param name The name text to search for
+     * @param after The ID to continue after (optional, can be null for the first page)
+     * @param limit The page size (optional, can be null for the default page size)
+     * @return One page of matching template prompts
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TemplatePrompt> findTemplatePromptsByName(String name, Long after, Integer limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<TemplatePrompt> templatePrompts = templatePromptRepository.findByNameContainingAndIdGreaterThanOrderByIdAsc(
+                name, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(templatePrompts, pageSize, TemplatePrompt::getId);
+    }
+
     /**
      * Create a new template prompt.
      *
@@ -71,25 +164,75 @@ public class TemplatePromptService {
      * @param id The ID of the template prompt to update
      * @param templatePrompt The updated template prompt data
      * @return The updated template prompt
-     * @throws NoSuchElementException if the template prompt is not found
+     * @throws NotFoundException if the template prompt is not found
      */
     public TemplatePrompt updateTemplatePrompt(Long id, TemplatePrompt templatePrompt) {
         TemplatePrompt existingTemplatePrompt = getTemplatePromptById(id);
         existingTemplatePrompt.setName(templatePrompt.getName());
         existingTemplatePrompt.setPromptContent(templatePrompt.getPromptContent());
-        return templatePromptRepository.save(existingTemplatePrompt);
+        TemplatePrompt updatedTemplatePrompt = templatePromptRepository.save(existingTemplatePrompt);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplatePrompt.class, id));
+        return updatedTemplatePrompt;
+    }
+
+    /**
+     * Update an existing template prompt if it is still at the version the client last read.
+     *
+     * @param id The ID of the template prompt to update
+     * @param templatePrompt The updated template prompt data
+     * @param ifMatch The If-Match header of the request (optional, the update is unconditional if null)
+     * @return The updated template prompt and its new version
+     * @throws NotFoundException if the template prompt is not found
+     * @throws PreconditionFailedException if the template prompt has changed since the client read it
+     */
+    public Versioned<TemplatePrompt> updateTemplatePrompt(Long id, TemplatePrompt templatePrompt, String ifMatch) {
+        if (ifMatch != null) {
+            templatePromptRepository.findForUpdateById(id)
+                    .orElseThrow(() -> new NotFoundException("Template prompt", id));
+            getTemplatePromptVersion(id).checkIfMatch(ifMatch);
+        }
+        TemplatePrompt updatedTemplatePrompt = updateTemplatePrompt(id, templatePrompt);
+        // The version query flushes the update first, so it returns the new version
+        return new Versioned<>(updatedTemplatePrompt, getTemplatePromptVersion(id));
     }
 
     /**
      * Delete a template prompt by ID.
      *
      * @param id The ID of the template prompt to delete
-     * @throws NoSuchElementException if the template prompt is not found
+     * @throws NotFoundException if the template prompt is not found
      */
     public void deleteTemplatePrompt(Long id) {
         if (!templatePromptRepository.existsById(id)) {
-            throw new NoSuchElementException("Template prompt not found with ID: " + id);
+            throw new NotFoundException("Template prompt", id);
         }
         templatePromptRepository.deleteById(id);
+        eventPublisher.publishEvent(new EntityChangedEvent(TemplatePrompt.class, id));
+    }
+
+    /**
+     * Compute the content hash of every template prompt that does not have one yet,
+     * e.g. for rows created before the content hash column existed.
+     * The rows are read in batches by ID, and the persistence context is flushed and cleared after every batch,
+     * so entities loaded by the caller's transaction are detached.
+     *
+     * @return Number of template prompts whose content hash was computed
+     */
+    public int rebuildContentHashesIfMissing() {
+        int rebuilt = 0;
+        long after = 0L;
+        List<TemplatePrompt> missing;
+        do {
+            missing = templatePromptRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(after, Limit.of(HASH_BATCH_SIZE));
+            if (missing.isEmpty()) {
+                break;
+            }
+            missing.forEach(TemplatePrompt::updateContentHash);
+            after = missing.get(missing.size() - 1).getId();
+            rebuilt += missing.size();
+            entityManager.flush();
+            entityManager.clear();
+        } while (missing.size() == HASH_BATCH_SIZE);
+        return rebuilt;
     }
-}
\ No newline at end of file
+}
@@ -27,6 +27,9 @@ public class TemplatePromptMapper {
         dto.setId(templatePrompt.getId());
         dto.setName(templatePrompt.getName());
         dto.setPromptContent(templatePrompt.getPromptContent());
+        if (templatePrompt.getContentHash() != null) {
+            dto.setContentUrl("/api/template-prompts/" + templatePrompt.getId() + "/content/" + templatePrompt.getContentHash());
+        }
         
         // Set audit fields
         dto.setCreatedAt(templatePrompt.getCreatedAt());
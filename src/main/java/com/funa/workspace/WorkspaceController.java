@@ -0,0 +1,89 @@
+package com.funa.workspace;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.funa.workspace.dto.WorkspaceImportResponseDto;
+import com.funa.workspace.dto.WorkspaceMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST controller for backing up and restoring the whole workspace.
+ */
+@RestController
+@RequestMapping("/api/workspace")
+@Tag(name = "Workspace", description = "Workspace export and import API")
+public class WorkspaceController {
+
+    private final WorkspaceService workspaceService;
+    private final WorkspaceMapper workspaceMapper;
+
+    @Autowired
+    public WorkspaceController(WorkspaceService workspaceService, WorkspaceMapper workspaceMapper) {
+        this.workspaceService = workspaceService;
+        this.workspaceMapper = workspaceMapper;
+    }
+
+    /**
+     * Export the whole workspace.
+     *
+     * @return The workspace document, streamed as it is read from the database
+     */
+    @Operation(summary = "Export workspace",
+            description = "Streams every template prompt, sequence diagram, SQL query, folder and feature as one JSON document")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Workspace is being streamed",
+                content = @Content(mediaType = "application/json"))
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWorkspace() {
+        StreamingResponseBody body = workspaceService::exportWorkspace;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("workspace.json").build().toString())
+                .body(body);
+    }
+
+    /**
+     * Import a workspace document next to the existing workspace.
+     *
+     * @param body The workspace document, as produced by the export endpoint
+     * @return The number of rows created
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(summary = "Import workspace",
+            description = "Creates every row of an exported workspace document with new IDs. "
+                    + "The document is read as a stream and inserted in JDBC batches within a single transaction.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Workspace imported",
+                content = @Content(mediaType = "application/json", schema = @Schema(implementation = WorkspaceImportResponseDto.class))),
+        @ApiResponse(responseCode = "400", description = "Malformed document or unknown references",
+                content = @Content)
+    })
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<WorkspaceImportResponseDto> importWorkspace(InputStream body) throws IOException {
+        try {
+            WorkspaceImportResult result = workspaceService.importWorkspace(body);
+            return new ResponseEntity<>(workspaceMapper.toImportDto(result), HttpStatus.CREATED);
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.funa.workspace;
+
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.util.ContentHash;
+import com.funa.workspace.dto.WorkspaceContentDto;
+import com.funa.workspace.dto.WorkspaceFeatureDto;
+import com.funa.workspace.dto.WorkspaceFolderDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC repository that inserts imported workspace rows in batches.
+ * Every call allocates the new IDs from the entity sequences and sends one JDBC batch for the given rows;
+ * references to other imported rows must already be remapped to their new IDs by the caller.
+ */
+@Repository
+public class WorkspaceImportRepository {
+
+    private static final String INSERT_TEMPLATE_PROMPT =
+            "INSERT INTO tb_template_prompt (id, name, prompt_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SEQUENCE_DIAGRAM =
+            "INSERT INTO tb_sequence_diagram (id, name, sequence_diagram_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SQL_QUERY =
+            "INSERT INTO tb_sql_query (id, name, query_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    // The parent is always inserted by an earlier batch, so its path can be read back in the same statement
+    private static final String INSERT_FOLDER =
+            "INSERT INTO tb_folder (id, name, description, parent_id, path, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, COALESCE((SELECT p.path FROM tb_folder p WHERE p.id = ?), '/') || ?, ?, ?, ?, ?)";
+    private static final String INSERT_FEATURE =
+            "INSERT INTO tb_feature (id, name, description, folder_id, template_prompt_id, sequence_diagram_id, sql_query_id, "
+                    + "created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator sequenceIdAllocator;
+    private final AuditorAware<String> auditorProvider;
+
+    @Autowired
+    public WorkspaceImportRepository(
+            JdbcTemplate jdbcTemplate, SequenceIdAllocator sequenceIdAllocator, AuditorAware<String> auditorProvider) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+        this.auditorProvider = auditorProvider;
+    }
+
+    /**
+     * Insert template prompts.
+     *
+     * @param templatePrompts The template prompts to insert
+     * @return The new IDs, in the same order as the template prompts
+     */
+    public List<Long> insertTemplatePrompts(List<WorkspaceContentDto> templatePrompts) {
+        return insertContents(INSERT_TEMPLATE_PROMPT, templatePrompts, "tb_template_prompt_seq");
+    }
+
+    /**
+     * Insert sequence diagrams.
+     *
+     * @param sequenceDiagrams The sequence diagrams to insert
+     * @return The new IDs, in the same order as the sequence diagrams
+     */
+    public List<Long> insertSequenceDiagrams(List<WorkspaceContentDto> sequenceDiagrams) {
+        return insertContents(INSERT_SEQUENCE_DIAGRAM, sequenceDiagrams, "tb_sequence_diagram_seq");
+    }
+
+    /**
+     * Insert SQL queries.
+     *
+     * @param sqlQueries The SQL queries to insert
+     * @return The new IDs, in the same order as the SQL queries
+     */
+    public List<Long> insertSqlQueries(List<WorkspaceContentDto> sqlQueries) {
+        return insertContents(INSERT_SQL_QUERY, sqlQueries, "tb_sql_query_seq");
+    }
+
+    /**
+     * Insert folders with their materialized paths.
+     * The parent of every folder must either be null or have been inserted by an earlier call.
+     *
+     * @param folders The folders to insert, with parent IDs already remapped
+     * @return The new IDs, in the same order as the folders
+     */
+    public List<Long> insertFolders(List<WorkspaceFolderDto> folders) {
+        Audit audit = currentAudit();
+        List<Long> ids = sequenceIdAllocator.allocate("tb_folder_seq", folders.size());
+        batchInsert(INSERT_FOLDER, folders, ids, (ps, folder, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, folder.getName());
+            ps.setString(3, folder.getDescription());
+            setNullableLong(ps, 4, folder.getParentId());
+            setNullableLong(ps, 5, folder.getParentId());
+            ps.setString(6, id + "/");
+            audit.bind(ps, 7, folder.getCreatedAt(), folder.getCreatedId(), folder.getUpdatedAt(), folder.getUpdatedId());
+        });
+        return ids;
+    }
+
+    /**
+     * Insert features.
+     *
+     * @param features The features to insert, with folder and content IDs already remapped
+     */
+    public void insertFeatures(List<WorkspaceFeatureDto> features) {
+        Audit audit = currentAudit();
+        List<Long> ids = sequenceIdAllocator.allocate("tb_feature_seq", features.size());
+        batchInsert(INSERT_FEATURE, features, ids, (ps, feature, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, feature.getName());
+            ps.setString(3, feature.getDescription());
+            setNullableLong(ps, 4, feature.getFolderId());
+            setNullableLong(ps, 5, feature.getTemplatePromptId());
+            setNullableLong(ps, 6, feature.getSequenceDiagramId());
+            setNullableLong(ps, 7, feature.getSqlQueryId());
+            audit.bind(ps, 8, feature.getCreatedAt(), feature.getCreatedId(), feature.getUpdatedAt(), feature.getUpdatedId());
+        });
+    }
+
+    private List<Long> insertContents(String sql, List<WorkspaceContentDto> contents, String sequenceName) {
+        Audit audit = currentAudit();
+        List<Long> ids = sequenceIdAllocator.allocate(sequenceName, contents.size());
+        batchInsert(sql, contents, ids, (ps, content, id) -> {
+            ps.setLong(1, id);
+            ps.setString(2, content.getName());
+            ps.setString(3, content.getContent());
+            ps.setString(4, ContentHash.sha256(content.getContent()));
+            audit.bind(ps, 5, content.getCreatedAt(), content.getCreatedId(), content.getUpdatedAt(), content.getUpdatedId());
+        });
+        return ids;
+    }
+
+    /**
+     * Execute an insert for every item, with the item's new ID, in one batch.
+     */
+    private <T> void batchInsert(String sql, List<T> items, List<Long> ids, RowBinder<T> binder) {
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                binder.bind(ps, items.get(i), ids.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    private Audit currentAudit() {
+        return new Audit(LocalDateTime.now(), auditorProvider.getCurrentAuditor().orElse("system"));
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement ps, T item, Long id) throws SQLException;
+    }
+
+    /**
+     * Audit column values used for imported rows that do not carry their own.
+     */
+    private record Audit(LocalDateTime timestamp, String auditor) {
+        void bind(PreparedStatement ps, int index,
+                  LocalDateTime createdAt, String createdId, LocalDateTime updatedAt, String updatedId) throws SQLException {
+            LocalDateTime created = createdAt != null ? createdAt : timestamp;
+            ps.setTimestamp(index, Timestamp.valueOf(created));
+            ps.setString(index + 1, createdId != null ? createdId : auditor);
+            ps.setTimestamp(index + 2, Timestamp.valueOf(updatedAt != null ? updatedAt : created));
+            ps.setString(index + 3, updatedId != null ? updatedId : auditor);
+        }
+    }
+}
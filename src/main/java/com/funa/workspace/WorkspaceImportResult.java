@@ -0,0 +1,26 @@
+package com.funa.workspace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of rows created by a workspace import.
+ */
+@Getter
+@AllArgsConstructor
+public class WorkspaceImportResult {
+    private final int templatePrompts;
+    private final int sequenceDiagrams;
+    private final int sqlQueries;
+    private final int folders;
+    private final int features;
+
+    /**
+     * Get the total number of rows created.
+     *
+     * @return The sum of all created rows
+     */
+    public int getTotal() {
+        return templatePrompts + sequenceDiagrams + sqlQueries + folders + features;
+    }
+}
@@ -0,0 +1,305 @@
+package com.funa.workspace;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.ValidationException;
+import com.funa.feature.FeatureRepository;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderRepository;
+import com.funa.sequencediagram.SequenceDiagramRepository;
+import com.funa.sqlquery.SqlQueryRepository;
+import com.funa.templateprompt.TemplatePrompt;
+import com.funa.templateprompt.TemplatePromptRepository;
+import com.funa.workspace.dto.WorkspaceContentDto;
+import com.funa.workspace.dto.WorkspaceFeatureDto;
+import com.funa.workspace.dto.WorkspaceFolderDto;
+import com.funa.workspace.dto.WorkspaceMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting and importing the whole workspace as a single JSON document.
+ * <p>
+ * The document has one array per entity type, in dependency order:
+ * {@code templatePrompts}, {@code sequenceDiagrams}, {@code sqlQueries}, {@code folders} (parents before children)
+ * and {@code features}. Both directions stream it element by element, so only the current batch of rows
+ * and the old-to-new ID mappings are held in memory.
+ */
+@Service
+public class WorkspaceService {
+
+    /**
+     * Version of the export format, written to and checked on every document.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    // Rows inserted per JDBC batch, and rows read before the persistence context is cleared
+    private static final int BATCH_SIZE = 500;
+
+    private final TemplatePromptRepository templatePromptRepository;
+    private final SequenceDiagramRepository sequenceDiagramRepository;
+    private final SqlQueryRepository sqlQueryRepository;
+    private final FolderRepository folderRepository;
+    private final FeatureRepository featureRepository;
+    private final WorkspaceImportRepository workspaceImportRepository;
+    private final WorkspaceMapper workspaceMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public WorkspaceService(
+            TemplatePromptRepository templatePromptRepository,
+            SequenceDiagramRepository sequenceDiagramRepository,
+            SqlQueryRepository sqlQueryRepository,
+            FolderRepository folderRepository,
+            FeatureRepository featureRepository,
+            WorkspaceImportRepository workspaceImportRepository,
+            WorkspaceMapper workspaceMapper,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            ApplicationEventPublisher eventPublisher) {
+        this.templatePromptRepository = templatePromptRepository;
+        this.sequenceDiagramRepository = sequenceDiagramRepository;
+        this.sqlQueryRepository = sqlQueryRepository;
+        this.folderRepository = folderRepository;
+        this.featureRepository = featureRepository;
+        this.workspaceImportRepository = workspaceImportRepository;
+        this.workspaceMapper = workspaceMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Write every template prompt, sequence diagram, SQL query, folder and feature to a stream.
+     *
+     * @param out The stream to write the JSON document to
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void exportWorkspace(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("version", FORMAT_VERSION);
+            generator.writeStringField("exportedAt", LocalDateTime.now().toString());
+
+            writeArray(generator, "templatePrompts", templatePromptRepository.streamAllByOrderByIdAsc(), workspaceMapper::toContentDto);
+            writeArray(generator, "sequenceDiagrams", sequenceDiagramRepository.streamAllByOrderByIdAsc(), workspaceMapper::toContentDto);
+            writeArray(generator, "sqlQueries", sqlQueryRepository.streamAllByOrderByIdAsc(), workspaceMapper::toContentDto);
+            writeArray(generator, "folders", folderRepository.streamAllByOrderByPathAsc(), workspaceMapper::toFolderDto);
+            writeArray(generator, "features", featureRepository.streamAllByOrderByIdAsc(), workspaceMapper::toFeatureDto);
+
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write the rows of a stream as a JSON array, clearing the persistence context after every batch
+     * so that already written entities can be garbage collected.
+     */
+    private <T> void writeArray(JsonGenerator generator, String name, Stream<T> rows, Function<T, ?> mapper) throws IOException {
+        generator.writeArrayFieldStart(name);
+        try (rows) {
+            int count = 0;
+            for (T row : (Iterable<T>) rows::iterator) {
+                rowWriter.writeValue(generator, mapper.apply(row));
+                if (++count % BATCH_SIZE == 0) {
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+        }
+        entityManager.clear();
+        generator.writeEndArray();
+    }
+
+    /**
+     * Create every row of an exported workspace document alongside the existing workspace.
+     * All rows get new IDs and references between them are remapped; the whole import runs in one transaction.
+     *
+     * @param in The stream to read the JSON document from
+     * @return The number of rows created
+     * @throws IOException if the stream cannot be read or is not valid JSON
+     * @throws ValidationException if the document has an unsupported version or references unknown rows
+     */
+    @Transactional
+    public WorkspaceImportResult importWorkspace(InputStream in) throws IOException {
+        ImportState state = new ImportState();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ValidationException("Workspace document must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "version" -> {
+                        if (parser.getValueAsInt() != FORMAT_VERSION) {
+                            throw new ValidationException("Unsupported workspace format version: " + parser.getText());
+                        }
+                    }
+                    case "templatePrompts" -> readArray(parser, WorkspaceContentDto.class, batch ->
+                            state.put(state.templatePromptIds, batch, workspaceImportRepository.insertTemplatePrompts(batch), WorkspaceContentDto::getId));
+                    case "sequenceDiagrams" -> readArray(parser, WorkspaceContentDto.class, batch ->
+                            state.put(state.sequenceDiagramIds, batch, workspaceImportRepository.insertSequenceDiagrams(batch), WorkspaceContentDto::getId));
+                    case "sqlQueries" -> readArray(parser, WorkspaceContentDto.class, batch ->
+                            state.put(state.sqlQueryIds, batch, workspaceImportRepository.insertSqlQueries(batch), WorkspaceContentDto::getId));
+                    case "folders" -> importFolders(parser, state);
+                    case "features" -> readArray(parser, WorkspaceFeatureDto.class, batch -> {
+                        batch.forEach(feature -> remapFeature(feature, state));
+                        workspaceImportRepository.insertFeatures(batch);
+                        state.features += batch.size();
+                    });
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        // The rows were inserted with plain JDBC, which Hibernate does not see when invalidating cached query results
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                .evictQueryRegion(TemplatePrompt.QUERY_CACHE_REGION);
+        eventPublisher.publishEvent(new EntityChangedEvent(Folder.class, null));
+
+        return new WorkspaceImportResult(
+                state.templatePromptIds.size(),
+                state.sequenceDiagramIds.size(),
+                state.sqlQueryIds.size(),
+                state.folderIds.size(),
+                state.features);
+    }
+
+    /**
+     * Import the folders array. A folder whose parent is still waiting in the current batch
+     * forces that batch to be inserted first, so the parent's new ID and path are known.
+     */
+    private void importFolders(JsonParser parser, ImportState state) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(WorkspaceFolderDto.class);
+        expectArray(parser);
+
+        List<WorkspaceFolderDto> batch = new ArrayList<>(BATCH_SIZE);
+        Set<Long> pendingIds = new HashSet<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            WorkspaceFolderDto folder = reader.readValue(parser);
+            Long parentId = folder.getParentId();
+            if (batch.size() == BATCH_SIZE || (parentId != null && pendingIds.contains(parentId))) {
+                insertFolders(batch, state);
+                pendingIds.clear();
+            }
+            if (parentId != null) {
+                folder.setParentId(remap(state.folderIds, parentId, "folder", folder.getId()));
+            }
+            batch.add(folder);
+            pendingIds.add(folder.getId());
+        }
+        insertFolders(batch, state);
+    }
+
+    private void insertFolders(List<WorkspaceFolderDto> batch, ImportState state) {
+        if (!batch.isEmpty()) {
+            state.put(state.folderIds, batch, workspaceImportRepository.insertFolders(batch), WorkspaceFolderDto::getId);
+            batch.clear();
+        }
+    }
+
+    private void remapFeature(WorkspaceFeatureDto feature, ImportState state) {
+        Long id = feature.getId();
+        if (feature.getFolderId() != null) {
+            feature.setFolderId(remap(state.folderIds, feature.getFolderId(), "folder", id));
+        }
+        if (feature.getTemplatePromptId() != null) {
+            feature.setTemplatePromptId(remap(state.templatePromptIds, feature.getTemplatePromptId(), "template prompt", id));
+        }
+        if (feature.getSequenceDiagramId() != null) {
+            feature.setSequenceDiagramId(remap(state.sequenceDiagramIds, feature.getSequenceDiagramId(), "sequence diagram", id));
+        }
+        if (feature.getSqlQueryId() != null) {
+            feature.setSqlQueryId(remap(state.sqlQueryIds, feature.getSqlQueryId(), "SQL query", id));
+        }
+    }
+
+    private static Long remap(Map<Long, Long> ids, Long oldId, String type, Long referencingId) {
+        Long newId = ids.get(oldId);
+        if (newId == null) {
+            throw new ValidationException(
+                    "Row " + referencingId + " references unknown " + type + " " + oldId
+                            + "; referenced rows must appear earlier in the document");
+        }
+        return newId;
+    }
+
+    /**
+     * Read a JSON array one element at a time and hand the elements over in batches.
+     */
+    private <T> void readArray(JsonParser parser, Class<T> type, BatchHandler<T> handler) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        expectArray(parser);
+
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            batch.add(reader.readValue(parser));
+            if (batch.size() == BATCH_SIZE) {
+                handler.handle(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.handle(batch);
+        }
+    }
+
+    private static void expectArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new ValidationException("Workspace field '" + parser.currentName() + "' must be an array");
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchHandler<T> {
+        void handle(List<T> batch);
+    }
+
+    /**
+     * Mappings from exported IDs to the IDs of the rows created for them.
+     */
+    private static class ImportState {
+        private final Map<Long, Long> templatePromptIds = new HashMap<>();
+        private final Map<Long, Long> sequenceDiagramIds = new HashMap<>();
+        private final Map<Long, Long> sqlQueryIds = new HashMap<>();
+        private final Map<Long, Long> folderIds = new HashMap<>();
+        private int features;
+
+        private <T> void put(Map<Long, Long> ids, List<T> rows, List<Long> newIds, Function<T, Long> idExtractor) {
+            for (int i = 0; i < rows.size(); i++) {
+                ids.put(idExtractor.apply(rows.get(i)), newIds.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.funa.workspace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a template prompt, sequence diagram or SQL query in a workspace export.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceContentDto {
+    private Long id;
+    private String name;
+    private String content;
+
+    // Audit fields
+    private LocalDateTime createdAt;
+    private String createdId;
+    private LocalDateTime updatedAt;
+    private String updatedId;
+}
@@ -0,0 +1,31 @@
+package com.funa.workspace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a feature in a workspace export, referencing its folder and content by ID.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceFeatureDto {
+    private Long id;
+    private String name;
+    private String description;
+    private Long folderId;
+    private Long templatePromptId;
+    private Long sequenceDiagramId;
+    private Long sqlQueryId;
+
+    // Audit fields
+    private LocalDateTime createdAt;
+    private String createdId;
+    private LocalDateTime updatedAt;
+    private String updatedId;
+}
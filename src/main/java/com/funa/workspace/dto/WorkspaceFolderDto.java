@@ -0,0 +1,28 @@
+package com.funa.workspace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a folder in a workspace export.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceFolderDto {
+    private Long id;
+    private String name;
+    private String description;
+    private Long parentId;
+
+    // Audit fields
+    private LocalDateTime createdAt;
+    private String createdId;
+    private LocalDateTime updatedAt;
+    private String updatedId;
+}
@@ -0,0 +1,22 @@
+package com.funa.workspace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for workspace import responses, reporting how many rows were created.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceImportResponseDto {
+    private int importedTemplatePrompts;
+    private int importedSequenceDiagrams;
+    private int importedSqlQueries;
+    private int importedFolders;
+    private int importedFeatures;
+    private int importedTotal;
+}
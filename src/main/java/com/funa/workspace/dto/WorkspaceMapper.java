@@ -0,0 +1,123 @@
+package com.funa.workspace.dto;
+
+import com.funa.common.entity.BaseEntity;
+import com.funa.feature.Feature;
+import com.funa.folder.Folder;
+import com.funa.sequencediagram.SequenceDiagram;
+import com.funa.sqlquery.SqlQuery;
+import com.funa.templateprompt.TemplatePrompt;
+import com.funa.workspace.WorkspaceImportResult;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapper for converting between workspace entities and export DTOs.
+ * Associations are read by ID only, so lazy references are never initialized.
+ */
+@Component
+public class WorkspaceMapper {
+
+    /**
+     * Convert a TemplatePrompt entity to a WorkspaceContentDto.
+     *
+     * @param templatePrompt The TemplatePrompt entity to convert
+     * @return The WorkspaceContentDto
+     */
+    public WorkspaceContentDto toContentDto(TemplatePrompt templatePrompt) {
+        return toContentDto(templatePrompt, templatePrompt.getId(), templatePrompt.getName(), templatePrompt.getPromptContent());
+    }
+
+    /**
+     * Convert a SequenceDiagram entity to a WorkspaceContentDto.
+     *
+     * @param sequenceDiagram The SequenceDiagram entity to convert
+     * @return The WorkspaceContentDto
+     */
+    public WorkspaceContentDto toContentDto(SequenceDiagram sequenceDiagram) {
+        return toContentDto(sequenceDiagram, sequenceDiagram.getId(), sequenceDiagram.getName(),
+                sequenceDiagram.getSequenceDiagramContent());
+    }
+
+    /**
+     * Convert a SqlQuery entity to a WorkspaceContentDto.
+     *
+     * @param sqlQuery The SqlQuery entity to convert
+     * @return The WorkspaceContentDto
+     */
+    public WorkspaceContentDto toContentDto(SqlQuery sqlQuery) {
+        return toContentDto(sqlQuery, sqlQuery.getId(), sqlQuery.getName(), sqlQuery.getQueryContent());
+    }
+
+    /**
+     * Convert a Folder entity to a WorkspaceFolderDto.
+     *
+     * @param folder The Folder entity to convert
+     * @return The WorkspaceFolderDto
+     */
+    public WorkspaceFolderDto toFolderDto(Folder folder) {
+        WorkspaceFolderDto dto = new WorkspaceFolderDto();
+        dto.setId(folder.getId());
+        dto.setName(folder.getName());
+        dto.setDescription(folder.getDescription());
+        dto.setParentId(folder.getParent() != null ? folder.getParent().getId() : null);
+        dto.setCreatedAt(folder.getCreatedAt());
+        dto.setCreatedId(folder.getCreatedId());
+        dto.setUpdatedAt(folder.getUpdatedAt());
+        dto.setUpdatedId(folder.getUpdatedId());
+        return dto;
+    }
+
+    /**
+     * Convert a Feature entity to a WorkspaceFeatureDto.
+     *
+     * @param feature The Feature entity to convert
+     * @return The WorkspaceFeatureDto
+     */
+    public WorkspaceFeatureDto toFeatureDto(Feature feature) {
+        WorkspaceFeatureDto dto = new WorkspaceFeatureDto();
+        dto.setId(feature.getId());
+        dto.setName(feature.getName());
+        dto.setDescription(feature.getDescription());
+        dto.setFolderId(feature.getFolder() != null ? feature.getFolder().getId() : null);
+        dto.setTemplatePromptId(feature.getTemplatePrompt() != null ? feature.getTemplatePrompt().getId() : null);
+        dto.setSequenceDiagramId(feature.getSequenceDiagram() != null ? feature.getSequenceDiagram().getId() : null);
+        dto.setSqlQueryId(feature.getSqlQuery() != null ? feature.getSqlQuery().getId() : null);
+        dto.setCreatedAt(feature.getCreatedAt());
+        dto.setCreatedId(feature.getCreatedId());
+        dto.setUpdatedAt(feature.getUpdatedAt());
+        dto.setUpdatedId(feature.getUpdatedId());
+        return dto;
+    }
+
+    /**
+     * Convert a WorkspaceImportResult to a WorkspaceImportResponseDto.
+     *
+     * @param result The import result to convert
+     * @return The WorkspaceImportResponseDto
+     */
+    public WorkspaceImportResponseDto toImportDto(WorkspaceImportResult result) {
+        if (result == null) {
+            return null;
+        }
+
+        WorkspaceImportResponseDto dto = new WorkspaceImportResponseDto();
+        dto.setImportedTemplatePrompts(result.getTemplatePrompts());
+        dto.setImportedSequenceDiagrams(result.getSequenceDiagrams());
+        dto.setImportedSqlQueries(result.getSqlQueries());
+        dto.setImportedFolders(result.getFolders());
+        dto.setImportedFeatures(result.getFeatures());
+        dto.setImportedTotal(result.getTotal());
+        return dto;
+    }
+
+    private WorkspaceContentDto toContentDto(BaseEntity entity, Long id, String name, String content) {
+        WorkspaceContentDto dto = new WorkspaceContentDto();
+        dto.setId(id);
+        dto.setName(name);
+        dto.setContent(content);
+        dto.setCreatedAt(entity.getCreatedAt());
+        dto.setCreatedId(entity.getCreatedId());
+        dto.setUpdatedAt(entity.getUpdatedAt());
+        dto.setUpdatedId(entity.getUpdatedId());
+        return dto;
+    }
+}
@@ -0,0 +1,5 @@
+-- Prefix index for tb_folder.path on PostgreSQL.
+-- The idx_folder_path index created by Hibernate only serves "path LIKE '/1/5/%'" lookups
+-- when the database uses the C collation. With any other collation, run this once so that
+-- descendant, subtree and move queries stay index scans.
+CREATE INDEX IF NOT EXISTS idx_folder_path_pattern ON tb_folder (path varchar_pattern_ops);
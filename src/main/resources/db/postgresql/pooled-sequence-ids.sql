@@ -0,0 +1,28 @@
+-- Moves entity IDs from identity columns to pooled sequences.
+-- Every entity now takes its ID from a sequence incremented by 50 (SequenceIdAllocator.ALLOCATION_SIZE),
+-- so Hibernate can batch inserts. Run this once on an existing database BEFORE starting the new version:
+-- otherwise ddl-auto=update creates the sequences starting at 1 and new IDs collide with existing rows.
+-- Each sequence is set so that its first block starts right after the current maximum ID.
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS tb_folder_seq INCREMENT BY 50;
+SELECT setval('tb_folder_seq', COALESCE((SELECT MAX(id) FROM tb_folder), 0) + 50, false);
+ALTER TABLE tb_folder ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS tb_feature_seq INCREMENT BY 50;
+SELECT setval('tb_feature_seq', COALESCE((SELECT MAX(id) FROM tb_feature), 0) + 50, false);
+ALTER TABLE tb_feature ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS tb_template_prompt_seq INCREMENT BY 50;
+SELECT setval('tb_template_prompt_seq', COALESCE((SELECT MAX(id) FROM tb_template_prompt), 0) + 50, false);
+ALTER TABLE tb_template_prompt ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS tb_sequence_diagram_seq INCREMENT BY 50;
+SELECT setval('tb_sequence_diagram_seq', COALESCE((SELECT MAX(id) FROM tb_sequence_diagram), 0) + 50, false);
+ALTER TABLE tb_sequence_diagram ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS tb_sql_query_seq INCREMENT BY 50;
+SELECT setval('tb_sql_query_seq', COALESCE((SELECT MAX(id) FROM tb_sql_query), 0) + 50, false);
+ALTER TABLE tb_sql_query ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
@@ -0,0 +1,258 @@
+package com.funa.common.cache;
+
+import com.funa.common.BaseTest;
+import com.funa.common.datasource.ReadYourWrites;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.feature.Feature;
+import com.funa.folder.Folder;
+import com.funa.sqlquery.SqlQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uses its own cache instance, so the counts are not affected by other tests.
+ */
+public class ResponseCacheTest extends BaseTest {
+
+    private static final ResponseCacheKey KEY = ResponseCacheKey.of("/api/folders/{parentId}/children", 1L);
+    private static final Set<Class<?>> DEPENDENCIES = Set.of(Folder.class, Feature.class);
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<ReadYourWrites> readYourWrites;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger builds = new AtomicInteger();
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    public void setUp() {
+        responseCache = new ResponseCache(100, Duration.ofMinutes(10), 1, transactionManager, readYourWrites, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        responseCache.shutdown();
+    }
+
+    @Test
+    public void testCachesUntilDependencyChanges() throws Exception {
+        Supplier<String> builder = () -> "v" + builds.incrementAndGet();
+
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals("v1", responseCache.get(ResponseCacheKey.of("/api/folders/{parentId}/children", 1L), DEPENDENCIES, builder));
+        assertEquals(1, builds.get());
+
+        // Responses that do not depend on the changed type stay fresh
+        responseCache.onEntityChanged(new EntityChangedEvent(SqlQuery.class, 7L));
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals(1, builds.get());
+
+        // A stale response is served once more while it is rebuilt
+        responseCache.onEntityChanged(new EntityChangedEvent(Folder.class, 1L));
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals(3, meterRegistry.get("response.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("response.cache.requests").tag("result", "stale").counter().count());
+        assertEquals(1, meterRegistry.get("response.cache.requests").tag("result", "miss").counter().count());
+
+        assertEquals("v2", awaitValue(builder, "v2"));
+        assertEquals(2, builds.get());
+        assertEquals(1, meterRegistry.get("response.cache.rebuilds").tag("trigger", "miss").timer().count());
+        assertEquals(1, meterRegistry.get("response.cache.rebuilds").tag("trigger", "refresh").timer().count());
+        assertTrue(meterRegistry.get("response.cache.hit.ratio").gauge().value() > 0.5);
+    }
+
+    @Test
+    public void testSingleRefreshDuringInvalidationStorm() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> builder = () -> {
+            int build = builds.incrementAndGet();
+            if (build > 1) {
+                started.countDown();
+                await(release);
+            }
+            return "v" + build;
+        };
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+
+        responseCache.onEntityChanged(new EntityChangedEvent(Feature.class, 1L));
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(readers.submit(() -> responseCache.<String>get(KEY, DEPENDENCIES, builder)));
+            }
+            for (Future<String> response : responses) {
+                assertEquals("v1", response.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, builds.get());
+
+        release.countDown();
+        assertEquals("v2", awaitValue(builder, "v2"));
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    public void testRefreshStartedBeforeChangeIsDiscarded() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> builder = () -> {
+            int build = builds.incrementAndGet();
+            if (build == 2) {
+                await(release);
+            }
+            return "v" + build;
+        };
+        responseCache.get(KEY, DEPENDENCIES, builder);
+
+        // The second change arrives while the rebuild for the first one still runs
+        responseCache.onEntityChanged(new EntityChangedEvent(Folder.class, 1L));
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        responseCache.onEntityChanged(new EntityChangedEvent(Folder.class, 2L));
+        release.countDown();
+
+        assertEquals("v3", awaitValue(builder, "v3"));
+    }
+
+    @Test
+    public void testChangeDuringMissIsNotLost() throws Exception {
+        Supplier<String> builder = () -> {
+            int build = builds.incrementAndGet();
+            if (build == 1) {
+                // Another request commits while the first body is built, from data read before it
+                Thread writer = Thread.ofPlatform().start(
+                        () -> responseCache.onEntityChanged(new EntityChangedEvent(Feature.class, 1L)));
+                try {
+                    writer.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "v" + build;
+        };
+
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, builder));
+        assertEquals(1, meterRegistry.get("response.cache.requests").tag("result", "stale").counter().count());
+        assertEquals("v2", awaitValue(builder, "v2"));
+    }
+
+    @Test
+    public void testSlowMissDoesNotBlockInvalidation() throws Exception {
+        for (long parentId = 100; parentId < 164; parentId++) {
+            responseCache.get(ResponseCacheKey.of("/api/folders/{parentId}/children", parentId), DEPENDENCIES, () -> "other");
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> slowBuilder = () -> {
+            started.countDown();
+            await(release);
+            return "v" + builds.incrementAndGet();
+        };
+
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> miss = threads.submit(() -> responseCache.<String>get(KEY, DEPENDENCIES, slowBuilder));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // A committed write invalidates the other entries while the slow body is still being built
+            Future<?> invalidation = threads.submit(
+                    () -> responseCache.onEntityChanged(new EntityChangedEvent(Folder.class, 1L)));
+            invalidation.get(2, TimeUnit.SECONDS);
+
+            release.countDown();
+            assertEquals("v1", miss.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+        // The body was built before the change committed, so it is served as stale once and then rebuilt
+        assertEquals("v1", responseCache.get(KEY, DEPENDENCIES, slowBuilder));
+        assertEquals("v2", awaitValue(slowBuilder, "v2"));
+    }
+
+    @Test
+    public void testPinnedClientDoesNotGetStaleBody() {
+        ReadYourWrites pinned = new ReadYourWrites(Duration.ofSeconds(5));
+        ResponseCache pinnedCache = new ResponseCache(100, Duration.ofMinutes(10), 1, transactionManager,
+                new StaticListableBeanFactory(Map.of("readYourWrites", pinned)).getBeanProvider(ReadYourWrites.class),
+                meterRegistry);
+        Supplier<String> builder = () -> "v" + builds.incrementAndGet();
+        try {
+            assertEquals("v1", pinnedCache.get(KEY, DEPENDENCIES, builder));
+            pinnedCache.onEntityChanged(new EntityChangedEvent(Folder.class, 1L));
+
+            // The client that made the change gets the rebuilt body right away, and it is cached for everyone
+            pinned.pinUntil(System.currentTimeMillis() + 5000);
+            assertEquals("v2", pinnedCache.get(KEY, DEPENDENCIES, builder));
+            pinned.clear();
+            assertEquals("v2", pinnedCache.get(KEY, DEPENDENCIES, builder));
+            assertEquals(2, builds.get());
+        } finally {
+            pinned.clear();
+            pinnedCache.shutdown();
+        }
+    }
+
+    @Test
+    public void testBypassedInsideTransaction() {
+        Supplier<String> builder = () -> "v" + builds.incrementAndGet();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> responseCache.get(KEY, DEPENDENCIES, builder));
+        transaction.executeWithoutResult(status -> responseCache.get(KEY, DEPENDENCIES, builder));
+
+        assertEquals(2, builds.get());
+        assertEquals(0, responseCache.estimatedSize());
+    }
+
+    /**
+     * Read the response until the background rebuild has installed the expected body.
+     */
+    private String awaitValue(Supplier<String> builder, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String value = responseCache.get(KEY, DEPENDENCIES, builder);
+        while (!expected.equals(value) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            value = responseCache.get(KEY, DEPENDENCIES, builder);
+        }
+        return value;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
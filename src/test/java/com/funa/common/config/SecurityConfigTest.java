@@ -4,9 +4,11 @@ import com.funa.common.BaseTest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
@@ -30,4 +32,19 @@ public class SecurityConfigTest extends BaseTest {
     // Spring Security returns 403 Forbidden for unauthenticated requests by default
     mockMvc.perform(get("/api/other")).andExpect(status().isForbidden());
   }
+
+  @Test
+  public void testLoggersEndpointRequiresAuth() throws Exception {
+    mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+
+    // Changing log levels must not be open to anonymous requests
+    mockMvc.perform(get("/actuator/loggers")).andExpect(status().isForbidden());
+    mockMvc
+        .perform(
+            post("/actuator/loggers/ROOT")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"configuredLevel\":\"TRACE\"}"))
+        .andExpect(status().isForbidden());
+  }
 }
@@ -0,0 +1,118 @@
+package com.funa.common.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes transactions between two in-memory H2 databases, each holding a marker row with its own name.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+
+    @AfterEach
+    public void clearReadYourWrites() {
+        readYourWrites.clear();
+    }
+
+    @Test
+    public void testReadOnlyTransactionsUseReplica() {
+        Routing routing = routing(database("routing_primary", "primary"),
+                database("routing_replica", "replica"));
+
+        assertEquals("replica", routing.read());
+        assertEquals("primary", routing.write());
+        // Reads outside a read-only transaction stay on the primary
+        assertEquals("primary", routing.jdbcTemplate.queryForObject("SELECT name FROM tb_marker", String.class));
+    }
+
+    @Test
+    public void testReadYourWrites() {
+        Routing routing = routing(database("ryw_primary", "primary"), database("ryw_replica", "replica"));
+
+        routing.write();
+        assertEquals("primary", routing.read());
+
+        readYourWrites.clear();
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    public void testOnPrimaryIgnoresWindow() {
+        ReadYourWrites disabled = new ReadYourWrites(Duration.ZERO);
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(
+                database("forced_primary", "primary"), List.of(database("forced_replica", "replica")),
+                disabled, Duration.ofMinutes(1));
+        Routing routing = new Routing(new LazyConnectionDataSourceProxy(router));
+
+        assertEquals("primary", disabled.onPrimary(routing::read));
+        assertEquals("primary", disabled.onPrimary(() -> disabled.onPrimary(routing::read)));
+        assertEquals("replica", routing.read());
+    }
+
+    @Test
+    public void testUnavailableReplicaFallsBackToPrimary() {
+        DataSource missing = new DriverManagerDataSource("jdbc:h2:mem:missing_replica;IFEXISTS=TRUE", "sa", "");
+        Routing routing = routing(database("fallback_primary", "primary"), missing,
+                database("fallback_replica", "replica"));
+
+        // The missing replica is skipped, then stays skipped for the retry interval
+        assertEquals("replica", routing.read());
+        assertEquals("replica", routing.read());
+        assertEquals("replica", routing.read());
+
+        Routing primaryOnly = routing(database("fallback_primary", "primary"), missing);
+        assertEquals("primary", primaryOnly.read());
+    }
+
+    private DataSource database(String name, String marker) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS tb_marker (name VARCHAR(20))");
+        jdbcTemplate.update("DELETE FROM tb_marker");
+        jdbcTemplate.update("INSERT INTO tb_marker (name) VALUES (?)", marker);
+        return dataSource;
+    }
+
+    private Routing routing(DataSource primary, DataSource... replicas) {
+        ReplicaRoutingDataSource router = new ReplicaRoutingDataSource(
+                primary, List.of(replicas), readYourWrites, Duration.ofMinutes(1));
+        return new Routing(new LazyConnectionDataSourceProxy(router));
+    }
+
+    private static class Routing {
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readTransaction;
+        private final TransactionTemplate writeTransaction;
+
+        Routing(DataSource dataSource) {
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.readTransaction = new TransactionTemplate(transactionManager);
+            this.readTransaction.setReadOnly(true);
+            this.writeTransaction = new TransactionTemplate(transactionManager);
+        }
+
+        String read() {
+            return readTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM tb_marker", String.class));
+        }
+
+        String write() {
+            return writeTransaction.execute(status -> {
+                jdbcTemplate.update("UPDATE tb_marker SET name = name");
+                return jdbcTemplate.queryForObject("SELECT name FROM tb_marker", String.class);
+            });
+        }
+    }
+}
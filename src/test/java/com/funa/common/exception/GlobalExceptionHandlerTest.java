@@ -0,0 +1,91 @@
+package com.funa.common.exception;
+
+import com.funa.common.BaseTest;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+public class GlobalExceptionHandlerTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testDomainExceptionsHaveNoStackTrace() {
+        NotFoundException exception = new NotFoundException("Folder", 42L);
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals("Folder not found with ID: 42", exception.getMessage());
+        assertEquals(0, new ConflictException("conflict").getStackTrace().length);
+        assertEquals(0, new ValidationException("invalid").getStackTrace().length);
+    }
+
+    @Test
+    public void testNotFoundIsProblemDetail() throws Exception {
+        double before = domainErrors("NotFoundException");
+
+        mockMvc.perform(get("/api/folders/-1"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.title").value("Not Found"))
+                .andExpect(jsonPath("$.detail").value("Folder not found with ID: -1"))
+                .andExpect(jsonPath("$.instance").value("/api/folders/-1"))
+                .andExpect(jsonPath("$.traceId").isNotEmpty());
+
+        assertEquals(before + 1, domainErrors("NotFoundException"));
+    }
+
+    @Test
+    public void testConflictAndValidationStatuses() throws Exception {
+        Folder parent = new Folder();
+        parent.setName("Parent");
+        Folder createdParent = folderService.createFolder(parent, null);
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdParent.getId());
+
+        // Moving a folder below its own child conflicts with the stored tree
+        mockMvc.perform(put("/api/folders/" + createdParent.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Parent\",\"parentId\":" + createdChild.getId() + "}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("Cannot set a descendant folder as parent"));
+
+        // A missing parent in a create request is an invalid request rather than a missing resource
+        mockMvc.perform(post("/api/folders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Orphan\",\"parentId\":-1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Folder not found with ID: -1"));
+
+        assertTrue(domainErrors("ConflictException") >= 1);
+        assertTrue(domainErrors("ValidationException") >= 1);
+    }
+
+    private double domainErrors(String exception) {
+        Counter counter = meterRegistry.find("errors.domain").tag("exception", exception).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
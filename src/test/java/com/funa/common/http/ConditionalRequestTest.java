@@ -0,0 +1,182 @@
+package com.funa.common.http;
+
+import com.funa.common.BaseTest;
+import com.funa.feature.Feature;
+import com.funa.feature.FeatureService;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderService;
+import com.funa.sequencediagram.SequenceDiagram;
+import com.funa.sequencediagram.SequenceDiagramRepository;
+import com.funa.sequencediagram.SequenceDiagramService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+public class ConditionalRequestTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SequenceDiagramService sequenceDiagramService;
+
+    @Autowired
+    private SequenceDiagramRepository sequenceDiagramRepository;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FeatureService featureService;
+
+    @Test
+    public void testConditionalGetAnsweredFromVersionQuery() throws Exception {
+        SequenceDiagram diagram = createSequenceDiagram("Conditional diagram", "sequenceDiagram\n  A->>B: hello");
+
+        MvcResult result = mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        // Only the version query runs, the TEXT column is never read
+        mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string("X-Sql-Count", "1"))
+                .andExpect(content().string(""));
+
+        // Any change gives a new version, even when the content stays the same
+        SequenceDiagram renamed = new SequenceDiagram();
+        renamed.setName("Renamed diagram");
+        renamed.setSequenceDiagramContent(diagram.getSequenceDiagramContent());
+        sequenceDiagramService.updateSequenceDiagram(diagram.getId(), renamed);
+        sequenceDiagramRepository.flush();
+
+        mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed diagram"));
+    }
+
+    @Test
+    public void testIfMatchOnUpdate() throws Exception {
+        SequenceDiagram diagram = createSequenceDiagram("If-Match diagram", "sequenceDiagram\n  A->>B: v1");
+        String etag = mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult updated = mockMvc.perform(put("/api/sequence-diagrams/{id}", diagram.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"If-Match diagram\",\"sequenceDiagramContent\":\"sequenceDiagram\\n  A->>B: v2\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String newEtag = updated.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, newEtag);
+
+        // The ETag returned by the update is the one a later GET returns
+        mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId()))
+                .andExpect(header().string(HttpHeaders.ETAG, newEtag));
+
+        // An update based on the old version is rejected
+        mockMvc.perform(put("/api/sequence-diagrams/{id}", diagram.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lost update\",\"sequenceDiagramContent\":\"sequenceDiagram\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON));
+        assertEquals("If-Match diagram", sequenceDiagramService.getSequenceDiagramById(diagram.getId()).getName());
+    }
+
+    @Test
+    public void testVersionedContentUrlIsImmutable() throws Exception {
+        SequenceDiagram diagram = createSequenceDiagram("Immutable diagram", "sequenceDiagram\n  A->>B: cached");
+        MvcResult result = mockMvc.perform(get("/api/sequence-diagrams/{id}", diagram.getId())).andReturn();
+        String contentUrl = JsonPath.read(result.getResponse().getContentAsString(), "$.contentUrl");
+        assertEquals("/api/sequence-diagrams/" + diagram.getId() + "/content/" + diagram.getContentHash(), contentUrl);
+
+        mockMvc.perform(get(contentUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().string("sequenceDiagram\n  A->>B: cached"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + diagram.getContentHash() + "\""));
+
+        // A client that has the content is answered without any query
+        mockMvc.perform(get(contentUrl).header(HttpHeaders.IF_NONE_MATCH, "\"" + diagram.getContentHash() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("X-Sql-Count", "0"));
+
+        // Once the content changes, the old URL no longer resolves
+        SequenceDiagram changed = new SequenceDiagram();
+        changed.setName("Immutable diagram");
+        changed.setSequenceDiagramContent("sequenceDiagram\n  A->>B: changed");
+        sequenceDiagramService.updateSequenceDiagram(diagram.getId(), changed);
+        sequenceDiagramRepository.flush();
+        mockMvc.perform(get(contentUrl))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testFolderAndFeatureVersionsTrackWhatTheyShow() throws Exception {
+        Folder folder = new Folder();
+        folder.setName("Versioned folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+        Feature feature = new Feature();
+        feature.setName("Versioned feature");
+        Feature createdFeature = featureService.createFeature(feature, createdFolder.getId(), null,
+                "Versioned diagram", "sequenceDiagram", null, null);
+        sequenceDiagramRepository.flush();
+
+        String folderEtag = etag("/api/folders/{id}", createdFolder.getId());
+        String featureEtag = etag("/api/features/{id}", createdFeature.getId());
+
+        // A new child folder is part of the folder's representation
+        Folder child = new Folder();
+        child.setName("Child");
+        folderService.createFolder(child, createdFolder.getId());
+        sequenceDiagramRepository.flush();
+        String folderEtagWithChild = etag("/api/folders/{id}", createdFolder.getId());
+        assertNotEquals(folderEtag, folderEtagWithChild);
+
+        // The content of the linked sequence diagram is part of the feature's representation
+        SequenceDiagram diagram = createdFeature.getSequenceDiagram();
+        SequenceDiagram changed = new SequenceDiagram();
+        changed.setName(diagram.getName());
+        changed.setSequenceDiagramContent("sequenceDiagram\n  A->>B: changed");
+        sequenceDiagramService.updateSequenceDiagram(diagram.getId(), changed);
+        sequenceDiagramRepository.flush();
+        assertNotEquals(featureEtag, etag("/api/features/{id}", createdFeature.getId()));
+        assertEquals(folderEtagWithChild, etag("/api/folders/{id}", createdFolder.getId()));
+    }
+
+    private SequenceDiagram createSequenceDiagram(String name, String content) {
+        SequenceDiagram diagram = new SequenceDiagram();
+        diagram.setName(name);
+        diagram.setSequenceDiagramContent(content);
+        SequenceDiagram created = sequenceDiagramService.createSequenceDiagram(diagram);
+        sequenceDiagramRepository.flush();
+        return created;
+    }
+
+    private String etag(String url, Long id) throws Exception {
+        return mockMvc.perform(get(url, id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
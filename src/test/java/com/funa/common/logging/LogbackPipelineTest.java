@@ -0,0 +1,172 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogbackPipelineTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("test");
+
+    @BeforeEach
+    public void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    public void testDiscardsEventsBelowKeepLevelWhenTheQueueRunsLow() throws InterruptedException {
+        GateAppender gate = new GateAppender();
+        DropAwareAsyncAppender async = asyncAppender(gate, 4, 2, false);
+
+        logger.info("taken by the appender thread");
+        gate.awaitFirstEvent();
+        for (int i = 0; i < 4; i++) {
+            logger.info("info {}", i);
+        }
+        logger.warn("kept");
+        gate.open();
+        async.stop();
+
+        // The fourth INFO event found only one free slot, below the threshold of two
+        assertEquals(1, async.getDiscardedCount());
+        assertEquals(0, async.getOverflowedCount());
+        assertEquals(List.of("taken by the appender thread", "info 0", "info 1", "info 2", "kept"),
+                gate.events.stream().map(ILoggingEvent::getFormattedMessage).toList());
+    }
+
+    @Test
+    public void testNeverBlockDropsAndCountsEventsArrivingAtAFullQueue() throws InterruptedException {
+        GateAppender gate = new GateAppender();
+        DropAwareAsyncAppender async = asyncAppender(gate, 2, 0, true);
+
+        logger.error("taken by the appender thread");
+        gate.awaitFirstEvent();
+        logger.error("queued 1");
+        logger.error("queued 2");
+        logger.error("dropped");
+        gate.open();
+        async.stop();
+
+        assertEquals(0, async.getDiscardedCount());
+        assertEquals(1, async.getOverflowedCount());
+        assertEquals(3, gate.events.size());
+    }
+
+    @Test
+    public void testStreamingConsoleAppenderWritesJsonLines() {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamingConsoleAppender<ILoggingEvent> console = new StreamingConsoleAppender<>();
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        console.setContext(context);
+        console.setEncoder(encoder);
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            console.start();
+            logger.addAppender(console);
+            logger.info("first {}", 1);
+            logger.warn("second");
+        } finally {
+            System.setOut(stdout);
+        }
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"message\":\"first 1\""));
+        assertTrue(lines[1].contains("\"level\":\"WARN\""));
+    }
+
+    @Test
+    public void testPublishesQueueAndDropMetrics() {
+        LoggerContext globalContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        DropAwareAsyncAppender async = new DropAwareAsyncAppender();
+        async.setContext(globalContext);
+        async.setName("TEST_ASYNC");
+        Logger root = globalContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.addAppender(async);
+        try {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            new LogbackAppenderMetrics().bindTo(registry);
+
+            assertEquals(0, registry.get("logging.appender.queue.size").tag("appender", "TEST_ASYNC").gauge().value());
+            assertEquals(async.getQueueSize(),
+                    registry.get("logging.appender.queue.capacity").tag("appender", "TEST_ASYNC").gauge().value());
+            assertEquals(0, registry.get("logging.appender.dropped")
+                    .tags("appender", "TEST_ASYNC", "reason", "discarded").functionCounter().count());
+        } finally {
+            root.detachAppender(async);
+        }
+    }
+
+    private DropAwareAsyncAppender asyncAppender(GateAppender gate, int queueSize, int discardingThreshold,
+                                                 boolean neverBlock) {
+        gate.setContext(context);
+        gate.start();
+        DropAwareAsyncAppender async = new DropAwareAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(queueSize);
+        async.setDiscardingThreshold(discardingThreshold);
+        async.setNeverBlock(neverBlock);
+        async.addAppender(gate);
+        async.start();
+        logger.setLevel(Level.DEBUG);
+        logger.addAppender(async);
+        return async;
+    }
+
+    /**
+     * Holds the appender thread on the first event until opened, so the queue fills up behind it.
+     */
+    private static class GateAppender extends AppenderBase<ILoggingEvent> {
+
+        private final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch firstEvent = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            events.add(event);
+            firstEvent.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void awaitFirstEvent() throws InterruptedException {
+            assertTrue(firstEvent.await(10, TimeUnit.SECONDS));
+        }
+
+        void open() {
+            gate.countDown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.funa.common.logging;
+
+import com.funa.common.BaseTest;
+import com.funa.common.logging.LayerTimings.Layer;
+import com.funa.folder.FolderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LoggingFilterTest extends BaseTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_ID = "00f067aa0ba902b7";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testContinuesIncomingTrace() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/demo/hello")
+                        .header("traceparent", "00-" + TRACE_ID + "-" + PARENT_ID + "-01")
+                        .header("tracestate", "vendor=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Trace-Id", TRACE_ID))
+                .andExpect(header().string("tracestate", "vendor=abc"))
+                .andReturn();
+
+        String traceparent = result.getResponse().getHeader("traceparent");
+        assertTrue(TraceContext.isValidTraceparent(traceparent));
+        assertTrue(traceparent.startsWith("00-" + TRACE_ID + "-"));
+        assertTrue(traceparent.endsWith("-01"));
+        assertNotEquals(PARENT_ID, traceparent.substring(36, 52));
+    }
+
+    @Test
+    public void testStartsNewTraceWithoutValidTraceparent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/demo/hello")
+                        .header("traceparent", "00-" + TRACE_ID.toUpperCase() + "-" + PARENT_ID + "-01")
+                        .header("tracestate", "vendor=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("tracestate"))
+                .andReturn();
+
+        String traceparent = result.getResponse().getHeader("traceparent");
+        assertTrue(TraceContext.isValidTraceparent(traceparent));
+        assertEquals(traceparent.substring(3, 35), result.getResponse().getHeader("X-Trace-Id"));
+        assertNotEquals(TRACE_ID, result.getResponse().getHeader("X-Trace-Id"));
+    }
+
+    @Test
+    public void testTraceparentValidation() {
+        assertTrue(TraceContext.isValidTraceparent("00-" + TRACE_ID + "-" + PARENT_ID + "-00"));
+        // Later versions may append fields
+        assertTrue(TraceContext.isValidTraceparent("01-" + TRACE_ID + "-" + PARENT_ID + "-01-extra"));
+
+        assertFalse(TraceContext.isValidTraceparent(null));
+        assertFalse(TraceContext.isValidTraceparent("ff-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+        assertFalse(TraceContext.isValidTraceparent("00-" + TRACE_ID + "-" + PARENT_ID + "-01-extra"));
+        assertFalse(TraceContext.isValidTraceparent("00-" + "0".repeat(32) + "-" + PARENT_ID + "-01"));
+        assertFalse(TraceContext.isValidTraceparent("00-" + TRACE_ID + "-" + "0".repeat(16) + "-01"));
+        assertFalse(TraceContext.isValidTraceparent("00-" + TRACE_ID + "-" + PARENT_ID + "-0g"));
+        assertFalse(TraceContext.isValidTraceparent("00_" + TRACE_ID + "-" + PARENT_ID + "-01"));
+    }
+
+    @Test
+    public void testNewTraceIdsAreUnique() {
+        TraceContext first = TraceContext.fromHeaders(null, "vendor=abc");
+        TraceContext second = TraceContext.fromHeaders(null, null);
+
+        assertTrue(TraceContext.isValidTraceparent(first.traceparent()));
+        assertNotEquals(first.traceId(), second.traceId());
+        assertNotEquals(first.spanId(), second.spanId());
+        assertNull(first.parentSpanId());
+        assertNull(first.traceState());
+    }
+
+    @Test
+    public void testTimesServiceAndRepositoryLayers() {
+        LayerTimings timings = LayerTimer.start();
+        try {
+            folderService.getAllFolders();
+        } finally {
+            LayerTimer.stop();
+        }
+
+        assertEquals(0, timings.getCalls(Layer.CONTROLLER));
+        assertEquals(1, timings.getCalls(Layer.SERVICE));
+        assertTrue(timings.getCalls(Layer.REPOSITORY) >= 1);
+        assertTrue(timings.getTimeMillis(Layer.SERVICE) >= timings.getTimeMillis(Layer.REPOSITORY));
+    }
+
+    @Test
+    public void testCountsStatementsOutsideHibernate() {
+        SqlStatementStats stats = SqlStatementCounter.start();
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_folder", Long.class);
+            // A JDBC batch counts as one statement
+            jdbcTemplate.batchUpdate("UPDATE tb_folder SET name = name WHERE id = ?",
+                    List.of(new Object[] {-1L}, new Object[] {-2L}));
+            folderService.getAllFolders();
+        } finally {
+            SqlStatementCounter.stop(stats);
+        }
+
+        assertEquals(3, stats.getCount());
+        assertTrue(stats.getTimeMillis() > 0);
+    }
+}
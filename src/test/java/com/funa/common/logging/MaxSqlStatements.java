@@ -0,0 +1,25 @@
+package com.funa.common.logging;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test that runs more SQL statements than allowed.
+ * Statements are counted from the start of the test; to leave the setup out, declare a
+ * {@link SqlStatementStats} parameter and call {@link SqlStatementStats#reset()} once the setup is done
+ * (flush pending inserts first, so they are not counted against the code under test).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementCountExtension.class)
+public @interface MaxSqlStatements {
+
+    /**
+     * @return The maximum number of statements
+     */
+    int value();
+}
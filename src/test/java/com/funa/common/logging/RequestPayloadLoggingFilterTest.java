@@ -0,0 +1,154 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestPayloadLoggingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestLoggingProperties properties = new RequestLoggingProperties();
+    private final Logger writerLogger = (Logger) LoggerFactory.getLogger(RequestLogWriter.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private RequestLogWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setSampleRate(1);
+        properties.setMaxPayloadBytes(64);
+        appender.start();
+        writerLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+        writerLogger.detachAppender(appender);
+    }
+
+    @Test
+    public void testLogsRedactedAndTruncatedPayloads() throws Exception {
+        writer = new RequestLogWriter(properties, meterRegistry);
+        writer.start();
+        String password = "{\"name\":\"Admin\",\"password\":\"s3cr\\\"et\",\"description\":\"" + "x".repeat(100) + "\"}";
+
+        MockHttpServletResponse response = perform(new RequestPayloadLoggingFilter(properties, writer),
+                jsonRequest("POST", "/api/features", password), 200);
+
+        assertEquals("{\"result\":\"" + "y".repeat(100) + "\"}", response.getContentAsString());
+        ILoggingEvent event = awaitEvents(1).get(0);
+        String fields = Arrays.toString(event.getArgumentArray());
+        assertTrue(event.getFormattedMessage().startsWith("POST /api/features?dryRun=true"));
+        assertTrue(fields.contains("status=200"));
+        assertTrue(fields.contains("Authorization=***"));
+        assertTrue(fields.contains("\"password\":\"***\""));
+        assertFalse(fields.contains("s3cr"));
+        assertTrue(fields.contains("... [" + password.length() + " bytes]"));
+        assertTrue(fields.contains("responseBody={\"result\":\"yyy"));
+        assertEquals(1, meterRegistry.get("logging.requests.logged").counter().count());
+    }
+
+    @Test
+    public void testSkipsRoutesWithoutSampling() throws Exception {
+        properties.getRoutes().put("/api/sequence-diagrams/**", 0.0);
+        writer = new RequestLogWriter(properties, meterRegistry);
+        writer.start();
+        RequestPayloadLoggingFilter filter = new RequestPayloadLoggingFilter(properties, writer);
+
+        perform(filter, jsonRequest("PUT", "/api/sequence-diagrams/1", "{}"), 200);
+        perform(filter, jsonRequest("PUT", "/api/sequence-diagrams/2", "{}"), 500);
+        perform(filter, jsonRequest("GET", "/api/folders", ""), 200);
+
+        List<ILoggingEvent> events = awaitEvents(2);
+        assertTrue(events.get(0).getFormattedMessage().startsWith("PUT /api/sequence-diagrams/2"));
+        // Server errors of requests that were not sampled are logged without their payloads
+        assertTrue(Arrays.toString(events.get(0).getArgumentArray()).contains("requestBody=null"));
+        assertTrue(events.get(1).getFormattedMessage().startsWith("GET /api/folders"));
+    }
+
+    @Test
+    public void testDropsEventsWhenTheBufferIsFull() throws Exception {
+        properties.setBufferCapacity(2);
+        // Not started, so nothing drains the buffer
+        writer = new RequestLogWriter(properties, meterRegistry);
+        RequestPayloadLoggingFilter filter = new RequestPayloadLoggingFilter(properties, writer);
+
+        for (int i = 0; i < 5; i++) {
+            perform(filter, jsonRequest("GET", "/api/folders", ""), 200);
+        }
+
+        assertEquals(3, meterRegistry.get("logging.requests.dropped").counter().count());
+        assertEquals(2, meterRegistry.get("logging.requests.queued").gauge().value());
+    }
+
+    private static MockHttpServletRequest jsonRequest(String method, String uri, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setQueryString("dryRun=true");
+        request.setContentType("application/json");
+        request.setCharacterEncoding("UTF-8");
+        request.addHeader("Authorization", "Bearer secret-token");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletResponse perform(RequestPayloadLoggingFilter filter, MockHttpServletRequest request,
+                                                   int status) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(new JsonServlet(status), filter).doFilter(request, response);
+        return response;
+    }
+
+    private List<ILoggingEvent> awaitEvents(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (appender.list.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // Give unexpected extra events the chance to show up
+        Thread.sleep(50);
+        assertEquals(count, appender.list.size());
+        return appender.list;
+    }
+
+    /**
+     * Stands in for a controller, reading the whole body and answering with JSON.
+     */
+    private static class JsonServlet extends HttpServlet {
+
+        private final int status;
+
+        JsonServlet(int status) {
+            this.status = status;
+        }
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            request.getInputStream().readAllBytes();
+            response.setStatus(status);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"result\":\"" + "y".repeat(100) + "\"}");
+        }
+    }
+}
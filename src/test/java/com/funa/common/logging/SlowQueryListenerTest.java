@@ -0,0 +1,105 @@
+package com.funa.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.funa.common.BaseTest;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs with a threshold of zero, so every statement is logged as slow. The threshold is changed on the shared
+ * properties rather than with a test property, which would start a second application context on the same
+ * in-memory database.
+ */
+@Transactional
+public class SlowQueryListenerTest extends BaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private SqlLoggingProperties sqlLoggingProperties;
+
+    private Duration threshold;
+
+    private final Logger slowQueryLogger = (Logger) LoggerFactory.getLogger(SlowQueryListener.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        threshold = sqlLoggingProperties.getSlowQueryThreshold();
+        sqlLoggingProperties.setSlowQueryThreshold(Duration.ZERO);
+        appender.start();
+        slowQueryLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sqlLoggingProperties.setSlowQueryThreshold(threshold);
+        slowQueryLogger.detachAppender(appender);
+    }
+
+    @Test
+    public void testLogsQueriesWithParametersRowsAndCaller() throws Exception {
+        for (String name : List.of("Slow query folder 1", "Slow query folder 2")) {
+            Folder folder = new Folder();
+            folder.setName(name);
+            folderService.createFolder(folder, null);
+        }
+        appender.list.clear();
+
+        MvcResult result = mockMvc.perform(get("/api/folders/search").param("name", "Slow query folder"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String traceId = result.getResponse().getHeader("X-Trace-Id");
+
+        ILoggingEvent search = appender.list.stream()
+                .filter(event -> event.getFormattedMessage().contains("where f1_0.name like"))
+                .findFirst()
+                .orElseThrow();
+        String message = search.getFormattedMessage();
+        String fields = Arrays.toString(search.getArgumentArray());
+        assertTrue(message.contains("returned 2 rows"), message);
+        assertTrue(message.contains("from FolderRepository."), message);
+        // The statement carries the route and trace ID of the request as a comment
+        assertTrue(message.contains("/*route='%2Fapi%2Ffolders%2Fsearch',traceId='" + traceId + "'*/"), message);
+        assertTrue(fields.contains("route=/api/folders/search"), fields);
+        assertTrue(fields.contains("Slow query folder"), fields);
+    }
+
+    @Test
+    public void testLogsUpdatesWithTheirUpdateCountAndNoCommentOutsideRequests() {
+        Folder folder = new Folder();
+        folder.setName("Slow query update");
+        folderService.createFolder(folder, null);
+        folderService.deleteFolder(folder.getId());
+        folderService.getAllFolders();
+
+        ILoggingEvent delete = appender.list.stream()
+                .filter(event -> event.getFormattedMessage().contains("delete from tb_folder"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(delete.getFormattedMessage().contains("returned 1 rows"), delete.getFormattedMessage());
+        assertFalse(delete.getFormattedMessage().contains("/*"), delete.getFormattedMessage());
+    }
+}
@@ -0,0 +1,48 @@
+package com.funa.common.logging;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.opentest4j.AssertionFailedError;
+
+/**
+ * JUnit extension counting the SQL statements of a test annotated with {@link MaxSqlStatements}.
+ * Also resolves {@link SqlStatementStats} test parameters to the statistics of the running test.
+ */
+public class SqlStatementCountExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementCounter.start());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementStats stats = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatementStats.class);
+        if (stats == null) {
+            return;
+        }
+        SqlStatementCounter.stop(stats);
+
+        MaxSqlStatements limit = context.getRequiredTestMethod().getAnnotation(MaxSqlStatements.class);
+        if (limit != null && stats.getCount() > limit.value()) {
+            throw new AssertionFailedError(
+                    "Expected at most " + limit.value() + " SQL statements but " + stats.getCount() + " were executed",
+                    limit.value(), stats.getCount());
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == SqlStatementStats.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(extensionContext.getUniqueId(), SqlStatementStats.class);
+    }
+}
@@ -0,0 +1,76 @@
+package com.funa.common.thread;
+
+import com.funa.common.logging.MdcTaskDecorator;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testReportsPinnedVirtualThreads() throws InterruptedException {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), meterRegistry);
+        monitor.start();
+        try {
+            Object lock = new Object();
+            // Sleeping inside synchronized keeps the virtual thread mounted on its carrier
+            Thread.ofVirtual().start(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).join();
+
+            // JFR streams events with a delay of about a second
+            Timer pinned = meterRegistry.get("jvm.threads.virtual.pinned").timer();
+            long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+            while (pinned.count() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(pinned.count() >= 1);
+            assertTrue(pinned.totalTime(TimeUnit.MILLISECONDS) >= 10);
+        } finally {
+            monitor.stop();
+        }
+        assertFalse(monitor.isRunning());
+    }
+
+    @Test
+    public void testVirtualThreadsInheritMdc() throws InterruptedException {
+        AtomicReference<String> seen = new AtomicReference<>();
+        MDC.put("traceId", "trace-1");
+        MDC.put("userId", "user-1");
+        Runnable task = new MdcTaskDecorator().decorate(() -> seen.set(MDC.get("traceId") + "/" + MDC.get("userId")));
+        MDC.clear();
+
+        AtomicReference<String> afterTask = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            MDC.put("traceId", "own-trace");
+            task.run();
+            afterTask.set(MDC.get("traceId") + "/" + MDC.get("userId"));
+        }).join();
+
+        // The task saw the submitter's context, and the running thread got its own context back afterwards
+        assertEquals("trace-1/user-1", seen.get());
+        assertEquals("own-trace/null", afterTask.get());
+        assertNull(MDC.get("traceId"));
+    }
+}
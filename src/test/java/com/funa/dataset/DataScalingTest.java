@@ -0,0 +1,254 @@
+package com.funa.dataset;
+
+import com.funa.common.BaseTest;
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.logging.SqlStatementCounter;
+import com.funa.common.logging.SqlStatementStats;
+import com.funa.feature.FeatureService;
+import com.funa.feature.dto.FeatureMapper;
+import com.funa.folder.FolderService;
+import com.funa.folder.dto.FolderMapper;
+import com.funa.prompt.PromptExportFormat;
+import com.funa.prompt.PromptExportService;
+import com.funa.workspace.WorkspaceService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the read operations of the API against 1x, 10x and 100x the data and reports how their latency and
+ * SQL statement counts grow, to find the code paths that get worse than linearly with the data size.
+ * <p>
+ * Excluded from the regular build; run it with {@code ./gradlew scalingTest}. The base shape is read from the
+ * {@code scaling.*} system properties (see {@link DatasetShape#fromSystemProperties}), the multipliers from
+ * {@code scaling.multipliers}. Results are logged and written to {@code build/reports/scaling}.
+ * Statements run on other threads, such as the parallel prompt rendering of the folder export, are not counted.
+ */
+@Tag("scaling")
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "request.logging.enabled=false"
+})
+public class DataScalingTest extends BaseTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataScalingTest.class);
+
+    /**
+     * Growth exponent above which an operation is reported as worse than linear.
+     */
+    private static final double SUPERLINEAR_EXPONENT = 1.2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SequenceIdAllocator sequenceIdAllocator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FolderMapper folderMapper;
+
+    @Autowired
+    private FeatureService featureService;
+
+    @Autowired
+    private FeatureMapper featureMapper;
+
+    @Autowired
+    private WorkspaceService workspaceService;
+
+    @Autowired
+    private PromptExportService promptExportService;
+
+    @AfterEach
+    public void tearDown() {
+        new DatasetGenerator(jdbcTemplate, sequenceIdAllocator).clear();
+        evictCaches();
+    }
+
+    @Test
+    public void testScaling() throws Exception {
+        DatasetShape baseShape = DatasetShape.fromSystemProperties("scaling", new DatasetShape(2, 3, 4, 5, 2048, 10));
+        int[] multipliers = Arrays.stream(System.getProperty("scaling.multipliers", "1,10,100").split(","))
+                .mapToInt(multiplier -> Integer.parseInt(multiplier.trim()))
+                .toArray();
+        int repetitions = Integer.getInteger("scaling.repetitions", 5);
+
+        DatasetGenerator generator = new DatasetGenerator(jdbcTemplate, sequenceIdAllocator);
+        List<Measurement> measurements = new ArrayList<>();
+        for (int multiplier : multipliers) {
+            generator.clear();
+            Dataset dataset = generator.generate(baseShape.scaled(multiplier));
+            evictCaches();
+
+            for (Map.Entry<String, Operation> operation : operations(dataset).entrySet()) {
+                // The first call warms up the JIT, the caches and the connection pool
+                operation.getValue().run();
+                long[] nanos = new long[repetitions];
+                long statements = 0;
+                for (int i = 0; i < repetitions; i++) {
+                    SqlStatementStats stats = SqlStatementCounter.start();
+                    long start = System.nanoTime();
+                    try {
+                        operation.getValue().run();
+                    } finally {
+                        nanos[i] = System.nanoTime() - start;
+                        SqlStatementCounter.stop(stats);
+                    }
+                    statements = stats.getCount();
+                }
+                Arrays.sort(nanos);
+                measurements.add(new Measurement(operation.getKey(), multiplier, dataset.folders(), dataset.features(),
+                        nanos[repetitions / 2] / 1_000_000.0, statements));
+            }
+        }
+
+        report(measurements);
+    }
+
+    /**
+     * The operations to measure, by name. Operations on a single folder or feature always use the same
+     * tree shape, so their cost should not depend on the total amount of data.
+     */
+    private Map<String, Operation> operations(Dataset dataset) {
+        Long rootId = dataset.rootFolderIds().get(0);
+        Long deepestId = dataset.deepestFolderId();
+        Long featureId = dataset.featureId();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("GET /api/folders", () -> request("/api/folders"));
+        operations.put("GET /api/folders/root", () -> request("/api/folders/root"));
+        operations.put("GET /api/folders/tree", () -> request("/api/folders/tree?rootId=" + rootId));
+        operations.put("GET /api/folders/{id}", () -> request("/api/folders/" + rootId));
+        operations.put("GET /api/folders/{id}/children", () -> request("/api/folders/" + rootId + "/children"));
+        operations.put("GET /api/folders/{id}/breadcrumbs", () -> request("/api/folders/" + deepestId + "/breadcrumbs"));
+        operations.put("GET /api/folders/{id}/descendants", () -> request("/api/folders/" + rootId + "/descendants"));
+        operations.put("GET /api/folders/search", () -> request("/api/folders/search?name=Folder"));
+        operations.put("GET /api/features", () -> request("/api/features"));
+        operations.put("GET /api/features?include=content", () -> request("/api/features?include=content"));
+        operations.put("GET /api/features/search", () -> request("/api/features/search?name=Feature"));
+        if (featureId != null) {
+            operations.put("GET /api/features/{id}", () -> request("/api/features/" + featureId));
+            operations.put("GET /api/features/{id}/prompt", () -> request("/api/features/" + featureId + "/prompt"));
+        }
+        operations.put("GET /api/features/folder/{id}", () -> request("/api/features/folder/" + deepestId));
+        operations.put("GET /api/features/folder/{id}?include=content",
+                () -> request("/api/features/folder/" + deepestId + "?include=content"));
+        operations.put("FolderService.getAllFolders", () -> readOnly.executeWithoutResult(
+                transaction -> folderMapper.toDtoList(folderService.getAllFolders())));
+        operations.put("FeatureService.getAllFeatures", () -> readOnly.executeWithoutResult(
+                transaction -> featureMapper.toDtoList(featureService.getAllFeatures())));
+        operations.put("WorkspaceService.exportWorkspace", () -> workspaceService.exportWorkspace(OutputStream.nullOutputStream()));
+        operations.put("PromptExportService.exportFolderPrompts", () -> promptExportService.exportFolderPrompts(
+                folderService.getFolderById(rootId), PromptExportFormat.NDJSON, OutputStream.nullOutputStream()));
+        return operations;
+    }
+
+    private void request(String uri) throws Exception {
+        mockMvc.perform(get(uri)).andExpect(status().isOk());
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    /**
+     * Log the measurements with the growth exponent of every operation, and write them as CSV files.
+     * An exponent of 0 means constant cost, 1 linear growth with the data, 2 quadratic growth.
+     */
+    private void report(List<Measurement> measurements) throws IOException {
+        Map<String, List<Measurement>> byOperation = new LinkedHashMap<>();
+        for (Measurement measurement : measurements) {
+            byOperation.computeIfAbsent(measurement.operation(), key -> new ArrayList<>()).add(measurement);
+        }
+
+        Path directory = Path.of(System.getProperty("scaling.report-dir", "build/reports/scaling"));
+        Files.createDirectories(directory);
+        try (PrintWriter details = new PrintWriter(Files.newBufferedWriter(directory.resolve("scaling.csv")));
+             PrintWriter summary = new PrintWriter(Files.newBufferedWriter(directory.resolve("scaling-summary.csv")))) {
+            details.println("operation,multiplier,folders,features,median_ms,statements");
+            summary.println("operation,time_exponent,statement_exponent,superlinear");
+
+            StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                    "%n%-48s %10s %12s %12s %10s %10s%n", "Operation", "Features", "Median ms", "Statements", "Time exp", "Stmt exp"));
+            for (Map.Entry<String, List<Measurement>> operation : byOperation.entrySet()) {
+                List<Measurement> runs = operation.getValue();
+                Measurement first = runs.get(0);
+                Measurement last = runs.get(runs.size() - 1);
+                double timeExponent = exponent(first.multiplier(), first.medianMillis(), last.multiplier(), last.medianMillis());
+                double statementExponent = exponent(first.multiplier(), first.statements(), last.multiplier(), last.statements());
+                boolean superlinear = timeExponent > SUPERLINEAR_EXPONENT || statementExponent > SUPERLINEAR_EXPONENT;
+
+                for (Measurement run : runs) {
+                    details.printf(Locale.ROOT, "\"%s\",%d,%d,%d,%.3f,%d%n", run.operation(), run.multiplier(),
+                            run.folders(), run.features(), run.medianMillis(), run.statements());
+                    table.append(String.format(Locale.ROOT, "%-48s %10d %12.3f %12d%n",
+                            run == first ? run.operation() : "", run.features(), run.medianMillis(), run.statements()));
+                }
+                summary.printf(Locale.ROOT, "\"%s\",%.2f,%.2f,%b%n", operation.getKey(), timeExponent, statementExponent, superlinear);
+                table.append(String.format(Locale.ROOT, "%-48s %10s %12s %12s %10.2f %10.2f%s%n", "", "", "", "",
+                        timeExponent, statementExponent, superlinear ? "  WORSE THAN LINEAR" : ""));
+            }
+            logger.info("Data-size scaling results:{}", table);
+        }
+    }
+
+    /**
+     * Growth exponent k of a metric between two data sizes, assuming metric ~ size^k.
+     */
+    private static double exponent(int fromMultiplier, double fromValue, int toMultiplier, double toValue) {
+        if (toMultiplier == fromMultiplier || fromValue <= 0 || toValue <= 0) {
+            return 0;
+        }
+        return Math.log(toValue / fromValue) / Math.log((double) toMultiplier / fromMultiplier);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private record Measurement(
+            String operation, int multiplier, long folders, long features, double medianMillis, long statements) {
+    }
+}
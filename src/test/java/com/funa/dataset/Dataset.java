@@ -0,0 +1,17 @@
+package com.funa.dataset;
+
+import java.util.List;
+
+/**
+ * Summary of a generated dataset, with IDs of rows that are useful as request parameters.
+ *
+ * @param shape The shape the dataset was generated with
+ * @param rootFolderIds IDs of the root folders
+ * @param deepestFolderId ID of a folder on the deepest level
+ * @param featureId ID of a feature in the deepest folder
+ * @param folders Number of folders created
+ * @param features Number of features created
+ */
+public record Dataset(
+        DatasetShape shape, List<Long> rootFolderIds, Long deepestFolderId, Long featureId, long folders, long features) {
+}
@@ -0,0 +1,251 @@
+package com.funa.dataset;
+
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.util.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the database with a synthetic dataset of a given {@link DatasetShape}, using batched JDBC inserts.
+ * IDs come from the entity sequences, so the rows can be mixed with rows created through JPA.
+ * Features are generated and inserted one batch at a time, so a million features never sit in memory at once.
+ */
+public class DatasetGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final String AUDITOR = "dataset";
+
+    private static final String INSERT_TEMPLATE_PROMPT =
+            "INSERT INTO tb_template_prompt (id, name, prompt_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SEQUENCE_DIAGRAM =
+            "INSERT INTO tb_sequence_diagram (id, name, sequence_diagram_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SQL_QUERY =
+            "INSERT INTO tb_sql_query (id, name, query_content, content_hash, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_FOLDER =
+            "INSERT INTO tb_folder (id, name, description, parent_id, path, created_at, created_id, updated_at, updated_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_FEATURE =
+            "INSERT INTO tb_feature (id, name, description, folder_id, template_prompt_id, sequence_diagram_id, sql_query_id, "
+                    + "created_at, created_id, updated_at, updated_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, SequenceIdAllocator sequenceIdAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+    }
+
+    /**
+     * Generate a dataset. Existing rows are kept.
+     *
+     * @param shape The shape of the dataset
+     * @return Summary of the generated dataset
+     */
+    public Dataset generate(DatasetShape shape) {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Long> templatePromptIds = insertTemplatePrompts(shape, now);
+        List<List<FolderRow>> levels = insertFolders(shape, now);
+        List<FolderRow> deepestLevel = levels.get(levels.size() - 1);
+        Long deepestFolderId = deepestLevel.get(0).id();
+
+        Long featureId = null;
+        long features = 0;
+        List<FeatureRow> batch = new ArrayList<>(BATCH_SIZE);
+        for (List<FolderRow> level : levels) {
+            for (FolderRow folder : level) {
+                for (int i = 0; i < shape.featuresPerFolder(); i++) {
+                    long number = ++features;
+                    batch.add(new FeatureRow(number, folder.id(), templatePromptIds.get((int) (number % templatePromptIds.size()))));
+                    if (batch.size() == BATCH_SIZE) {
+                        featureId = firstNonNull(featureId, insertFeatures(batch, shape.contentBytes(), deepestFolderId, now));
+                        batch.clear();
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            featureId = firstNonNull(featureId, insertFeatures(batch, shape.contentBytes(), deepestFolderId, now));
+        }
+
+        long folders = levels.stream().mapToLong(List::size).sum();
+        logger.info("Generated {} folders and {} features in {} ms", folders, features, (System.nanoTime() - start) / 1_000_000);
+        return new Dataset(shape, levels.get(0).stream().map(FolderRow::id).toList(), deepestFolderId, featureId, folders, features);
+    }
+
+    /**
+     * Delete every folder, feature, template prompt, sequence diagram and SQL query.
+     */
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM tb_feature");
+        jdbcTemplate.update("DELETE FROM tb_sequence_diagram");
+        jdbcTemplate.update("DELETE FROM tb_sql_query");
+        jdbcTemplate.update("DELETE FROM tb_template_prompt");
+        // Detach the folders first, so the self-referencing foreign key never blocks the delete
+        jdbcTemplate.update("UPDATE tb_folder SET parent_id = NULL WHERE parent_id IS NOT NULL");
+        jdbcTemplate.update("DELETE FROM tb_folder");
+    }
+
+    private List<Long> insertTemplatePrompts(DatasetShape shape, Timestamp now) {
+        List<Long> ids = sequenceIdAllocator.allocate("tb_template_prompt_seq", shape.templatePrompts());
+        jdbcTemplate.batchUpdate(INSERT_TEMPLATE_PROMPT, ids, BATCH_SIZE, (ps, id) -> {
+            String content = templatePromptContent(id);
+            ps.setLong(1, id);
+            ps.setString(2, "Template prompt " + id);
+            ps.setString(3, content);
+            ps.setString(4, ContentHash.sha256(content));
+            bindAudit(ps, 5, now);
+        });
+        return ids;
+    }
+
+    /**
+     * Insert the folder trees level by level, so every parent exists before its children.
+     */
+    private List<List<FolderRow>> insertFolders(DatasetShape shape, Timestamp now) {
+        List<List<FolderRow>> levels = new ArrayList<>(shape.depth());
+        List<FolderRow> level = new ArrayList<>(shape.roots());
+        for (Long id : sequenceIdAllocator.allocate("tb_folder_seq", shape.roots())) {
+            level.add(new FolderRow(id, null, "/" + id + "/"));
+        }
+        insertFolderLevel(level, now);
+        levels.add(level);
+
+        for (int depth = 1; depth < shape.depth() && shape.fanout() > 0; depth++) {
+            List<FolderRow> parents = level;
+            List<Long> ids = sequenceIdAllocator.allocate("tb_folder_seq", parents.size() * shape.fanout());
+            level = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                FolderRow parent = parents.get(i / shape.fanout());
+                level.add(new FolderRow(ids.get(i), parent.id(), parent.path() + ids.get(i) + "/"));
+            }
+            insertFolderLevel(level, now);
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private void insertFolderLevel(List<FolderRow> folders, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_FOLDER, folders, BATCH_SIZE, (ps, folder) -> {
+            ps.setLong(1, folder.id());
+            ps.setString(2, "Folder " + folder.id());
+            ps.setString(3, "Generated folder " + folder.path());
+            if (folder.parentId() != null) {
+                ps.setLong(4, folder.parentId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setString(5, folder.path());
+            bindAudit(ps, 6, now);
+        });
+    }
+
+    /**
+     * Insert a batch of features with their own sequence diagrams and SQL queries.
+     *
+     * @return The ID of the first feature of the batch inside the given folder, or null if there is none
+     */
+    private Long insertFeatures(List<FeatureRow> features, int contentBytes, Long folderId, Timestamp now) {
+        List<Long> featureIds = sequenceIdAllocator.allocate("tb_feature_seq", features.size());
+        List<Long> sequenceDiagramIds = sequenceIdAllocator.allocate("tb_sequence_diagram_seq", features.size());
+        List<Long> sqlQueryIds = sequenceIdAllocator.allocate("tb_sql_query_seq", features.size());
+
+        jdbcTemplate.batchUpdate(INSERT_SEQUENCE_DIAGRAM, indexes(features.size()), BATCH_SIZE, (ps, i) -> {
+            String content = sequenceDiagramContent(features.get(i).number(), contentBytes);
+            ps.setLong(1, sequenceDiagramIds.get(i));
+            ps.setString(2, "Sequence diagram " + features.get(i).number());
+            ps.setString(3, content);
+            ps.setString(4, ContentHash.sha256(content));
+            bindAudit(ps, 5, now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL_QUERY, indexes(features.size()), BATCH_SIZE, (ps, i) -> {
+            String content = sqlQueryContent(features.get(i).number(), contentBytes);
+            ps.setLong(1, sqlQueryIds.get(i));
+            ps.setString(2, "SQL query " + features.get(i).number());
+            ps.setString(3, content);
+            ps.setString(4, ContentHash.sha256(content));
+            bindAudit(ps, 5, now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_FEATURE, indexes(features.size()), BATCH_SIZE, (ps, i) -> {
+            FeatureRow feature = features.get(i);
+            ps.setLong(1, featureIds.get(i));
+            ps.setString(2, "Feature " + feature.number());
+            ps.setString(3, "Generated feature " + feature.number());
+            ps.setLong(4, feature.folderId());
+            ps.setLong(5, feature.templatePromptId());
+            ps.setLong(6, sequenceDiagramIds.get(i));
+            ps.setLong(7, sqlQueryIds.get(i));
+            bindAudit(ps, 8, now);
+        });
+
+        for (int i = 0; i < features.size(); i++) {
+            if (features.get(i).folderId().equals(folderId)) {
+                return featureIds.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static String templatePromptContent(Long id) {
+        return "Template prompt " + id + ". Implement the feature described below.\n\n"
+                + "Sequence diagram:\n{{sequence_diagram}}\n\nSQL query:\n{{sql_query}}\n";
+    }
+
+    private static String sequenceDiagramContent(long number, int contentBytes) {
+        StringBuilder content = new StringBuilder(contentBytes + 64).append("sequenceDiagram\n");
+        for (int step = 0; content.length() < contentBytes; step++) {
+            content.append("    Client->>Service").append(step % 7).append(": request ").append(number).append('.').append(step).append('\n');
+        }
+        return content.toString();
+    }
+
+    private static String sqlQueryContent(long number, int contentBytes) {
+        StringBuilder content = new StringBuilder(contentBytes + 64).append("SELECT t0.id, t0.name\nFROM table_").append(number).append(" t0\n");
+        for (int join = 1; content.length() < contentBytes; join++) {
+            content.append("LEFT JOIN table_").append(join).append(" t").append(join)
+                    .append(" ON t").append(join).append(".parent_id = t0.id\n");
+        }
+        return content.append("WHERE t0.id = ").append(number).append(";\n").toString();
+    }
+
+    private static void bindAudit(PreparedStatement ps, int index, Timestamp now) throws SQLException {
+        ps.setTimestamp(index, now);
+        ps.setString(index + 1, AUDITOR);
+        ps.setTimestamp(index + 2, now);
+        ps.setString(index + 3, AUDITOR);
+    }
+
+    private static List<Integer> indexes(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private static Long firstNonNull(Long current, Long candidate) {
+        return current != null ? current : candidate;
+    }
+
+    private record FolderRow(Long id, Long parentId, String path) {
+    }
+
+    private record FeatureRow(long number, Long folderId, Long templatePromptId) {
+    }
+}
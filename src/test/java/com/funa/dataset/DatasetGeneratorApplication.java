@@ -0,0 +1,47 @@
+package com.funa.dataset;
+
+import com.funa.AcceleratorBackApplication;
+import com.funa.common.entity.SequenceIdAllocator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills a database with a synthetic dataset, e.g. a local Postgres:
+ * {@code ./gradlew generateDataset -Ddataset.roots=2000 -Ddataset.clear=true}.
+ * <p>
+ * The application starts without its web server, using the {@code dev} profile unless
+ * {@code spring.profiles.active} is set. The shape is read from the {@code dataset.*} system properties
+ * (roots, depth, fanout, features-per-folder, content-bytes, template-prompts), with {@code dataset.shape=deep}
+ * selecting deep trees instead of wide ones.
+ */
+public class DatasetGeneratorApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGeneratorApplication.class);
+
+    public static void main(String[] args) {
+        DatasetShape defaults = "deep".equals(System.getProperty("dataset.shape"))
+                ? DatasetShape.deep(10)
+                : DatasetShape.wide(10);
+        DatasetShape shape = DatasetShape.fromSystemProperties("dataset", defaults);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AcceleratorBackApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(System.getProperty("spring.profiles.active", "dev"))
+                .run(args)) {
+            DatasetGenerator generator = new DatasetGenerator(
+                    context.getBean(JdbcTemplate.class), context.getBean(SequenceIdAllocator.class));
+            if (Boolean.getBoolean("dataset.clear")) {
+                generator.clear();
+            }
+            logger.info("Generating {} folders and {} features", shape.folderCount(), shape.featureCount());
+            Dataset dataset = generator.generate(shape);
+            logger.info("Root folders {}..{}, deepest folder {}, sample feature {}",
+                    dataset.rootFolderIds().get(0), dataset.rootFolderIds().get(dataset.rootFolderIds().size() - 1),
+                    dataset.deepestFolderId(), dataset.featureId());
+        }
+    }
+}
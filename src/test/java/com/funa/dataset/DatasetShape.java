@@ -0,0 +1,104 @@
+package com.funa.dataset;
+
+/**
+ * Shape of a generated dataset.
+ * Every root folder gets the same tree: {@code depth} levels of folders, each folder having {@code fanout} children,
+ * and every folder directly containing {@code featuresPerFolder} features.
+ *
+ * @param roots Number of root folders
+ * @param depth Number of folder levels, 1 for root folders only
+ * @param fanout Number of child folders of every non-leaf folder
+ * @param featuresPerFolder Number of features directly inside every folder
+ * @param contentBytes Approximate length of every sequence diagram and SQL query content
+ * @param templatePrompts Number of template prompts shared by the features
+ */
+public record DatasetShape(int roots, int depth, int fanout, int featuresPerFolder, int contentBytes, int templatePrompts) {
+
+    public DatasetShape {
+        if (roots < 1 || depth < 1 || fanout < 0 || featuresPerFolder < 0 || contentBytes < 0 || templatePrompts < 1) {
+            throw new IllegalArgumentException("Invalid dataset shape: roots, depth and template prompts must be at least 1, "
+                    + "fanout, features per folder and content bytes cannot be negative");
+        }
+    }
+
+    /**
+     * Shallow trees with many children per folder.
+     *
+     * @param roots Number of root folders
+     * @return The dataset shape
+     */
+    public static DatasetShape wide(int roots) {
+        return new DatasetShape(roots, 2, 50, 10, 2048, 10);
+    }
+
+    /**
+     * Deep binary trees, for ancestor and descendant lookups.
+     *
+     * @param roots Number of root folders
+     * @return The dataset shape
+     */
+    public static DatasetShape deep(int roots) {
+        return new DatasetShape(roots, 12, 2, 1, 2048, 10);
+    }
+
+    /**
+     * Read a dataset shape from system properties, e.g. {@code -Ddataset.roots=100}.
+     * Properties that are not set keep the value of the given defaults.
+     *
+     * @param prefix The property prefix, e.g. {@code dataset}
+     * @param defaults The shape providing the missing values
+     * @return The dataset shape
+     */
+    public static DatasetShape fromSystemProperties(String prefix, DatasetShape defaults) {
+        return new DatasetShape(
+                Integer.getInteger(prefix + ".roots", defaults.roots()),
+                Integer.getInteger(prefix + ".depth", defaults.depth()),
+                Integer.getInteger(prefix + ".fanout", defaults.fanout()),
+                Integer.getInteger(prefix + ".features-per-folder", defaults.featuresPerFolder()),
+                Integer.getInteger(prefix + ".content-bytes", defaults.contentBytes()),
+                Integer.getInteger(prefix + ".template-prompts", defaults.templatePrompts()));
+    }
+
+    /**
+     * Get the same shape with more root folders, so the data grows by the multiplier while every tree keeps its size.
+     *
+     * @param multiplier The factor to multiply the number of root folders by
+     * @return The scaled dataset shape
+     */
+    public DatasetShape scaled(int multiplier) {
+        return new DatasetShape(roots * multiplier, depth, fanout, featuresPerFolder, contentBytes, templatePrompts);
+    }
+
+    /**
+     * Get the number of folders in one root folder's tree, the root included.
+     *
+     * @return The number of folders per tree
+     */
+    public long foldersPerRoot() {
+        long folders = 0;
+        long levelSize = 1;
+        for (int level = 0; level < depth; level++) {
+            folders += levelSize;
+            levelSize *= fanout;
+        }
+        return folders;
+    }
+
+    /**
+     * Get the total number of folders.
+     *
+     * @return The number of folders
+     */
+    public long folderCount() {
+        return roots * foldersPerRoot();
+    }
+
+    /**
+     * Get the total number of features.
+     *
+     * @return The number of features
+     */
+    public long featureCount() {
+        return folderCount() * featuresPerFolder;
+    }
+}
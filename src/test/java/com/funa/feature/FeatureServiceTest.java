@@ -1,6 +1,10 @@
 package com.funa.feature;
 
 import com.funa.common.BaseTest;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.logging.MaxSqlStatements;
+import com.funa.common.logging.SqlStatementStats;
+import com.funa.common.pagination.CursorPage;
 import com.funa.folder.Folder;
 import com.funa.folder.FolderService;
 import com.funa.sequencediagram.SequenceDiagram;
@@ -11,12 +15,15 @@ import com.funa.templateprompt.TemplatePrompt;
 import com.funa.templateprompt.TemplatePromptService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
 public class FeatureServiceTest extends BaseTest {
@@ -36,6 +43,12 @@ public class FeatureServiceTest extends BaseTest {
     @Autowired
     private SqlQueryService sqlQueryService;
 
+    @Autowired
+    private FeatureRepository featureRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
     @Test
     public void testCreateAndGetFeature() {
         // Create a folder
@@ -172,7 +185,7 @@ public class FeatureServiceTest extends BaseTest {
         featureService.deleteFeature(createdFeature.getId());
 
         // Verify the feature was deleted
-        assertThrows(NoSuchElementException.class, () -> {
+        assertThrows(NotFoundException.class, () -> {
             featureService.getFeatureById(createdFeature.getId());
         });
     }
@@ -380,4 +393,94 @@ public class FeatureServiceTest extends BaseTest {
         assertEquals(updatedSqlQueryName, updatedFeature.getSqlQuery().getName());
         assertEquals(updatedSqlQueryContent, updatedFeature.getSqlQuery().getQueryContent());
     }
+
+    @Test
+    public void testFindFeatureSummaries() {
+        // Create a folder with a linked feature and a bare feature
+        Folder folder = new Folder();
+        folder.setName("Summary Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+
+        Feature linkedFeature = new Feature();
+        linkedFeature.setName("Summary Linked");
+        Feature createdLinkedFeature = featureService.createFeature(
+                linkedFeature, createdFolder.getId(), null, "Summary Diagram", "sequenceDiagram", "Summary Query", "SELECT 1");
+
+        Feature bareFeature = new Feature();
+        bareFeature.setName("Summary Bare");
+        Feature createdBareFeature = featureService.createFeature(bareFeature, createdFolder.getId(), null, null, null);
+
+        // Summaries carry the names and IDs of the linked entities
+        List<FeatureSummary> summaries = featureService.findFeatureSummariesByFolder(createdFolder.getId());
+        assertEquals(2, summaries.size());
+
+        FeatureSummary linkedSummary = summaries.get(0);
+        assertEquals(createdLinkedFeature.getId(), linkedSummary.id());
+        assertEquals("Summary Linked", linkedSummary.name());
+        assertEquals(createdFolder.getId(), linkedSummary.folderId());
+        assertEquals("Summary Folder", linkedSummary.folderName());
+        assertNull(linkedSummary.templatePromptId());
+        assertEquals(createdLinkedFeature.getSequenceDiagram().getId(), linkedSummary.sequenceDiagramId());
+        assertEquals("Summary Diagram", linkedSummary.sequenceDiagramName());
+        assertEquals(createdLinkedFeature.getSqlQuery().getId(), linkedSummary.sqlQueryId());
+        assertEquals("Summary Query", linkedSummary.sqlQueryName());
+
+        // Features without links are still listed
+        FeatureSummary bareSummary = summaries.get(1);
+        assertEquals(createdBareFeature.getId(), bareSummary.id());
+        assertNull(bareSummary.sequenceDiagramId());
+        assertNull(bareSummary.sqlQueryId());
+
+        // Search and listing pages use the same projection
+        CursorPage<FeatureSummary> page = featureService.findFeatureSummariesByName("Summary", null, 1);
+        assertEquals(List.of(createdLinkedFeature.getId()), page.getItems().stream().map(FeatureSummary::id).toList());
+        assertTrue(page.isHasNext());
+
+        CursorPage<FeatureSummary> allPage = featureService.getAllFeatureSummaries(createdLinkedFeature.getId(), 10);
+        assertEquals(createdBareFeature.getId(), allPage.getItems().get(0).id());
+
+        assertThrows(NotFoundException.class, () -> featureService.findFeatureSummariesByFolder(-1L));
+    }
+
+    @Test
+    public void testSummarySearchEscapesWildcards() {
+        Folder folder = new Folder();
+        folder.setName("Wildcard Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+        Feature underscore = new Feature();
+        underscore.setName("Wild_card Feature");
+        Feature createdUnderscore = featureService.createFeature(underscore, createdFolder.getId(), null, null, null);
+        Feature letter = new Feature();
+        letter.setName("WildXcard Feature");
+        featureService.createFeature(letter, createdFolder.getId(), null, null, null);
+
+        // "_" matches only itself, with and without the linked content
+        assertEquals(List.of(createdUnderscore.getId()),
+                featureService.findFeatureSummariesByName("Wild_card", null, 10).getItems().stream().map(FeatureSummary::id).toList());
+        assertEquals(List.of(createdUnderscore.getId()),
+                featureService.findFeaturesByName("Wild_card", null, 10).getItems().stream().map(Feature::getId).toList());
+        assertTrue(featureService.findFeatureSummariesByName("Wild%card", null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    @MaxSqlStatements(2)
+    public void testListFeaturesByFolderStatementCount(SqlStatementStats statements) throws Exception {
+        Folder folder = new Folder();
+        folder.setName("Statement Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+        for (int i = 0; i < 5; i++) {
+            Feature feature = new Feature();
+            feature.setName("Statement Feature " + i);
+            featureService.createFeature(feature, createdFolder.getId(), null,
+                    "Diagram " + i, "sequenceDiagram", "Query " + i, "SELECT " + i);
+        }
+        featureRepository.flush();
+        statements.reset();
+
+        // The folder check and one projection query, however many features and links there are
+        mockMvc.perform(get("/api/features/folder/{folderId}", createdFolder.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Sql-Count", "2"))
+                .andExpect(header().exists("X-Sql-Time"));
+    }
 }
@@ -1,14 +1,34 @@
 package com.funa.folder;
 
 import com.funa.common.BaseTest;
+import com.funa.common.entity.SequenceIdAllocator;
+import com.funa.common.exception.ConflictException;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.logging.MaxSqlStatements;
+import com.funa.common.logging.SqlStatementStats;
+import com.funa.common.pagination.CursorPage;
+import com.funa.feature.Feature;
+import com.funa.feature.FeatureService;
+import com.funa.sequencediagram.SequenceDiagram;
+import com.funa.sequencediagram.SequenceDiagramService;
+import com.funa.sqlquery.SqlQueryService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
 public class FolderServiceTest extends BaseTest {
@@ -16,6 +36,27 @@ public class FolderServiceTest extends BaseTest {
     @Autowired
     private FolderService folderService;
 
+    @Autowired
+    private FeatureService featureService;
+
+    @Autowired
+    private SequenceDiagramService sequenceDiagramService;
+
+    @Autowired
+    private SqlQueryService sqlQueryService;
+
+    @Autowired
+    private SequenceIdAllocator sequenceIdAllocator;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
     @Test
     public void testCreateAndGetFolder() {
         // Create a folder
@@ -92,7 +133,7 @@ public class FolderServiceTest extends BaseTest {
         folderService.deleteFolder(createdFolder.getId());
 
         // Verify the folder was deleted
-        assertThrows(NoSuchElementException.class, () -> {
+        assertThrows(NotFoundException.class, () -> {
             folderService.getFolderById(createdFolder.getId());
         });
     }
@@ -119,4 +160,323 @@ public class FolderServiceTest extends BaseTest {
         List<Folder> anotherFolders = folderService.findFoldersByName("Another");
         assertEquals(1, anotherFolders.size());
     }
+
+    @Test
+    public void testFindFoldersByNamePaged() {
+        // Create five matching folders and one that does not match
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Folder folder = new Folder();
+            folder.setName("Paged Folder " + i);
+            ids.add(folderService.createFolder(folder, null).getId());
+        }
+        Folder other = new Folder();
+        other.setName("Unrelated");
+        folderService.createFolder(other, null);
+
+        // Walk through the matches two at a time
+        CursorPage<Folder> first = folderService.findFoldersByName("Paged Folder", null, 2);
+        assertEquals(List.of(ids.get(0), ids.get(1)), first.getItems().stream().map(Folder::getId).toList());
+        assertTrue(first.isHasNext());
+        assertEquals(ids.get(1), first.getNextCursor());
+
+        CursorPage<Folder> second = folderService.findFoldersByName("Paged Folder", first.getNextCursor(), 2);
+        assertEquals(List.of(ids.get(2), ids.get(3)), second.getItems().stream().map(Folder::getId).toList());
+        assertTrue(second.isHasNext());
+
+        CursorPage<Folder> last = folderService.findFoldersByName("Paged Folder", second.getNextCursor(), 2);
+        assertEquals(List.of(ids.get(4)), last.getItems().stream().map(Folder::getId).toList());
+        assertFalse(last.isHasNext());
+        assertNull(last.getNextCursor());
+
+        // Out of range page sizes are clamped
+        assertEquals(CursorPage.MAX_LIMIT, folderService.getAllFolders(null, 100_000).getLimit());
+        assertEquals(1, folderService.getAllFolders(null, 0).getItems().size());
+    }
+
+    @Test
+    public void testGetFolderTree() {
+        // Create a root folder with a nested child and grandchild
+        Folder root = new Folder();
+        root.setName("Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        Folder grandchild = new Folder();
+        grandchild.setName("Grandchild");
+        Folder createdGrandchild = folderService.createFolder(grandchild, createdChild.getId());
+
+        Folder unrelated = new Folder();
+        unrelated.setName("Unrelated");
+        folderService.createFolder(unrelated, null);
+
+        // Add a feature to the grandchild
+        Feature feature = new Feature();
+        feature.setName("Nested Feature");
+        Feature addedFeature = folderService.addFeatureToFolder(createdGrandchild.getId(), feature);
+
+        // Load the subtree under the child folder
+        FolderTree subtree = folderService.getFolderTree(createdChild.getId());
+        assertEquals(createdChild.getId(), subtree.getRootId());
+        assertEquals(2, subtree.getFolders().size());
+        assertEquals(1, subtree.getFeatureCount());
+        assertEquals(List.of(addedFeature.getId()), subtree.getFeatureIds(createdGrandchild.getId()));
+        assertTrue(subtree.getFeatureIds(createdChild.getId()).isEmpty());
+
+        // Load the whole workspace
+        FolderTree fullTree = folderService.getFolderTree(null);
+        assertEquals(4, fullTree.getFolders().size());
+
+        // Unknown roots are reported as missing
+        assertThrows(NotFoundException.class, () -> folderService.getFolderTree(-1L));
+    }
+
+    @Test
+    public void testBreadcrumbsAndDescendants() {
+        // Create a chain Root > Child > Grandchild
+        Folder root = new Folder();
+        root.setName("Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        Folder grandchild = new Folder();
+        grandchild.setName("Grandchild");
+        Folder createdGrandchild = folderService.createFolder(grandchild, createdChild.getId());
+
+        assertEquals("/" + createdRoot.getId() + "/" + createdChild.getId() + "/" + createdGrandchild.getId() + "/",
+                createdGrandchild.getPath());
+
+        // Breadcrumbs run from the root down to the folder itself
+        List<Folder> breadcrumbs = folderService.getBreadcrumbs(createdGrandchild.getId());
+        assertEquals(List.of(createdRoot.getId(), createdChild.getId(), createdGrandchild.getId()),
+                breadcrumbs.stream().map(Folder::getId).toList());
+
+        // Descendants exclude the folder itself
+        List<Folder> descendants = folderService.getDescendants(createdRoot.getId());
+        assertEquals(List.of(createdChild.getId(), createdGrandchild.getId()),
+                descendants.stream().map(Folder::getId).toList());
+    }
+
+    @Test
+    public void testMoveFolderRewritesSubtreePaths() {
+        Folder source = new Folder();
+        source.setName("Source");
+        Folder createdSource = folderService.createFolder(source, null);
+
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdSource.getId());
+
+        Folder grandchild = new Folder();
+        grandchild.setName("Grandchild");
+        Folder createdGrandchild = folderService.createFolder(grandchild, createdChild.getId());
+
+        Folder target = new Folder();
+        target.setName("Target");
+        Folder createdTarget = folderService.createFolder(target, null);
+
+        // A folder cannot be moved below one of its descendants
+        Folder cyclicData = new Folder();
+        cyclicData.setName("Source");
+        assertThrows(ConflictException.class,
+                () -> folderService.updateFolder(createdSource.getId(), cyclicData, createdGrandchild.getId()));
+
+        // Move the child (and its grandchild) under the target folder
+        Folder movedData = new Folder();
+        movedData.setName("Child");
+        folderService.updateFolder(createdChild.getId(), movedData, createdTarget.getId());
+
+        List<Folder> breadcrumbs = folderService.getBreadcrumbs(createdGrandchild.getId());
+        assertEquals(List.of(createdTarget.getId(), createdChild.getId(), createdGrandchild.getId()),
+                breadcrumbs.stream().map(Folder::getId).toList());
+        assertTrue(folderService.getDescendants(createdSource.getId()).isEmpty());
+    }
+
+    @Test
+    public void testDeleteFolderSubtree() {
+        // Create Root > Child, with features in both folders
+        Folder root = new Folder();
+        root.setName("Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        Feature rootFeature = new Feature();
+        rootFeature.setName("Root Feature");
+        Feature createdRootFeature = featureService.createFeature(
+                rootFeature, createdRoot.getId(), null, "Root Diagram", "sequenceDiagram", "Root Query", "SELECT 1");
+
+        Feature childFeature = new Feature();
+        childFeature.setName("Child Feature");
+        Feature createdChildFeature = featureService.createFeature(
+                childFeature, createdChild.getId(), null, "Child Diagram", "sequenceDiagram", "Child Query", "SELECT 2");
+
+        // A feature outside the subtree shares the child's sequence diagram
+        Folder other = new Folder();
+        other.setName("Other");
+        Folder createdOther = folderService.createFolder(other, null);
+        SequenceDiagram sharedDiagram = createdChildFeature.getSequenceDiagram();
+        Feature otherFeature = new Feature();
+        otherFeature.setName("Other Feature");
+        featureService.createFeature(otherFeature, createdOther.getId(), null, sharedDiagram.getId(), null);
+
+        Long rootDiagramId = createdRootFeature.getSequenceDiagram().getId();
+        Long rootQueryId = createdRootFeature.getSqlQuery().getId();
+
+        // Delete the root folder
+        FolderDeleteResult result = folderService.deleteFolder(createdRoot.getId());
+
+        assertEquals(2, result.getFolders());
+        assertEquals(2, result.getFeatures());
+        assertEquals(1, result.getSequenceDiagrams());
+        assertEquals(2, result.getSqlQueries());
+        assertEquals(7, result.getTotal());
+
+        assertThrows(NotFoundException.class, () -> folderService.getFolderById(createdChild.getId()));
+        assertThrows(NotFoundException.class, () -> featureService.getFeatureById(createdChildFeature.getId()));
+        assertThrows(NotFoundException.class, () -> sequenceDiagramService.getSequenceDiagramById(rootDiagramId));
+        assertThrows(NotFoundException.class, () -> sqlQueryService.getSqlQueryById(rootQueryId));
+
+        // The diagram still used outside the subtree is kept
+        assertNotNull(sequenceDiagramService.getSequenceDiagramById(sharedDiagram.getId()));
+        assertEquals(1, featureService.findFeaturesByFolder(createdOther.getId()).size());
+    }
+
+    @Test
+    public void testCopyFolderSubtree() {
+        // Create Root > Child, with features in both folders, and a separate target folder
+        Folder root = new Folder();
+        root.setName("Root");
+        root.setDescription("Root Description");
+        Folder createdRoot = folderService.createFolder(root, null);
+
+        Folder child = new Folder();
+        child.setName("Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        Feature rootFeature = new Feature();
+        rootFeature.setName("Root Feature");
+        Feature createdRootFeature = featureService.createFeature(
+                rootFeature, createdRoot.getId(), null, "Root Diagram", "sequenceDiagram", "Root Query", "SELECT 1");
+
+        Feature childFeature = new Feature();
+        childFeature.setName("Child Feature");
+        featureService.createFeature(childFeature, createdChild.getId(), null, null, null);
+
+        Folder target = new Folder();
+        target.setName("Target");
+        Folder createdTarget = folderService.createFolder(target, null);
+
+        // Copy the root folder into the target folder
+        FolderCopyResult result = folderService.copyFolder(createdRoot.getId(), createdTarget.getId());
+
+        assertEquals(2, result.getFolders());
+        assertEquals(2, result.getFeatures());
+        assertEquals(1, result.getSequenceDiagrams());
+        assertEquals(1, result.getSqlQueries());
+        assertEquals(6, result.getTotal());
+
+        // The copy is placed under the target with its own materialized path
+        Folder copiedRoot = folderService.getFolderById(result.getFolderId());
+        assertNotEquals(createdRoot.getId(), copiedRoot.getId());
+        assertEquals("Root", copiedRoot.getName());
+        assertEquals("Root Description", copiedRoot.getDescription());
+        assertEquals(createdTarget.getId(), copiedRoot.getParent().getId());
+        assertEquals(createdTarget.getPath() + copiedRoot.getId() + "/", copiedRoot.getPath());
+
+        List<Folder> copiedDescendants = folderService.getDescendants(copiedRoot.getId());
+        assertEquals(1, copiedDescendants.size());
+        Folder copiedChild = copiedDescendants.get(0);
+        assertEquals("Child", copiedChild.getName());
+        assertEquals(copiedRoot.getPath() + copiedChild.getId() + "/", copiedChild.getPath());
+        assertEquals(List.of("Child Feature"),
+                featureService.findFeaturesByFolder(copiedChild.getId()).stream().map(Feature::getName).toList());
+
+        // The copied feature gets its own copies of the sequence diagram and SQL query
+        List<Feature> copiedRootFeatures = featureService.findFeaturesByFolder(copiedRoot.getId());
+        assertEquals(1, copiedRootFeatures.size());
+        Feature copiedRootFeature = copiedRootFeatures.get(0);
+        assertEquals("Root Feature", copiedRootFeature.getName());
+        assertNotEquals(createdRootFeature.getSequenceDiagram().getId(), copiedRootFeature.getSequenceDiagram().getId());
+        assertEquals("sequenceDiagram", copiedRootFeature.getSequenceDiagram().getSequenceDiagramContent());
+        assertNotEquals(createdRootFeature.getSqlQuery().getId(), copiedRootFeature.getSqlQuery().getId());
+        assertEquals("SELECT 1", copiedRootFeature.getSqlQuery().getQueryContent());
+
+        // The source subtree is left untouched
+        assertEquals(1, folderService.getDescendants(createdRoot.getId()).size());
+        assertEquals(1, featureService.findFeaturesByFolder(createdRoot.getId()).size());
+    }
+
+    @Test
+    public void testSequenceIdsDoNotCollide() {
+        // IDs handed out for JDBC inserts and IDs assigned by Hibernate come from the same pooled sequence
+        Set<Long> ids = new HashSet<>(sequenceIdAllocator.allocate("tb_folder_seq", 70));
+        assertEquals(70, ids.size());
+        for (int i = 0; i < 60; i++) {
+            Folder folder = new Folder();
+            folder.setName("Sequence Folder " + i);
+            assertTrue(ids.add(folderService.createFolder(folder, null).getId()));
+        }
+        assertTrue(ids.addAll(sequenceIdAllocator.allocate("tb_folder_seq", 30)));
+        assertEquals(160, ids.size());
+    }
+
+    @Test
+    @MaxSqlStatements(4)
+    public void testListChildFoldersStatementCount(SqlStatementStats statements) throws Exception {
+        Folder parent = new Folder();
+        parent.setName("Statement Parent");
+        Folder createdParent = folderService.createFolder(parent, null);
+        for (int i = 0; i < 10; i++) {
+            Folder child = new Folder();
+            child.setName("Statement Child " + i);
+            Folder createdChild = folderService.createFolder(child, createdParent.getId());
+            Folder grandchild = new Folder();
+            grandchild.setName("Statement Grandchild " + i);
+            folderService.createFolder(grandchild, createdChild.getId());
+            Feature feature = new Feature();
+            feature.setName("Statement Feature " + i);
+            featureService.createFeature(feature, createdChild.getId(), null, null, null, null, null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statements.reset();
+
+        // The child folders and their parent, then one batch each for their subfolders and features
+        mockMvc.perform(get("/api/folders/{parentId}/children", createdParent.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].childFolders.length()").value(1))
+                .andExpect(jsonPath("$[0].features.length()").value(1))
+                .andExpect(header().string("X-Sql-Count", "4"));
+    }
+
+    @Test
+    public void testRebuildMissingPaths() {
+        Folder root = new Folder();
+        root.setName("Unpathed Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+        Folder child = new Folder();
+        child.setName("Unpathed Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+        Folder grandchild = new Folder();
+        grandchild.setName("Unpathed Grandchild");
+        Folder createdGrandchild = folderService.createFolder(grandchild, createdChild.getId());
+        entityManager.flush();
+        jdbcTemplate.update("UPDATE tb_folder SET path = NULL WHERE id IN (?, ?)", createdChild.getId(), createdGrandchild.getId());
+        entityManager.clear();
+
+        assertTrue(folderService.rebuildPathsIfMissing() >= 3);
+        assertEquals(0, folderService.rebuildPathsIfMissing());
+        String expected = "/" + createdRoot.getId() + "/" + createdChild.getId() + "/" + createdGrandchild.getId() + "/";
+        assertEquals(expected, folderService.getFolderById(createdGrandchild.getId()).getPath());
+    }
 }
@@ -0,0 +1,287 @@
+package com.funa.prompt;
+
+import com.funa.common.BaseTest;
+import com.funa.common.event.EntityChangedEvent;
+import com.funa.common.exception.NotFoundException;
+import com.funa.common.exception.ValidationException;
+import com.funa.feature.Feature;
+import com.funa.feature.FeatureService;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderService;
+import com.funa.sqlquery.SqlQuery;
+import com.funa.sqlquery.SqlQueryService;
+import com.funa.templateprompt.TemplatePrompt;
+import com.funa.templateprompt.TemplatePromptRepository;
+import com.funa.templateprompt.TemplatePromptService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+public class PromptServiceTest extends BaseTest {
+
+    @Autowired
+    private PromptService promptService;
+
+    @Autowired
+    private PromptExportService promptExportService;
+
+    @Autowired
+    private PromptTemplateCache promptTemplateCache;
+
+    @Autowired
+    private RenderedPromptCache renderedPromptCache;
+
+    @Autowired
+    private FeatureService featureService;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private TemplatePromptService templatePromptService;
+
+    @Autowired
+    private TemplatePromptRepository templatePromptRepository;
+
+    @Autowired
+    private SqlQueryService sqlQueryService;
+
+    @Test
+    public void testCompileTemplate() {
+        PromptTemplate template = PromptTemplate.compile(1L, null,
+                "Feature {{ featureName }}:\n{{sequenceDiagram}}\n{{unknown}} {{sqlQuery}}{{sqlQuery}} {{");
+
+        // Literal, variable, literal, variable, literal (with the unknown placeholder), variable, variable, literal
+        assertEquals(8, template.getSegmentCount());
+
+        EnumMap<PromptVariable, String> values = new EnumMap<>(PromptVariable.class);
+        values.put(PromptVariable.FEATURE_NAME, "Login");
+        values.put(PromptVariable.SQL_QUERY, "SELECT 1;");
+        assertEquals("Feature Login:\n\n{{unknown}} SELECT 1;SELECT 1; {{", template.render(values));
+    }
+
+    @Test
+    public void testStrayBracesDoNotHidePlaceholder() {
+        PromptTemplate template = PromptTemplate.compile(1L, null, "a {{ b {{sqlQuery}} c }} {{featureName}}");
+
+        EnumMap<PromptVariable, String> values = new EnumMap<>(PromptVariable.class);
+        values.put(PromptVariable.FEATURE_NAME, "Login");
+        values.put(PromptVariable.SQL_QUERY, "SELECT 1;");
+        assertEquals("a {{ b SELECT 1; c }} Login", template.render(values));
+    }
+
+    @Test
+    public void testRenderFeaturePrompt() {
+        Folder folder = new Folder();
+        folder.setName("Prompt Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Prompt Template");
+        templatePrompt.setPromptContent("Implement {{featureName}}.\nDiagram:\n{{sequenceDiagram}}\nQuery:\n{{sqlQuery}}");
+        TemplatePrompt createdTemplatePrompt = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        Feature feature = new Feature();
+        feature.setName("Checkout");
+        Feature createdFeature = featureService.createFeature(
+                feature, createdFolder.getId(), createdTemplatePrompt.getId(),
+                "Checkout Diagram", "A->>B: pay", "Checkout Query", "SELECT * FROM orders");
+
+        RenderedPrompt renderedPrompt = promptService.renderFeaturePrompt(createdFeature.getId());
+        assertEquals(createdFeature.getId(), renderedPrompt.getFeatureId());
+        assertEquals(createdTemplatePrompt.getId(), renderedPrompt.getTemplatePromptId());
+        assertEquals("Implement Checkout.\nDiagram:\nA->>B: pay\nQuery:\nSELECT * FROM orders", renderedPrompt.getContent());
+
+        // The compiled template is reused until the template prompt changes
+        PromptTemplate compiled = promptTemplateCache.get(createdTemplatePrompt);
+        assertSame(compiled, promptTemplateCache.get(createdTemplatePrompt));
+
+        TemplatePrompt updatedData = new TemplatePrompt();
+        updatedData.setName("Prompt Template");
+        updatedData.setPromptContent("Only {{sqlQuery}}");
+        templatePromptService.updateTemplatePrompt(createdTemplatePrompt.getId(), updatedData);
+        templatePromptRepository.flush();
+
+        assertEquals("Only SELECT * FROM orders", promptService.renderFeaturePrompt(createdFeature.getId()).getContent());
+        assertNotSame(compiled, promptTemplateCache.get(createdTemplatePrompt));
+    }
+
+    @Test
+    public void testTemplateCacheKeepsNewestVersion() {
+        LocalDateTime now = LocalDateTime.now();
+        TemplatePrompt newer = new TemplatePrompt();
+        newer.setId(-100L);
+        ReflectionTestUtils.setField(newer, "updatedAt", now);
+        newer.setPromptContent("New {{featureName}}");
+        TemplatePrompt older = new TemplatePrompt();
+        older.setId(-100L);
+        ReflectionTestUtils.setField(older, "updatedAt", now.minusMinutes(1));
+        older.setPromptContent("Old {{featureName}}");
+
+        PromptTemplate compiled = promptTemplateCache.get(newer);
+        // A request that read the older version renders it, without replacing the newer one
+        assertTrue(promptTemplateCache.get(older).isVersion(-100L, older.getUpdatedAt()));
+        assertSame(compiled, promptTemplateCache.get(newer));
+
+        // A committed change or deletion drops the compiled template
+        promptTemplateCache.onEntityChanged(new EntityChangedEvent(TemplatePrompt.class, -100L));
+        assertNotSame(compiled, promptTemplateCache.get(newer));
+    }
+
+    @Test
+    public void testRenderFeaturePromptWithoutTemplate() {
+        Folder folder = new Folder();
+        folder.setName("Prompt Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+
+        Feature feature = new Feature();
+        feature.setName("No Template");
+        Feature createdFeature = featureService.createFeature(feature, createdFolder.getId(), null, null, null);
+
+        assertThrows(ValidationException.class, () -> promptService.renderFeaturePrompt(createdFeature.getId()));
+        assertThrows(NotFoundException.class, () -> promptService.renderFeaturePrompt(-1L));
+    }
+
+    @Test
+    public void testRenderedPromptCache() {
+        Folder folder = new Folder();
+        folder.setName("Cache Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Cache Template");
+        templatePrompt.setPromptContent("Query: {{sqlQuery}}");
+        TemplatePrompt createdTemplatePrompt = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        Feature feature = new Feature();
+        feature.setName("Cached");
+        Feature createdFeature = featureService.createFeature(
+                feature, createdFolder.getId(), createdTemplatePrompt.getId(), null, null, "Cache Query", "SELECT 1");
+        templatePromptRepository.flush();
+        assertNotNull(createdTemplatePrompt.getContentHash());
+        assertEquals(64, createdFeature.getSqlQuery().getContentHash().length());
+
+        // The second render is served from the cache
+        long hits = renderedPromptCache.stats().hitCount();
+        assertEquals("Query: SELECT 1", promptService.renderFeaturePrompt(createdFeature.getId()).getContent());
+        assertEquals("Query: SELECT 1", promptService.renderFeaturePrompt(createdFeature.getId()).getContent());
+        assertEquals(hits + 1, renderedPromptCache.stats().hitCount());
+
+        // Changed content produces a different key
+        SqlQuery updatedQuery = new SqlQuery();
+        updatedQuery.setName("Cache Query");
+        updatedQuery.setQueryContent("SELECT 2");
+        sqlQueryService.updateSqlQuery(createdFeature.getSqlQuery().getId(), updatedQuery);
+        templatePromptRepository.flush();
+        long misses = renderedPromptCache.stats().missCount();
+        assertEquals("Query: SELECT 2", promptService.renderFeaturePrompt(createdFeature.getId()).getContent());
+        assertEquals(misses + 1, renderedPromptCache.stats().missCount());
+    }
+
+    @Test
+    public void testRenamedTemplateIsNotServedFromCache() {
+        Folder folder = new Folder();
+        folder.setName("Rename Folder");
+        Folder createdFolder = folderService.createFolder(folder, null);
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Original Template");
+        templatePrompt.setPromptContent("Feature: {{featureName}}");
+        TemplatePrompt createdTemplatePrompt = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        Feature feature = new Feature();
+        feature.setName("Renamed");
+        Feature createdFeature = featureService.createFeature(
+                feature, createdFolder.getId(), createdTemplatePrompt.getId(), null, null);
+        templatePromptRepository.flush();
+        assertEquals("Original Template", promptService.renderFeaturePrompt(createdFeature.getId()).getTemplatePromptName());
+
+        // Same content, so only the template's version tells the cached prompt apart
+        TemplatePrompt renamed = new TemplatePrompt();
+        renamed.setName("Renamed Template");
+        renamed.setPromptContent("Feature: {{featureName}}");
+        templatePromptService.updateTemplatePrompt(createdTemplatePrompt.getId(), renamed);
+        templatePromptRepository.flush();
+
+        RenderedPrompt rendered = promptService.renderFeaturePrompt(createdFeature.getId());
+        assertEquals("Renamed Template", rendered.getTemplatePromptName());
+        assertEquals("Feature: Renamed", rendered.getContent());
+    }
+
+    /**
+     * Prompts are rendered on other threads, so the data has to be committed.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testExportFolderPrompts() throws IOException {
+        Folder root = new Folder();
+        root.setName("Export Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+        Folder child = new Folder();
+        child.setName("Child/Folder");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Export Template");
+        templatePrompt.setPromptContent("Build {{featureName}}");
+        TemplatePrompt createdTemplatePrompt = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        try {
+            Feature rootFeature = new Feature();
+            rootFeature.setName("Root Feature");
+            Feature createdRootFeature = featureService.createFeature(
+                    rootFeature, createdRoot.getId(), createdTemplatePrompt.getId(), null, null);
+            Feature childFeature = new Feature();
+            childFeature.setName("Child Feature");
+            Feature createdChildFeature = featureService.createFeature(
+                    childFeature, createdChild.getId(), createdTemplatePrompt.getId(), null, null);
+            Feature untemplated = new Feature();
+            untemplated.setName("Untemplated");
+            featureService.createFeature(untemplated, createdChild.getId(), null, null, null);
+
+            // ZIP: one file per feature with a template, under the sanitized folder names
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            assertEquals(2, promptExportService.exportFolderPrompts(createdRoot, PromptExportFormat.ZIP, zip));
+            List<String> entries = new ArrayList<>();
+            try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()), StandardCharsets.UTF_8)) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    entries.add(entry.getName());
+                    String expected = entries.size() == 1 ? "Build Root Feature" : "Build Child Feature";
+                    assertEquals(expected, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            assertEquals(List.of(
+                    "Export Root/" + createdRootFeature.getId() + "-Root Feature.md",
+                    "Export Root/Child_Folder/" + createdChildFeature.getId() + "-Child Feature.md"), entries);
+
+            // NDJSON: one line per feature, limited to the requested subtree
+            ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+            assertEquals(1, promptExportService.exportFolderPrompts(createdChild, PromptExportFormat.NDJSON, ndjson));
+            String[] lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(1, lines.length);
+            assertTrue(lines[0].contains("\"featureId\":" + createdChildFeature.getId()));
+            assertTrue(lines[0].contains("\"folderPath\":\"Child_Folder\""));
+            assertTrue(lines[0].contains("\"prompt\":\"Build Child Feature\""));
+        } finally {
+            folderService.deleteFolder(createdRoot.getId());
+            templatePromptService.deleteTemplatePrompt(createdTemplatePrompt.getId());
+        }
+    }
+}
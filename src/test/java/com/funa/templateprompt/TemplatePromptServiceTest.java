@@ -0,0 +1,108 @@
+package com.funa.templateprompt;
+
+import com.funa.common.BaseTest;
+import com.funa.common.util.ContentHash;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+public class TemplatePromptServiceTest extends BaseTest {
+
+    @Autowired
+    private TemplatePromptService templatePromptService;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testCreateAndFindTemplatePrompt() {
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Lookup Template");
+        templatePrompt.setPromptContent("Lookup {{featureName}}");
+        TemplatePrompt created = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        assertEquals("Lookup {{featureName}}", templatePromptService.getTemplatePromptById(created.getId()).getPromptContent());
+        List<TemplatePrompt> found = templatePromptService.findTemplatePromptsByName("Lookup");
+        assertEquals(1, found.size());
+        assertEquals(created.getId(), found.get(0).getId());
+    }
+
+    @Test
+    public void testRebuildMissingContentHashes() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            TemplatePrompt templatePrompt = new TemplatePrompt();
+            templatePrompt.setName("Unhashed Template " + i);
+            templatePrompt.setPromptContent("Unhashed {{featureName}} " + i);
+            ids.add(templatePromptService.createTemplatePrompt(templatePrompt).getId());
+        }
+        entityManager.flush();
+        for (Long id : ids) {
+            jdbcTemplate.update("UPDATE tb_template_prompt SET content_hash = NULL WHERE id = ?", id);
+        }
+        entityManager.clear();
+
+        assertEquals(3, templatePromptService.rebuildContentHashesIfMissing());
+        assertEquals(0, templatePromptService.rebuildContentHashesIfMissing());
+        assertEquals(ContentHash.sha256("Unhashed {{featureName}} 2"),
+                jdbcTemplate.queryForObject("SELECT content_hash FROM tb_template_prompt WHERE id = ?", String.class, ids.get(2)));
+    }
+
+    /**
+     * Second-level cache entries are only shared once the transaction that wrote them has committed.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testSecondLevelCache() {
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Cached Template");
+        templatePrompt.setPromptContent("Cached {{featureName}}");
+        TemplatePrompt created = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        try {
+            // Every call below runs in its own session, so repeated reads can only be served by the shared caches
+            long entityHits = hitCount(TemplatePrompt.CACHE_REGION);
+            templatePromptService.getTemplatePromptById(created.getId());
+            templatePromptService.getTemplatePromptById(created.getId());
+            assertTrue(hitCount(TemplatePrompt.CACHE_REGION) > entityHits);
+
+            long queryHits = hitCount(TemplatePrompt.QUERY_CACHE_REGION);
+            assertEquals(1, templatePromptService.findTemplatePromptsByName("Cached Template").size());
+            assertEquals(1, templatePromptService.findTemplatePromptsByName("Cached Template").size());
+            assertTrue(hitCount(TemplatePrompt.QUERY_CACHE_REGION) > queryHits);
+
+            // An update through Hibernate is visible to the next read
+            TemplatePrompt updatedData = new TemplatePrompt();
+            updatedData.setName("Cached Template");
+            updatedData.setPromptContent("Updated {{featureName}}");
+            templatePromptService.updateTemplatePrompt(created.getId(), updatedData);
+            assertEquals("Updated {{featureName}}", templatePromptService.getTemplatePromptById(created.getId()).getPromptContent());
+        } finally {
+            templatePromptService.deleteTemplatePrompt(created.getId());
+        }
+        assertTrue(templatePromptService.findTemplatePromptsByName("Cached Template").isEmpty());
+    }
+
+    private long hitCount(String region) {
+        return hibernateCacheManager.getCache(region)
+                .unwrap(com.github.benmanes.caffeine.cache.Cache.class)
+                .stats()
+                .hitCount();
+    }
+}
@@ -0,0 +1,112 @@
+package com.funa.workspace;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.funa.common.BaseTest;
+import com.funa.common.exception.ValidationException;
+import com.funa.feature.Feature;
+import com.funa.feature.FeatureRepository;
+import com.funa.feature.FeatureService;
+import com.funa.folder.Folder;
+import com.funa.folder.FolderRepository;
+import com.funa.folder.FolderService;
+import com.funa.templateprompt.TemplatePrompt;
+import com.funa.templateprompt.TemplatePromptService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+public class WorkspaceServiceTest extends BaseTest {
+
+    @Autowired
+    private WorkspaceService workspaceService;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private FeatureService featureService;
+
+    @Autowired
+    private FeatureRepository featureRepository;
+
+    @Autowired
+    private TemplatePromptService templatePromptService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testExportAndImportWorkspace() throws IOException {
+        Folder root = new Folder();
+        root.setName("Workspace Root");
+        Folder createdRoot = folderService.createFolder(root, null);
+        Folder child = new Folder();
+        child.setName("Workspace Child");
+        Folder createdChild = folderService.createFolder(child, createdRoot.getId());
+
+        TemplatePrompt templatePrompt = new TemplatePrompt();
+        templatePrompt.setName("Workspace Template");
+        templatePrompt.setPromptContent("Build {{featureName}}");
+        TemplatePrompt createdTemplatePrompt = templatePromptService.createTemplatePrompt(templatePrompt);
+
+        Feature feature = new Feature();
+        feature.setName("Workspace Feature");
+        featureService.createFeature(feature, createdChild.getId(), createdTemplatePrompt.getId(),
+                "Workspace Diagram", "A->>B: call", "Workspace Query", "SELECT 1");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        workspaceService.exportWorkspace(out);
+        JsonNode document = objectMapper.readTree(out.toByteArray());
+        assertEquals(WorkspaceService.FORMAT_VERSION, document.get("version").asInt());
+
+        WorkspaceImportResult result = workspaceService.importWorkspace(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(document.get("templatePrompts").size(), result.getTemplatePrompts());
+        assertEquals(document.get("sequenceDiagrams").size(), result.getSequenceDiagrams());
+        assertEquals(document.get("sqlQueries").size(), result.getSqlQueries());
+        assertEquals(document.get("folders").size(), result.getFolders());
+        assertEquals(document.get("features").size(), result.getFeatures());
+
+        // The imported copies get new IDs, materialized paths and remapped references
+        List<Folder> children = folderRepository.findByNameContaining("Workspace Child");
+        assertEquals(2, children.size());
+        Folder importedChild = children.stream().filter(folder -> !folder.getId().equals(createdChild.getId())).findFirst().orElseThrow();
+        Folder importedRoot = importedChild.getParent();
+        assertNotEquals(createdRoot.getId(), importedRoot.getId());
+        assertEquals("/" + importedRoot.getId() + "/", importedRoot.getPath());
+        assertEquals(importedRoot.getPath() + importedChild.getId() + "/", importedChild.getPath());
+
+        List<Feature> importedFeatures = featureRepository.findByFolder(importedChild);
+        assertEquals(1, importedFeatures.size());
+        Feature importedFeature = importedFeatures.get(0);
+        assertEquals("Workspace Feature", importedFeature.getName());
+        assertNotEquals(createdTemplatePrompt.getId(), importedFeature.getTemplatePrompt().getId());
+        assertEquals("Build {{featureName}}", importedFeature.getTemplatePrompt().getPromptContent());
+        assertEquals(64, importedFeature.getTemplatePrompt().getContentHash().length());
+        assertEquals("SELECT 1", importedFeature.getSqlQuery().getQueryContent());
+        assertNotNull(importedFeature.getSequenceDiagram().getCreatedAt());
+    }
+
+    @Test
+    public void testImportWorkspaceWithUnknownReference() {
+        String document = "{\"version\":1,\"folders\":[],\"features\":[{\"id\":1,\"name\":\"Orphan\",\"folderId\":42}]}";
+        assertThrows(ValidationException.class,
+                () -> workspaceService.importWorkspace(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))));
+
+        String unsupported = "{\"version\":99}";
+        assertThrows(ValidationException.class,
+                () -> workspaceService.importWorkspace(new ByteArrayInputStream(unsupported.getBytes(StandardCharsets.UTF_8))));
+    }
+}